@@ -0,0 +1,75 @@
+import bench.BMIBenchmarkTarget;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Class Program.BMIBenchmarkTargetImpl adalah implementasi bench.BMIBenchmarkTarget yang
+ * meneruskan setiap panggilan benchmark ke kelas aplikasi.
+ */
+public class BMIBenchmarkTargetImpl implements BMIBenchmarkTarget {
+
+    @Override
+    public Object calculate(double height, double weight) {
+        return BMIRecord.calculate(height, weight);
+    }
+
+    @Override
+    public int classify(double[] heights, double[] weights, double[] bmis, byte[] categories) {
+        return BMICategory.classify(heights, weights, bmis, categories);
+    }
+
+    @Override
+    public Object newRecord(long timestamp, double height, double weight, double bmi, String recommendation) {
+        return new BMIRecord(timestamp, height, weight, bmi, recommendation);
+    }
+
+    @Override
+    public String formatDateTime(Object record) {
+        BMIRecord bmiRecord = (BMIRecord) record;
+        return bmiRecord.getDate() + " " + bmiRecord.getTime();
+    }
+
+    @Override
+    public String compareProgress(Object record, Object previousRecord) {
+        return ((BMIRecord) record).compareProgress((BMIRecord) previousRecord);
+    }
+
+    @Override
+    public Closeable openManager(File directory) {
+        return new BMIRecordsManager(directory);
+    }
+
+    @Override
+    public void addRecord(Closeable manager, Object record) {
+        ((BMIRecordsManager) manager).addRecord((BMIRecord) record);
+    }
+
+    @Override
+    public void addRecordDurably(Closeable manager, Object record) {
+        ((BMIRecordsManager) manager).addRecordAsync((BMIRecord) record).join();
+    }
+
+    @Override
+    public int getTotalRecords(Closeable manager) {
+        return ((BMIRecordsManager) manager).getTotalRecords();
+    }
+
+    @Override
+    public void createDocx(File file, String title) throws IOException {
+        BMIDocxReport.create(file, title);
+    }
+
+    @Override
+    public void exportDocx(File file, String title, File image, List<String> lines) throws IOException {
+        BMIDocxTemplate template = image != null ? BMIDocxTemplate.forImage(image) : BMIDocxTemplate.getDefault();
+        BMIDocxReport.create(file, title, template, lines);
+    }
+
+    @Override
+    public boolean updateDocx(Closeable manager, File file, Object record) {
+        return ((BMIRecordsManager) manager).updateDocx(file.getPath(), (BMIRecord) record);
+    }
+}
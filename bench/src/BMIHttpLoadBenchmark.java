@@ -0,0 +1,179 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Class Program.BMIHttpLoadBenchmark mengukur throughput dan latensi Program.BMIHttpServer melalui localhost.
+ * <p>
+ * Setiap klien mengirim campuran request: 1 dari 10 request menambah data ({@code POST /records}),
+ * sisanya membaca progres ({@code GET /progress}) dan halaman data terbaru ({@code GET /records}).
+ * Koneksi memakai keep-alive bawaan HttpURLConnection.
+ * <p>
+ * Penggunaan: {@code java BMIHttpLoadBenchmark [klien] [detik] [urlServer]}
+ * (bawaan 64 klien selama 10 detik). Jika URL tidak diberikan, server dijalankan sendiri
+ * dengan folder data sementara. Request yang gagal (status 4xx/5xx atau error koneksi) dihitung dan
+ * error pertama ditampilkan di ringkasan; program keluar dengan status 1 jika ada request yang gagal.
+ */
+public class BMIHttpLoadBenchmark {
+    private static final int USERS = 32; // Jumlah pengguna yang dipakai bergantian
+
+    /**
+     * Main method untuk menjalankan uji beban.
+     *
+     * @param args Jumlah klien, durasi (detik) dan URL server (opsional).
+     * @throws Exception jika server tidak dapat dijalankan.
+     */
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        BMIRecordsService service = null;
+        BMIHttpServer server = null;
+        String baseUrl;
+        if (args.length > 2) {
+            baseUrl = args[2];
+        } else {
+            File directory = Files.createTempDirectory("bmi-http-load").toFile();
+            service = new BMIRecordsService(directory);
+            server = new BMIHttpServer(service, new InetSocketAddress("127.0.0.1", 0));
+            server.start();
+            baseUrl = "http://127.0.0.1:" + server.getPort();
+        }
+        System.setProperty("http.maxConnections", String.valueOf(clients));
+
+        try {
+            // Isi awal agar setiap pengguna punya data
+            for (int user = 0; user < USERS; user++) {
+                for (int i = 0; i < 20; i++) {
+                    send(baseUrl, "POST", "/users/load" + user + "/records", body(i));
+                }
+            }
+
+            AtomicLong failures = new AtomicLong();
+            AtomicReference<String> firstError = new AtomicReference<>(); // Error koneksi pertama
+            long[][] latencies = new long[clients][];
+            int[] counts = new int[clients];
+            long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+            CountDownLatch done = new CountDownLatch(clients);
+            long start = System.nanoTime();
+            for (int c = 0; c < clients; c++) {
+                final int client = c;
+                Thread thread = new Thread(() -> {
+                    long[] samples = new long[1 << 16];
+                    int n = 0;
+                    try {
+                        for (int i = 0; System.nanoTime() < deadline; i++) {
+                            String user = "/users/load" + ((client + i) % USERS);
+                            long requestStart = System.nanoTime();
+                            int status;
+                            try {
+                                if (i % 10 == 0) {
+                                    status = send(baseUrl, "POST", user + "/records", body(i));
+                                } else if (i % 2 == 0) {
+                                    status = send(baseUrl, "GET", user + "/progress", null);
+                                } else {
+                                    status = send(baseUrl, "GET", user + "/records?offset=0&limit=10", null);
+                                }
+                            } catch (IOException e) {
+                                failures.incrementAndGet();
+                                firstError.compareAndSet(null, e.toString());
+                                continue;
+                            }
+                            if (status >= 400) {
+                                failures.incrementAndGet();
+                            }
+                            if (n == samples.length) {
+                                samples = Arrays.copyOf(samples, n * 2);
+                            }
+                            samples[n++] = System.nanoTime() - requestStart;
+                        }
+                    } finally {
+                        latencies[client] = samples;
+                        counts[client] = n;
+                        done.countDown();
+                    }
+                }, "bmi-load-" + c);
+                thread.start();
+            }
+            done.await();
+            double elapsed = (System.nanoTime() - start) / 1e9;
+
+            int total = 0;
+            for (int count : counts) {
+                total += count;
+            }
+            long[] all = new long[total];
+            int position = 0;
+            for (int c = 0; c < clients; c++) {
+                System.arraycopy(latencies[c], 0, all, position, counts[c]);
+                position += counts[c];
+            }
+            Arrays.sort(all);
+            System.out.printf("%,d request dalam %.1f detik oleh %d klien: %,.0f request/detik, gagal %d%n",
+                    total, elapsed, clients, total / elapsed, failures.get());
+            if (total > 0) {
+                System.out.printf("Latensi p50 %.2f ms, p99 %.2f ms, maks %.2f ms%n",
+                        percentile(all, 0.50) / 1e6, percentile(all, 0.99) / 1e6, all[total - 1] / 1e6);
+            }
+            if (firstError.get() != null) {
+                System.out.println("Error pertama: " + firstError.get());
+            }
+            if (failures.get() > 0) {
+                System.exit(1);
+            }
+        } finally {
+            if (server != null) {
+                server.close();
+                service.close();
+            }
+        }
+    }
+
+    private static String body(int i) {
+        return "{\"height\": " + (160 + i % 30) + ", \"weight\": " + (50 + i % 40) + "}";
+    }
+
+    /**
+     * Mengirim satu request dan membaca seluruh response agar koneksi dapat dipakai ulang.
+     */
+    private static int send(String baseUrl, String method, String path, String body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+        connection.setRequestMethod(method);
+        if (body != null) {
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            connection.setDoOutput(true);
+            connection.setFixedLengthStreamingMode(bytes.length);
+            connection.setRequestProperty("Content-Type", "application/json");
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(bytes);
+            }
+        }
+        int status = connection.getResponseCode();
+        try (InputStream in = status >= 400 ? connection.getErrorStream() : connection.getInputStream()) {
+            if (in != null) {
+                drain(in);
+            }
+        }
+        return status;
+    }
+
+    private static void drain(InputStream in) throws IOException {
+        byte[] buffer = new byte[8192];
+        while (in.read(buffer) > 0) {
+            // Isi response tidak diperlukan
+        }
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)];
+    }
+}
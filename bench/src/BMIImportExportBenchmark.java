@@ -0,0 +1,162 @@
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Class Program.BMIImportExportBenchmark mengukur throughput impor dan ekspor riwayat BMI
+ * dalam format CSV dan XLSX, serta simpan dan muat format biner Program.BMIRecordCodec
+ * dibandingkan dengan Java serialization, serta klasifikasi BMI secara batch, lalu membandingkannya
+ * dengan target minimal.
+ * <p>
+ * Penggunaan: {@code java BMIImportExportBenchmark [jumlahData]} (bawaan 1.000.000 data).
+ * Program keluar dengan status 1 jika ada throughput yang berada di bawah target.
+ */
+public class BMIImportExportBenchmark {
+    private static final double CSV_TARGET = 100_000;  // Target minimal CSV (data/detik)
+    private static final double XLSX_TARGET = 20_000;  // Target minimal XLSX (data/detik)
+    private static final double BINARY_TARGET = 1_000_000; // Target minimal format biner (data/detik)
+    private static final double CLASSIFY_TARGET = 50_000_000; // Target minimal klasifikasi batch (data/detik)
+
+    private static boolean belowTarget; // Menandai ada hasil di bawah target
+
+    /**
+     * Main method untuk menjalankan benchmark.
+     *
+     * @param args Argumen opsional berupa jumlah data.
+     * @throws IOException jika file sementara gagal dibaca atau ditulis.
+     */
+    public static void main(String[] args) throws IOException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        List<BMIRecord> records = syntheticRecords(count);
+        File csv = File.createTempFile("bmi-benchmark", ".csv");
+        File xlsx = File.createTempFile("bmi-benchmark", ".xlsx");
+        try {
+            long start = System.nanoTime();
+            try (Writer writer = Files.newBufferedWriter(csv.toPath(), StandardCharsets.UTF_8)) {
+                BMIRecordsCsv.exportRecords(records, writer);
+            }
+            report("Ekspor CSV", count, start, CSV_TARGET);
+
+            long[] imported = new long[1];
+            start = System.nanoTime();
+            try (Reader reader = Files.newBufferedReader(csv.toPath(), StandardCharsets.UTF_8)) {
+                BMIRecordsCsv.importRecords(reader, record -> imported[0]++);
+            }
+            report("Impor CSV", imported[0], start, CSV_TARGET);
+
+            start = System.nanoTime();
+            BMIRecordsXlsx.exportRecords(records, xlsx);
+            report("Ekspor XLSX", count, start, XLSX_TARGET);
+
+            imported[0] = 0;
+            start = System.nanoTime();
+            BMIRecordsXlsx.importRecords(xlsx, record -> imported[0]++);
+            report("Impor XLSX", imported[0], start, XLSX_TARGET);
+
+            benchmarkBinary(records);
+            benchmarkClassification(count);
+        } finally {
+            csv.delete();
+            xlsx.delete();
+        }
+        if (belowTarget) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Membuat data sintetis sebelum pengukuran dimulai, sehingga waktu pembuatan objek
+     * tidak ikut terhitung dalam throughput ekspor.
+     *
+     * @param count Jumlah data.
+     * @return Daftar Program.BMIRecord sintetis.
+     */
+    private static List<BMIRecord> syntheticRecords(int count) {
+        long start = 1_700_000_000_000L;
+        List<BMIRecord> records = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            double height = 150 + i % 40;
+            double weight = 45 + i % 60;
+            double bmi = BMICategory.computeBmi(height, weight);
+            records.add(new BMIRecord(start + i * 60_000L, height, weight, bmi, BMICategory.of(bmi).getRecommendation()));
+        }
+        return records;
+    }
+
+    /**
+     * Membandingkan waktu simpan, waktu muat, dan ukuran file antara format biner
+     * Program.BMIRecordCodec dan Java serialization.
+     *
+     * @param records Data yang akan disimpan.
+     * @throws IOException jika file sementara gagal dibaca atau ditulis.
+     */
+    private static void benchmarkBinary(List<BMIRecord> records) throws IOException {
+        Path binary = Files.createTempFile("bmi-benchmark", ".bin");
+        Path serialized = Files.createTempFile("bmi-benchmark", ".ser");
+        try {
+            long start = System.nanoTime();
+            BMIRecordCodec.save(binary, records);
+            report("Simpan biner", records.size(), start, BINARY_TARGET);
+
+            start = System.nanoTime();
+            int loaded = BMIRecordCodec.load(binary).size();
+            report("Muat biner", loaded, start, BINARY_TARGET);
+
+            start = System.nanoTime();
+            try (ObjectOutputStream oos = new ObjectOutputStream(new BufferedOutputStream(Files.newOutputStream(serialized)))) {
+                oos.writeObject(new ArrayList<>(records));
+            }
+            report("Simpan serial", records.size(), start, 0);
+
+            start = System.nanoTime();
+            loaded = BMIRecordCodec.readLegacy(Files.readAllBytes(serialized)).size();
+            report("Muat serial", loaded, start, 0);
+
+            System.out.printf("Ukuran file: biner %,d byte, serialization %,d byte (%.1fx lebih kecil)%n",
+                    Files.size(binary), Files.size(serialized), (double) Files.size(serialized) / Files.size(binary));
+        } finally {
+            Files.deleteIfExists(binary);
+            Files.deleteIfExists(serialized);
+        }
+    }
+
+    /**
+     * Mengukur perhitungan BMI dan kategori secara batch dengan Program.BMICategory#classify
+     * pada array primitif, seperti saat menilai data hasil impor massal.
+     *
+     * @param count Jumlah pengukuran.
+     */
+    private static void benchmarkClassification(int count) {
+        double[] heights = new double[count];
+        double[] weights = new double[count];
+        for (int i = 0; i < count; i++) {
+            heights[i] = 150 + i % 40;
+            weights[i] = 45 + i % 60;
+        }
+        double[] bmis = new double[count];
+        byte[] categories = new byte[count];
+        for (int warmup = 0; warmup < 5; warmup++) {
+            BMICategory.classify(heights, weights, bmis, categories);
+        }
+        long start = System.nanoTime();
+        BMICategory.classify(heights, weights, bmis, categories);
+        report("Klasifikasi", count, start, CLASSIFY_TARGET);
+    }
+
+    private static void report(String name, long count, long startNanos, double target) {
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        double throughput = count / seconds;
+        boolean ok = throughput >= target;
+        belowTarget |= !ok;
+        System.out.printf("%-12s %,10d data  %8.2f s  %,12.0f data/detik  (target %,.0f) %s%n",
+                name, count, seconds, throughput, target, ok ? "OK" : "DI BAWAH TARGET");
+    }
+}
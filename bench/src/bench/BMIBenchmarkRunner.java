@@ -0,0 +1,44 @@
+package bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Class bench.BMIBenchmarkRunner menjalankan semua benchmark JMH dengan GC profiler
+ * (laju alokasi, byte per operasi, jumlah dan waktu GC) dan menyimpan hasilnya sebagai JSON
+ * sebagai baseline untuk dibandingkan antar versi.
+ * <p>
+ * Penggunaan: {@code java bench.BMIBenchmarkRunner [opsi JMH]}, misalnya
+ * {@code java bench.BMIBenchmarkRunner BMIRecordBenchmark -p size=1000} untuk menjalankan sebagian.
+ */
+public class BMIBenchmarkRunner {
+
+    /**
+     * Main method untuk menjalankan benchmark.
+     *
+     * @param args Opsi baris perintah JMH (opsional).
+     * @throws RunnerException            jika benchmark gagal dijalankan.
+     * @throws CommandLineOptionException jika opsi tidak valid.
+     */
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        OptionsBuilder builder = new OptionsBuilder();
+        if (commandLine.getIncludes().isEmpty()) {
+            builder.include("bench\\.BMI.*Benchmark");
+        }
+        Options options = builder
+                .parent(commandLine)
+                .addProfiler(GCProfiler.class)
+                .jvmArgsAppend("-Xms2g", "-Xmx2g")
+                .resultFormat(ResultFormatType.JSON)
+                .result("jmh-result.json")
+                .build();
+        new Runner(options).run();
+    }
+}
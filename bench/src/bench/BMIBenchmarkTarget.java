@@ -0,0 +1,91 @@
+package bench;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Interface bench.BMIBenchmarkTarget menjembatani benchmark JMH dengan kelas aplikasi.
+ * <p>
+ * JMH tidak dapat membuat benchmark di default package, sedangkan kelas dari package bernama
+ * tidak dapat mengimpor kelas di default package. Karena itu benchmark memanggil aplikasi melalui
+ * interface ini, yang diimplementasikan oleh BMIBenchmarkTargetImpl di default package dan dimuat
+ * sekali saat setup. Hanya ada satu implementasi, sehingga JIT dapat meng-inline setiap panggilan.
+ */
+public interface BMIBenchmarkTarget {
+
+    /**
+     * Memuat implementasi yang berada di default package.
+     *
+     * @return Implementasi interface ini.
+     */
+    static BMIBenchmarkTarget load() {
+        try {
+            return (BMIBenchmarkTarget) Class.forName("BMIBenchmarkTargetImpl").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("BMIBenchmarkTargetImpl tidak ditemukan.", e);
+        }
+    }
+
+    /**
+     * Menghitung BMI dan membuat BMIRecord baru seperti tombol "Tambah Data".
+     */
+    Object calculate(double height, double weight);
+
+    /**
+     * Menghitung BMI dan kode kategori untuk array pengukuran melalui BMICategory.classify.
+     */
+    int classify(double[] heights, double[] weights, double[] bmis, byte[] categories);
+
+    /**
+     * Membuat BMIRecord dengan nilai yang sudah dihitung.
+     */
+    Object newRecord(long timestamp, double height, double weight, double bmi, String recommendation);
+
+    /**
+     * Mengembalikan tanggal dan jam data seperti yang ditampilkan di tabel.
+     */
+    String formatDateTime(Object record);
+
+    /**
+     * Membandingkan progres data terbaru dengan data sebelumnya.
+     */
+    String compareProgress(Object record, Object previousRecord);
+
+    /**
+     * Membuka BMIRecordsManager pada folder tertentu (memuat snapshot dan journal).
+     */
+    Closeable openManager(File directory);
+
+    /**
+     * Menambahkan data tanpa menunggu penyimpanan ke disk.
+     */
+    void addRecord(Closeable manager, Object record);
+
+    /**
+     * Menambahkan data dan menunggu sampai tersimpan di disk.
+     */
+    void addRecordDurably(Closeable manager, Object record);
+
+    /**
+     * Mengembalikan jumlah data dalam manajer.
+     */
+    int getTotalRecords(Closeable manager);
+
+    /**
+     * Membuat laporan DOCX kosong dengan judul tertentu.
+     */
+    void createDocx(File file, String title) throws IOException;
+
+    /**
+     * Mengekspor laporan DOCX baru berisi judul dan satu paragraf dari template yang di-cache.
+     * Jika image null, template tanpa gambar yang dipakai.
+     */
+    void exportDocx(File file, String title, File image, List<String> lines) throws IOException;
+
+    /**
+     * Menambahkan data terbaru ke laporan DOCX melalui BMIRecordsManager.updateDocx.
+     */
+    boolean updateDocx(Closeable manager, File file, Object record);
+}
@@ -0,0 +1,79 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Class bench.BMIDocxBenchmark mengukur ekspor DOCX melalui BMIRecordsManager.updateDocx
+ * pada laporan yang sudah berisi sejumlah paragraf.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BMIDocxBenchmark {
+    @Param({"10", "1000"})
+    public int paragraphs;
+
+    private BMIBenchmarkTarget target; // Jembatan ke kelas aplikasi
+    private Path directory;            // Folder sementara untuk data dan laporan
+    private Closeable manager;         // Manajer yang menulis laporan
+    private File report;               // File laporan DOCX
+    private Object record;             // Data yang ditambahkan ke laporan
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        target = BMIBenchmarkTarget.load();
+        directory = Files.createTempDirectory("bmi-jmh-docx");
+        manager = target.openManager(directory.toFile());
+        target.addRecordDurably(manager, target.calculate(170, 85));
+        record = target.calculate(170, 80);
+        report = directory.resolve("laporan.docx").toFile();
+    }
+
+    /**
+     * Membuat ulang laporan di setiap iterasi agar ukuran dokumen tidak terus bertambah.
+     */
+    @Setup(Level.Iteration)
+    public void createReport() throws IOException {
+        target.createDocx(report, "Laporan Progres BMI");
+        for (int i = 0; i < paragraphs; i++) {
+            target.updateDocx(manager, report, record);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        manager.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Benchmark
+    public boolean updateDocx() {
+        return target.updateDocx(manager, report, record);
+    }
+}
@@ -0,0 +1,68 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Class bench.BMIDocxExportBenchmark mengukur ekspor laporan DOCX baru dari template yang di-cache,
+ * dengan dan tanpa gambar rekomendasi. Gambar diambil dari "gambar diet.jpg" di folder kerja.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BMIDocxExportBenchmark {
+    @Param({"true", "false"})
+    public boolean picture;
+
+    private BMIBenchmarkTarget target; // Jembatan ke kelas aplikasi
+    private Path directory;            // Folder sementara untuk laporan
+    private File report;               // File laporan DOCX
+    private File image;                // Gambar template, atau null
+    private List<String> lines;        // Paragraf pertama laporan
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        target = BMIBenchmarkTarget.load();
+        directory = Files.createTempDirectory("bmi-jmh-export");
+        report = directory.resolve("laporan.docx").toFile();
+        image = picture ? new File("gambar diet.jpg") : null;
+        lines = Arrays.asList("Tanggal: 2024-12-23", "Jam: 05:52:21", "Tinggi: 170 cm", "Berat: 80 kg",
+                "BMI: 27,68", "Rekomendasi: Diet");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Benchmark
+    public void exportDocx() throws IOException {
+        target.exportDocx(report, "Rekomendasi BMI", image, lines);
+    }
+}
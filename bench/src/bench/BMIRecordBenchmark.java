@@ -0,0 +1,99 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class bench.BMIRecordBenchmark mengukur operasi per data: perhitungan BMI, pembuatan
+ * BMIRecord, format tanggal/jam, compareProgress, dan klasifikasi batch.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BMIRecordBenchmark {
+    private static final int BATCH_SIZE = 1024; // Jumlah pengukuran per panggilan batch
+
+    private BMIBenchmarkTarget target; // Jembatan ke kelas aplikasi
+    private Object diet;               // Data sebelumnya dengan rekomendasi Diet
+    private Object bulking;            // Data sebelumnya dengan rekomendasi Bulking
+    private Object current;            // Data terbaru yang dibandingkan
+    private double height;             // Input tinggi (field agar tidak dilipat menjadi konstanta)
+    private double weight;             // Input berat
+    private double[] heights;          // Input batch tinggi
+    private double[] weights;          // Input batch berat
+    private double[] bmis;             // Hasil batch BMI
+    private byte[] categories;         // Hasil batch kode kategori
+
+    @Setup
+    public void setUp() {
+        target = BMIBenchmarkTarget.load();
+        diet = target.calculate(170, 85);
+        bulking = target.calculate(170, 45);
+        current = target.calculate(170, 80);
+        height = 170;
+        weight = 65;
+        heights = new double[BATCH_SIZE];
+        weights = new double[BATCH_SIZE];
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            heights[i] = 150 + i % 40;
+            weights[i] = 45 + i % 60;
+        }
+        bmis = new double[BATCH_SIZE];
+        categories = new byte[BATCH_SIZE];
+    }
+
+    /**
+     * Validasi, perhitungan BMI dan klasifikasi seperti tombol "Tambah Data".
+     */
+    @Benchmark
+    public Object calculate() {
+        return target.calculate(height, weight);
+    }
+
+    /**
+     * Pembuatan data lalu format tanggal dan jam, seperti saat data ditampilkan di tabel.
+     */
+    @Benchmark
+    public String calculateAndFormat() {
+        return target.formatDateTime(target.calculate(height, weight));
+    }
+
+    /**
+     * Format tanggal dan jam data yang sudah ada.
+     */
+    @Benchmark
+    public String formatExisting() {
+        return target.formatDateTime(target.newRecord(System.currentTimeMillis(), height, weight, 22.49, "Ideal"));
+    }
+
+    @Benchmark
+    public String compareProgressDiet() {
+        return target.compareProgress(current, diet);
+    }
+
+    @Benchmark
+    public String compareProgressBulking() {
+        return target.compareProgress(current, bulking);
+    }
+
+    /**
+     * Klasifikasi 1024 pengukuran dalam array primitif (waktu per panggilan, bukan per data).
+     */
+    @Benchmark
+    public int classifyBatch() {
+        return target.classify(heights, weights, bmis, categories);
+    }
+}
@@ -0,0 +1,152 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Class bench.BMIRecordsManagerBenchmark mengukur BMIRecordsManager pada 1.000, 100.000 dan
+ * 1.000.000 data: memasukkan data ke antrian penyimpanan, menambah data sampai tersimpan di disk,
+ * dan memuat ulang seluruh data dari folder. Benchmark penambahan memakai salinan folder data
+ * yang dibuat ulang setiap iterasi, sehingga jumlah data selalu sesuai parameter size.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BMIRecordsManagerBenchmark {
+
+    /**
+     * Folder data berisi sejumlah data yang dibuat sekali per trial dan tidak pernah diubah.
+     */
+    @State(Scope.Benchmark)
+    public static class Dataset {
+        @Param({"1000", "100000", "1000000"})
+        public int size;
+
+        BMIBenchmarkTarget target; // Jembatan ke kelas aplikasi
+        Path directory;            // Folder data sementara
+
+        @Setup(Level.Trial)
+        public void populate() throws IOException {
+            target = BMIBenchmarkTarget.load();
+            directory = Files.createTempDirectory("bmi-jmh");
+            long timestamp = 1_700_000_000_000L;
+            try (Closeable manager = target.openManager(directory.toFile())) {
+                for (int i = 0; i < size - 1; i++) {
+                    target.addRecord(manager, record(target, timestamp + i * 3_600_000L, i));
+                }
+                target.addRecordDurably(manager, record(target, timestamp + size * 3_600_000L, size));
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void delete() throws IOException {
+            deleteDirectory(directory);
+        }
+    }
+
+    /**
+     * Manajer yang dibuka dari salinan Dataset untuk setiap iterasi pengukuran. Data yang ditambahkan
+     * selama iterasi hanya masuk ke salinan, yang dihapus setelah iterasi selesai.
+     */
+    @State(Scope.Benchmark)
+    public static class OpenManager {
+        BMIBenchmarkTarget target; // Jembatan ke kelas aplikasi
+        Path directory;            // Salinan folder data untuk iterasi ini
+        Closeable manager;         // Manajer yang sedang dibuka
+        Object record;             // Data yang ditambahkan
+
+        @Setup(Level.Iteration)
+        public void open(Dataset dataset) throws IOException {
+            target = dataset.target;
+            directory = Files.createTempDirectory("bmi-jmh-iteration");
+            try (Stream<Path> files = Files.walk(dataset.directory)) {
+                for (Path source : (Iterable<Path>) files::iterator) {
+                    Path copy = directory.resolve(dataset.directory.relativize(source).toString());
+                    if (Files.isDirectory(source)) {
+                        Files.createDirectories(copy);
+                    } else {
+                        Files.copy(source, copy);
+                    }
+                }
+            }
+            manager = target.openManager(directory.toFile());
+            record = target.calculate(170, 80);
+        }
+
+        @TearDown(Level.Iteration)
+        public void close() throws IOException {
+            try {
+                manager.close();
+            } finally {
+                deleteDirectory(directory);
+            }
+        }
+    }
+
+    private static void deleteDirectory(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    private static Object record(BMIBenchmarkTarget target, long timestamp, int i) {
+        double height = 150 + i % 40;
+        double weight = 45 + i % 60;
+        double bmi = weight / ((height / 100) * (height / 100));
+        return target.newRecord(timestamp, height, weight, bmi, bmi < 18.5 ? "Bulking" : bmi > 25 ? "Diet" : "Ideal");
+    }
+
+    /**
+     * Mengukur latensi memasukkan data ke antrian penyimpanan (write-behind): data ditambahkan ke
+     * memori dan entri journal diantrikan tanpa menunggu ditulis. Jika antrian penuh, hasil ini
+     * juga mencakup waktu menunggu (backpressure) dari penulis journal.
+     */
+    @Benchmark
+    public void enqueueAdd(OpenManager state) {
+        state.target.addRecord(state.manager, state.record);
+    }
+
+    /**
+     * Menambah data dan menunggu sampai tersimpan di disk (termasuk fsync).
+     */
+    @Benchmark
+    public void addAndSave(OpenManager state) {
+        state.target.addRecordDurably(state.manager, state.record);
+    }
+
+    /**
+     * Memuat seluruh data dari snapshot dan journal.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 3)
+    @Measurement(iterations = 10)
+    public int load(Dataset dataset) throws IOException {
+        try (Closeable manager = dataset.target.openManager(dataset.directory.toFile())) {
+            return dataset.target.getTotalRecords(manager);
+        }
+    }
+}
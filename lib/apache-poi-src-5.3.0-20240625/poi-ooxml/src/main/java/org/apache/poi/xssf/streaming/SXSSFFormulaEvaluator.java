@@ -84,6 +84,11 @@ public final class SXSSFFormulaEvaluator extends BaseXSSFFormulaEvaluator {
         return new SXSSFEvaluationCell((SXSSFCell)cell);
     }
 
+    @Override
+    protected SXSSFCell toCell(EvaluationCell evaluationCell) {
+        return ((SXSSFEvaluationCell)evaluationCell).getSXSSFCell();
+    }
+
     @Override
     public SXSSFCell evaluateInCell(Cell cell) {
         return (SXSSFCell) super.evaluateInCell(cell);
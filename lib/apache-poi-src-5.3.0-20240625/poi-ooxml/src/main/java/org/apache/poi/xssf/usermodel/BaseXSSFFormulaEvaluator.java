@@ -47,11 +47,6 @@ public abstract class BaseXSSFFormulaEvaluator extends BaseFormulaEvaluator {
         return new XSSFRichTextString(str);
     }
 
-    /**
-     * Turns a XSSFCell / SXSSFCell into a XSSFEvaluationCell
-     */
-    protected abstract EvaluationCell toEvaluationCell(Cell cell);
-
     /**
      * Returns a CellValue wrapper around the supplied ValueEval instance.
      */
@@ -112,4 +112,9 @@ public final class XSSFFormulaEvaluator extends BaseXSSFFormulaEvaluator {
 
         return new XSSFEvaluationCell((XSSFCell)cell);
     }
+
+    @Override
+    protected XSSFCell toCell(EvaluationCell evaluationCell) {
+        return ((XSSFEvaluationCell)evaluationCell).getXSSFCell();
+    }
 }
@@ -21,6 +21,7 @@ import java.util.Map;
 
 import org.apache.poi.ss.formula.BaseFormulaEvaluator;
 import org.apache.poi.ss.formula.CollaboratingWorkbooksEnvironment;
+import org.apache.poi.ss.formula.EvaluationCell;
 import org.apache.poi.ss.formula.IStabilityClassifier;
 import org.apache.poi.ss.formula.WorkbookEvaluator;
 import org.apache.poi.ss.formula.eval.BoolEval;
@@ -217,6 +218,16 @@ public class HSSFFormulaEvaluator extends BaseFormulaEvaluator {
         throw new IllegalStateException("Unexpected eval class (" + eval.getClass().getName() + ")");
     }
 
+    @Override
+    protected EvaluationCell toEvaluationCell(Cell cell) {
+        return new HSSFEvaluationCell((HSSFCell)cell);
+    }
+
+    @Override
+    protected HSSFCell toCell(EvaluationCell evaluationCell) {
+        return ((HSSFEvaluationCell)evaluationCell).getHSSFCell();
+    }
+
     @Override
     public void setIgnoreMissingWorkbooks(boolean ignore){
         _bookEvaluator.setIgnoreMissingWorkbooks(ignore);
@@ -0,0 +1,184 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.ss.formula;
+
+import java.util.function.IntFunction;
+
+import org.apache.poi.ss.formula.ColumnValues.Slice;
+import org.apache.poi.ss.formula.eval.BlankEval;
+import org.apache.poi.ss.formula.eval.BoolEval;
+import org.apache.poi.ss.formula.eval.ErrorEval;
+import org.apache.poi.ss.formula.eval.NumberEval;
+import org.apache.poi.ss.formula.eval.StringEval;
+import org.apache.poi.ss.formula.eval.ValueEval;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.util.Internal;
+
+/**
+ * The values of an area of a sheet, stored column by column in primitive arrays. Aggregate functions
+ * ({@code SUM}, {@code COUNT}, {@code COUNTIF}, {@code SUMIFS}, ...) use it to loop over large
+ * areas without evaluating and tracking every cell separately.
+ * <p>
+ * Area values are cached in the {@link EvaluationCache} per book, sheet and area and are only available
+ * for areas which contain plain values only (formula results may change without the area being notified).
+ * The columns are shared between all cached areas, so overlapping and growing areas like
+ * {@code $A$1:A5} do not copy the values. Formula cells using area values are recorded as their
+ * consumers, so they are recalculated when a cell of the area is updated through
+ * {@link WorkbookEvaluator#notifyUpdateCell(EvaluationCell)} or deleted.
+ */
+@Internal
+public final class AreaValues extends CellCacheEntry {
+
+    /**
+     * Areas smaller than this are evaluated cell by cell.
+     */
+    static final int MIN_CACHED_SIZE = 32;
+
+    private static final CellType[] CELL_TYPES = {
+        CellType.BLANK, CellType.NUMERIC, CellType.STRING, CellType.BOOLEAN, CellType.ERROR,
+    };
+
+    private final int _firstRow;
+    private final int _firstColumn;
+    private final int _lastRow;
+    private final int _lastColumn;
+
+    // guarded by this
+    private boolean _built;
+    private Slice[] _columns;
+
+    AreaValues(int firstRow, int firstColumn, int lastRow, int lastColumn) {
+        _firstRow = firstRow;
+        _firstColumn = firstColumn;
+        _lastRow = lastRow;
+        _lastColumn = lastColumn;
+    }
+
+    /**
+     * @param area an evaluated argument of a function
+     * @return the cached values of the area, or {@code null} if the area has to be evaluated cell by cell
+     */
+    public static AreaValues getValues(ValueEval area) {
+        if (!(area instanceof LazyAreaEval)) {
+            return null;
+        }
+        LazyAreaEval ae = (LazyAreaEval) area;
+        if (ae.getFirstSheetIndex() != ae.getLastSheetIndex()
+                || (long) ae.getWidth() * ae.getHeight() < MIN_CACHED_SIZE) {
+            return null;
+        }
+        return ae.getAreaValues();
+    }
+
+    public int getWidth() {
+        return _lastColumn - _firstColumn + 1;
+    }
+
+    public int getHeight() {
+        return _lastRow - _firstRow + 1;
+    }
+
+    /**
+     * @param rowIndex 0-based row index relative to the area
+     * @param columnIndex 0-based column index relative to the area
+     * @return the type of the cell, never {@link CellType#FORMULA}
+     */
+    public CellType getCellType(int rowIndex, int columnIndex) {
+        Slice column = _columns[columnIndex];
+        if (rowIndex >= column.size) {
+            return CellType.BLANK;
+        }
+        return CELL_TYPES[column.types[column.offset + rowIndex]];
+    }
+
+    /**
+     * @return the value of a {@link CellType#NUMERIC} cell
+     */
+    public double getNumberValue(int rowIndex, int columnIndex) {
+        Slice column = _columns[columnIndex];
+        return column.numbers[column.offset + rowIndex];
+    }
+
+    /**
+     * @return the value of a {@link CellType#STRING} cell
+     */
+    public String getStringValue(int rowIndex, int columnIndex) {
+        Slice column = _columns[columnIndex];
+        return column.strings[column.offset + rowIndex];
+    }
+
+    /**
+     * @return the value of a {@link CellType#BOOLEAN} cell
+     */
+    public boolean getBooleanValue(int rowIndex, int columnIndex) {
+        return getNumberValue(rowIndex, columnIndex) != 0.0;
+    }
+
+    /**
+     * @return the error code of a {@link CellType#ERROR} cell
+     */
+    public int getErrorCode(int rowIndex, int columnIndex) {
+        return (int) getNumberValue(rowIndex, columnIndex);
+    }
+
+    /**
+     * @return the value of the cell as evaluated cell by cell
+     */
+    public ValueEval getValue(int rowIndex, int columnIndex) {
+        switch (getCellType(rowIndex, columnIndex)) {
+            case NUMERIC:
+                return new NumberEval(getNumberValue(rowIndex, columnIndex));
+            case STRING:
+                return new StringEval(getStringValue(rowIndex, columnIndex));
+            case BOOLEAN:
+                return BoolEval.valueOf(getBooleanValue(rowIndex, columnIndex));
+            case ERROR:
+                return ErrorEval.valueOf(getErrorCode(rowIndex, columnIndex));
+            default:
+                return BlankEval.instance;
+        }
+    }
+
+    /**
+     * Takes the slices of the columns on the first request.
+     *
+     * @param columns the shared column values of the sheet by column index
+     * @return {@code true} if the values can be used
+     */
+    synchronized boolean prepare(EvaluationSheet sheet, IntFunction<ColumnValues> columns) {
+        if (!_built) {
+            _built = true;
+            _columns = slice(sheet, columns);
+        }
+        return _columns != null;
+    }
+
+    /**
+     * @return {@code null} if the area contains formula cells
+     */
+    private Slice[] slice(EvaluationSheet sheet, IntFunction<ColumnValues> columns) {
+        Slice[] result = new Slice[getWidth()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = columns.apply(_firstColumn + i).getSlice(sheet, _firstRow, _lastRow);
+            if (result[i] == null) {
+                return null;
+            }
+        }
+        return result;
+    }
+}
@@ -17,8 +17,14 @@
 
 package org.apache.poi.ss.formula;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 
+import org.apache.poi.ss.formula.eval.ValueEval;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellType;
 import org.apache.poi.ss.usermodel.CellValue;
@@ -33,6 +39,7 @@ import org.apache.poi.ss.usermodel.Workbook;
  */
 public abstract class BaseFormulaEvaluator implements FormulaEvaluator, WorkbookEvaluatorProvider {
     protected final WorkbookEvaluator _bookEvaluator;
+    private ForkJoinPool _parallelEvaluationPool;
 
     protected BaseFormulaEvaluator(WorkbookEvaluator bookEvaluator) {
         this._bookEvaluator = bookEvaluator;
@@ -157,6 +164,57 @@ public abstract class BaseFormulaEvaluator implements FormulaEvaluator, Workbook
 
     protected abstract CellValue evaluateFormulaCellValue(Cell cell);
 
+    /**
+     * Turns a cell of the evaluated workbook into an {@link EvaluationCell}
+     *
+     * @return {@code null} by default, in which case {@link #recalculate(Collection)} cannot
+     * determine the dependent formula cells and only evaluates the changed ones
+     */
+    protected EvaluationCell toEvaluationCell(Cell cell) {
+        return null;
+    }
+
+    /**
+     * Returns the cell wrapped by an {@link EvaluationCell} of the evaluated workbook
+     * <p>
+     * By default this is the identity key of the evaluation cell, which is the wrapped cell for
+     * the evaluation cells of HSSF, XSSF and SXSSF.
+     */
+    protected Cell toCell(EvaluationCell evaluationCell) {
+        return (Cell) evaluationCell.getIdentityKey();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * If a {@link #setParallelEvaluationPool(ForkJoinPool) parallel evaluation pool} is set,
+     * independent formula cells are recalculated concurrently.
+     *
+     * @see WorkbookEvaluator#recalculate(Collection, ForkJoinPool)
+     */
+    @Override
+    public Map<Cell, CellValue> recalculate(Collection<? extends Cell> changedCells) {
+        List<EvaluationCell> evaluationCells = new ArrayList<>(changedCells.size());
+        for (Cell cell : changedCells) {
+            EvaluationCell evaluationCell = toEvaluationCell(cell);
+            if (evaluationCell == null) {
+                return FormulaEvaluator.super.recalculate(changedCells);
+            }
+            evaluationCells.add(evaluationCell);
+        }
+        Map<EvaluationCell, ValueEval> changes = _bookEvaluator.recalculate(evaluationCells, _parallelEvaluationPool);
+
+        Map<Cell, CellValue> result = new LinkedHashMap<>(changes.size() * 4 / 3 + 1);
+        for (EvaluationCell evaluationCell : changes.keySet()) {
+            Cell cell = toCell(evaluationCell);
+            // the value is cached, this only converts it and saves it in the cell
+            CellValue cv = evaluateFormulaCellValue(cell);
+            setCellValue(cell, cv);
+            result.put(cell, cv);
+        }
+        return result;
+    }
+
     /**
      * If cell contains formula, it evaluates the formula,
      *  and saves the result of the formula. The cell
@@ -268,6 +326,11 @@ public abstract class BaseFormulaEvaluator implements FormulaEvaluator, Workbook
         evaluateAllFormulaCells(wb, evaluator);
     }
     protected static void evaluateAllFormulaCells(Workbook wb, FormulaEvaluator evaluator) {
+        if (evaluator instanceof BaseFormulaEvaluator
+                && ((BaseFormulaEvaluator) evaluator)._parallelEvaluationPool != null) {
+            // fill the evaluation cache concurrently, the loop below then only stores the results
+            ((BaseFormulaEvaluator) evaluator).evaluateAllInParallel(wb);
+        }
         for(int i=0; i<wb.getNumberOfSheets(); i++) {
             Sheet sheet = wb.getSheetAt(i);
 
@@ -281,6 +344,43 @@ public abstract class BaseFormulaEvaluator implements FormulaEvaluator, Workbook
         }
     }
 
+    private void evaluateAllInParallel(Workbook wb) {
+        EvaluationWorkbook evaluationWorkbook = getEvaluationWorkbook();
+        List<EvaluationCell> cells = new ArrayList<>();
+        for(int i=0; i<wb.getNumberOfSheets(); i++) {
+            EvaluationSheet sheet = evaluationWorkbook.getSheet(i);
+            for(Row r : wb.getSheetAt(i)) {
+                for (Cell c : r) {
+                    if (c.getCellType() == CellType.FORMULA) {
+                        cells.add(sheet.getCell(c.getRowIndex(), c.getColumnIndex()));
+                    }
+                }
+            }
+        }
+        _bookEvaluator.evaluateInParallel(cells, _parallelEvaluationPool);
+    }
+
+    /**
+     * Sets the pool used by {@link #evaluateAll()} to evaluate independent formula cells concurrently.
+     * Formulas are levelled by their cell references, so that every formula is only evaluated after
+     * the formulas it depends on; formulas with dynamic references are still evaluated one by one.
+     * The workbook must not be modified while {@link #evaluateAll()} runs.
+     *
+     * @param pool the pool to use, or {@code null} to evaluate all formulas sequentially (the default)
+     * @see WorkbookEvaluator#evaluateInParallel(List, ForkJoinPool)
+     */
+    public void setParallelEvaluationPool(ForkJoinPool pool) {
+        _parallelEvaluationPool = pool;
+    }
+
+    /**
+     * @return the pool used to evaluate independent formula cells concurrently,
+     * or {@code null} if formulas are evaluated sequentially
+     */
+    public ForkJoinPool getParallelEvaluationPool() {
+        return _parallelEvaluationPool;
+    }
+
     @Override
     public void setIgnoreMissingWorkbooks(boolean ignore){
         _bookEvaluator.setIgnoreMissingWorkbooks(ignore);
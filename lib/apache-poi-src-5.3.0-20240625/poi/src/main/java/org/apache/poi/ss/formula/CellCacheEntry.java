@@ -17,6 +17,8 @@
 
 package org.apache.poi.ss.formula;
 
+import java.util.Map;
+
 import org.apache.poi.ss.formula.eval.BlankEval;
 import org.apache.poi.ss.formula.eval.BoolEval;
 import org.apache.poi.ss.formula.eval.ErrorEval;
@@ -27,12 +29,15 @@ import org.apache.poi.ss.formula.IEvaluationListener.ICacheEntry;
 
 /**
  * Stores the parameters that identify the evaluation of one cell.<br>
+ *
+ * The value and the set of consuming cells may be read and updated from several threads
+ * when formula cells are evaluated in parallel (see {@link WorkbookEvaluator#evaluateInParallel}).
  */
 abstract class CellCacheEntry implements ICacheEntry {
     public static final CellCacheEntry[] EMPTY_ARRAY = { };
 
     private final FormulaCellCacheEntrySet _consumingCells;
-    private ValueEval _value;
+    private volatile ValueEval _value;
 
 
     protected CellCacheEntry() {
@@ -54,7 +59,7 @@ abstract class CellCacheEntry implements ICacheEntry {
         return _value;
     }
 
-    private static boolean areValuesEqual(ValueEval a, ValueEval b) {
+    static boolean areValuesEqual(ValueEval a, ValueEval b) {
         if (a == null) {
             return false;
         }
@@ -82,24 +87,40 @@ abstract class CellCacheEntry implements ICacheEntry {
     }
 
     public final void addConsumingCell(FormulaCellCacheEntry cellLoc) {
-        _consumingCells.add(cellLoc);
-
+        synchronized (_consumingCells) {
+            _consumingCells.add(cellLoc);
+        }
     }
     public final FormulaCellCacheEntry[] getConsumingCells() {
-        return _consumingCells.toArray();
+        synchronized (_consumingCells) {
+            return _consumingCells.toArray();
+        }
     }
 
     public final void clearConsumingCell(FormulaCellCacheEntry cce) {
-        if(!_consumingCells.remove(cce)) {
+        boolean removed;
+        synchronized (_consumingCells) {
+            removed = _consumingCells.remove(cce);
+        }
+        if(!removed) {
             throw new IllegalStateException("Specified formula cell is not consumed by this cell");
         }
     }
     public final void recurseClearCachedFormulaResults(IEvaluationListener listener) {
+        recurseClearCachedFormulaResults(listener, null);
+    }
+
+    /**
+     * @param cleared if not {@code null}, every formula cell cleared along the way is added
+     * together with its value before clearing (cells already present keep their first value)
+     */
+    public final void recurseClearCachedFormulaResults(IEvaluationListener listener,
+            Map<FormulaCellCacheEntry, ValueEval> cleared) {
         if (listener == null) {
-            recurseClearCachedFormulaResults();
+            recurseClearCachedFormulaResults(cleared);
         } else {
             listener.onClearCachedValue(this);
-            recurseClearCachedFormulaResults(listener, 1);
+            recurseClearCachedFormulaResults(listener, 1, cleared);
         }
     }
 
@@ -108,28 +129,35 @@ abstract class CellCacheEntry implements ICacheEntry {
      * dependencies. Calls usedCell.clearConsumingCell(fc) for each child of a cell that is
      * cleared along the way.
      */
-    protected final void recurseClearCachedFormulaResults() {
+    protected final void recurseClearCachedFormulaResults(Map<FormulaCellCacheEntry, ValueEval> cleared) {
         FormulaCellCacheEntry[] formulaCells = getConsumingCells();
 
         for (FormulaCellCacheEntry fc : formulaCells) {
+            if (cleared != null) {
+                cleared.putIfAbsent(fc, fc.getValue());
+            }
             fc.clearFormulaEntry();
             if (fc != this) {
-                fc.recurseClearCachedFormulaResults();
+                fc.recurseClearCachedFormulaResults(cleared);
             }
         }
     }
 
     /**
-     * Identical to {@link #recurseClearCachedFormulaResults()} except for the listener call-backs
+     * Identical to {@link #recurseClearCachedFormulaResults(Map)} except for the listener call-backs
      */
-    protected final void recurseClearCachedFormulaResults(IEvaluationListener listener, int depth) {
+    protected final void recurseClearCachedFormulaResults(IEvaluationListener listener, int depth,
+            Map<FormulaCellCacheEntry, ValueEval> cleared) {
         FormulaCellCacheEntry[] formulaCells = getConsumingCells();
 
         listener.sortDependentCachedValues(formulaCells);
         for (FormulaCellCacheEntry fc : formulaCells) {
             listener.onClearDependentCachedValue(fc, depth);
+            if (cleared != null) {
+                cleared.putIfAbsent(fc, fc.getValue());
+            }
             fc.clearFormulaEntry();
-            fc.recurseClearCachedFormulaResults(listener, depth + 1);
+            fc.recurseClearCachedFormulaResults(listener, depth + 1, cleared);
         }
     }
 }
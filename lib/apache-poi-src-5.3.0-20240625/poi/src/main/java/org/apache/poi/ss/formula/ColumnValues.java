@@ -0,0 +1,206 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.ss.formula;
+
+import java.util.BitSet;
+
+import org.apache.poi.ss.usermodel.CellType;
+
+/**
+ * The values of one column of a sheet in primitive arrays, shared by the {@link AreaValues} of all
+ * cached areas which include the column.
+ * <p>
+ * Rows are read from the sheet when an area first needs them and are kept up to date by
+ * {@link EvaluationCache#notifyUpdateCell} and {@link EvaluationCache#notifyDeleteCell}.
+ * Formula cells are only marked, areas containing them are not cached.
+ */
+final class ColumnValues {
+
+    static final byte BLANK = 0;
+    static final byte NUMERIC = 1;
+    static final byte STRING = 2;
+    static final byte BOOLEAN = 3;
+    static final byte ERROR = 4;
+    static final byte FORMULA = 5;
+
+    private final int _columnIndex;
+
+    // guarded by this
+    /** first row stored in the arrays, -1 if nothing has been read yet */
+    private int _firstRow = -1;
+    private int _rowCount;
+    private byte[] _types;
+    /** the number, 0/1 for booleans and the error code for errors */
+    private double[] _numbers;
+    /** <code>null</code> until the first string is read */
+    private String[] _strings;
+    /** absolute indexes of the formula rows */
+    private final BitSet _formulaRows = new BitSet();
+
+    ColumnValues(int columnIndex) {
+        _columnIndex = columnIndex;
+    }
+
+    /**
+     * The stored values of some rows of a column. The arrays are not copied, rows outside of the
+     * slice may change after it was created.
+     */
+    static final class Slice {
+        final byte[] types;
+        final double[] numbers;
+        final String[] strings;
+        /** array index of the first row of the slice */
+        final int offset;
+        /** number of rows stored, the following rows of the slice are blank */
+        final int size;
+
+        Slice(byte[] types, double[] numbers, String[] strings, int offset, int size) {
+            this.types = types;
+            this.numbers = numbers;
+            this.strings = strings;
+            this.offset = offset;
+            this.size = size;
+        }
+    }
+
+    /**
+     * @return the values of the rows <code>firstRow..lastRow</code>,
+     * or <code>null</code> if they contain a formula cell
+     */
+    synchronized Slice getSlice(EvaluationSheet sheet, int firstRow, int lastRow) {
+        // rows below the last row of the sheet are blank, e.g. in whole column references
+        int lastStoredRow = Math.min(lastRow, sheet.getLastRowNum());
+        if (lastStoredRow < firstRow) {
+            return new Slice(null, null, null, 0, 0);
+        }
+        readRows(sheet, firstRow, lastStoredRow);
+        int formulaRow = _formulaRows.nextSetBit(firstRow);
+        if (formulaRow >= 0 && formulaRow <= lastStoredRow) {
+            return null;
+        }
+        return new Slice(_types, _numbers, _strings, firstRow - _firstRow, lastStoredRow - firstRow + 1);
+    }
+
+    /**
+     * Reads the rows <code>firstRow..lastRow</code> which are not stored yet
+     */
+    private void readRows(EvaluationSheet sheet, int firstRow, int lastRow) {
+        if (_firstRow < 0) {
+            _firstRow = firstRow;
+            allocate(lastRow - firstRow + 1, 0, 0);
+            read(sheet, firstRow, lastRow);
+            _rowCount = lastRow - firstRow + 1;
+            return;
+        }
+        if (firstRow < _firstRow) {
+            int added = _firstRow - firstRow;
+            allocate(_rowCount + added, added, _rowCount);
+            int oldFirstRow = _firstRow;
+            _firstRow = firstRow;
+            _rowCount += added;
+            read(sheet, firstRow, oldFirstRow - 1);
+        }
+        int storedLastRow = _firstRow + _rowCount - 1;
+        if (lastRow > storedLastRow) {
+            int rowCount = lastRow - _firstRow + 1;
+            if (rowCount > _types.length) {
+                // grow geometrically, so that growing areas like $A$1:A5 are read in linear time
+                allocate(Math.max(rowCount, _types.length * 2), 0, _rowCount);
+            }
+            _rowCount = rowCount;
+            read(sheet, storedLastRow + 1, lastRow);
+        }
+    }
+
+    /**
+     * Replaces the arrays, new arrays are needed because existing slices may still use the old ones.
+     *
+     * @param shift number of rows inserted before the stored rows
+     */
+    private void allocate(int capacity, int shift, int rowCount) {
+        byte[] types = new byte[capacity];
+        double[] numbers = new double[capacity];
+        if (_types != null) {
+            System.arraycopy(_types, 0, types, shift, rowCount);
+            System.arraycopy(_numbers, 0, numbers, shift, rowCount);
+        }
+        if (_strings != null) {
+            String[] strings = new String[capacity];
+            System.arraycopy(_strings, 0, strings, shift, rowCount);
+            _strings = strings;
+        }
+        _types = types;
+        _numbers = numbers;
+    }
+
+    private void read(EvaluationSheet sheet, int firstRow, int lastRow) {
+        for (int rowIndex = firstRow; rowIndex <= lastRow; rowIndex++) {
+            store(rowIndex, sheet.getCell(rowIndex, _columnIndex));
+        }
+    }
+
+    /**
+     * Updates a row which has already been read, called when the cell has been changed or deleted
+     *
+     * @param cell <code>null</code> if the cell has been deleted
+     */
+    synchronized void updateCell(int rowIndex, EvaluationCell cell) {
+        if (_firstRow >= 0 && rowIndex >= _firstRow && rowIndex < _firstRow + _rowCount) {
+            store(rowIndex, cell);
+        }
+    }
+
+    private void store(int rowIndex, EvaluationCell cell) {
+        int i = rowIndex - _firstRow;
+        CellType cellType = cell == null ? CellType.BLANK : cell.getCellType();
+        _formulaRows.set(rowIndex, cellType == CellType.FORMULA);
+        if (_strings != null) {
+            _strings[i] = null;
+        }
+        _numbers[i] = 0.0;
+        switch (cellType) {
+            case NUMERIC:
+                _types[i] = NUMERIC;
+                _numbers[i] = cell.getNumericCellValue();
+                break;
+            case STRING:
+                _types[i] = STRING;
+                if (_strings == null) {
+                    _strings = new String[_types.length];
+                }
+                _strings[i] = cell.getStringCellValue();
+                break;
+            case BOOLEAN:
+                _types[i] = BOOLEAN;
+                _numbers[i] = cell.getBooleanCellValue() ? 1.0 : 0.0;
+                break;
+            case ERROR:
+                _types[i] = ERROR;
+                _numbers[i] = cell.getErrorCellValue();
+                break;
+            case FORMULA:
+                _types[i] = FORMULA;
+                break;
+            case BLANK:
+                _types[i] = BLANK;
+                break;
+            default:
+                throw new IllegalStateException("Unexpected cell type (" + cellType + ")");
+        }
+    }
+}
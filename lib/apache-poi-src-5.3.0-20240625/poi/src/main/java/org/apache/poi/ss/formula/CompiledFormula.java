@@ -0,0 +1,608 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.ss.formula;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import org.apache.poi.ss.formula.eval.AreaEval;
+import org.apache.poi.ss.formula.eval.BlankEval;
+import org.apache.poi.ss.formula.eval.BoolEval;
+import org.apache.poi.ss.formula.eval.ErrorEval;
+import org.apache.poi.ss.formula.eval.EvaluationException;
+import org.apache.poi.ss.formula.eval.FunctionEval;
+import org.apache.poi.ss.formula.eval.MissingArgEval;
+import org.apache.poi.ss.formula.eval.NotImplementedException;
+import org.apache.poi.ss.formula.eval.NumberEval;
+import org.apache.poi.ss.formula.eval.OperandResolver;
+import org.apache.poi.ss.formula.eval.StringEval;
+import org.apache.poi.ss.formula.eval.ValueEval;
+import org.apache.poi.ss.formula.function.FunctionMetadataRegistry;
+import org.apache.poi.ss.formula.functions.ArrayMode;
+import org.apache.poi.ss.formula.functions.IfFunc;
+import org.apache.poi.ss.formula.ptg.AbstractFunctionPtg;
+import org.apache.poi.ss.formula.ptg.AddPtg;
+import org.apache.poi.ss.formula.ptg.AttrPtg;
+import org.apache.poi.ss.formula.ptg.BoolPtg;
+import org.apache.poi.ss.formula.ptg.ControlPtg;
+import org.apache.poi.ss.formula.ptg.DividePtg;
+import org.apache.poi.ss.formula.ptg.ErrPtg;
+import org.apache.poi.ss.formula.ptg.FuncVarPtg;
+import org.apache.poi.ss.formula.ptg.IntPtg;
+import org.apache.poi.ss.formula.ptg.MemAreaPtg;
+import org.apache.poi.ss.formula.ptg.MemErrPtg;
+import org.apache.poi.ss.formula.ptg.MemFuncPtg;
+import org.apache.poi.ss.formula.ptg.MissingArgPtg;
+import org.apache.poi.ss.formula.ptg.MultiplyPtg;
+import org.apache.poi.ss.formula.ptg.NumberPtg;
+import org.apache.poi.ss.formula.ptg.OperationPtg;
+import org.apache.poi.ss.formula.ptg.PowerPtg;
+import org.apache.poi.ss.formula.ptg.Ptg;
+import org.apache.poi.ss.formula.ptg.RefPtg;
+import org.apache.poi.ss.formula.ptg.StringPtg;
+import org.apache.poi.ss.formula.ptg.SubtractPtg;
+import org.apache.poi.ss.formula.ptg.UnaryMinusPtg;
+import org.apache.poi.ss.formula.ptg.UnionPtg;
+import org.apache.poi.ss.util.NumberToTextConverter;
+import org.apache.poi.util.Internal;
+
+/**
+ * The formula tokens of a cell, compiled into a tree of evaluation nodes.
+ * <p>
+ * {@link WorkbookEvaluator#evaluateFormula(OperationEvaluationContext, Ptg[])} interprets the tokens
+ * with an operand stack on every evaluation. A compiled formula resolves the token structure once
+ * (operand counts, {@code IF} branches, array mode of operators), so re-evaluating the cell only
+ * walks the tree. Arithmetic on single values ({@code +}, {@code -}, {@code *}, {@code /}, {@code ^},
+ * unary {@code -}) of constants, cell references and other arithmetic is calculated on primitive
+ * doubles, without a {@link NumberEval} per step and without creating references for the cells read.
+ * <p>
+ * Compiled formulas are cached with the formula cell (see {@link FormulaCellCacheEntry}). Formulas
+ * with tokens the compiler does not handle (the jump table of an optimised {@code CHOOSE} as written
+ * by Excel, unions, very deep nesting) keep only their tokens and are interpreted, as are array
+ * formulas and evaluations with debug output.
+ */
+@Internal
+final class CompiledFormula {
+
+    /**
+     * Deeper formulas are interpreted, to keep the recursion of the tree bounded.
+     */
+    static final int MAX_DEPTH = 64;
+
+    /**
+     * Integers below this have at most 15 digits and are calculated without {@link BigDecimal}.
+     */
+    private static final double SMALL_INTEGER_LIMIT = 1e15;
+
+    private final Ptg[] _ptgs;
+    private final Node _root;
+
+    private CompiledFormula(Ptg[] ptgs, Node root) {
+        _ptgs = ptgs;
+        _root = root;
+    }
+
+    /**
+     * @return the compiled formula, which may only hold the tokens if they cannot be compiled
+     */
+    static CompiledFormula compile(Ptg[] ptgs) {
+        return new CompiledFormula(ptgs, buildTree(ptgs));
+    }
+
+    Ptg[] getFormulaTokens() {
+        return _ptgs;
+    }
+
+    /**
+     * @return {@code true} if the formula can be evaluated by {@link #evaluate(OperationEvaluationContext)}
+     */
+    boolean isCompiled() {
+        return _root != null;
+    }
+
+    /**
+     * Evaluates the formula for a cell which is not part of an array formula.
+     *
+     * @return the result before dereferencing, like the value left on the stack by the interpreter
+     */
+    ValueEval evaluate(OperationEvaluationContext ec) {
+        return _root.evaluate(ec);
+    }
+
+    /**
+     * @return the root node, or {@code null} if the tokens contain anything not supported here
+     */
+    private static Node buildTree(Ptg[] ptgs) {
+        Deque<Node> stack = new ArrayDeque<>();
+        for (int i = 0; i < ptgs.length; i++) {
+            Ptg ptg = ptgs[i];
+            if (ptg instanceof AttrPtg) {
+                AttrPtg attrPtg = (AttrPtg) ptg;
+                if (attrPtg.isOptimizedChoose()) {
+                    return null;
+                }
+                if (attrPtg.isSum()) {
+                    ptg = FuncVarPtg.SUM;
+                }
+                // tAttrIf and tAttrSkip only control the interpreter, IfNode evaluates its branches lazily
+            }
+            if (ptg instanceof ControlPtg
+                    || ptg instanceof MemFuncPtg || ptg instanceof MemAreaPtg || ptg instanceof MemErrPtg) {
+                continue;
+            }
+            if (ptg instanceof UnionPtg) {
+                return null;
+            }
+
+            Node node;
+            if (ptg instanceof OperationPtg) {
+                OperationPtg optg = (OperationPtg) ptg;
+                int numops = optg.getNumberOfOperands();
+                if (stack.size() < numops) {
+                    return null;
+                }
+                Node[] operands = new Node[numops];
+                for (int j = numops - 1; j >= 0; j--) {
+                    operands[j] = stack.pop();
+                }
+                node = createOperationNode(optg, operands, isArrayModeFunctionAhead(ptgs, i));
+            } else {
+                node = createOperandNode(ptg);
+            }
+            if (node.getDepth() > MAX_DEPTH) {
+                return null;
+            }
+            stack.push(node);
+        }
+        return stack.size() == 1 ? stack.pop() : null;
+    }
+
+    /**
+     * Same look-ahead as the interpreter: operators with an area operand are evaluated in array mode
+     * if the next variable argument function is an {@link ArrayMode} function.
+     */
+    private static boolean isArrayModeFunctionAhead(Ptg[] ptgs, int index) {
+        for (int i = index; i < ptgs.length; i++) {
+            if (ptgs[i] instanceof FuncVarPtg) {
+                try {
+                    return FunctionEval.getBasicFunction(((FuncVarPtg) ptgs[i]).getFunctionIndex()) instanceof ArrayMode;
+                } catch (NotImplementedException e) {
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static Node createOperandNode(Ptg ptg) {
+        if (ptg instanceof IntPtg) {
+            return new ConstantNode(new NumberEval(((IntPtg) ptg).getValue()));
+        }
+        if (ptg instanceof NumberPtg) {
+            return new ConstantNode(new NumberEval(((NumberPtg) ptg).getValue()));
+        }
+        if (ptg instanceof StringPtg) {
+            return new ConstantNode(new StringEval(((StringPtg) ptg).getValue()));
+        }
+        if (ptg instanceof BoolPtg) {
+            return new ConstantNode(BoolEval.valueOf(((BoolPtg) ptg).getValue()));
+        }
+        if (ptg instanceof ErrPtg) {
+            return new ConstantNode(ErrorEval.valueOf(((ErrPtg) ptg).getErrorCode()));
+        }
+        if (ptg instanceof MissingArgPtg) {
+            return new ConstantNode(MissingArgEval.instance);
+        }
+        if (ptg.getClass() == RefPtg.class) {
+            RefPtg refPtg = (RefPtg) ptg;
+            return new RefNode(refPtg.getRow(), refPtg.getColumn());
+        }
+        return new PtgNode(ptg);
+    }
+
+    private static Node createOperationNode(OperationPtg optg, Node[] operands, boolean arrayModeFunctionAhead) {
+        if (optg instanceof AbstractFunctionPtg
+                && ((AbstractFunctionPtg) optg).getFunctionIndex() == FunctionMetadataRegistry.FUNCTION_INDEX_IF
+                && (operands.length == 2 || operands.length == 3)) {
+            return new IfNode(operands);
+        }
+        boolean scalarOperands = true;
+        for (Node operand : operands) {
+            scalarOperands &= operand.isScalar();
+        }
+        if (scalarOperands) {
+            // single values only, so never in array mode
+            if (operands.length == 2) {
+                int operator = getArithmeticOperator(optg);
+                if (operator != NONE) {
+                    return new ArithmeticNode(operator, operands[0], operands[1]);
+                }
+            } else if (optg == UnaryMinusPtg.instance) {
+                return new UnaryMinusNode(operands[0]);
+            }
+        }
+        return new OperationNode(optg, operands, arrayModeFunctionAhead);
+    }
+
+    private static final int NONE = -1;
+    private static final int ADD = 0;
+    private static final int SUBTRACT = 1;
+    private static final int MULTIPLY = 2;
+    private static final int DIVIDE = 3;
+    private static final int POWER = 4;
+
+    private static int getArithmeticOperator(OperationPtg optg) {
+        if (optg == AddPtg.instance) {
+            return ADD;
+        }
+        if (optg == SubtractPtg.instance) {
+            return SUBTRACT;
+        }
+        if (optg == MultiplyPtg.instance) {
+            return MULTIPLY;
+        }
+        if (optg == DividePtg.instance) {
+            return DIVIDE;
+        }
+        if (optg == PowerPtg.instance) {
+            return POWER;
+        }
+        return NONE;
+    }
+
+    private abstract static class Node {
+
+        abstract ValueEval evaluate(OperationEvaluationContext ec);
+
+        /**
+         * Evaluates the node as an operand of an arithmetic operator.
+         *
+         * @throws EvaluationException if the value is an error or cannot be converted to a number
+         */
+        double evaluateNumber(OperationEvaluationContext ec) throws EvaluationException {
+            ValueEval ve = OperandResolver.getSingleValue(evaluate(ec), ec.getRowIndex(), ec.getColumnIndex());
+            return OperandResolver.coerceValueToDouble(ve);
+        }
+
+        /**
+         * @return {@code true} if the node never evaluates to an area
+         */
+        boolean isScalar() {
+            return false;
+        }
+
+        int getDepth() {
+            return 1;
+        }
+    }
+
+    private static final class ConstantNode extends Node {
+        private final ValueEval _value;
+
+        ConstantNode(ValueEval value) {
+            _value = value;
+        }
+
+        @Override
+        ValueEval evaluate(OperationEvaluationContext ec) {
+            return _value;
+        }
+
+        @Override
+        double evaluateNumber(OperationEvaluationContext ec) throws EvaluationException {
+            if (_value instanceof NumberEval) {
+                return ((NumberEval) _value).getNumberValue();
+            }
+            return super.evaluateNumber(ec);
+        }
+
+        @Override
+        boolean isScalar() {
+            return true;
+        }
+    }
+
+    /**
+     * A reference to a cell of the current sheet.
+     */
+    private static final class RefNode extends Node {
+        private final int _row;
+        private final int _column;
+
+        RefNode(int row, int column) {
+            _row = row;
+            _column = column;
+        }
+
+        @Override
+        ValueEval evaluate(OperationEvaluationContext ec) {
+            return ec.getRefEval(_row, _column);
+        }
+
+        @Override
+        double evaluateNumber(OperationEvaluationContext ec) throws EvaluationException {
+            ValueEval ve = ec.getCellValue(_row, _column);
+            if (ve instanceof NumberEval) {
+                return ((NumberEval) ve).getNumberValue();
+            }
+            if (ve instanceof ErrorEval) {
+                throw new EvaluationException((ErrorEval) ve);
+            }
+            return OperandResolver.coerceValueToDouble(ve);
+        }
+
+        @Override
+        boolean isScalar() {
+            return true;
+        }
+    }
+
+    /**
+     * Any other operand, evaluated like the interpreter does.
+     */
+    private static final class PtgNode extends Node {
+        private final Ptg _ptg;
+
+        PtgNode(Ptg ptg) {
+            _ptg = ptg;
+        }
+
+        @Override
+        ValueEval evaluate(OperationEvaluationContext ec) {
+            return ec.getOperandEval(_ptg);
+        }
+    }
+
+    /**
+     * Operators and functions, evaluated through {@link OperationEvaluatorFactory}.
+     */
+    private static final class OperationNode extends Node {
+        private final OperationPtg _ptg;
+        private final Node[] _operands;
+        private final boolean _arrayModeFunctionAhead;
+        private final int _depth;
+
+        OperationNode(OperationPtg ptg, Node[] operands, boolean arrayModeFunctionAhead) {
+            _ptg = ptg;
+            _operands = operands;
+            _arrayModeFunctionAhead = arrayModeFunctionAhead;
+            _depth = maxDepth(operands) + 1;
+        }
+
+        @Override
+        ValueEval evaluate(OperationEvaluationContext ec) {
+            int numops = _operands.length;
+            ValueEval[] ops = new ValueEval[numops];
+            boolean areaArg = false;
+            for (int i = 0; i < numops; i++) {
+                ValueEval p = _operands[i].evaluate(ec);
+                ops[i] = p;
+                if (p instanceof AreaEval) {
+                    areaArg = true;
+                }
+            }
+
+            ec.setArrayMode(areaArg && _arrayModeFunctionAhead);
+            ValueEval result = OperationEvaluatorFactory.evaluate(_ptg, ops, ec);
+            ec.setArrayMode(false);
+            if (result == null) {
+                throw new IllegalStateException("Evaluation result must not be null");
+            }
+            return result;
+        }
+
+        @Override
+        int getDepth() {
+            return _depth;
+        }
+    }
+
+    /**
+     * {@code IF} with lazily evaluated branches, like the interpreter does for tAttrIf / tAttrSkip.
+     */
+    private static final class IfNode extends Node {
+        private final Node _condition;
+        private final Node _whenTrue;
+        private final Node _whenFalse;
+        private final int _depth;
+
+        IfNode(Node[] operands) {
+            _condition = operands[0];
+            _whenTrue = operands[1];
+            _whenFalse = operands.length > 2 ? operands[2] : null;
+            _depth = maxDepth(operands) + 1;
+        }
+
+        @Override
+        ValueEval evaluate(OperationEvaluationContext ec) {
+            boolean condition;
+            try {
+                condition = IfFunc.evaluateFirstArg(_condition.evaluate(ec), ec.getRowIndex(), ec.getColumnIndex());
+            } catch (EvaluationException e) {
+                return e.getErrorEval();
+            }
+            ValueEval result;
+            if (condition) {
+                result = _whenTrue.evaluate(ec);
+            } else if (_whenFalse != null) {
+                result = _whenFalse.evaluate(ec);
+            } else {
+                return BoolEval.FALSE;
+            }
+            return result == MissingArgEval.instance ? BlankEval.instance : result;
+        }
+
+        @Override
+        boolean isScalar() {
+            return _whenTrue.isScalar() && (_whenFalse == null || _whenFalse.isScalar());
+        }
+
+        @Override
+        int getDepth() {
+            return _depth;
+        }
+    }
+
+    /**
+     * Binary arithmetic on single values, same results as {@code TwoOperandNumericOperation}.
+     */
+    private static final class ArithmeticNode extends Node {
+        private final int _operator;
+        private final Node _left;
+        private final Node _right;
+        private final int _depth;
+
+        ArithmeticNode(int operator, Node left, Node right) {
+            _operator = operator;
+            _left = left;
+            _right = right;
+            _depth = Math.max(left.getDepth(), right.getDepth()) + 1;
+        }
+
+        @Override
+        ValueEval evaluate(OperationEvaluationContext ec) {
+            double result;
+            try {
+                result = evaluateNumber(ec);
+            } catch (EvaluationException e) {
+                return e.getErrorEval();
+            }
+            return result == 0.0 && _operator != SUBTRACT ? NumberEval.ZERO : new NumberEval(result);
+        }
+
+        @Override
+        double evaluateNumber(OperationEvaluationContext ec) throws EvaluationException {
+            double d0 = _left.evaluateNumber(ec);
+            double d1 = _right.evaluateNumber(ec);
+            double result;
+            switch (_operator) {
+                case ADD:
+                    result = d0 + d1;
+                    break;
+                case SUBTRACT:
+                    result = d0 - d1;
+                    break;
+                case MULTIPLY:
+                    if (isSmallInteger(d0) && isSmallInteger(d1)) {
+                        // the text conversion is exact, the product is rounded once either way
+                        result = d0 * d1;
+                    } else {
+                        result = new BigDecimal(NumberToTextConverter.toText(d0))
+                                .multiply(new BigDecimal(NumberToTextConverter.toText(d1))).doubleValue();
+                    }
+                    break;
+                case DIVIDE:
+                    if (d1 == 0.0) {
+                        throw new EvaluationException(ErrorEval.DIV_ZERO);
+                    }
+                    if (isSmallInteger(d0) && isSmallInteger(d1)) {
+                        // a quotient of integers below 2^50 is never close enough to a tie between two doubles
+                        // for the DECIMAL128 rounding to change the result
+                        result = d0 / d1;
+                    } else {
+                        result = new BigDecimal(NumberToTextConverter.toText(d0))
+                                .divide(new BigDecimal(NumberToTextConverter.toText(d1)), MathContext.DECIMAL128).doubleValue();
+                    }
+                    break;
+                case POWER:
+                    if (d0 < 0 && Math.abs(d1) > 0.0 && Math.abs(d1) < 1.0) {
+                        result = -1 * Math.pow(d0 * -1, d1);
+                    } else {
+                        result = Math.pow(d0, d1);
+                    }
+                    break;
+                default:
+                    throw new IllegalStateException("Unexpected operator " + _operator);
+            }
+            if (result == 0.0 && _operator != SUBTRACT) {
+                // Excel converts -0.0 to +0.0 for '*', '/', '+' and '^'
+                return 0.0;
+            }
+            if (Double.isNaN(result) || Double.isInfinite(result)) {
+                throw new EvaluationException(ErrorEval.NUM_ERROR);
+            }
+            return result;
+        }
+
+        @Override
+        boolean isScalar() {
+            return true;
+        }
+
+        @Override
+        int getDepth() {
+            return _depth;
+        }
+    }
+
+    /**
+     * Unary minus of a single value, same results as {@code UnaryMinusEval}.
+     */
+    private static final class UnaryMinusNode extends Node {
+        private final Node _operand;
+
+        UnaryMinusNode(Node operand) {
+            _operand = operand;
+        }
+
+        @Override
+        ValueEval evaluate(OperationEvaluationContext ec) {
+            double d;
+            try {
+                d = _operand.evaluateNumber(ec);
+            } catch (EvaluationException e) {
+                return e.getErrorEval();
+            }
+            return d == 0.0 ? NumberEval.ZERO : new NumberEval(-d);
+        }
+
+        @Override
+        double evaluateNumber(OperationEvaluationContext ec) throws EvaluationException {
+            double d = _operand.evaluateNumber(ec);
+            return d == 0.0 ? 0.0 : -d;
+        }
+
+        @Override
+        boolean isScalar() {
+            return true;
+        }
+
+        @Override
+        int getDepth() {
+            return _operand.getDepth() + 1;
+        }
+    }
+
+    /**
+     * @return {@code true} if the number is an integer with at most 15 digits,
+     * which {@link NumberToTextConverter} renders exactly
+     */
+    private static boolean isSmallInteger(double d) {
+        return Math.abs(d) < SMALL_INTEGER_LIMIT && d == Math.rint(d);
+    }
+
+    private static int maxDepth(Node[] nodes) {
+        int depth = 0;
+        for (Node node : nodes) {
+            depth = Math.max(depth, node.getDepth());
+        }
+        return depth;
+    }
+}
@@ -17,6 +17,10 @@
 
 package org.apache.poi.ss.formula;
 
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 import org.apache.poi.ss.formula.FormulaUsedBlankCellSet.BookSheetKey;
 import org.apache.poi.ss.formula.PlainCellCache.Loc;
 import org.apache.poi.ss.formula.eval.BlankEval;
@@ -31,21 +35,54 @@ import org.apache.poi.ss.usermodel.CellType;
  * Performance optimisation for {@link org.apache.poi.ss.usermodel.FormulaEvaluator}.
  * This class stores previously calculated values of already visited cells,
  * to avoid unnecessary re-calculation when the same cells are referenced multiple times
+ *
+ * Lookups ({@link #getPlainValueEntry} and {@link #getOrCreateFormulaCellEntry}) are safe to call
+ * from several threads, which allows independent formula cells to be evaluated in parallel. The
+ * notify~ and {@link #clear()} methods must not be called while an evaluation is in progress.
  */
 final class EvaluationCache {
 
     private final PlainCellCache _plainCellCache;
     private final FormulaCellCache _formulaCellCache;
+    private final Map<CachedArea, LookupIndex> _lookupIndexes;
+    private final Map<CachedArea, AreaValues> _areaValues;
+    private final Map<BookSheetKey, Map<Integer, ColumnValues>> _columnValues;
     /** only used for testing. <code>null</code> otherwise */
     final IEvaluationListener _evaluationListener;
+    /**
+     * Collects the formula cells cleared by the current notification, <code>null</code> if they
+     * are not needed. See {@link #notifyUpdateCell(int, int, EvaluationCell, Map)}
+     */
+    private Map<FormulaCellCacheEntry, ValueEval> _clearedFormulaCells;
 
     /* package */EvaluationCache(IEvaluationListener evaluationListener) {
         _evaluationListener = evaluationListener;
         _plainCellCache = new PlainCellCache();
         _formulaCellCache = new FormulaCellCache();
+        _lookupIndexes = new ConcurrentHashMap<>();
+        _areaValues = new ConcurrentHashMap<>();
+        _columnValues = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Same as {@link #notifyUpdateCell(int, int, EvaluationCell)}, additionally adds every formula
+     * cell whose cached result is cleared (directly or transitively) to <code>cleared</code>, together
+     * with its result before clearing. Cells already present in the map keep their first value, so one
+     * map can collect the dirty set of a whole batch of updates. Newly added formula cells are put
+     * with a <code>null</code> value.
+     */
+    public void notifyUpdateCell(int bookIndex, int sheetIndex, EvaluationCell cell,
+            Map<FormulaCellCacheEntry, ValueEval> cleared) {
+        _clearedFormulaCells = cleared;
+        try {
+            notifyUpdateCell(bookIndex, sheetIndex, cell);
+        } finally {
+            _clearedFormulaCells = null;
+        }
     }
 
     public void notifyUpdateCell(int bookIndex, int sheetIndex, EvaluationCell cell) {
+        clearCachedAreas(bookIndex, sheetIndex, cell, cell);
         FormulaCellCacheEntry fcce = _formulaCellCache.get(cell);
 
         int rowIndex = cell.getRowIndex();
@@ -55,7 +92,10 @@ final class EvaluationCache {
 
         if (cell.getCellType() == CellType.FORMULA) {
             if (fcce == null) {
-                fcce = new FormulaCellCacheEntry();
+                fcce = new FormulaCellCacheEntry(cell);
+                if (_clearedFormulaCells != null) {
+                    _clearedFormulaCells.putIfAbsent(fcce, null);
+                }
                 if (pcce == null) {
                     if (_evaluationListener != null) {
                         _evaluationListener.onChangeFromBlankValue(sheetIndex, rowIndex,
@@ -66,14 +106,19 @@ final class EvaluationCache {
                 }
                 _formulaCellCache.put(cell, fcce);
             } else {
-                fcce.recurseClearCachedFormulaResults(_evaluationListener);
+                if (_clearedFormulaCells != null) {
+                    _clearedFormulaCells.putIfAbsent(fcce, fcce.getValue());
+                }
+                fcce.recurseClearCachedFormulaResults(_evaluationListener, _clearedFormulaCells);
                 fcce.clearFormulaEntry();
+                // the formula may have changed
+                fcce.setCompiledFormula(null);
             }
             if (pcce == null) {
                 // was formula cell before - no change of type
             } else {
                 // changing from plain cell to formula cell
-                pcce.recurseClearCachedFormulaResults(_evaluationListener);
+                pcce.recurseClearCachedFormulaResults(_evaluationListener, _clearedFormulaCells);
                 _plainCellCache.remove(loc);
             }
         } else {
@@ -95,7 +140,7 @@ final class EvaluationCache {
                 }
             } else {
                 if (pcce.updateValue(value)) {
-                    pcce.recurseClearCachedFormulaResults(_evaluationListener);
+                    pcce.recurseClearCachedFormulaResults(_evaluationListener, _clearedFormulaCells);
                 }
                 if (value == BlankEval.instance) {
                     _plainCellCache.remove(loc);
@@ -107,7 +152,7 @@ final class EvaluationCache {
                 // was formula cell before - now a plain value
                 _formulaCellCache.remove(cell);
                 fcce.setSensitiveInputCells(null);
-                fcce.recurseClearCachedFormulaResults(_evaluationListener);
+                fcce.recurseClearCachedFormulaResults(_evaluationListener, _clearedFormulaCells);
             }
         }
     }
@@ -115,7 +160,7 @@ final class EvaluationCache {
     private void updateAnyBlankReferencingFormulas(int bookIndex, int sheetIndex,
             final int rowIndex, final int columnIndex) {
         final BookSheetKey bsk = new BookSheetKey(bookIndex, sheetIndex);
-        _formulaCellCache.applyOperation(entry -> entry.notifyUpdatedBlankCell(bsk, rowIndex, columnIndex, _evaluationListener));
+        _formulaCellCache.applyOperation(entry -> entry.notifyUpdatedBlankCell(bsk, rowIndex, columnIndex, _evaluationListener, _clearedFormulaCells));
     }
 
     public PlainValueCellCacheEntry getPlainValueEntry(int bookIndex, int sheetIndex,
@@ -125,7 +170,11 @@ final class EvaluationCache {
         PlainValueCellCacheEntry result = _plainCellCache.get(loc);
         if (result == null) {
             result = new PlainValueCellCacheEntry(value);
-            _plainCellCache.put(loc, result);
+            PlainValueCellCacheEntry existing = _plainCellCache.putIfAbsent(loc, result);
+            if (existing != null) {
+                // another thread cached the same cell first - all consumers must share one entry
+                return existing;
+            }
             if (_evaluationListener != null) {
                 _evaluationListener.onReadPlainValue(sheetIndex, rowIndex, columnIndex, result);
             }
@@ -170,13 +219,70 @@ final class EvaluationCache {
     public FormulaCellCacheEntry getOrCreateFormulaCellEntry(EvaluationCell cell) {
         FormulaCellCacheEntry result = _formulaCellCache.get(cell);
         if (result == null) {
-
-            result = new FormulaCellCacheEntry();
-            _formulaCellCache.put(cell, result);
+            result = _formulaCellCache.getOrCreate(cell);
         }
         return result;
     }
 
+    /**
+     * @return the lookup index of the given single row or column range,
+     * or {@code null} if the range is not (yet) indexed
+     */
+    public LookupIndex getLookupIndex(int bookIndex, int sheetIndex, EvaluationSheet sheet,
+            int firstRow, int firstColumn, int lastRow, int lastColumn) {
+        CachedArea area = new CachedArea(bookIndex, sheetIndex, firstRow, firstColumn, lastRow, lastColumn);
+        LookupIndex index = _lookupIndexes.computeIfAbsent(area,
+                k -> new LookupIndex(firstRow, firstColumn, lastRow, lastColumn));
+        return index.prepare(sheet) ? index : null;
+    }
+
+    /**
+     * @return the values of the given area, or {@code null} if the area contains formula cells
+     */
+    public AreaValues getAreaValues(int bookIndex, int sheetIndex, EvaluationSheet sheet,
+            int firstRow, int firstColumn, int lastRow, int lastColumn) {
+        CachedArea area = new CachedArea(bookIndex, sheetIndex, firstRow, firstColumn, lastRow, lastColumn);
+        AreaValues values = _areaValues.computeIfAbsent(area,
+                k -> new AreaValues(firstRow, firstColumn, lastRow, lastColumn));
+        Map<Integer, ColumnValues> columns = _columnValues.computeIfAbsent(
+                new BookSheetKey(bookIndex, sheetIndex), k -> new ConcurrentHashMap<>());
+        return values.prepare(sheet, columnIndex -> columns.computeIfAbsent(columnIndex, ColumnValues::new))
+                ? values : null;
+    }
+
+    /**
+     * Drops the lookup indexes and area values containing the specified cell, clears the formulas
+     * which used them and updates the shared column values.
+     *
+     * @param newCell the updated cell, <code>null</code> if the cell has been deleted
+     */
+    private void clearCachedAreas(int bookIndex, int sheetIndex, EvaluationCell cell, EvaluationCell newCell) {
+        int rowIndex = cell.getRowIndex();
+        int columnIndex = cell.getColumnIndex();
+        clearCachedAreas(_lookupIndexes, bookIndex, sheetIndex, rowIndex, columnIndex);
+        clearCachedAreas(_areaValues, bookIndex, sheetIndex, rowIndex, columnIndex);
+        Map<Integer, ColumnValues> columns = _columnValues.get(new BookSheetKey(bookIndex, sheetIndex));
+        ColumnValues column = columns == null ? null : columns.get(columnIndex);
+        if (column != null) {
+            column.updateCell(rowIndex, newCell);
+        }
+    }
+
+    private void clearCachedAreas(Map<CachedArea, ? extends CellCacheEntry> entries, int bookIndex,
+            int sheetIndex, int rowIndex, int columnIndex) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        Iterator<? extends Map.Entry<CachedArea, ? extends CellCacheEntry>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<CachedArea, ? extends CellCacheEntry> entry = it.next();
+            if (entry.getKey().containsCell(bookIndex, sheetIndex, rowIndex, columnIndex)) {
+                it.remove();
+                entry.getValue().recurseClearCachedFormulaResults(_evaluationListener, _clearedFormulaCells);
+            }
+        }
+    }
+
     /**
      * Should be called whenever there are changes to input cells in the evaluated workbook.
      */
@@ -186,8 +292,12 @@ final class EvaluationCache {
         }
         _plainCellCache.clear();
         _formulaCellCache.clear();
+        _lookupIndexes.clear();
+        _areaValues.clear();
+        _columnValues.clear();
     }
     public void notifyDeleteCell(int bookIndex, int sheetIndex, EvaluationCell cell) {
+        clearCachedAreas(bookIndex, sheetIndex, cell, null);
 
         if (cell.getCellType() == CellType.FORMULA) {
             FormulaCellCacheEntry fcce = _formulaCellCache.remove(cell);
@@ -195,7 +305,7 @@ final class EvaluationCache {
                 // formula cell has not been evaluated yet
             } else {
                 fcce.setSensitiveInputCells(null);
-                fcce.recurseClearCachedFormulaResults(_evaluationListener);
+                fcce.recurseClearCachedFormulaResults(_evaluationListener, _clearedFormulaCells);
             }
         } else {
             Loc loc = new Loc(bookIndex, sheetIndex, cell.getRowIndex(), cell.getColumnIndex());
@@ -204,8 +314,49 @@ final class EvaluationCache {
             if (pcce == null) {
                 // cache entry doesn't exist. nothing to do
             } else {
-                pcce.recurseClearCachedFormulaResults(_evaluationListener);
+                pcce.recurseClearCachedFormulaResults(_evaluationListener, _clearedFormulaCells);
+            }
+        }
+    }
+
+    private static final class CachedArea {
+        private final int _bookIndex;
+        private final int _sheetIndex;
+        private final int _firstRow;
+        private final int _firstColumn;
+        private final int _lastRow;
+        private final int _lastColumn;
+
+        CachedArea(int bookIndex, int sheetIndex, int firstRow, int firstColumn, int lastRow, int lastColumn) {
+            _bookIndex = bookIndex;
+            _sheetIndex = sheetIndex;
+            _firstRow = firstRow;
+            _firstColumn = firstColumn;
+            _lastRow = lastRow;
+            _lastColumn = lastColumn;
+        }
+
+        boolean containsCell(int bookIndex, int sheetIndex, int rowIndex, int columnIndex) {
+            return _bookIndex == bookIndex && _sheetIndex == sheetIndex
+                    && rowIndex >= _firstRow && rowIndex <= _lastRow
+                    && columnIndex >= _firstColumn && columnIndex <= _lastColumn;
+        }
+
+        @Override
+        public int hashCode() {
+            return ((((_bookIndex * 31 + _sheetIndex) * 31 + _firstRow) * 31 + _firstColumn) * 31 + _lastRow) * 31
+                    + _lastColumn;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof CachedArea)) {
+                return false;
             }
+            CachedArea other = (CachedArea) obj;
+            return _bookIndex == other._bookIndex && _sheetIndex == other._sheetIndex
+                    && _firstRow == other._firstRow && _firstColumn == other._firstColumn
+                    && _lastRow == other._lastRow && _lastColumn == other._lastColumn;
         }
     }
 }
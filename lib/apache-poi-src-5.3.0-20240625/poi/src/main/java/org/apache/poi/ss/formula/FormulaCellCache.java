@@ -17,9 +17,9 @@
 
 package org.apache.poi.ss.formula;
 
-import java.util.HashMap;
 import java.util.Iterator;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 final class FormulaCellCache {
 
@@ -27,11 +27,11 @@ final class FormulaCellCache {
         void processEntry(FormulaCellCacheEntry entry);
     }
 
-    private final Map<Object, FormulaCellCacheEntry> _formulaEntriesByCell;
+    private final ConcurrentMap<Object, FormulaCellCacheEntry> _formulaEntriesByCell;
 
     public FormulaCellCache() {
         // assumes the object returned by EvaluationCell.getIdentityKey() has a well behaved hashCode+equals
-        _formulaEntriesByCell = new HashMap<>();
+        _formulaEntriesByCell = new ConcurrentHashMap<>();
     }
 
     public CellCacheEntry[] getCacheEntries() {
@@ -56,6 +56,13 @@ final class FormulaCellCache {
         _formulaEntriesByCell.put(cell.getIdentityKey(), entry);
     }
 
+    /**
+     * @return the entry for the cell, creating it if it does not exist yet
+     */
+    public FormulaCellCacheEntry getOrCreate(EvaluationCell cell) {
+        return _formulaEntriesByCell.computeIfAbsent(cell.getIdentityKey(), key -> new FormulaCellCacheEntry(cell));
+    }
+
     public FormulaCellCacheEntry remove(EvaluationCell cell) {
         return _formulaEntriesByCell.remove(cell.getIdentityKey());
     }
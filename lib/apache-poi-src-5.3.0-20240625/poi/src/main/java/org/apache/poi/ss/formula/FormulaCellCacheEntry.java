@@ -20,6 +20,7 @@ package org.apache.poi.ss.formula;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.poi.ss.formula.eval.ValueEval;
@@ -28,6 +29,9 @@ import org.apache.poi.ss.formula.FormulaUsedBlankCellSet.BookSheetKey;
 
 /**
  * Stores the cached result of a formula evaluation, along with the set of sensitive input cells
+ *
+ * Updates are synchronized on the entry, so that a formula cell which is evaluated by two threads
+ * at the same time keeps a consistent set of input cells.
  */
 final class FormulaCellCacheEntry extends CellCacheEntry {
     
@@ -40,11 +44,43 @@ final class FormulaCellCacheEntry extends CellCacheEntry {
 
     private FormulaUsedBlankCellSet _usedBlankCellGroup;
 
+    /**
+     * The cell of this entry, used to re-evaluate it after its inputs changed. {@code null} in unit tests.
+     */
+    private final EvaluationCell _cell;
+
+    /**
+     * The compiled formula of the cell, kept when the cached value is cleared
+     */
+    private volatile CompiledFormula _compiledFormula;
+
     public FormulaCellCacheEntry() {
-        // leave fields un-set
+        this(null);
+    }
+
+    public FormulaCellCacheEntry(EvaluationCell cell) {
+        _cell = cell;
+    }
+
+    /**
+     * @return the cell this entry was created for, may be {@code null}
+     */
+    public EvaluationCell getCell() {
+        return _cell;
     }
     
-    public boolean isInputSensitive() {
+    CompiledFormula getCompiledFormula() {
+        return _compiledFormula;
+    }
+
+    /**
+     * @param compiledFormula the compiled formula, or {@code null} if the formula of the cell has changed
+     */
+    void setCompiledFormula(CompiledFormula compiledFormula) {
+        _compiledFormula = compiledFormula;
+    }
+
+    public synchronized boolean isInputSensitive() {
         if (_sensitiveInputCells != null) {
             if (_sensitiveInputCells.length > 0 ) {
                 return true;
@@ -53,7 +89,7 @@ final class FormulaCellCacheEntry extends CellCacheEntry {
         return _usedBlankCellGroup == null ? false : !_usedBlankCellGroup.isEmpty();
     }
 
-    public void setSensitiveInputCells(CellCacheEntry[] sensitiveInputCells) {
+    public synchronized void setSensitiveInputCells(CellCacheEntry[] sensitiveInputCells) {
         // need to tell all cells that were previously used, but no longer are, 
         // that they are not consumed by this cell any more
         if (sensitiveInputCells == null) {
@@ -65,7 +101,7 @@ final class FormulaCellCacheEntry extends CellCacheEntry {
         }
     }
 
-    public void clearFormulaEntry() {
+    public synchronized void clearFormulaEntry() {
         CellCacheEntry[] usedCells = _sensitiveInputCells;
         if (usedCells != null) {
             for (int i = usedCells.length-1; i>=0; i--) {
@@ -105,17 +141,21 @@ final class FormulaCellCacheEntry extends CellCacheEntry {
         }
     }
 
-    public void updateFormulaResult(ValueEval result, CellCacheEntry[] sensitiveInputCells, FormulaUsedBlankCellSet usedBlankAreas) {
+    public synchronized void updateFormulaResult(ValueEval result, CellCacheEntry[] sensitiveInputCells, FormulaUsedBlankCellSet usedBlankAreas) {
         updateValue(result);
         setSensitiveInputCells(sensitiveInputCells);
         _usedBlankCellGroup = usedBlankAreas;
     }
 
-    public void notifyUpdatedBlankCell(BookSheetKey bsk, int rowIndex, int columnIndex, IEvaluationListener evaluationListener) {
+    public void notifyUpdatedBlankCell(BookSheetKey bsk, int rowIndex, int columnIndex, IEvaluationListener evaluationListener,
+            Map<FormulaCellCacheEntry, ValueEval> cleared) {
         if (_usedBlankCellGroup != null) {
             if (_usedBlankCellGroup.containsCell(bsk, rowIndex, columnIndex)) {
+                if (cleared != null) {
+                    cleared.putIfAbsent(this, getValue());
+                }
                 clearFormulaEntry();
-                recurseClearCachedFormulaResults(evaluationListener);
+                recurseClearCachedFormulaResults(evaluationListener, cleared);
             }
         }
     }
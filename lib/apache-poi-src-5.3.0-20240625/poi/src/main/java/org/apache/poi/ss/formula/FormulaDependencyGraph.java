@@ -0,0 +1,429 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.ss.formula;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.poi.ss.formula.EvaluationWorkbook.ExternalSheet;
+import org.apache.poi.ss.formula.EvaluationWorkbook.ExternalSheetRange;
+import org.apache.poi.ss.formula.function.FunctionMetadataRegistry;
+import org.apache.poi.ss.formula.ptg.AbstractFunctionPtg;
+import org.apache.poi.ss.formula.ptg.Area3DPtg;
+import org.apache.poi.ss.formula.ptg.Area3DPxg;
+import org.apache.poi.ss.formula.ptg.AreaNPtg;
+import org.apache.poi.ss.formula.ptg.AreaPtg;
+import org.apache.poi.ss.formula.ptg.AreaPtgBase;
+import org.apache.poi.ss.formula.ptg.ExpPtg;
+import org.apache.poi.ss.formula.ptg.NamePtg;
+import org.apache.poi.ss.formula.ptg.NameXPtg;
+import org.apache.poi.ss.formula.ptg.NameXPxg;
+import org.apache.poi.ss.formula.ptg.Ptg;
+import org.apache.poi.ss.formula.ptg.Pxg3D;
+import org.apache.poi.ss.formula.ptg.Ref3DPtg;
+import org.apache.poi.ss.formula.ptg.Ref3DPxg;
+import org.apache.poi.ss.formula.ptg.RefNPtg;
+import org.apache.poi.ss.formula.ptg.RefPtg;
+import org.apache.poi.ss.formula.ptg.RefPtgBase;
+import org.apache.poi.ss.formula.ptg.TblPtg;
+import org.apache.poi.util.Internal;
+
+/**
+ * Static dependency graph between a set of formula cells, used to evaluate independent
+ * formula cells concurrently.
+ * <p>
+ * The precedents of each formula cell are read from the cell and area references of its parsed
+ * formula tokens (including the definitions of named ranges). The graph is then levelled
+ * topologically: all precedents of a cell on level {@code n} are on levels {@code < n}, so the
+ * cells of one level can be evaluated in any order once the previous levels are done.
+ * <p>
+ * Cells whose precedents cannot be determined statically (e.g. {@code INDIRECT}, {@code OFFSET},
+ * external workbooks, user defined functions), cells calling functions which are not thread-safe,
+ * cells referring to a very large number of other formula cells, cells on a circular reference
+ * and every cell depending on any of these are reported as serial cells instead. These are
+ * evaluated one by one after all levels, exactly as without this graph.
+ */
+@Internal
+final class FormulaDependencyGraph {
+
+    /**
+     * Maximum number of formula cells a single formula may refer to before it is evaluated serially,
+     * so that e.g. running totals over large ranges do not produce a quadratic number of edges.
+     */
+    static final int MAX_FORMULA_PRECEDENTS = 4096;
+
+    private static final int MAX_NAME_DEPTH = 16;
+
+    private static final int FUNCTION_INDEX_OFFSET = FunctionMetadataRegistry.lookupIndexByName("OFFSET");
+    // TEXT uses a shared DataFormatter which is not thread-safe
+    private static final int FUNCTION_INDEX_TEXT = FunctionMetadataRegistry.lookupIndexByName("TEXT");
+
+    private final EvaluationWorkbook _workbook;
+    private final int[] _sheetIndexes;
+    private final int[] _rowIndexes;
+    private final int[] _columnIndexes;
+
+    /** formula cells per sheet index, then per column */
+    private final Map<Integer, TreeMap<Integer, ColumnCells>> _cellsBySheet = new HashMap<>();
+    private final BitSet _referencedSheets = new BitSet();
+
+    private final int[][] _levels;
+    private final int[] _serialCells;
+
+    /**
+     * @param workbook the workbook the cells belong to
+     * @param sheetIndexes sheet index of each formula cell
+     * @param rowIndexes row index of each formula cell
+     * @param columnIndexes column index of each formula cell
+     * @param formulaTokens parsed formula of each formula cell
+     */
+    FormulaDependencyGraph(EvaluationWorkbook workbook, int[] sheetIndexes, int[] rowIndexes,
+                           int[] columnIndexes, Ptg[][] formulaTokens) {
+        _workbook = workbook;
+        _sheetIndexes = sheetIndexes;
+        _rowIndexes = rowIndexes;
+        _columnIndexes = columnIndexes;
+        int nCells = sheetIndexes.length;
+
+        indexCells();
+
+        // collect the (de-duplicated) formula precedents of every cell
+        int[][] precedents = new int[nCells][];
+        boolean[] serial = new boolean[nCells];
+        IntList found = new IntList();
+        for (int i = 0; i < nCells; i++) {
+            found.clear();
+            serial[i] = !collectPrecedents(formulaTokens[i], sheetIndexes[i], found, 0);
+            if (!serial[i]) {
+                int[] unique = found.toSortedUniqueArray();
+                if (unique.length > MAX_FORMULA_PRECEDENTS) {
+                    serial[i] = true;
+                } else {
+                    precedents[i] = unique;
+                }
+            }
+        }
+
+        // dependents in compressed sparse row form
+        int[] inDegree = new int[nCells];
+        int[] dependentCount = new int[nCells + 1];
+        for (int i = 0; i < nCells; i++) {
+            if (precedents[i] != null) {
+                inDegree[i] = precedents[i].length;
+                for (int p : precedents[i]) {
+                    dependentCount[p + 1]++;
+                }
+            }
+        }
+        for (int i = 0; i < nCells; i++) {
+            dependentCount[i + 1] += dependentCount[i];
+        }
+        int[] dependents = new int[dependentCount[nCells]];
+        int[] fill = Arrays.copyOf(dependentCount, nCells);
+        for (int i = 0; i < nCells; i++) {
+            if (precedents[i] != null) {
+                for (int p : precedents[i]) {
+                    dependents[fill[p]++] = i;
+                }
+            }
+        }
+
+        // Kahn's algorithm, assigning each cell the level after its deepest precedent.
+        // Serial cells never leave the queue with a level, but still release their dependents
+        // (marking them serial as well). Cells on a cycle are never released and stay serial.
+        int[] level = new int[nCells];
+        boolean[] done = new boolean[nCells];
+        int[] queue = new int[nCells];
+        int head = 0;
+        int tail = 0;
+        for (int i = 0; i < nCells; i++) {
+            if (serial[i] || inDegree[i] == 0) {
+                queue[tail++] = i;
+            }
+        }
+        int maxLevel = -1;
+        while (head < tail) {
+            int cell = queue[head++];
+            done[cell] = true;
+            if (!serial[cell]) {
+                maxLevel = Math.max(maxLevel, level[cell]);
+            }
+            for (int d = dependentCount[cell]; d < dependentCount[cell + 1]; d++) {
+                int dependent = dependents[d];
+                if (serial[cell]) {
+                    serial[dependent] = true;
+                } else {
+                    level[dependent] = Math.max(level[dependent], level[cell] + 1);
+                }
+                if (--inDegree[dependent] == 0 && precedents[dependent] != null) {
+                    queue[tail++] = dependent;
+                }
+            }
+        }
+
+        int[] levelSizes = new int[maxLevel + 1];
+        int nSerial = 0;
+        for (int i = 0; i < nCells; i++) {
+            if (!done[i]) {
+                serial[i] = true; // circular reference
+            }
+            if (serial[i]) {
+                nSerial++;
+            } else {
+                levelSizes[level[i]]++;
+            }
+        }
+        _levels = new int[maxLevel + 1][];
+        for (int l = 0; l <= maxLevel; l++) {
+            _levels[l] = new int[levelSizes[l]];
+            levelSizes[l] = 0;
+        }
+        _serialCells = new int[nSerial];
+        nSerial = 0;
+        for (int i = 0; i < nCells; i++) {
+            if (serial[i]) {
+                _serialCells[nSerial++] = i;
+            } else {
+                _levels[level[i]][levelSizes[level[i]]++] = i;
+            }
+        }
+    }
+
+    /**
+     * @return the indexes of the cells which can be evaluated concurrently, grouped by level
+     */
+    int[][] getLevels() {
+        return _levels;
+    }
+
+    /**
+     * @return the indexes of the cells which must be evaluated one by one after all levels,
+     * in their original order
+     */
+    int[] getSerialCells() {
+        return _serialCells;
+    }
+
+    /**
+     * @return the indexes of the sheets containing the cells or referenced by their formulas
+     */
+    BitSet getReferencedSheets() {
+        return _referencedSheets;
+    }
+
+    private void indexCells() {
+        Map<Integer, Map<Integer, IntList>> rowsBySheet = new HashMap<>();
+        for (int i = 0; i < _sheetIndexes.length; i++) {
+            _referencedSheets.set(_sheetIndexes[i]);
+            rowsBySheet.computeIfAbsent(_sheetIndexes[i], k -> new HashMap<>())
+                    .computeIfAbsent(_columnIndexes[i], k -> new IntList())
+                    .add(i);
+        }
+        for (Map.Entry<Integer, Map<Integer, IntList>> sheet : rowsBySheet.entrySet()) {
+            TreeMap<Integer, ColumnCells> columns = new TreeMap<>();
+            for (Map.Entry<Integer, IntList> column : sheet.getValue().entrySet()) {
+                columns.put(column.getKey(), new ColumnCells(column.getValue().toArray(), _rowIndexes));
+            }
+            _cellsBySheet.put(sheet.getKey(), columns);
+        }
+    }
+
+    /**
+     * Adds the formula cells referenced by the given tokens.
+     *
+     * @return {@code false} if the references cannot be determined statically,
+     * or a function is used that must not be evaluated concurrently
+     */
+    private boolean collectPrecedents(Ptg[] ptgs, int sheetIndex, IntList found, int nameDepth) {
+        for (Ptg ptg : ptgs) {
+            if (ptg instanceof AbstractFunctionPtg) {
+                int functionIndex = ((AbstractFunctionPtg) ptg).getFunctionIndex();
+                if (functionIndex == FunctionMetadataRegistry.FUNCTION_INDEX_INDIRECT
+                        || functionIndex == FunctionMetadataRegistry.FUNCTION_INDEX_EXTERNAL
+                        || functionIndex == FUNCTION_INDEX_OFFSET
+                        || functionIndex == FUNCTION_INDEX_TEXT) {
+                    return false;
+                }
+            } else if (ptg instanceof RefPtg) {
+                RefPtg ref = (RefPtg) ptg;
+                if (nameDepth > 0) {
+                    return false; // relative to the evaluating cell
+                }
+                addArea(sheetIndex, sheetIndex, ref.getRow(), ref.getColumn(), ref.getRow(), ref.getColumn(), found);
+            } else if (ptg instanceof AreaPtg) {
+                AreaPtg area = (AreaPtg) ptg;
+                if (nameDepth > 0) {
+                    return false;
+                }
+                addArea(sheetIndex, sheetIndex, area.getFirstRow(), area.getFirstColumn(),
+                        area.getLastRow(), area.getLastColumn(), found);
+            } else if (ptg instanceof Ref3DPtg || ptg instanceof Area3DPtg
+                    || ptg instanceof Ref3DPxg || ptg instanceof Area3DPxg) {
+                if (!add3DReference(ptg, found)) {
+                    return false;
+                }
+            } else if (ptg instanceof NamePtg) {
+                EvaluationName name = _workbook.getName((NamePtg) ptg);
+                if (name == null || nameDepth >= MAX_NAME_DEPTH) {
+                    return false;
+                }
+                if (!name.isFunctionName()) {
+                    if (!name.hasFormula()
+                            || !collectPrecedents(name.getNameDefinition(), sheetIndex, found, nameDepth + 1)) {
+                        return false;
+                    }
+                }
+            } else if (ptg instanceof NameXPtg || ptg instanceof NameXPxg
+                    || ptg instanceof RefNPtg || ptg instanceof AreaNPtg
+                    || ptg instanceof ExpPtg || ptg instanceof TblPtg) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean add3DReference(Ptg ptg, IntList found) {
+        ExternalSheet externalSheet;
+        try {
+            if (ptg instanceof Pxg3D) {
+                Pxg3D pxg = (Pxg3D) ptg;
+                externalSheet = _workbook.getExternalSheet(pxg.getSheetName(), pxg.getLastSheetName(),
+                        pxg.getExternalWorkbookNumber());
+            } else {
+                externalSheet = _workbook.getExternalSheet(((ExternSheetReferenceToken) ptg).getExternSheetIndex());
+            }
+        } catch (RuntimeException e) {
+            return false;
+        }
+        if (externalSheet == null || externalSheet.getWorkbookName() != null) {
+            return false; // other workbook, or sheet unknown
+        }
+        int firstSheet = _workbook.getSheetIndex(externalSheet.getSheetName());
+        int lastSheet = externalSheet instanceof ExternalSheetRange
+                ? _workbook.getSheetIndex(((ExternalSheetRange) externalSheet).getLastSheetName())
+                : firstSheet;
+        if (firstSheet < 0 || lastSheet < firstSheet) {
+            return false;
+        }
+        if (ptg instanceof RefPtgBase) {
+            RefPtgBase ref = (RefPtgBase) ptg;
+            addArea(firstSheet, lastSheet, ref.getRow(), ref.getColumn(), ref.getRow(), ref.getColumn(), found);
+        } else {
+            AreaPtgBase area = (AreaPtgBase) ptg;
+            addArea(firstSheet, lastSheet, area.getFirstRow(), area.getFirstColumn(),
+                    area.getLastRow(), area.getLastColumn(), found);
+        }
+        return true;
+    }
+
+    private void addArea(int firstSheet, int lastSheet, int firstRow, int firstColumn,
+                         int lastRow, int lastColumn, IntList found) {
+        _referencedSheets.set(firstSheet, lastSheet + 1);
+        for (int sheet = firstSheet; sheet <= lastSheet; sheet++) {
+            TreeMap<Integer, ColumnCells> columns = _cellsBySheet.get(sheet);
+            if (columns == null) {
+                continue;
+            }
+            for (ColumnCells column : columns.subMap(firstColumn, true, lastColumn, true).values()) {
+                column.addRange(firstRow, lastRow, found);
+                if (found.size() > MAX_FORMULA_PRECEDENTS * 2) {
+                    // no need to find all of them, the cell is evaluated serially anyway
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Formula cells of one column, sorted by row.
+     */
+    private static final class ColumnCells {
+        private final int[] _rows;
+        private final int[] _cells;
+
+        ColumnCells(int[] cells, int[] rowIndexes) {
+            Integer[] order = new Integer[cells.length];
+            for (int i = 0; i < cells.length; i++) {
+                order[i] = cells[i];
+            }
+            Arrays.sort(order, (a, b) -> Integer.compare(rowIndexes[a], rowIndexes[b]));
+            _rows = new int[cells.length];
+            _cells = new int[cells.length];
+            for (int i = 0; i < cells.length; i++) {
+                _cells[i] = order[i];
+                _rows[i] = rowIndexes[order[i]];
+            }
+        }
+
+        void addRange(int firstRow, int lastRow, IntList found) {
+            int ix = Arrays.binarySearch(_rows, firstRow);
+            if (ix < 0) {
+                ix = -ix - 1;
+            } else {
+                while (ix > 0 && _rows[ix - 1] == firstRow) {
+                    ix--;
+                }
+            }
+            for (; ix < _rows.length && _rows[ix] <= lastRow; ix++) {
+                found.add(_cells[ix]);
+            }
+        }
+    }
+
+    /**
+     * Minimal growable list of primitive ints.
+     */
+    private static final class IntList {
+        private int[] _values = new int[8];
+        private int _size;
+
+        void add(int value) {
+            if (_size == _values.length) {
+                _values = Arrays.copyOf(_values, _size * 2);
+            }
+            _values[_size++] = value;
+        }
+
+        int size() {
+            return _size;
+        }
+
+        void clear() {
+            _size = 0;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(_values, _size);
+        }
+
+        int[] toSortedUniqueArray() {
+            int[] result = toArray();
+            Arrays.sort(result);
+            int n = 0;
+            for (int i = 0; i < result.length; i++) {
+                if (n == 0 || result[n - 1] != result[i]) {
+                    result[n++] = result[i];
+                }
+            }
+            return n == result.length ? result : Arrays.copyOf(result, n);
+        }
+    }
+}
@@ -54,6 +54,31 @@ final class LazyAreaEval extends AreaEvalBase {
         return _evaluator.getEvalForCell(sheetIndex, rowIx, colIx);
     }
 
+    /**
+     * @param column {@code true} for a column of this area, {@code false} for a row
+     * @param relativeIndex 0-based index of the row or column within this area
+     * @return the cached lookup index of the row or column in the first sheet of this area,
+     * or {@code null} if it has to be scanned
+     */
+    LookupIndex getLookupIndex(boolean column, int relativeIndex) {
+        SheetRefEvaluator sheetEvaluator = _evaluator.getSheetEvaluator(getFirstSheetIndex());
+        if (column) {
+            int columnIndex = getFirstColumn() + relativeIndex;
+            return sheetEvaluator.getLookupIndex(getFirstRow(), columnIndex, getLastRow(), columnIndex);
+        }
+        int rowIndex = getFirstRow() + relativeIndex;
+        return sheetEvaluator.getLookupIndex(rowIndex, getFirstColumn(), rowIndex, getLastColumn());
+    }
+
+    /**
+     * @return the cached values of this area in the first sheet, or {@code null} if it has to be
+     * evaluated cell by cell
+     */
+    AreaValues getAreaValues() {
+        SheetRefEvaluator sheetEvaluator = _evaluator.getSheetEvaluator(getFirstSheetIndex());
+        return sheetEvaluator.getAreaValues(getFirstRow(), getFirstColumn(), getLastRow(), getLastColumn());
+    }
+
     @Override
     public AreaEval offset(int relFirstRowIx, int relLastRowIx, int relFirstColIx, int relLastColIx) {
         AreaI area = new OffsetArea(getFirstRow(), getFirstColumn(),
@@ -0,0 +1,165 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.ss.formula;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.poi.ss.formula.eval.BoolEval;
+import org.apache.poi.ss.formula.eval.NumberEval;
+import org.apache.poi.ss.formula.eval.StringEval;
+import org.apache.poi.ss.formula.eval.ValueEval;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.util.Internal;
+
+/**
+ * Hash index of the values in a single row or column of a sheet, used by the lookup functions
+ * ({@code VLOOKUP}, {@code HLOOKUP}, {@code MATCH}, {@code XLOOKUP}) to find exact matches without
+ * scanning the whole range for every lookup.
+ * <p>
+ * Indexes are cached in the {@link EvaluationCache} per book, sheet and range and are only built
+ * for ranges which are looked up repeatedly and contain plain values only (formula results may change
+ * without the range being notified). Formula cells using an index are recorded as its consumers, so
+ * they are recalculated when a cell of the range is updated through
+ * {@link WorkbookEvaluator#notifyUpdateCell(EvaluationCell)} or deleted.
+ */
+@Internal
+public final class LookupIndex extends CellCacheEntry {
+
+    /**
+     * Ranges smaller than this are scanned, building an index would not pay off.
+     */
+    static final int MIN_INDEXED_SIZE = 32;
+
+    private final int _firstRow;
+    private final int _firstColumn;
+    private final int _lastRow;
+    private final int _lastColumn;
+
+    // guarded by this
+    private int _requests;
+    private boolean _built;
+    private Map<Object, Integer> _firstIndexes;
+
+    LookupIndex(int firstRow, int firstColumn, int lastRow, int lastColumn) {
+        _firstRow = firstRow;
+        _firstColumn = firstColumn;
+        _lastRow = lastRow;
+        _lastColumn = lastColumn;
+    }
+
+    /**
+     * @param area the evaluated range argument of a lookup function
+     * @param column {@code true} to index a column of {@code area}, {@code false} to index a row
+     * @param relativeIndex 0-based index of the row or column within {@code area}
+     * @return the index of the values in the row or column,
+     * or {@code null} if the range has to be scanned
+     */
+    public static LookupIndex getIndex(TwoDEval area, boolean column, int relativeIndex) {
+        if (!(area instanceof LazyAreaEval)) {
+            return null;
+        }
+        int size = column ? area.getHeight() : area.getWidth();
+        if (size < MIN_INDEXED_SIZE) {
+            return null;
+        }
+        return ((LazyAreaEval) area).getLookupIndex(column, relativeIndex);
+    }
+
+    /**
+     * @param key the key of the lookup value, see {@link #keyOf(ValueEval)}
+     * @return 0-based index of the first value with the given key, or -1 if there is none
+     */
+    public int getFirstIndex(Object key) {
+        Integer index = _firstIndexes.get(key);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * Returns the index key of a value. Two values have equal keys exactly if the lookup
+     * functions consider them equal in an exact match (numbers compared with
+     * {@link Double#compare}, strings case-insensitive, booleans, no type conversions).
+     *
+     * @return {@code null} if values of this type are not indexed
+     */
+    public static Object keyOf(ValueEval value) {
+        if (value instanceof NumberEval) {
+            return ((NumberEval) value).getNumberValue();
+        }
+        if (value instanceof StringEval) {
+            return stringKey(((StringEval) value).getStringValue());
+        }
+        if (value instanceof BoolEval) {
+            return ((BoolEval) value).getBooleanValue();
+        }
+        return null;
+    }
+
+    /**
+     * @return the index key of a string, matching {@link String#compareToIgnoreCase(String)}
+     */
+    public static Object stringKey(String value) {
+        StringBuilder sb = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); ) {
+            int cp = value.codePointAt(i);
+            sb.appendCodePoint(Character.toLowerCase(Character.toUpperCase(cp)));
+            i += Character.charCount(cp);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Builds the index on the second request, so that ranges which are looked up only once
+     * (e.g. growing ranges like {@code $A$1:A5}) do not pay for it.
+     *
+     * @return {@code true} if the index can be used
+     */
+    synchronized boolean prepare(EvaluationSheet sheet) {
+        if (!_built) {
+            if (++_requests < 2) {
+                return false;
+            }
+            _built = true;
+            _firstIndexes = build(sheet);
+        }
+        return _firstIndexes != null;
+    }
+
+    /**
+     * @return {@code null} if the range contains formula cells
+     */
+    private Map<Object, Integer> build(EvaluationSheet sheet) {
+        int size = (_lastRow - _firstRow + 1) * (_lastColumn - _firstColumn + 1);
+        Map<Object, Integer> firstIndexes = new HashMap<>(size * 4 / 3 + 1);
+        int index = 0;
+        for (int rowIndex = _firstRow; rowIndex <= _lastRow; rowIndex++) {
+            for (int columnIndex = _firstColumn; columnIndex <= _lastColumn; columnIndex++) {
+                EvaluationCell cell = sheet.getCell(rowIndex, columnIndex);
+                if (cell != null && cell.getCellType() == CellType.FORMULA) {
+                    return null;
+                }
+                Object key = keyOf(WorkbookEvaluator.getValueFromNonFormulaCell(cell));
+                if (key != null) {
+                    firstIndexes.putIfAbsent(key, index);
+                }
+                index++;
+            }
+        }
+        return firstIndexes;
+    }
+}
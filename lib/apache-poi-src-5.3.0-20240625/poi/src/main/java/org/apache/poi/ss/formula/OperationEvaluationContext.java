@@ -58,6 +58,8 @@ public final class OperationEvaluationContext {
     private final int _columnIndex;
     private final EvaluationTracker _tracker;
     private final WorkbookEvaluator _bookEvaluator;
+    /** the current sheet, looked up by {@link #getCellValue(int, int)} */
+    private EvaluationSheet _sheet;
     private final boolean _isSingleValue;
     private boolean _isInArrayContext;
 
@@ -369,6 +371,25 @@ public final class OperationEvaluationContext {
         return new LazyRefEval(rowIndex, columnIndex, sre);
     }
 
+    /**
+     * Returns the value of a cell of the current sheet, the same as dereferencing
+     * {@link #getRefEval(int, int)} but without creating the reference.
+     */
+    ValueEval getCellValue(int rowIndex, int columnIndex) {
+        if (_sheet == null) {
+            _sheet = _bookEvaluator.getSheet(_sheetIndex);
+        }
+        return _bookEvaluator.evaluateReference(_sheet, _sheetIndex, rowIndex, columnIndex, _tracker);
+    }
+
+    /**
+     * Evaluates an operand token (anything but an {@link org.apache.poi.ss.formula.ptg.OperationPtg})
+     * in this context.
+     */
+    ValueEval getOperandEval(Ptg ptg) {
+        return _bookEvaluator.getEvalForPtg(ptg, this);
+    }
+
     public ValueEval getRef3DEval(Ref3DPtg rptg) {
         SheetRangeEvaluator sre = createExternSheetRefEvaluator(rptg.getExternSheetIndex());
         return new LazyRefEval(rptg.getRow(), rptg.getColumn(), sre);
@@ -17,8 +17,8 @@
 
 package org.apache.poi.ss.formula;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 final class PlainCellCache {
 
@@ -75,16 +75,23 @@ final class PlainCellCache {
         }
     }
 
-    private Map<Loc, PlainValueCellCacheEntry> _plainValueEntriesByLoc;
+    private ConcurrentMap<Loc, PlainValueCellCacheEntry> _plainValueEntriesByLoc;
 
     public PlainCellCache() {
-        _plainValueEntriesByLoc = new HashMap<>();
+        _plainValueEntriesByLoc = new ConcurrentHashMap<>();
     }
 
     public void put(Loc key, PlainValueCellCacheEntry cce) {
         _plainValueEntriesByLoc.put(key, cce);
     }
 
+    /**
+     * @return the entry already stored for the key, or <code>null</code> if <code>cce</code> was stored
+     */
+    public PlainValueCellCacheEntry putIfAbsent(Loc key, PlainValueCellCacheEntry cce) {
+        return _plainValueEntriesByLoc.putIfAbsent(key, cce);
+    }
+
     public void clear() {
         _plainValueEntriesByLoc.clear();
     }
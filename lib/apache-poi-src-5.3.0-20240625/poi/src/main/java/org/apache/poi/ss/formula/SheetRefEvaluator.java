@@ -48,6 +48,26 @@ final class SheetRefEvaluator {
         return _bookEvaluator.evaluateReference(getSheet(), _sheetIndex, rowIndex, columnIndex, _tracker);
     }
 
+    /**
+     * @return the cached lookup index of the given single row or column range,
+     * or {@code null} if the range has to be scanned
+     * @see LookupIndex
+     */
+    public LookupIndex getLookupIndex(int firstRow, int firstColumn, int lastRow, int lastColumn) {
+        return _bookEvaluator.getLookupIndex(getSheet(), _sheetIndex, firstRow, firstColumn,
+                lastRow, lastColumn, _tracker);
+    }
+
+    /**
+     * @return the cached values of the given area, or {@code null} if the area has to be evaluated
+     * cell by cell
+     * @see AreaValues
+     */
+    public AreaValues getAreaValues(int firstRow, int firstColumn, int lastRow, int lastColumn) {
+        return _bookEvaluator.getAreaValues(getSheet(), _sheetIndex, firstRow, firstColumn,
+                lastRow, lastColumn, _tracker);
+    }
+
     private EvaluationSheet getSheet() {
         if (_sheet == null) {
             _sheet = _bookEvaluator.getSheet(_sheetIndex);
@@ -17,13 +17,20 @@
 
 package org.apache.poi.ss.formula;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Stack;
 import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -72,6 +79,11 @@ public final class WorkbookEvaluator {
 
     private boolean _ignoreMissingWorkbooks;
 
+    /**
+     * formula tokens parsed ahead of a parallel evaluation, by cell identity key
+     */
+    private volatile Map<Object, Ptg[]> _formulaTokens;
+
     /**
      * whether print detailed messages about the next formula evaluation
      */
@@ -94,8 +106,8 @@ public final class WorkbookEvaluator {
         _workbook = workbook;
         _evaluationListener = evaluationListener;
         _cache = new EvaluationCache(evaluationListener);
-        _sheetIndexesBySheet = new IdentityHashMap<>();
-        _sheetIndexesByName = new IdentityHashMap<>();
+        _sheetIndexesBySheet = Collections.synchronizedMap(new IdentityHashMap<>());
+        _sheetIndexesByName = Collections.synchronizedMap(new IdentityHashMap<>());
         _collaboratingWorkbookEnvironment = CollaboratingWorkbooksEnvironment.EMPTY;
         _workbookIx = 0;
         _stabilityClassifier = stabilityClassifier;
@@ -178,6 +190,61 @@ public final class WorkbookEvaluator {
         _cache.notifyUpdateCell(_workbookIx, sheetIndex, cell);
     }
 
+    /**
+     * Recalculates the formula cells affected by a batch of changed cells.
+     * <p>
+     * All changed cells are notified first (as with {@link #notifyUpdateCell(EvaluationCell)}), which
+     * collects the transitive set of dirty formula cells once for the whole batch. Only these cells are
+     * then evaluated again - on the given pool if there is one (see
+     * {@link #evaluateInParallel(List, ForkJoinPool)}), otherwise one by one. Precedents are evaluated
+     * on demand, so every cell is calculated once and after its precedents.
+     * <p>
+     * Dependencies are only known for formula cells whose results are cached, i.e. which have been
+     * evaluated since the cache was last cleared. Formula cells which were never evaluated are neither
+     * recalculated nor reported.
+     *
+     * @param changedCells the value and formula cells which were modified
+     * @param pool the pool to evaluate independent formulas on, or {@code null} to evaluate sequentially
+     * @return the recalculated formula cells whose value changed, mapped to their new value
+     */
+    public Map<EvaluationCell, ValueEval> recalculate(Collection<? extends EvaluationCell> changedCells, ForkJoinPool pool) {
+        Map<FormulaCellCacheEntry, ValueEval> cleared = new LinkedHashMap<>();
+        for (EvaluationCell cell : changedCells) {
+            int sheetIndex = getSheetIndex(cell.getSheet());
+            _cache.notifyUpdateCell(_workbookIx, sheetIndex, cell, cleared);
+        }
+
+        List<EvaluationCell> dirtyCells = new ArrayList<>(cleared.size());
+        List<ValueEval> oldValues = new ArrayList<>(cleared.size());
+        for (Map.Entry<FormulaCellCacheEntry, ValueEval> entry : cleared.entrySet()) {
+            EvaluationCell cell = entry.getKey().getCell();
+            // cells of other workbooks and cells which are no longer formulas are not recalculated
+            if (cell != null && cell.getCellType() == CellType.FORMULA
+                    && _workbook.getSheetIndex(cell.getSheet()) >= 0) {
+                dirtyCells.add(cell);
+                oldValues.add(entry.getValue());
+            }
+        }
+
+        ValueEval[] newValues;
+        if (pool != null) {
+            newValues = evaluateInParallel(dirtyCells, pool);
+        } else {
+            newValues = new ValueEval[dirtyCells.size()];
+            for (int i = 0; i < newValues.length; i++) {
+                newValues[i] = evaluate(dirtyCells.get(i));
+            }
+        }
+
+        Map<EvaluationCell, ValueEval> changes = new LinkedHashMap<>();
+        for (int i = 0; i < newValues.length; i++) {
+            if (!CellCacheEntry.areValuesEqual(oldValues.get(i), newValues[i])) {
+                changes.put(dirtyCells.get(i), newValues[i]);
+            }
+        }
+        return changes;
+    }
+
     /**
      * Should be called to tell the cell value cache that the specified cell has just been
      * deleted.
@@ -205,6 +272,149 @@ public final class WorkbookEvaluator {
         return evaluateAny(srcCell, sheetIndex, srcCell.getRowIndex(), srcCell.getColumnIndex(), new EvaluationTracker(_cache));
     }
 
+    /**
+     * Evaluates the given cells, evaluating independent formula cells concurrently on the given pool.
+     * <p>
+     * The formula cells are levelled by their static dependencies (see {@link FormulaDependencyGraph}),
+     * each level is evaluated in parallel once all its precedents are cached. Formulas with dynamic
+     * references ({@code INDIRECT}, {@code OFFSET}, external references, user defined functions),
+     * functions which are not thread-safe, circular references and everything depending on them are
+     * evaluated one by one afterwards. Formula cells which are referenced but not part of
+     * {@code cells} are evaluated on demand, so the list should normally contain all formula cells
+     * of the workbook.
+     * <p>
+     * The results are cached just like with {@link #evaluate(EvaluationCell)}. When an evaluation
+     * listener is installed or debug output is enabled, all cells are evaluated sequentially.
+     * The workbook must not be modified while this method runs.
+     *
+     * @param cells the cells to evaluate
+     * @param pool the pool to evaluate independent formulas on
+     * @return the value of each cell, in the order of {@code cells}
+     */
+    public ValueEval[] evaluateInParallel(List<EvaluationCell> cells, ForkJoinPool pool) {
+        ValueEval[] results = new ValueEval[cells.size()];
+        if (_evaluationListener != null || dbgEvaluationOutputForNextEval || _formulaTokens != null) {
+            for (int i = 0; i < results.length; i++) {
+                results[i] = evaluate(cells.get(i));
+            }
+            return results;
+        }
+
+        int nFormulas = 0;
+        for (EvaluationCell cell : cells) {
+            if (cell.getCellType() == CellType.FORMULA) {
+                nFormulas++;
+            }
+        }
+        int[] resultIndexes = new int[nFormulas];
+        EvaluationCell[] formulaCells = new EvaluationCell[nFormulas];
+        int[] sheetIndexes = new int[nFormulas];
+        int[] rowIndexes = new int[nFormulas];
+        int[] columnIndexes = new int[nFormulas];
+        Ptg[][] formulaTokens = new Ptg[nFormulas][];
+        Map<Object, Ptg[]> tokensByCell = new HashMap<>(nFormulas * 4 / 3 + 1);
+        nFormulas = 0;
+        for (int i = 0; i < results.length; i++) {
+            EvaluationCell cell = cells.get(i);
+            if (cell.getCellType() != CellType.FORMULA) {
+                results[i] = evaluate(cell);
+                continue;
+            }
+            resultIndexes[nFormulas] = i;
+            formulaCells[nFormulas] = cell;
+            sheetIndexes[nFormulas] = getSheetIndex(cell.getSheet());
+            rowIndexes[nFormulas] = cell.getRowIndex();
+            columnIndexes[nFormulas] = cell.getColumnIndex();
+            formulaTokens[nFormulas] = _workbook.getFormulaTokens(cell);
+            tokensByCell.put(cell.getIdentityKey(), formulaTokens[nFormulas]);
+            nFormulas++;
+        }
+
+        FormulaDependencyGraph graph = new FormulaDependencyGraph(_workbook, sheetIndexes, rowIndexes,
+                columnIndexes, formulaTokens);
+        // some evaluation workbooks build their sheet and cell lookups lazily, do this up front
+        BitSet sheets = graph.getReferencedSheets();
+        for (int sheetIndex = sheets.nextSetBit(0); sheetIndex >= 0; sheetIndex = sheets.nextSetBit(sheetIndex + 1)) {
+            _workbook.getSheet(sheetIndex).getCell(0, 0);
+        }
+
+        _formulaTokens = tokensByCell;
+        try {
+            for (int[] level : graph.getLevels()) {
+                int batchSize = Math.max(1, level.length / (pool.getParallelism() * 8));
+                LevelTask task = new LevelTask(level, 0, level.length, batchSize,
+                        formulaCells, sheetIndexes, resultIndexes, results);
+                if (level.length <= batchSize) {
+                    task.compute();
+                } else {
+                    pool.invoke(task);
+                }
+            }
+            for (int ix : graph.getSerialCells()) {
+                results[resultIndexes[ix]] = evaluateAny(formulaCells[ix], sheetIndexes[ix],
+                        rowIndexes[ix], columnIndexes[ix], new EvaluationTracker(_cache));
+            }
+        } finally {
+            _formulaTokens = null;
+        }
+        return results;
+    }
+
+    /**
+     * Evaluates a slice of one dependency level of {@link #evaluateInParallel(List, ForkJoinPool)}.
+     */
+    private final class LevelTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] _level;
+        private final int _from;
+        private final int _to;
+        private final int _batchSize;
+        private final EvaluationCell[] _cells;
+        private final int[] _sheetIndexes;
+        private final int[] _resultIndexes;
+        private final ValueEval[] _results;
+
+        LevelTask(int[] level, int from, int to, int batchSize, EvaluationCell[] cells,
+                  int[] sheetIndexes, int[] resultIndexes, ValueEval[] results) {
+            _level = level;
+            _from = from;
+            _to = to;
+            _batchSize = batchSize;
+            _cells = cells;
+            _sheetIndexes = sheetIndexes;
+            _resultIndexes = resultIndexes;
+            _results = results;
+        }
+
+        @Override
+        protected void compute() {
+            if (_to - _from > _batchSize) {
+                int mid = (_from + _to) >>> 1;
+                invokeAll(new LevelTask(_level, _from, mid, _batchSize, _cells, _sheetIndexes, _resultIndexes, _results),
+                        new LevelTask(_level, mid, _to, _batchSize, _cells, _sheetIndexes, _resultIndexes, _results));
+                return;
+            }
+            for (int i = _from; i < _to; i++) {
+                int ix = _level[i];
+                EvaluationCell cell = _cells[ix];
+                _results[_resultIndexes[ix]] = evaluateAny(cell, _sheetIndexes[ix], cell.getRowIndex(),
+                        cell.getColumnIndex(), new EvaluationTracker(_cache));
+            }
+        }
+    }
+
+    private Ptg[] getFormulaTokens(EvaluationCell cell) {
+        Map<Object, Ptg[]> formulaTokens = _formulaTokens;
+        if (formulaTokens != null) {
+            Ptg[] ptgs = formulaTokens.get(cell.getIdentityKey());
+            if (ptgs != null) {
+                return ptgs;
+            }
+        }
+        return _workbook.getFormulaTokens(cell);
+    }
+
     /**
      * Case-insensitive.
      *
@@ -257,14 +467,18 @@ public final class WorkbookEvaluator {
 
             try {
 
-                Ptg[] ptgs = _workbook.getFormulaTokens(srcCell);
+                CompiledFormula formula = cce.getCompiledFormula();
+                if (formula == null) {
+                    formula = CompiledFormula.compile(getFormulaTokens(srcCell));
+                    cce.setCompiledFormula(formula);
+                }
                 OperationEvaluationContext ec = new OperationEvaluationContext
                         (this, _workbook, sheetIndex, rowIndex, columnIndex, tracker);
                 if (evalListener == null) {
-                    result = evaluateFormula(ec, ptgs);
+                    result = evaluateFormula(srcCell, ec, formula);
                 } else {
                     evalListener.onStartEvaluate(srcCell, cce);
-                    result = evaluateFormula(ec, ptgs);
+                    result = evaluateFormula(srcCell, ec, formula);
                     evalListener.onEndEvaluate(cce, result);
                 }
 
@@ -319,6 +533,18 @@ public final class WorkbookEvaluator {
         return result;
     }
 
+    /**
+     * Evaluates a compiled formula, falling back to the interpreter for array formulas,
+     * formulas which could not be compiled and when debug output is enabled.
+     */
+    private ValueEval evaluateFormula(EvaluationCell srcCell, OperationEvaluationContext ec, CompiledFormula formula) {
+        if (!formula.isCompiled() || dbgEvaluationOutputForNextEval || dbgEvaluationOutputIndent > 0
+                || srcCell.isPartOfArrayFormulaGroup()) {
+            return evaluateFormula(ec, formula.getFormulaTokens());
+        }
+        return dereferenceResult(formula.evaluate(ec), ec.getRowIndex(), ec.getColumnIndex());
+    }
+
     /**
      * Adds the current cell reference to the exception for easier debugging.
      * Would be nice to get the formula text as well, but that seems to require
@@ -668,7 +894,7 @@ public final class WorkbookEvaluator {
      * <p>
      * special Note: OperationPtg subtypes cannot be passed here!
      */
-    private ValueEval getEvalForPtg(Ptg ptg, OperationEvaluationContext ec) {
+    /* package */ ValueEval getEvalForPtg(Ptg ptg, OperationEvaluationContext ec) {
         //  consider converting all these (ptg instanceof XxxPtg) expressions to (ptg.getClass() == XxxPtg.class)
 
         if (ptg instanceof NamePtg) {
@@ -791,6 +1017,34 @@ public final class WorkbookEvaluator {
         return evaluateAny(cell, sheetIndex, rowIndex, columnIndex, tracker);
     }
 
+    /**
+     * @return the cached lookup index of the given single row or column range, or {@code null}
+     * if the range has to be scanned. The formula being evaluated is recorded as consumer of the index.
+     */
+    /* package */ LookupIndex getLookupIndex(EvaluationSheet sheet, int sheetIndex, int firstRow,
+            int firstColumn, int lastRow, int lastColumn, EvaluationTracker tracker) {
+        LookupIndex index = _cache.getLookupIndex(_workbookIx, sheetIndex, sheet,
+                firstRow, firstColumn, lastRow, lastColumn);
+        if (index != null) {
+            tracker.acceptFormulaDependency(index);
+        }
+        return index;
+    }
+
+    /**
+     * @return the cached values of the given area, or {@code null} if the area has to be evaluated
+     * cell by cell. The formula being evaluated is recorded as consumer of the values.
+     */
+    /* package */ AreaValues getAreaValues(EvaluationSheet sheet, int sheetIndex, int firstRow,
+            int firstColumn, int lastRow, int lastColumn, EvaluationTracker tracker) {
+        AreaValues values = _cache.getAreaValues(_workbookIx, sheetIndex, sheet,
+                firstRow, firstColumn, lastRow, lastColumn);
+        if (values != null) {
+            tracker.acceptFormulaDependency(values);
+        }
+        return values;
+    }
+
     public FreeRefFunction findUserDefinedFunction(String functionName) {
         return _udfFinder.findFunction(functionName);
     }
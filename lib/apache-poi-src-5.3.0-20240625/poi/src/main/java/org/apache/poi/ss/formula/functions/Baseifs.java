@@ -19,6 +19,7 @@
 
 package org.apache.poi.ss.formula.functions;
 
+import org.apache.poi.ss.formula.AreaValues;
 import org.apache.poi.ss.formula.OperationEvaluationContext;
 import org.apache.poi.ss.formula.eval.AreaEval;
 import org.apache.poi.ss.formula.eval.ErrorEval;
@@ -27,6 +28,7 @@ import org.apache.poi.ss.formula.eval.RefEval;
 import org.apache.poi.ss.formula.eval.ValueEval;
 import org.apache.poi.ss.formula.functions.CountUtils.I_MatchPredicate;
 import org.apache.poi.ss.formula.functions.Countif.ErrorMatcher;
+import org.apache.poi.ss.usermodel.CellType;
 
 /**
  * Base class for SUMIFS() and COUNTIFS() functions, as they share much of the same logic, 
@@ -46,6 +48,14 @@ import org.apache.poi.ss.formula.functions.Countif.ErrorMatcher;
     protected static interface Aggregator {
         void addValue(ValueEval d);
         ValueEval getResult();
+
+        /**
+         * Same as {@link #addValue(ValueEval)} for a cell of cached area values,
+         * implementations may add the value without creating an eval.
+         */
+        default void addValue(AreaValues values, int rowIndex, int columnIndex) {
+            addValue(values.getValue(rowIndex, columnIndex));
+        }
     }
 
     protected abstract Aggregator createAggregator();
@@ -136,6 +146,13 @@ import org.apache.poi.ss.formula.functions.Countif.ErrorMatcher;
         int height = ranges[0].getHeight();
         int width = ranges[0].getWidth();
 
+        // large ranges of plain values are tested without creating an eval for each cell
+        AreaValues[] rangeValues = new AreaValues[ranges.length];
+        for(int i = 0; i < ranges.length; i++){
+            rangeValues[i] = AreaValues.getValues(ranges[i]);
+        }
+        AreaValues sumValues = sumRange == null ? null : AreaValues.getValues(sumRange);
+
         for (int r = 0; r < height; r++) {
             for (int c = 0; c < width; c++) {
 
@@ -145,14 +162,20 @@ import org.apache.poi.ss.formula.functions.Countif.ErrorMatcher;
                     I_MatchPredicate mp = predicates[i];
 
                     // Bugs 60858 and 56420 show predicate can be null
-                    if (mp == null || !mp.matches(aeRange.getRelativeValue(r, c))) {
+                    if (mp == null || !(rangeValues[i] != null ? mp.matches(rangeValues[i], r, c)
+                            : mp.matches(aeRange.getRelativeValue(r, c)))) {
                         matches = false;
                         break;
                     }
                 }
 
                 if(matches) { // aggregate only if all of the corresponding criteria specified are true for that cell.
-                    if(sumRange != null) {
+                    if(sumValues != null) {
+                        if (sumValues.getCellType(r, c) == CellType.ERROR) {
+                            throw new EvaluationException(ErrorEval.valueOf(sumValues.getErrorCode(r, c)));
+                        }
+                        aggregator.addValue(sumValues, r, c);
+                    } else if(sumRange != null) {
                         ValueEval value = sumRange.getRelativeValue(r, c);
                         if (value instanceof ErrorEval) {
                             throw new EvaluationException((ErrorEval)value);
@@ -17,6 +17,7 @@
 
 package org.apache.poi.ss.formula.functions;
 
+import org.apache.poi.ss.formula.AreaValues;
 import org.apache.poi.ss.formula.TwoDEval;
 import org.apache.poi.ss.formula.eval.ErrorEval;
 import org.apache.poi.ss.formula.eval.MissingArgEval;
@@ -24,6 +25,7 @@ import org.apache.poi.ss.formula.eval.NumberEval;
 import org.apache.poi.ss.formula.eval.ValueEval;
 import org.apache.poi.ss.formula.functions.CountUtils.I_MatchPredicate;
 import org.apache.poi.ss.formula.functions.CountUtils.I_MatchAreaPredicate;
+import org.apache.poi.ss.usermodel.CellType;
 
 /**
  * Counts the number of cells that contain numeric data within
@@ -68,19 +70,25 @@ public final class Count implements Function {
         return new NumberEval(temp);
     }
 
-    private static final I_MatchPredicate defaultPredicate = valueEval -> {
-
-        if(valueEval instanceof NumberEval) {
-            // only numbers are counted
-            return true;
-        }
-        if(valueEval == MissingArgEval.instance) {
-            // oh yeah, and missing arguments
-            return true;
+    private static final I_MatchPredicate defaultPredicate = new I_MatchPredicate() {
+        public boolean matches(ValueEval valueEval) {
+            if(valueEval instanceof NumberEval) {
+                // only numbers are counted
+                return true;
+            }
+            if(valueEval == MissingArgEval.instance) {
+                // oh yeah, and missing arguments
+                return true;
+            }
+
+            // error values and string values not counted
+            return false;
         }
 
-        // error values and string values not counted
-        return false;
+        @Override
+        public boolean matches(AreaValues values, int rowIndex, int columnIndex) {
+            return values.getCellType(rowIndex, columnIndex) == CellType.NUMERIC;
+        }
     };
 
     /**
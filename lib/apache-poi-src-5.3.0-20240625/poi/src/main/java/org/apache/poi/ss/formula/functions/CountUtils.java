@@ -17,6 +17,7 @@
 
 package org.apache.poi.ss.formula.functions;
 
+import org.apache.poi.ss.formula.AreaValues;
 import org.apache.poi.ss.formula.ThreeDEval;
 import org.apache.poi.ss.formula.TwoDEval;
 import org.apache.poi.ss.formula.eval.RefEval;
@@ -36,6 +37,14 @@ final class CountUtils {
      */
     public interface I_MatchPredicate {
         boolean matches(ValueEval x);
+
+        /**
+         * Same as {@link #matches(ValueEval)} for a cell of cached area values,
+         * implementations may test the value without creating an eval.
+         */
+        default boolean matches(AreaValues values, int rowIndex, int columnIndex) {
+            return matches(values.getValue(rowIndex, columnIndex));
+        }
     }
     public interface I_MatchAreaPredicate extends I_MatchPredicate {
         boolean matches(TwoDEval x, int rowIndex, int columnIndex);
@@ -45,6 +54,12 @@ final class CountUtils {
      * @return the number of evaluated cells in the range that match the specified criteria
      */
     public static int countMatchingCellsInArea(ThreeDEval areaEval, I_MatchPredicate criteriaPredicate) {
+        if (!(criteriaPredicate instanceof I_MatchAreaPredicate)) {
+            AreaValues values = AreaValues.getValues(areaEval);
+            if (values != null) {
+                return countMatchingCells(values, criteriaPredicate);
+            }
+        }
         int result = 0;
 
         final int firstSheetIndex = areaEval.getFirstSheetIndex();
@@ -69,6 +84,19 @@ final class CountUtils {
         }
         return result;
     }
+    private static int countMatchingCells(AreaValues values, I_MatchPredicate criteriaPredicate) {
+        int result = 0;
+        int height = values.getHeight();
+        int width = values.getWidth();
+        for (int rrIx=0; rrIx<height; rrIx++) {
+            for (int rcIx=0; rcIx<width; rcIx++) {
+                if(criteriaPredicate.matches(values, rrIx, rcIx)) {
+                    result++;
+                }
+            }
+        }
+        return result;
+    }
     /**
      * @return the number of evaluated cells in the range that match the specified criteria
      */
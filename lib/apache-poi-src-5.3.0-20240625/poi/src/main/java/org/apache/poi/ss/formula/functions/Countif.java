@@ -19,6 +19,7 @@ package org.apache.poi.ss.formula.functions;
 
 import java.util.regex.Pattern;
 
+import org.apache.poi.ss.formula.AreaValues;
 import org.apache.poi.ss.formula.ThreeDEval;
 import org.apache.poi.ss.formula.eval.BlankEval;
 import org.apache.poi.ss.formula.eval.BoolEval;
@@ -30,6 +31,7 @@ import org.apache.poi.ss.formula.eval.RefEval;
 import org.apache.poi.ss.formula.eval.StringEval;
 import org.apache.poi.ss.formula.eval.ValueEval;
 import org.apache.poi.ss.formula.functions.CountUtils.I_MatchPredicate;
+import org.apache.poi.ss.usermodel.CellType;
 import org.apache.poi.ss.usermodel.FormulaError;
 
 /**
@@ -222,6 +224,14 @@ public final class Countif extends Fixed2ArgFunction {
             }
             return evaluate(Double.compare(testValue, _value));
         }
+
+        @Override
+        public boolean matches(AreaValues values, int rowIndex, int columnIndex) {
+            if (values.getCellType(rowIndex, columnIndex) == CellType.NUMERIC) {
+                return evaluate(Double.compare(values.getNumberValue(rowIndex, columnIndex), _value));
+            }
+            return matches(values.getValue(rowIndex, columnIndex));
+        }
     }
     private static final class BooleanMatcher extends MatcherBase {
 
@@ -279,6 +289,15 @@ public final class Countif extends Fixed2ArgFunction {
             }
             return evaluate(testValue - _value);
         }
+
+        @Override
+        public boolean matches(AreaValues values, int rowIndex, int columnIndex) {
+            if (values.getCellType(rowIndex, columnIndex) == CellType.NUMERIC) {
+                // same as a NumberEval above
+                return getCode() == CmpOp.NE;
+            }
+            return matches(values.getValue(rowIndex, columnIndex));
+        }
     }
     public static final class ErrorMatcher extends MatcherBase {
 
@@ -302,6 +321,12 @@ public final class Countif extends Fixed2ArgFunction {
             return false;
         }
 
+        @Override
+        public boolean matches(AreaValues values, int rowIndex, int columnIndex) {
+            return values.getCellType(rowIndex, columnIndex) == CellType.ERROR
+                    && evaluate(values.getErrorCode(rowIndex, columnIndex) - _value);
+        }
+
         public int getValue() {
             return _value;
         }
@@ -354,7 +379,23 @@ public final class Countif extends Fixed2ArgFunction {
                 // e.g. '4*7', NumberEval(4567) does not match
                 return false;
             }
-            String testedValue = ((StringEval) x).getStringValue();
+            return matchesString(((StringEval) x).getStringValue());
+        }
+
+        @Override
+        public boolean matches(AreaValues values, int rowIndex, int columnIndex) {
+            switch (values.getCellType(rowIndex, columnIndex)) {
+                case STRING:
+                    return matchesString(values.getStringValue(rowIndex, columnIndex));
+                case BLANK:
+                    return matches(BlankEval.instance);
+                default:
+                    // must always be string, see above
+                    return false;
+            }
+        }
+
+        private boolean matchesString(String testedValue) {
             if (testedValue.length() < 1 && _value.length() < 1) {
                 // odd case: criteria '=' behaves differently to criteria ''
 
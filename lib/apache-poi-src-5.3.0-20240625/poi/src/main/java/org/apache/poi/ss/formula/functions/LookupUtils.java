@@ -25,6 +25,7 @@ import java.util.NoSuchElementException;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import org.apache.poi.ss.formula.LookupIndex;
 import org.apache.poi.ss.formula.TwoDEval;
 import org.apache.poi.ss.formula.eval.BlankEval;
 import org.apache.poi.ss.formula.eval.BoolEval;
@@ -146,7 +147,17 @@ public final class LookupUtils {
         }
     }
 
-    private static final class RowVector implements ValueVector {
+    /**
+     * A vector of sheet cells, which may have a cached {@link LookupIndex}.
+     */
+    private interface IndexableVector extends ValueVector {
+        /**
+         * @return {@code null} if the vector has to be scanned
+         */
+        LookupIndex getLookupIndex();
+    }
+
+    private static final class RowVector implements IndexableVector {
 
         private final TwoDEval _tableArray;
         private final int _size;
@@ -176,9 +187,14 @@ public final class LookupUtils {
         public int getSize() {
             return _size;
         }
+
+        @Override
+        public LookupIndex getLookupIndex() {
+            return LookupIndex.getIndex(_tableArray, false, _rowIndex);
+        }
     }
 
-    private static final class ColumnVector implements ValueVector {
+    private static final class ColumnVector implements IndexableVector {
 
         private final TwoDEval _tableArray;
         private final int _size;
@@ -207,6 +223,11 @@ public final class LookupUtils {
         public int getSize() {
             return _size;
         }
+
+        @Override
+        public LookupIndex getLookupIndex() {
+            return LookupIndex.getIndex(_tableArray, true, _columnIndex);
+        }
     }
 
     private static final class SheetVector implements ValueVector {
@@ -380,6 +401,13 @@ public final class LookupUtils {
         protected abstract CompareResult compareSameType(ValueEval other);
         /** used only for debug purposes */
         protected abstract String getValueAsString();
+        /**
+         * @return the {@link LookupIndex} key of the values this comparer considers equal,
+         * {@code null} if equality cannot be looked up in an index
+         */
+        protected Object getIndexKey() {
+            return null;
+        }
     }
 
     private static class StringLookupComparer extends LookupValueComparerBase {
@@ -418,6 +446,13 @@ public final class LookupUtils {
         protected String getValueAsString() {
             return _value;
         }
+        @Override
+        protected Object getIndexKey() {
+            if (_wildCardPattern != null && (_isMatchFunction || !_matchExact)) {
+                return null;
+            }
+            return LookupIndex.stringKey(_value);
+        }
     }
 
     private static final class TolerantStringLookupComparer extends StringLookupComparer {
@@ -456,6 +491,10 @@ public final class LookupUtils {
         protected String getValueAsString() {
             return String.valueOf(_value);
         }
+        @Override
+        protected Object getIndexKey() {
+            return _value;
+        }
     }
     private static final class BooleanLookupComparer extends LookupValueComparerBase {
         private final boolean _value;
@@ -481,6 +520,10 @@ public final class LookupUtils {
         protected String getValueAsString() {
             return String.valueOf(_value);
         }
+        @Override
+        protected Object getIndexKey() {
+            return _value;
+        }
     }
 
     /**
@@ -697,6 +740,13 @@ public final class LookupUtils {
 
     private static int lookupIndexOfValue(LookupValueComparer lookupComparer, ValueVector vector,
                                           MatchMode matchMode, boolean reverse) {
+        if (!reverse) {
+            int indexed = indexedFirstIndexOfValue(lookupComparer, vector);
+            if (indexed >= 0 || (indexed == -1 && matchMode != MatchMode.ExactMatchFallbackToLargerValue
+                    && matchMode != MatchMode.ExactMatchFallbackToSmallerValue)) {
+                return indexed;
+            }
+        }
         int bestMatchIdx = -1;
         ValueEval bestMatchEval = null;
         Iterator<Integer> idxIter = reverse ? vector.reverseIndexIterator() : vector.indexIterator();
@@ -741,6 +791,55 @@ public final class LookupUtils {
         return bestMatchIdx;
     }
 
+    /**
+     * Finds the first (lowest index) exact match of the specified value, using the cached
+     * {@link LookupIndex} of the vector if possible.
+     * @return zero based index into the vector, -1 if value cannot be found
+     */
+    static int lookupFirstExactMatch(LookupValueComparer lookupComparer, ValueVector vector) {
+        int result = indexedFirstIndexOfValue(lookupComparer, vector);
+        if (result != NOT_INDEXED) {
+            return result;
+        }
+        int size = vector.getSize();
+        for (int i = 0; i < size; i++) {
+            if (lookupComparer.compareTo(vector.getItem(i)).isEqual()) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Result of {@link #indexedFirstIndexOfValue} if the vector has to be scanned.
+     */
+    private static final int NOT_INDEXED = -2;
+
+    /**
+     * Finds the first exact match of the specified value with the cached {@link LookupIndex} of the vector.
+     * @return zero based index into the vector, -1 if value cannot be found, or {@link #NOT_INDEXED}
+     * if the vector or the lookup value is not indexed
+     */
+    private static int indexedFirstIndexOfValue(LookupValueComparer lookupComparer, ValueVector vector) {
+        if (!(vector instanceof IndexableVector) || !(lookupComparer instanceof LookupValueComparerBase)) {
+            return NOT_INDEXED;
+        }
+        Object key = ((LookupValueComparerBase) lookupComparer).getIndexKey();
+        if (key == null) {
+            return NOT_INDEXED;
+        }
+        LookupIndex index = ((IndexableVector) vector).getLookupIndex();
+        if (index == null) {
+            return NOT_INDEXED;
+        }
+        int result = index.getFirstIndex(key);
+        if (result >= 0 && !lookupComparer.compareTo(vector.getItem(result)).isEqual()) {
+            // the case folding of the key differs from compareToIgnoreCase() for some characters
+            return NOT_INDEXED;
+        }
+        return result;
+    }
+
     private static int binarySearchIndexOfValue(LookupValueComparer lookupComparer, ValueVector vector,
                                                 MatchMode matchMode, boolean reverse) {
         int bestMatchIdx = -1;
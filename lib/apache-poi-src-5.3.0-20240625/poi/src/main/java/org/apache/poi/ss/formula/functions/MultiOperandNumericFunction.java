@@ -18,6 +18,7 @@
 package org.apache.poi.ss.formula.functions;
 
 import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.formula.AreaValues;
 import org.apache.poi.ss.formula.ThreeDEval;
 import org.apache.poi.ss.formula.TwoDEval;
 import org.apache.poi.ss.formula.eval.BlankEval;
@@ -139,6 +140,12 @@ public abstract class MultiOperandNumericFunction implements Function {
      * Collects values from a single argument
      */
     private void collectValues(ValueEval operand, DoubleList temp) throws EvaluationException {
+        // cached areas contain plain values only, so there are no subtotals to skip
+        AreaValues values = isHiddenRowCounted() ? AreaValues.getValues(operand) : null;
+        if (values != null) {
+            collectValues(values, temp);
+            return;
+        }
         if (operand instanceof ThreeDEval) {
             ThreeDEval ae = (ThreeDEval) operand;
             for (int sIx = ae.getFirstSheetIndex(); sIx <= ae.getLastSheetIndex(); sIx++) {
@@ -178,6 +185,29 @@ public abstract class MultiOperandNumericFunction implements Function {
         collectValue(operand, false, temp);
     }
 
+    /**
+     * Collects the values of a cached area, numbers and blanks without creating an eval for each cell
+     */
+    private void collectValues(AreaValues values, DoubleList temp) throws EvaluationException {
+        boolean isViaReference = !treatStringsAsZero();
+        int width = values.getWidth();
+        int height = values.getHeight();
+        for (int rrIx = 0; rrIx < height; rrIx++) {
+            for (int rcIx = 0; rcIx < width; rcIx++) {
+                switch (values.getCellType(rrIx, rcIx)) {
+                    case NUMERIC:
+                        temp.add(values.getNumberValue(rrIx, rcIx));
+                        break;
+                    case BLANK:
+                        blankConsumer.accept(BlankEval.instance, temp);
+                        break;
+                    default:
+                        collectValue(values.getValue(rrIx, rcIx), isViaReference, temp);
+                }
+            }
+        }
+    }
+
     private void collectValue(ValueEval ve, boolean isViaReference, DoubleList temp) throws EvaluationException {
         if (ve == null) {
             throw new IllegalArgumentException("ve must not be null");
@@ -19,8 +19,10 @@
 
 package org.apache.poi.ss.formula.functions;
 
+import org.apache.poi.ss.formula.AreaValues;
 import org.apache.poi.ss.formula.eval.NumberEval;
 import org.apache.poi.ss.formula.eval.ValueEval;
+import org.apache.poi.ss.usermodel.CellType;
 
 /**
  * Implementation for the Excel function SUMIFS<p>
@@ -66,6 +68,12 @@ public final class Sumifs extends Baseifs {
                 accumulator += (value instanceof NumberEval) ? ((NumberEval) value).getNumberValue() : 0.0;
             }
 
+            @Override
+            public void addValue(AreaValues values, int rowIndex, int columnIndex) {
+                accumulator += (values.getCellType(rowIndex, columnIndex) == CellType.NUMERIC)
+                        ? values.getNumberValue(rowIndex, columnIndex) : 0.0;
+            }
+
             @Override
             public ValueEval getResult() {
                 return new NumberEval(accumulator);
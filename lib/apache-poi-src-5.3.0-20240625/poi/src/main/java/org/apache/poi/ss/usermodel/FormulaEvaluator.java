@@ -17,6 +17,8 @@
 
 package org.apache.poi.ss.usermodel;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
@@ -55,6 +57,41 @@ public interface FormulaEvaluator {
      */
     void notifyUpdateCell(Cell cell);
 
+    /**
+     * Recalculates the formula cells affected by a batch of changed cells and saves their results,
+     * like {@link #evaluateFormulaCell(Cell)}.
+     * <p>
+     * This replaces calling {@link #notifyUpdateCell(Cell)} for every changed cell: the formula cells
+     * depending (directly or indirectly) on any of the changed cells are determined once, and only
+     * these are evaluated again, each one after the cells it depends on.
+     * <p>
+     * Dependencies are only known for formula cells which have been evaluated before (e.g. by
+     * {@link #evaluateAll()}) and whose results are still cached, other formula cells are neither
+     * recalculated nor reported.
+     *
+     * <p>
+     * The default implementation calls {@link #notifyUpdateCell(Cell)} for every changed cell and then
+     * evaluates the changed formula cells with {@link #evaluateFormulaCell(Cell)}. It does not know the
+     * dependent formula cells, so only the changed formula cells are reported, whether or not their
+     * value changed.
+     *
+     * @param changedCells the value and formula cells which were modified
+     * @return the recalculated formula cells whose value changed, mapped to their new value
+     */
+    default Map<Cell, CellValue> recalculate(Collection<? extends Cell> changedCells) {
+        for (Cell cell : changedCells) {
+            notifyUpdateCell(cell);
+        }
+        Map<Cell, CellValue> result = new LinkedHashMap<>();
+        for (Cell cell : changedCells) {
+            if (cell.getCellType() == CellType.FORMULA) {
+                evaluateFormulaCell(cell);
+                result.put(cell, evaluate(cell));
+            }
+        }
+        return result;
+    }
+
     /**
     * Loops over all cells in all sheets of the associated workbook.
     * For cells that contain formulas, their formulas are evaluated,
@@ -0,0 +1,154 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.ss.formula;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+
+import org.apache.poi.hssf.usermodel.HSSFFormulaEvaluator;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.FormulaError;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link AreaValues} and its use by the aggregate functions.
+ */
+class TestAreaValues {
+
+    private static final int ROWS = 100;
+
+    /**
+     * Column A: 1..100, B: "x" in odd rows, "y" in even rows, C: TRUE in every tenth row, blank otherwise
+     */
+    private static Sheet createTable(HSSFWorkbook wb) {
+        Sheet sheet = wb.createSheet("Table");
+        for (int i = 1; i <= ROWS; i++) {
+            Row row = sheet.createRow(i - 1);
+            row.createCell(0).setCellValue(i);
+            row.createCell(1).setCellValue(i % 2 == 1 ? "x" : "y");
+            if (i % 10 == 0) {
+                row.createCell(2).setCellValue(true);
+            }
+        }
+        return sheet;
+    }
+
+    private static String evaluate(HSSFFormulaEvaluator evaluator, Cell cell, String formula) {
+        cell.setCellFormula(formula);
+        evaluator.notifySetFormula(cell);
+        return evaluator.evaluate(cell).formatAsString();
+    }
+
+    @Test
+    void testAggregates() throws IOException {
+        try (HSSFWorkbook wb = new HSSFWorkbook()) {
+            createTable(wb);
+            Cell cell = wb.createSheet("Results").createRow(0).createCell(0);
+            HSSFFormulaEvaluator evaluator = new HSSFFormulaEvaluator(wb);
+
+            for (int pass = 0; pass < 2; pass++) {
+                assertEquals("5050.0", evaluate(evaluator, cell, "SUM(Table!A1:A100)"));
+                assertEquals("50.5", evaluate(evaluator, cell, "AVERAGE(Table!A1:A100)"));
+                // strings and booleans via reference are ignored, blanks after the last row too
+                assertEquals("5050.0", evaluate(evaluator, cell, "SUM(Table!A1:C200)"));
+                assertEquals("100.0", evaluate(evaluator, cell, "COUNT(Table!A1:C200)"));
+                assertEquals("210.0", evaluate(evaluator, cell, "COUNTA(Table!A1:C100)"));
+                assertEquals("1.0", evaluate(evaluator, cell, "AVERAGEA(Table!C1:C100)"));
+                assertEquals("50.0", evaluate(evaluator, cell, "COUNTIF(Table!B1:B100,\"X\")"));
+                assertEquals("50.0", evaluate(evaluator, cell, "COUNTIF(Table!A1:A100,\">50\")"));
+                assertEquals("10.0", evaluate(evaluator, cell, "COUNTIF(Table!C1:C100,TRUE)"));
+                assertEquals("90.0", evaluate(evaluator, cell, "COUNTIF(Table!C1:C100,\"<>TRUE\")"));
+                assertEquals("2500.0", evaluate(evaluator, cell, "SUMIFS(Table!A1:A100,Table!B1:B100,\"x\")"));
+                assertEquals("25.0", evaluate(evaluator, cell, "COUNTIFS(Table!B1:B100,\"y\",Table!A1:A100,\"<=50\")"));
+                assertEquals("550.0", evaluate(evaluator, cell, "SUMIFS(Table!A1:A100,Table!C1:C100,TRUE)"));
+            }
+        }
+    }
+
+    @Test
+    void testNotifyUpdateCell() throws IOException {
+        try (HSSFWorkbook wb = new HSSFWorkbook()) {
+            Sheet table = createTable(wb);
+            Row row = wb.createSheet("Results").createRow(0);
+            Cell sum = row.createCell(0);
+            Cell sumifs = row.createCell(1);
+            Cell other = row.createCell(2);
+            sum.setCellFormula("SUM(Table!A1:A100)");
+            sumifs.setCellFormula("SUMIFS(Table!A1:A100,Table!B1:B100,\"x\")");
+            other.setCellFormula("SUM(Table!A1:A50)");
+            HSSFFormulaEvaluator evaluator = new HSSFFormulaEvaluator(wb);
+            assertEquals(5050, evaluator.evaluate(sum).getNumberValue(), 0);
+            assertEquals(2500, evaluator.evaluate(sumifs).getNumberValue(), 0);
+            assertEquals(1275, evaluator.evaluate(other).getNumberValue(), 0);
+
+            Cell changed = table.getRow(99).getCell(0);
+            changed.setCellValue(1000);
+            evaluator.notifyUpdateCell(changed);
+            assertEquals(5950, evaluator.evaluate(sum).getNumberValue(), 0);
+            assertEquals(1275, evaluator.evaluate(other).getNumberValue(), 0);
+
+            Cell criteria = table.getRow(1).getCell(1);
+            criteria.setCellValue("x");
+            evaluator.notifyUpdateCell(criteria);
+            assertEquals(2502, evaluator.evaluate(sumifs).getNumberValue(), 0);
+
+            changed.setCellErrorValue(FormulaError.DIV0.getCode());
+            evaluator.notifyUpdateCell(changed);
+            assertEquals(FormulaError.DIV0.getCode(), evaluator.evaluate(sum).getErrorValue());
+
+            evaluator.notifyDeleteCell(changed);
+            table.getRow(99).removeCell(changed);
+            assertEquals(4950, evaluator.evaluate(sum).getNumberValue(), 0);
+
+            Cell added = table.createRow(150).createCell(0);
+            added.setCellValue(5);
+            evaluator.notifyUpdateCell(added);
+            sum.setCellFormula("SUM(Table!A:A)");
+            evaluator.notifySetFormula(sum);
+            assertEquals(4955, evaluator.evaluate(sum).getNumberValue(), 0);
+        }
+    }
+
+    @Test
+    void testFormulaCellsAreNotCached() throws IOException {
+        try (HSSFWorkbook wb = new HSSFWorkbook()) {
+            Sheet table = createTable(wb);
+            Cell input = table.getRow(0).getCell(0);
+            Cell formula = table.getRow(1).getCell(0);
+            formula.setCellFormula("A1*10");
+            Cell cell = wb.createSheet("Results").createRow(0).createCell(0);
+            cell.setCellFormula("SUM(Table!A1:A100)");
+            HSSFFormulaEvaluator evaluator = new HSSFFormulaEvaluator(wb);
+            assertEquals(5058, evaluator.evaluate(cell).getNumberValue(), 0);
+
+            // the area contains a formula cell, so it is evaluated cell by cell and follows the formula result
+            input.setCellValue(2);
+            evaluator.notifyUpdateCell(input);
+            assertEquals(5069, evaluator.evaluate(cell).getNumberValue(), 0);
+
+            formula.removeFormula();
+            formula.setCellValue(2);
+            evaluator.notifyUpdateCell(formula);
+            assertEquals(5051, evaluator.evaluate(cell).getNumberValue(), 0);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.ss.formula;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+
+import org.apache.poi.hssf.usermodel.HSSFEvaluationWorkbook;
+import org.apache.poi.hssf.usermodel.HSSFFormulaEvaluator;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellValue;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link CompiledFormula}, the results must be the same as those of the interpreter.
+ */
+class TestCompiledFormula {
+
+    private static final String[][] FORMULAS = {
+            // formula, expected result
+            {"A1*B1+C1/4-2^2", "10.5"},
+            {"-A1+0", "-3.0"},
+            {"-(A1-A1)", "0.0"},
+            {"A1/(B1-4)", "#DIV/0!"},
+            {"D1+1", "#VALUE!"},
+            {"D2+1", "6.0"},
+            {"E1*2", "0.0"},
+            {"(-1)^0.5", "-1.0"},
+            {"0.1*3", "0.3"},
+            {"(-8)^0.5+1", "-1.8284271247461903"},
+            {"IF(A1>2,A1*2,B1)", "6.0"},
+            {"IF(A1>5,1)", "FALSE"},
+            {"IF(A1>2,,1)", "0.0"},
+            {"IF(1/0,1,2)", "#DIV/0!"},
+            {"IF(A1<2,1/0,A2)+1", "7.0"},
+            {"SUM(A1:C1)*2", "34.0"},
+            {"SUM(A1,B1,C1)&\"x\"", "\"17x\""},
+            {"CHOOSE(2,A1,B1)", "4.0"},
+            {"A1:A2+1", "#VALUE!"},
+            {"INDEX(A1:C1,2)*2", "8.0"},
+            {"A2", "6.0"},
+    };
+
+    private static Sheet createSheet(HSSFWorkbook wb) {
+        Sheet sheet = wb.createSheet("Sheet1");
+        Row row = sheet.createRow(0);
+        row.createCell(0).setCellValue(3);
+        row.createCell(1).setCellValue(4);
+        row.createCell(2).setCellValue(10);
+        row.createCell(3).setCellValue("abc");
+        sheet.createRow(1).createCell(3).setCellValue("5");
+        sheet.getRow(1).createCell(0).setCellFormula("A1*2");
+        return sheet;
+    }
+
+    @Test
+    void testResults() throws IOException {
+        try (HSSFWorkbook wb = new HSSFWorkbook()) {
+            Sheet sheet = createSheet(wb);
+            HSSFFormulaEvaluator evaluator = new HSSFFormulaEvaluator(wb);
+            for (int i = 0; i < FORMULAS.length; i++) {
+                Cell cell = sheet.createRow(i + 5).createCell(1);
+                cell.setCellFormula(FORMULAS[i][0]);
+            }
+            for (int pass = 0; pass < 2; pass++) {
+                for (int i = 0; i < FORMULAS.length; i++) {
+                    CellValue value = evaluator.evaluate(sheet.getRow(i + 5).getCell(1));
+                    assertEquals(FORMULAS[i][1], value.formatAsString(), FORMULAS[i][0]);
+                }
+                // the compiled formulas are kept when the inputs change
+                evaluator.notifyUpdateCell(sheet.getRow(0).getCell(0));
+            }
+        }
+    }
+
+    @Test
+    void testCompile() throws IOException {
+        try (HSSFWorkbook wb = new HSSFWorkbook()) {
+            createSheet(wb);
+            HSSFEvaluationWorkbook ewb = HSSFEvaluationWorkbook.create(wb);
+            assertTrue(compile(ewb, "A1*B1+C1/4-2^2").isCompiled());
+            assertTrue(compile(ewb, "IF(A1>2,SUM(A1:C1),-B1)").isCompiled());
+            assertTrue(compile(ewb, "Sheet1!A1+INDIRECT(\"B1\")").isCompiled());
+            assertTrue(compile(ewb, "CHOOSE(2,A1,B1)").isCompiled());
+            assertFalse(compile(ewb, "SUM((A1,B1))").isCompiled());
+
+            StringBuilder deep = new StringBuilder("A1");
+            for (int i = 0; i < CompiledFormula.MAX_DEPTH; i++) {
+                deep.append("+1");
+            }
+            assertFalse(compile(ewb, deep.toString()).isCompiled());
+        }
+    }
+
+    @Test
+    void testChangedFormula() throws IOException {
+        try (HSSFWorkbook wb = new HSSFWorkbook()) {
+            Sheet sheet = createSheet(wb);
+            HSSFFormulaEvaluator evaluator = new HSSFFormulaEvaluator(wb);
+            Cell cell = sheet.getRow(0).createCell(5);
+            cell.setCellFormula("A1+B1");
+            assertEquals(7, evaluator.evaluate(cell).getNumberValue(), 0);
+
+            cell.setCellFormula("A1*B1");
+            evaluator.notifySetFormula(cell);
+            assertEquals(12, evaluator.evaluate(cell).getNumberValue(), 0);
+        }
+    }
+
+    private static CompiledFormula compile(HSSFEvaluationWorkbook ewb, String formula) {
+        return CompiledFormula.compile(FormulaParser.parse(formula, ewb, FormulaType.CELL, 0));
+    }
+}
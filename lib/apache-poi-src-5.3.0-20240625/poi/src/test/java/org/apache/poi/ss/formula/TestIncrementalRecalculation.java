@@ -0,0 +1,175 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.ss.formula;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import org.apache.poi.hssf.usermodel.HSSFFormulaEvaluator;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellValue;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link BaseFormulaEvaluator#recalculate} and {@link WorkbookEvaluator#recalculate}.
+ */
+class TestIncrementalRecalculation {
+
+    private static final int ROWS = 100;
+
+    /**
+     * Column A: inputs 1..100, B: running total of A, C: sign of A, D1: total, D2: constant,
+     * E1: number of positive inputs
+     */
+    private static Sheet createModel(HSSFWorkbook wb) {
+        Sheet sheet = wb.createSheet("Model");
+        for (int i = 0; i < ROWS; i++) {
+            Row row = sheet.createRow(i);
+            row.createCell(0).setCellValue(i + 1);
+            row.createCell(1).setCellFormula(i == 0 ? "A1" : "B" + i + "+A" + (i + 1));
+            row.createCell(2).setCellFormula("SIGN(A" + (i + 1) + ")");
+        }
+        sheet.getRow(0).createCell(3).setCellFormula("B" + ROWS);
+        sheet.getRow(1).createCell(3).setCellFormula("2*3");
+        sheet.getRow(0).createCell(4).setCellFormula("COUNTIF(C1:C" + ROWS + ",1)");
+        return sheet;
+    }
+
+    @Test
+    void testChangedCells() throws IOException {
+        try (HSSFWorkbook wb = new HSSFWorkbook()) {
+            Sheet sheet = createModel(wb);
+            HSSFFormulaEvaluator evaluator = new HSSFFormulaEvaluator(wb);
+            evaluator.evaluateAll();
+            assertEquals(ROWS * (ROWS + 1) / 2, sheet.getRow(0).getCell(3).getNumericCellValue(), 0);
+
+            // 100 -> 50 changes the last running total only, the sign stays the same
+            Cell last = sheet.getRow(ROWS - 1).getCell(0);
+            last.setCellValue(50);
+            Map<Cell, CellValue> changes = evaluator.recalculate(Collections.singletonList(last));
+            assertEquals(2, changes.size());
+            assertEquals(ROWS * (ROWS + 1) / 2 - 50, changes.get(sheet.getRow(0).getCell(3)).getNumberValue(), 0);
+            assertEquals(ROWS * (ROWS + 1) / 2 - 50, sheet.getRow(0).getCell(3).getNumericCellValue(), 0);
+            assertTrue(changes.containsKey(sheet.getRow(ROWS - 1).getCell(1)));
+
+            // a batch of edits, including one which restores its previous value
+            Cell first = sheet.getRow(0).getCell(0);
+            Cell second = sheet.getRow(1).getCell(0);
+            first.setCellValue(-1);
+            second.setCellValue(2);
+            changes = evaluator.recalculate(Arrays.asList(first, second));
+            // B1..B100, C1, D1, E1
+            assertEquals(ROWS + 3, changes.size());
+            assertEquals(ROWS - 1, changes.get(sheet.getRow(0).getCell(4)).getNumberValue(), 0);
+            assertEquals(-1, sheet.getRow(0).getCell(2).getNumericCellValue(), 0);
+            assertEquals(ROWS * (ROWS + 1) / 2 - 52, sheet.getRow(0).getCell(3).getNumericCellValue(), 0);
+
+            // nothing changes
+            first.setCellValue(-1);
+            assertTrue(evaluator.recalculate(Collections.singletonList(first)).isEmpty());
+        }
+    }
+
+    @Test
+    void testChangedFormula() throws IOException {
+        try (HSSFWorkbook wb = new HSSFWorkbook()) {
+            Sheet sheet = createModel(wb);
+            HSSFFormulaEvaluator evaluator = new HSSFFormulaEvaluator(wb);
+            evaluator.evaluateAll();
+
+            Cell formula = sheet.getRow(0).getCell(1);
+            formula.setCellFormula("A1*10");
+            Cell added = sheet.getRow(2).createCell(3);
+            added.setCellFormula("D1+D2");
+            Map<Cell, CellValue> changes = evaluator.recalculate(Arrays.asList(formula, added));
+
+            // B1..B100, D1 and the new cell D3
+            assertEquals(ROWS + 2, changes.size());
+            assertEquals(ROWS * (ROWS + 1) / 2 + 9 + 6, changes.get(added).getNumberValue(), 0);
+            assertEquals(10, formula.getNumericCellValue(), 0);
+        }
+    }
+
+    /**
+     * Evaluators which cannot turn cells into evaluation cells fall back to
+     * {@link org.apache.poi.ss.usermodel.FormulaEvaluator#recalculate}
+     */
+    @Test
+    void testDefaultRecalculation() throws IOException {
+        try (HSSFWorkbook wb = new HSSFWorkbook()) {
+            Sheet sheet = createModel(wb);
+            HSSFFormulaEvaluator evaluator = new HSSFFormulaEvaluator(wb) {
+                @Override
+                protected EvaluationCell toEvaluationCell(Cell cell) {
+                    return null;
+                }
+            };
+            evaluator.evaluateAll();
+
+            Cell input = sheet.getRow(0).getCell(0);
+            input.setCellValue(11);
+            Cell formula = sheet.getRow(1).getCell(3);
+            formula.setCellFormula("2*4");
+            Map<Cell, CellValue> changes = evaluator.recalculate(Arrays.asList(input, formula));
+
+            // only the changed formula cell is evaluated and reported
+            assertEquals(1, changes.size());
+            assertEquals(8, changes.get(formula).getNumberValue(), 0);
+            assertEquals(8, formula.getNumericCellValue(), 0);
+            // the dependents have been notified
+            assertEquals(ROWS * (ROWS + 1) / 2 + 10, evaluator.evaluate(sheet.getRow(0).getCell(3)).getNumberValue(), 0);
+        }
+    }
+
+    @Test
+    void testSameResultsInParallel() throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try (HSSFWorkbook wb = new HSSFWorkbook()) {
+            Sheet sheet = createModel(wb);
+            HSSFFormulaEvaluator evaluator = new HSSFFormulaEvaluator(wb);
+            evaluator.setParallelEvaluationPool(pool);
+            evaluator.evaluateAll();
+
+            List<Cell> inputs = new ArrayList<>();
+            for (int i = 0; i < ROWS; i += 2) {
+                Cell cell = sheet.getRow(i).getCell(0);
+                cell.setCellValue(-cell.getNumericCellValue());
+                inputs.add(cell);
+            }
+            Map<Cell, CellValue> changes = evaluator.recalculate(inputs);
+            // B1..B100, every second sign, D1 and E1
+            assertEquals(ROWS + ROWS / 2 + 2, changes.size());
+            // 5050 - 2 * (1 + 3 + ... + 99)
+            assertEquals(50, sheet.getRow(0).getCell(3).getNumericCellValue(), 0);
+            assertEquals(ROWS / 2, sheet.getRow(0).getCell(4).getNumericCellValue(), 0);
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
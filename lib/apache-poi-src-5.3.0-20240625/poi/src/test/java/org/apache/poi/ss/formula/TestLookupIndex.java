@@ -0,0 +1,159 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.ss.formula;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+
+import org.apache.poi.hssf.usermodel.HSSFFormulaEvaluator;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.formula.eval.BlankEval;
+import org.apache.poi.ss.formula.eval.BoolEval;
+import org.apache.poi.ss.formula.eval.NumberEval;
+import org.apache.poi.ss.formula.eval.StringEval;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.CellValue;
+import org.apache.poi.ss.usermodel.FormulaError;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link LookupIndex} and its use by the lookup functions.
+ */
+class TestLookupIndex {
+
+    private static final int ROWS = 200;
+
+    /**
+     * Column A: "Key0".."Key199" with a case-insensitive duplicate of "Key5" at the end,
+     * column B: 0, 10, 20, ..., row 1: 0..199
+     */
+    private static Sheet createTable(HSSFWorkbook wb) {
+        Sheet sheet = wb.createSheet("Table");
+        for (int i = 0; i <= ROWS; i++) {
+            Row row = sheet.createRow(i);
+            row.createCell(0).setCellValue(i < ROWS ? "Key" + i : "KEY5");
+            row.createCell(1).setCellValue(i * 10);
+        }
+        Row header = sheet.createRow(ROWS + 2);
+        for (int i = 0; i < ROWS; i++) {
+            header.createCell(i).setCellValue(i);
+        }
+        return sheet;
+    }
+
+    private static double evaluateNumber(HSSFFormulaEvaluator evaluator, Cell cell, String formula) {
+        cell.setCellFormula(formula);
+        evaluator.notifySetFormula(cell);
+        CellValue value = evaluator.evaluate(cell);
+        assertEquals(CellType.NUMERIC, value.getCellType(), formula);
+        return value.getNumberValue();
+    }
+
+    @Test
+    void testExactLookups() throws IOException {
+        try (HSSFWorkbook wb = new HSSFWorkbook()) {
+            createTable(wb);
+            Row row = wb.createSheet("Lookups").createRow(0);
+            Cell cell = row.createCell(0);
+            HSSFFormulaEvaluator evaluator = new HSSFFormulaEvaluator(wb);
+
+            for (int pass = 0; pass < 3; pass++) {
+                // the index is built on the second lookup of a range, the results must not change
+                assertEquals(1230, evaluateNumber(evaluator, cell, "VLOOKUP(\"key123\",Table!$A$1:$B$" + (ROWS + 1) + ",2,FALSE)"), 0);
+                assertEquals(6, evaluateNumber(evaluator, cell, "MATCH(\"KEY5\",Table!$A$1:$A$" + (ROWS + 1) + ",0)"), 0);
+                assertEquals(43, evaluateNumber(evaluator, cell, "MATCH(420,Table!$B$1:$B$" + (ROWS + 1) + ",0)"), 0);
+                assertEquals(57, evaluateNumber(evaluator, cell, "HLOOKUP(57,Table!$A$" + (ROWS + 3) + ":$GR$" + (ROWS + 3) + ",1,FALSE)"), 0);
+                // wildcards are not looked up in the index
+                assertEquals(191, evaluateNumber(evaluator, cell, "MATCH(\"Key19?\",Table!$A$1:$A$" + (ROWS + 1) + ",0)"), 0);
+
+                cell.setCellFormula("VLOOKUP(\"missing\",Table!$A$1:$B$" + (ROWS + 1) + ",2,FALSE)");
+                evaluator.notifySetFormula(cell);
+                assertEquals(FormulaError.NA.getCode(), evaluator.evaluate(cell).getErrorValue());
+            }
+        }
+    }
+
+    @Test
+    void testNotifyUpdateCell() throws IOException {
+        try (HSSFWorkbook wb = new HSSFWorkbook()) {
+            Sheet table = createTable(wb);
+            Row row = wb.createSheet("Lookups").createRow(0);
+            Cell found = row.createCell(0);
+            Cell missing = row.createCell(1);
+            found.setCellFormula("MATCH(\"Key7\",Table!$A$1:$A$" + (ROWS + 1) + ",0)");
+            missing.setCellFormula("MATCH(\"new\",Table!$A$1:$A$" + (ROWS + 1) + ",0)");
+            HSSFFormulaEvaluator evaluator = new HSSFFormulaEvaluator(wb);
+            for (int i = 0; i < 2; i++) {
+                assertEquals(8, evaluator.evaluate(found).getNumberValue(), 0);
+                assertEquals(FormulaError.NA.getCode(), evaluator.evaluate(missing).getErrorValue());
+            }
+
+            Cell changed = table.getRow(7).getCell(0);
+            changed.setCellValue("new");
+            evaluator.notifyUpdateCell(changed);
+            assertEquals(FormulaError.NA.getCode(), evaluator.evaluate(found).getErrorValue());
+            assertEquals(8, evaluator.evaluate(missing).getNumberValue(), 0);
+
+            Cell added = table.createRow(ROWS).createCell(0);
+            added.setCellValue("Key7");
+            evaluator.notifyUpdateCell(added);
+            assertEquals(ROWS + 1, evaluator.evaluate(found).getNumberValue(), 0);
+        }
+    }
+
+    @Test
+    void testFormulaCellsAreNotIndexed() throws IOException {
+        try (HSSFWorkbook wb = new HSSFWorkbook()) {
+            Sheet table = createTable(wb);
+            Cell input = table.getRow(0).getCell(1);
+            table.getRow(3).getCell(0).setCellFormula("\"Key\"&B1");
+            Cell cell = wb.createSheet("Lookups").createRow(0).createCell(0);
+            cell.setCellFormula("MATCH(\"Key0\",Table!$A$1:$A$" + (ROWS + 1) + ",0)");
+            HSSFFormulaEvaluator evaluator = new HSSFFormulaEvaluator(wb);
+            assertEquals(1, evaluator.evaluate(cell).getNumberValue(), 0);
+            assertEquals(1, evaluator.evaluate(cell).getNumberValue(), 0);
+
+            // the range contains a formula cell, so it is scanned and follows the formula result
+            input.setCellValue(-1);
+            evaluator.notifyUpdateCell(input);
+            table.getRow(0).getCell(0).setCellValue("other");
+            evaluator.notifyUpdateCell(table.getRow(0).getCell(0));
+            assertEquals(FormulaError.NA.getCode(), evaluator.evaluate(cell).getErrorValue());
+            input.setCellValue(0);
+            evaluator.notifyUpdateCell(input);
+            assertEquals(4, evaluator.evaluate(cell).getNumberValue(), 0);
+        }
+    }
+
+    @Test
+    void testKeys() {
+        assertEquals(LookupIndex.keyOf(new StringEval("straße")), LookupIndex.stringKey("STRAßE"));
+        assertEquals(LookupIndex.keyOf(new NumberEval(1)), LookupIndex.keyOf(new NumberEval(1.0)));
+        assertEquals(LookupIndex.keyOf(BoolEval.TRUE), LookupIndex.keyOf(BoolEval.valueOf(true)));
+        assertFalse(LookupIndex.keyOf(new NumberEval(0.0)).equals(LookupIndex.keyOf(new NumberEval(-0.0))),
+                "lookups distinguish 0 and -0 (Double.compare)");
+        assertFalse(LookupIndex.keyOf(new StringEval("1")).equals(LookupIndex.keyOf(new NumberEval(1))));
+        assertNull(LookupIndex.keyOf(BlankEval.instance));
+    }
+}
@@ -0,0 +1,185 @@
+/* ====================================================================
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+==================================================================== */
+
+package org.apache.poi.ss.formula;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.apache.poi.hssf.usermodel.HSSFEvaluationWorkbook;
+import org.apache.poi.hssf.usermodel.HSSFFormulaEvaluator;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.formula.eval.ErrorEval;
+import org.apache.poi.ss.formula.eval.NumberEval;
+import org.apache.poi.ss.formula.eval.ValueEval;
+import org.apache.poi.ss.formula.ptg.Ptg;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Name;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link WorkbookEvaluator#evaluateInParallel} and {@link FormulaDependencyGraph}.
+ */
+class TestParallelFormulaEvaluation {
+
+    private static final int ROWS = 300;
+
+    /**
+     * Builds a workbook with dependency chains, cross sheet references, names,
+     * dynamic references and a circular reference.
+     */
+    private static HSSFWorkbook createWorkbook() {
+        HSSFWorkbook wb = new HSSFWorkbook();
+        Sheet data = wb.createSheet("Data");
+        Sheet calc = wb.createSheet("Calc");
+        for (int i = 0; i < ROWS; i++) {
+            Row row = data.createRow(i);
+            row.createCell(0).setCellValue(i * 0.5 + 1);
+            // running total, one level per row
+            row.createCell(1).setCellFormula(i == 0 ? "A1" : "B" + i + "+A" + (i + 1));
+            // independent of each other, all depend on the whole column A
+            row.createCell(2).setCellFormula("A" + (i + 1) + "/SUM($A$1:$A$" + ROWS + ")");
+        }
+        Name name = wb.createName();
+        name.setNameName("Shares");
+        name.setRefersToFormula("Data!$C$1:$C$" + ROWS);
+
+        Row row = calc.createRow(0);
+        row.createCell(0).setCellFormula("SUM(Shares)");
+        row.createCell(1).setCellFormula("Data!B" + ROWS + "*A1");
+        row.createCell(2).setCellFormula("INDIRECT(\"Data!B10\")+B1");
+        row.createCell(3).setCellFormula("TEXT(A1,\"0.00\")");
+        row.createCell(4).setCellFormula("E2+1");
+        calc.createRow(1).createCell(4).setCellFormula("E1+1");
+        calc.getRow(1).createCell(0).setCellFormula("SUM(Data!C1:C" + ROWS + ")+C1");
+        return wb;
+    }
+
+    @Test
+    void testSameResultsAsSequential() throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try (HSSFWorkbook sequential = createWorkbook(); HSSFWorkbook parallel = createWorkbook()) {
+            new HSSFFormulaEvaluator(sequential).evaluateAll();
+
+            HSSFFormulaEvaluator evaluator = new HSSFFormulaEvaluator(parallel);
+            evaluator.setParallelEvaluationPool(pool);
+            evaluator.evaluateAll();
+
+            int formulas = 0;
+            for (int i = 0; i < sequential.getNumberOfSheets(); i++) {
+                for (Row row : sequential.getSheetAt(i)) {
+                    for (Cell expected : row) {
+                        if (expected.getCellType() != CellType.FORMULA) {
+                            continue;
+                        }
+                        formulas++;
+                        Cell actual = parallel.getSheetAt(i).getRow(row.getRowNum()).getCell(expected.getColumnIndex());
+                        String where = expected.getSheet().getSheetName() + "!" + expected.getAddress();
+                        assertEquals(expected.getCachedFormulaResultType(), actual.getCachedFormulaResultType(), where);
+                        switch (expected.getCachedFormulaResultType()) {
+                            case NUMERIC:
+                                assertEquals(expected.getNumericCellValue(), actual.getNumericCellValue(), 0.0, where);
+                                break;
+                            case STRING:
+                                assertEquals(expected.getStringCellValue(), actual.getStringCellValue(), where);
+                                break;
+                            case ERROR:
+                                assertEquals(expected.getErrorCellValue(), actual.getErrorCellValue(), where);
+                                break;
+                            default:
+                                break;
+                        }
+                    }
+                }
+            }
+            assertEquals(ROWS * 2 + 7, formulas);
+            assertEquals(1.0, parallel.getSheet("Calc").getRow(0).getCell(0).getNumericCellValue(), 0.0000001);
+            assertEquals("1.00", parallel.getSheet("Calc").getRow(0).getCell(3).getStringCellValue());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testEvaluateInParallel() throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try (HSSFWorkbook wb = createWorkbook()) {
+            HSSFFormulaEvaluator evaluator = new HSSFFormulaEvaluator(wb);
+            EvaluationSheet calc = HSSFEvaluationWorkbook.create(wb).getSheet(1);
+            List<EvaluationCell> cells = new ArrayList<>();
+            cells.add(calc.getCell(0, 1));
+            cells.add(calc.getCell(0, 4));
+            cells.add(calc.getCell(0, 0));
+
+            ValueEval[] results = evaluator._getWorkbookEvaluator().evaluateInParallel(cells, pool);
+            double total = ROWS * 1.0 + 0.5 * ROWS * (ROWS - 1) / 2;
+            assertEquals(total, ((NumberEval) results[0]).getNumberValue(), 0.0000001);
+            assertEquals(ErrorEval.CIRCULAR_REF_ERROR, results[1]);
+            assertEquals(1.0, ((NumberEval) results[2]).getNumberValue(), 0.0000001);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testDependencyLevels() throws IOException {
+        try (HSSFWorkbook wb = new HSSFWorkbook()) {
+            Row row = wb.createSheet().createRow(0);
+            row.createCell(0).setCellValue(1);
+            String[] formulas = {
+                    "A1+1",             // 0: B1
+                    "A1*2",             // 1: C1
+                    "B1+C1",            // 2: D1
+                    "INDIRECT(\"D1\")", // 3: E1
+                    "E1+1",             // 4: F1
+                    "H1",               // 5: G1
+                    "G1",               // 6: H1
+                    "SUM(B1:D1)",       // 7: I1
+            };
+            for (int i = 0; i < formulas.length; i++) {
+                row.createCell(i + 1).setCellFormula(formulas[i]);
+            }
+
+            EvaluationWorkbook ewb = HSSFEvaluationWorkbook.create(wb);
+            int n = formulas.length;
+            int[] sheets = new int[n];
+            int[] rows = new int[n];
+            int[] columns = new int[n];
+            Ptg[][] tokens = new Ptg[n][];
+            for (int i = 0; i < n; i++) {
+                columns[i] = i + 1;
+                tokens[i] = ewb.getFormulaTokens(ewb.getSheet(0).getCell(0, i + 1));
+            }
+
+            FormulaDependencyGraph graph = new FormulaDependencyGraph(ewb, sheets, rows, columns, tokens);
+            int[][] levels = graph.getLevels();
+            assertEquals(3, levels.length);
+            assertArrayEquals(new int[] {0, 1}, levels[0]);
+            assertArrayEquals(new int[] {2}, levels[1]);
+            assertArrayEquals(new int[] {7}, levels[2]);
+            assertArrayEquals(new int[] {3, 4, 5, 6}, graph.getSerialCells());
+        }
+    }
+}
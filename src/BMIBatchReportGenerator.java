@@ -0,0 +1,327 @@
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Class Program.BMIBatchReportGenerator membuat laporan progres DOCX untuk semua pengguna
+ * di Program.BMIRecordsService secara paralel, misalnya sebagai pekerjaan malam hari.
+ * <p>
+ * Setiap laporan dibuat oleh satu task di ForkJoinPool (work-stealing), sehingga pengguna dengan
+ * riwayat panjang tidak menahan thread lain. Part statis DOCX sudah dienkode sebelumnya oleh
+ * Program.BMIDocxReport dan isi dokumen ditulis secara streaming. Setiap laporan dilengkapi grafik progres
+ * dari Program.BMIChartRenderer yang di-cache per versi riwayat, sehingga pembuatan ulang laporan untuk
+ * pengguna yang datanya tidak berubah tidak menggambar ulang grafik. Waktu pembuatan setiap dokumen
+ * dicatat agar throughput dan latensi dapat dipantau.
+ */
+public class BMIBatchReportGenerator {
+    static final String REPORT_TITLE = "Laporan Progres BMI"; // Judul laporan
+    private static final Logger LOGGER = Logger.getLogger(BMIBatchReportGenerator.class.getName());
+
+    private final BMIRecordsService service; // Sumber data pengguna
+    private final File outputDirectory;      // Folder tujuan laporan
+    private final int parallelism;           // Jumlah thread pembuat laporan
+    private final BMIChartRenderer charts = new BMIChartRenderer(); // Grafik progres per pengguna
+
+    /**
+     * Constructor untuk membuat generator dengan jumlah thread sesuai jumlah core.
+     *
+     * @param service         Sumber data pengguna.
+     * @param outputDirectory Folder tujuan laporan.
+     */
+    public BMIBatchReportGenerator(BMIRecordsService service, File outputDirectory) {
+        this(service, outputDirectory, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructor untuk membuat generator dengan jumlah thread tertentu.
+     *
+     * @param service         Sumber data pengguna.
+     * @param outputDirectory Folder tujuan laporan.
+     * @param parallelism     Jumlah thread pembuat laporan.
+     * @throws IllegalArgumentException jika parallelism tidak lebih dari 0.
+     */
+    public BMIBatchReportGenerator(BMIRecordsService service, File outputDirectory, int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Jumlah thread harus lebih dari 0.");
+        }
+        this.service = service;
+        this.outputDirectory = outputDirectory;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Main method untuk menjalankan pembuatan laporan semua pengguna.
+     * <p>
+     * Penggunaan: {@code java BMIBatchReportGenerator folderData folderLaporan [jumlahThread]}.
+     * Program keluar dengan status 1 jika ada laporan yang gagal dibuat.
+     *
+     * @param args Folder data, folder laporan, dan jumlah thread (opsional).
+     * @throws IOException jika folder laporan tidak dapat dibuat.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Penggunaan: java BMIBatchReportGenerator folderData folderLaporan [jumlahThread]");
+            System.exit(2);
+        }
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        Result result;
+        try (BMIRecordsService service = new BMIRecordsService(new File(args[0]))) {
+            result = new BMIBatchReportGenerator(service, new File(args[1]), threads).generateAll();
+        }
+        for (DocumentMetrics document : result.getDocuments()) {
+            if (document.getError() != null) {
+                System.err.println("Gagal membuat laporan " + document.getUserId() + ": " + document.getError());
+            }
+        }
+        System.out.println(result);
+        if (result.getFailureCount() > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Membuat laporan untuk semua pengguna yang terdaftar di layanan.
+     *
+     * @return Ringkasan hasil pembuatan laporan.
+     * @throws IOException jika folder tujuan tidak dapat dibuat.
+     */
+    public Result generateAll() throws IOException {
+        return generate(new ArrayList<>(service.getUserIds()));
+    }
+
+    /**
+     * Membuat laporan untuk pengguna-pengguna tertentu. Kegagalan satu laporan
+     * tidak menghentikan laporan lainnya dan dicatat di hasil.
+     *
+     * @param userIds Daftar ID pengguna.
+     * @return Ringkasan hasil pembuatan laporan.
+     * @throws IOException jika folder tujuan tidak dapat dibuat.
+     */
+    public Result generate(List<String> userIds) throws IOException {
+        Files.createDirectories(outputDirectory.toPath());
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        long start = System.nanoTime();
+        try {
+            List<Future<DocumentMetrics>> futures = new ArrayList<>(userIds.size());
+            for (String userId : userIds) {
+                futures.add(pool.submit(() -> generateReport(userId)));
+            }
+            List<DocumentMetrics> documents = new ArrayList<>(futures.size());
+            for (Future<DocumentMetrics> future : futures) {
+                try {
+                    documents.add(future.get());
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException(e.getCause()); // generateReport menangkap semua error
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Pembuatan laporan dibatalkan.", e);
+                }
+            }
+            return new Result(documents, System.nanoTime() - start);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Membuat laporan satu pengguna dan mencatat metriknya. Partisi pengguna ditahan selama laporan
+     * dibuat dan dilepas kembali jika sebelumnya belum dimuat (lihat
+     * {@link BMIRecordsService#acquire(String)}). File sementara dihapus jika laporan gagal ditulis.
+     *
+     * @param userId ID pengguna.
+     * @return Metrik pembuatan laporan.
+     */
+    DocumentMetrics generateReport(String userId) {
+        long start = System.nanoTime();
+        File target = new File(outputDirectory, userId + ".docx");
+        File temp = new File(outputDirectory, userId + ".docx.tmp");
+        try {
+            service.acquire(userId);
+        } catch (RuntimeException e) {
+            return new DocumentMetrics(userId, 0, 0, System.nanoTime() - start, e);
+        }
+        try {
+            long version = service.getVersion(userId); // Dibaca sebelum riwayat disalin
+            List<BMIRecord> records = service.getAllRecords(userId);
+            byte[] chart = records.isEmpty() ? null : charts.getChart(userId, version, () -> records);
+            try (OutputStream out = new BufferedOutputStream(new FileOutputStream(temp), 64 * 1024)) {
+                BMIDocxReport.writeReport(out, REPORT_TITLE + " - " + userId, progressParagraphs(records), chart);
+            }
+            Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return new DocumentMetrics(userId, records.size(), target.length(), System.nanoTime() - start, null);
+        } catch (IOException | RuntimeException e) {
+            try {
+                Files.deleteIfExists(temp.toPath());
+            } catch (IOException deleteError) {
+                e.addSuppressed(deleteError);
+            }
+            return new DocumentMetrics(userId, 0, 0, System.nanoTime() - start, e);
+        } finally {
+            try {
+                service.release(userId);
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Partisi " + userId + " gagal dilepas setelah laporan dibuat", e);
+            }
+        }
+    }
+
+    /**
+     * Membuat paragraf laporan untuk setiap data secara lazy, termasuk pesan progres
+     * dibandingkan dengan data sebelumnya.
+     *
+     * @param records Riwayat data pengguna.
+     * @return Paragraf laporan.
+     */
+    static List<List<String>> progressParagraphs(List<BMIRecord> records) {
+        return new AbstractList<List<String>>() {
+            @Override
+            public List<String> get(int index) {
+                BMIRecord record = records.get(index);
+                BMIRecord previous = index > 0 ? records.get(index - 1) : null;
+                return Arrays.asList(
+                        "Tanggal: " + record.getDate(),
+                        "Jam: " + record.getTime(),
+                        "Tinggi: " + (int) record.getHeight() + " cm",
+                        "Berat: " + (int) record.getWeight() + " kg",
+                        "BMI: " + String.format("%.2f", record.getBmi()),
+                        "Rekomendasi: " + record.getRecommendation(),
+                        "Pesan: " + record.compareProgress(previous));
+            }
+
+            @Override
+            public int size() {
+                return records.size();
+            }
+        };
+    }
+
+    /**
+     * Metrik pembuatan satu laporan.
+     */
+    public static final class DocumentMetrics {
+        private final String userId;
+        private final int records;
+        private final long bytes;
+        private final long latencyNanos;
+        private final Exception error;
+
+        DocumentMetrics(String userId, int records, long bytes, long latencyNanos, Exception error) {
+            this.userId = userId;
+            this.records = records;
+            this.bytes = bytes;
+            this.latencyNanos = latencyNanos;
+            this.error = error;
+        }
+
+        public String getUserId() {
+            return userId;
+        }
+
+        public int getRecords() {
+            return records;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public long getLatencyNanos() {
+            return latencyNanos;
+        }
+
+        /**
+         * Mendapatkan error yang terjadi saat laporan dibuat.
+         *
+         * @return Error, atau null jika laporan berhasil dibuat.
+         */
+        public Exception getError() {
+            return error;
+        }
+    }
+
+    /**
+     * Ringkasan hasil pembuatan laporan untuk banyak pengguna.
+     */
+    public static final class Result {
+        private final List<DocumentMetrics> documents;
+        private final long elapsedNanos;
+        private final long[] sortedLatencies;
+
+        Result(List<DocumentMetrics> documents, long elapsedNanos) {
+            this.documents = Collections.unmodifiableList(documents);
+            this.elapsedNanos = elapsedNanos;
+            this.sortedLatencies = new long[documents.size()];
+            for (int i = 0; i < documents.size(); i++) {
+                sortedLatencies[i] = documents.get(i).getLatencyNanos();
+            }
+            Arrays.sort(sortedLatencies);
+        }
+
+        public List<DocumentMetrics> getDocuments() {
+            return documents;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /**
+         * Mengembalikan jumlah laporan yang gagal dibuat.
+         *
+         * @return Jumlah laporan gagal.
+         */
+        public int getFailureCount() {
+            int failures = 0;
+            for (DocumentMetrics document : documents) {
+                if (document.getError() != null) {
+                    failures++;
+                }
+            }
+            return failures;
+        }
+
+        /**
+         * Mengembalikan throughput pembuatan laporan.
+         *
+         * @return Jumlah laporan per menit.
+         */
+        public double getDocumentsPerMinute() {
+            return elapsedNanos == 0 ? 0 : documents.size() * 60e9 / elapsedNanos;
+        }
+
+        /**
+         * Mengembalikan latensi pembuatan laporan pada persentil tertentu.
+         *
+         * @param percentile Persentil antara 0 dan 100.
+         * @return Latensi dalam nanodetik, atau 0 jika tidak ada laporan.
+         */
+        public long getLatencyPercentileNanos(double percentile) {
+            if (sortedLatencies.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile / 100.0 * sortedLatencies.length) - 1;
+            return sortedLatencies[Math.max(0, Math.min(index, sortedLatencies.length - 1))];
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d laporan (%d gagal) dalam %.2f s, %.0f laporan/menit, p50=%.2f ms, p99=%.2f ms",
+                    documents.size(), getFailureCount(), elapsedNanos / 1e9, getDocumentsPerMinute(),
+                    getLatencyPercentileNanos(50) / 1e6, getLatencyPercentileNanos(99) / 1e6);
+        }
+    }
+}
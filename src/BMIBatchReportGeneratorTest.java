@@ -0,0 +1,88 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.zip.ZipFile;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Class BMIBatchReportGeneratorTest digunakan untuk menguji pembuatan laporan DOCX
+ * untuk banyak pengguna secara paralel.
+ */
+public class BMIBatchReportGeneratorTest {
+
+    /**
+     * Metode ini menguji bahwa setiap pengguna mendapatkan laporan sendiri dan partisi
+     * yang hanya dimuat untuk laporan dilepas kembali.
+     */
+    @Test
+    public void testGenerateAllUsers() throws IOException {
+        File dataDirectory = Files.createTempDirectory("bmi-batch-data").toFile();
+        File reportDirectory = Files.createTempDirectory("bmi-batch-laporan").toFile();
+        try (BMIRecordsService service = new BMIRecordsService(dataDirectory)) {
+            for (int user = 0; user < 6; user++) {
+                for (int i = 0; i <= user; i++) {
+                    service.addRecord("user" + user, new BMIRecord(170.0, 70.0 - i, (70.0 - i) / 2.89, "Ideal"));
+                }
+            }
+        }
+
+        try (BMIRecordsService service = new BMIRecordsService(dataDirectory)) {
+            service.getTotalRecords("user5"); // Sudah dimuat sebelum laporan dibuat
+            BMIBatchReportGenerator.Result result = new BMIBatchReportGenerator(service, reportDirectory, 3).generateAll();
+
+            assertEquals(6, result.getDocuments().size(), "Jumlah laporan tidak sesuai.");
+            assertEquals(0, result.getFailureCount(), "Ada laporan yang gagal dibuat.");
+            assertTrue(result.getLatencyPercentileNanos(99) >= result.getLatencyPercentileNanos(50));
+            assertFalse(service.isLoaded("user2"), "Partisi seharusnya dilepas setelah laporan dibuat.");
+            assertTrue(service.isLoaded("user5"), "Partisi yang sudah dimuat seharusnya tidak dilepas.");
+
+            try (ZipFile zip = new ZipFile(new File(reportDirectory, "user3.docx"))) {
+                String document = read(zip.getInputStream(zip.getEntry("word/document.xml")));
+                assertTrue(document.contains("Laporan Progres BMI - user3"), "Judul tidak ditemukan.");
+                assertEquals(4, document.split("Tinggi: 170 cm", -1).length - 1, "Jumlah data di laporan tidak sesuai.");
+                assertTrue(document.contains("Pesan: Yeayy, kamu berhasil mencapai ideal."), "Pesan progres tidak ditemukan.");
+            }
+        }
+    }
+
+    /**
+     * Metode ini menguji bahwa file sementara dihapus ketika laporan gagal disimpan
+     * dan partisi tetap dilepas.
+     */
+    @Test
+    public void testFailedReportRemovesTemporaryFile() throws IOException {
+        File dataDirectory = Files.createTempDirectory("bmi-batch-data").toFile();
+        File reportDirectory = Files.createTempDirectory("bmi-batch-laporan").toFile();
+        // Laporan tidak dapat menggantikan folder yang tidak kosong dengan nama yang sama.
+        File blocked = new File(reportDirectory, "budi.docx");
+        assertTrue(new File(blocked, "isi").mkdirs());
+        try (BMIRecordsService service = new BMIRecordsService(dataDirectory)) {
+            service.addRecord("budi", new BMIRecord(170.0, 70.0, 70.0 / 2.89, "Ideal"));
+            service.unload("budi");
+
+            BMIBatchReportGenerator.DocumentMetrics metrics =
+                    new BMIBatchReportGenerator(service, reportDirectory, 1).generateReport("budi");
+            assertNotNull(metrics.getError(), "Laporan seharusnya gagal disimpan.");
+            assertFalse(new File(reportDirectory, "budi.docx.tmp").exists(), "File sementara seharusnya dihapus.");
+            assertFalse(service.isLoaded("budi"), "Partisi seharusnya tetap dilepas setelah laporan gagal.");
+        }
+    }
+
+    private static String read(InputStream in) throws IOException {
+        try (InputStream input = in) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = input.read(buffer)) > 0) {
+                out.write(buffer, 0, read);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
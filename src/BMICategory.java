@@ -0,0 +1,162 @@
+/**
+ * Enum Program.BMICategory adalah kategori hasil BMI beserta rekomendasinya.
+ * <p>
+ * Setiap kategori memiliki kode byte yang sama dengan kode rekomendasi di entri journal
+ * (1 = Ideal, 2 = Diet, 3 = Bulking; 0 untuk rekomendasi yang tidak dikenal atau input tidak valid),
+ * sehingga kategori dapat disimpan dalam array byte tanpa membuat objek.
+ */
+public enum BMICategory {
+    IDEAL((byte) 1, "Ideal"),
+    DIET((byte) 2, "Diet"),
+    BULKING((byte) 3, "Bulking");
+
+    static final byte UNKNOWN_CODE = 0;   // Kode untuk rekomendasi tidak dikenal atau input tidak valid
+    static final double UNDERWEIGHT_LIMIT = 18.5; // Di bawah nilai ini rekomendasinya Bulking
+    static final double OVERWEIGHT_LIMIT = 25;    // Di atas nilai ini rekomendasinya Diet
+    static final double MIN_VALID_BMI = 10;       // Batas bawah BMI yang dianggap logis
+    static final double MAX_VALID_BMI = 100;      // Batas atas BMI yang dianggap logis
+
+    private static final BMICategory[] BY_CODE = {null, IDEAL, DIET, BULKING}; // Indeks = kode
+
+    private final byte code;              // Kode byte kategori
+    private final String recommendation;  // Teks rekomendasi
+
+    BMICategory(byte code, String recommendation) {
+        this.code = code;
+        this.recommendation = recommendation;
+    }
+
+    /**
+     * Mendapatkan kode byte kategori.
+     *
+     * @return Kode kategori (1 sampai 3).
+     */
+    public byte getCode() {
+        return code;
+    }
+
+    /**
+     * Mendapatkan teks rekomendasi kategori, misalnya "Diet".
+     *
+     * @return Teks rekomendasi.
+     */
+    public String getRecommendation() {
+        return recommendation;
+    }
+
+    /**
+     * Menghitung BMI dari tinggi (cm) dan berat (kg).
+     *
+     * @param height Tinggi badan dalam satuan cm.
+     * @param weight Berat badan dalam satuan kg.
+     * @return Nilai BMI.
+     */
+    public static double computeBmi(double height, double weight) {
+        double meters = height / 100.0;
+        return weight / (meters * meters);
+    }
+
+    /**
+     * Menentukan kategori dari nilai BMI.
+     *
+     * @param bmi Nilai BMI.
+     * @return Bulking jika di bawah 18.5, Diet jika di atas 25, selain itu Ideal.
+     */
+    public static BMICategory of(double bmi) {
+        if (bmi < UNDERWEIGHT_LIMIT) {
+            return BULKING;
+        } else if (bmi > OVERWEIGHT_LIMIT) {
+            return DIET;
+        }
+        return IDEAL;
+    }
+
+    /**
+     * Mengembalikan kategori berdasarkan kode byte.
+     *
+     * @param code Kode kategori.
+     * @return Kategori, atau null jika kode tidak dikenal.
+     */
+    public static BMICategory fromCode(byte code) {
+        return code > 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+    }
+
+    /**
+     * Mengembalikan kategori dari teks rekomendasi. Rekomendasi yang dibuat oleh aplikasi
+     * adalah konstanta yang sama, sehingga biasanya cukup dibandingkan dengan referensinya.
+     *
+     * @param recommendation Teks rekomendasi.
+     * @return Kategori, atau null jika rekomendasi tidak dikenal.
+     */
+    public static BMICategory fromRecommendation(String recommendation) {
+        for (BMICategory category : BY_CODE) {
+            if (category != null && category.recommendation == recommendation) {
+                return category;
+            }
+        }
+        for (BMICategory category : BY_CODE) {
+            if (category != null && category.recommendation.equals(recommendation)) {
+                return category;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Menghitung BMI dan kode kategori untuk banyak pengukuran sekaligus tanpa membuat objek,
+     * misalnya untuk menilai data hasil impor massal. Pengukuran dengan tinggi atau berat tidak
+     * lebih dari 0, atau BMI di luar 10 sampai 100, mendapat kode {@link #UNKNOWN_CODE} dan BMI NaN.
+     *
+     * @param heights    Tinggi badan (cm).
+     * @param weights    Berat badan (kg).
+     * @param bmis       Array tujuan nilai BMI.
+     * @param categories Array tujuan kode kategori.
+     * @param from       Indeks awal (inklusif).
+     * @param to         Indeks akhir (eksklusif).
+     * @return Jumlah pengukuran yang tidak valid.
+     * @throws IndexOutOfBoundsException jika rentang melebihi salah satu array.
+     */
+    public static int classify(double[] heights, double[] weights, double[] bmis, byte[] categories, int from, int to) {
+        if (from < 0 || from > to || to > heights.length || to > weights.length || to > bmis.length
+                || to > categories.length) {
+            throw new IndexOutOfBoundsException("Rentang " + from + " sampai " + to + " melebihi ukuran array.");
+        }
+        int invalid = 0;
+        for (int i = from; i < to; i++) {
+            double height = heights[i];
+            double weight = weights[i];
+            double meters = height / 100.0;
+            double bmi = weight / (meters * meters);
+            byte code;
+            if (!(height > 0 && weight > 0 && bmi >= MIN_VALID_BMI && bmi <= MAX_VALID_BMI)) {
+                bmi = Double.NaN;
+                code = UNKNOWN_CODE;
+                invalid++;
+            } else if (bmi < UNDERWEIGHT_LIMIT) {
+                code = 3; // BULKING
+            } else if (bmi > OVERWEIGHT_LIMIT) {
+                code = 2; // DIET
+            } else {
+                code = 1; // IDEAL
+            }
+            bmis[i] = bmi;
+            categories[i] = code;
+        }
+        return invalid;
+    }
+
+    /**
+     * Menghitung BMI dan kode kategori untuk semua pengukuran dalam array.
+     *
+     * @param heights    Tinggi badan (cm).
+     * @param weights    Berat badan (kg).
+     * @param bmis       Array tujuan nilai BMI.
+     * @param categories Array tujuan kode kategori.
+     * @return Jumlah pengukuran yang tidak valid.
+     * @throws IndexOutOfBoundsException jika array tujuan lebih pendek dari array input.
+     * @see #classify(double[], double[], double[], byte[], int, int)
+     */
+    public static int classify(double[] heights, double[] weights, double[] bmis, byte[] categories) {
+        return classify(heights, weights, bmis, categories, 0, heights.length);
+    }
+}
@@ -0,0 +1,77 @@
+import org.junit.jupiter.api.Test;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Class BMICategoryTest digunakan untuk menguji kategori BMI, klasifikasi batch,
+ * dan format tanggal/jam pada Program.BMIRecord.
+ */
+public class BMICategoryTest {
+
+    /**
+     * Metode ini menguji bahwa klasifikasi batch sama dengan perhitungan per data.
+     */
+    @Test
+    public void testClassifyMatchesCalculate() {
+        double[] heights = {170, 170, 170, 160.5, 0, 170, 30};
+        double[] weights = {50, 65, 80, 47.7, 65, -1, 65};
+        double[] bmis = new double[heights.length];
+        byte[] categories = new byte[heights.length];
+
+        int invalid = BMICategory.classify(heights, weights, bmis, categories);
+
+        assertEquals(3, invalid, "Jumlah input tidak valid tidak sesuai.");
+        for (int i = 0; i < 4; i++) {
+            BMIRecord record = BMIRecord.calculate(heights[i], weights[i]);
+            assertEquals(record.getBmi(), bmis[i], 0, "BMI batch berbeda dengan perhitungan per data.");
+            assertSame(record.getCategory(), BMICategory.fromCode(categories[i]), "Kategori batch berbeda.");
+        }
+        assertEquals(BMICategory.BULKING, BMICategory.fromCode(categories[0]));
+        assertEquals(BMICategory.IDEAL, BMICategory.fromCode(categories[1]));
+        assertEquals(BMICategory.DIET, BMICategory.fromCode(categories[2]));
+        for (int i = 4; i < heights.length; i++) {
+            assertEquals(BMICategory.UNKNOWN_CODE, categories[i]);
+            assertTrue(Double.isNaN(bmis[i]), "BMI input tidak valid seharusnya NaN.");
+        }
+        assertThrows(IndexOutOfBoundsException.class,
+                () -> BMICategory.classify(heights, weights, bmis, new byte[2]));
+    }
+
+    /**
+     * Metode ini menguji konversi kategori dari rekomendasi dan kode journal.
+     */
+    @Test
+    public void testRecommendationAndCode() {
+        assertEquals(BMICategory.DIET, BMICategory.fromRecommendation(new String("Diet")));
+        assertNull(BMICategory.fromRecommendation("Catatan khusus"));
+        assertNull(BMICategory.fromRecommendation(null));
+        for (BMICategory category : BMICategory.values()) {
+            assertSame(category, BMICategory.fromCode(category.getCode()));
+            assertEquals(category.getCode(), BMIRecordJournal.encodeRecommendation(category.getRecommendation()));
+        }
+        assertNull(BMICategory.fromCode(BMICategory.UNKNOWN_CODE));
+    }
+
+    /**
+     * Metode ini menguji bahwa format tanggal dan jam yang di-cache sama dengan SimpleDateFormat.
+     */
+    @Test
+    public void testDateTimeFormatting() {
+        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
+        SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm:ss");
+        Random random = new Random(42);
+        long timestamp = 1_600_000_000_000L;
+        for (int i = 0; i < 20_000; i++) {
+            // Sebagian besar berurutan (hari yang sama), sebagian melompat jauh
+            timestamp = i % 100 == 0 ? (long) (random.nextDouble() * 4_000_000_000_000L)
+                    : timestamp + random.nextInt(3_600_000);
+            BMIRecord record = new BMIRecord(timestamp, 170, 65, 22.49, "Ideal");
+            assertEquals(dateFormat.format(new Date(timestamp)), record.getDate(), "Tanggal berbeda untuk " + timestamp);
+            assertEquals(timeFormat.format(new Date(timestamp)), record.getTime(), "Jam berbeda untuk " + timestamp);
+        }
+    }
+}
@@ -0,0 +1,420 @@
+import javax.imageio.ImageIO;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.Stroke;
+import java.awt.geom.Path2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Class Program.BMIChartRenderer menggambar grafik tren berat badan dan BMI dari riwayat Program.BMIRecord
+ * sebagai gambar PNG menggunakan Java2D, untuk disisipkan ke laporan DOCX atau dikirim melalui HTTP.
+ * <p>
+ * Riwayat panjang (bertahun-tahun data harian) diperkecil dengan algoritma Largest-Triangle-Three-Buckets
+ * (LTTB) sebelum digambar, sehingga jumlah titik per garis, waktu gambar, dan ukuran PNG tetap terbatas
+ * tanpa menghilangkan puncak dan lembah pada grafik. Hasil gambar di-cache per pengguna bersama versi
+ * riwayatnya ({@link BMIRecordsManager#getVersion()}), sehingga riwayat yang tidak berubah tidak
+ * digambar ulang.
+ */
+public class BMIChartRenderer {
+    static final int WIDTH = 800;                // Lebar gambar (piksel)
+    static final int HEIGHT = 480;               // Tinggi gambar (piksel)
+    static final int DEFAULT_MAX_POINTS = 400;   // Jumlah titik maksimal per garis
+    static final int DEFAULT_CACHE_SIZE = 64;    // Jumlah grafik maksimal di cache
+    private static final int LEFT = 64, RIGHT = 24, TOP = 40, BOTTOM = 36, GAP = 28; // Margin area grafik
+    private static final Color WEIGHT_COLOR = new Color(0x1F77B4);
+    private static final Color BMI_COLOR = new Color(0xD62728);
+    private static final Color IDEAL_BAND = new Color(0xDFF0D8);
+    private static final Color GRID_COLOR = new Color(0xE0E0E0);
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    private final int maxPoints;                    // Jumlah titik maksimal per garis
+    private final Map<String, CachedChart> cache;   // Grafik terakhir per pengguna (LRU)
+    private final BMIMetrics metrics = BMIMetrics.getDefault(); // Metrik operasi "renderChart"
+    private final ZoneId zone;                      // Zona waktu label tanggal
+    private int renderCount;                        // Jumlah grafik yang benar-benar digambar
+
+    /**
+     * Constructor untuk membuat renderer dengan jumlah titik dan ukuran cache bawaan.
+     */
+    public BMIChartRenderer() {
+        this(DEFAULT_MAX_POINTS, DEFAULT_CACHE_SIZE, ZoneId.systemDefault());
+    }
+
+    /**
+     * Constructor untuk membuat renderer dengan jumlah titik dan ukuran cache tertentu.
+     *
+     * @param maxPoints Jumlah titik maksimal per garis (minimal 3).
+     * @param cacheSize Jumlah grafik maksimal di cache (minimal 1).
+     * @param zone      Zona waktu label tanggal.
+     * @throws IllegalArgumentException jika maxPoints kurang dari 3 atau cacheSize kurang dari 1.
+     */
+    public BMIChartRenderer(int maxPoints, int cacheSize, ZoneId zone) {
+        if (maxPoints < 3) {
+            throw new IllegalArgumentException("Jumlah titik maksimal harus minimal 3.");
+        }
+        if (cacheSize < 1) {
+            throw new IllegalArgumentException("Ukuran cache harus minimal 1.");
+        }
+        this.maxPoints = maxPoints;
+        this.zone = zone;
+        this.cache = new LinkedHashMap<String, CachedChart>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedChart> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Mendapatkan grafik PNG untuk pengguna tertentu. Jika versi riwayat sama dengan grafik di cache,
+     * grafik dari cache dikembalikan tanpa membaca riwayat. Versi sebaiknya dibaca sebelum riwayat
+     * disalin, sehingga grafik di cache tidak pernah lebih lama dari versi yang dicatat.
+     *
+     * @param key     Kunci pengguna, misalnya ID pengguna.
+     * @param version Versi riwayat pengguna.
+     * @param history Pemberi riwayat, hanya dipanggil jika grafik perlu digambar ulang.
+     * @return Gambar PNG. Array tidak boleh diubah karena dipakai bersama.
+     */
+    public byte[] getChart(String key, long version, Supplier<? extends List<BMIRecord>> history) {
+        synchronized (cache) {
+            CachedChart cached = cache.get(key);
+            if (cached != null && cached.version == version) {
+                return cached.png;
+            }
+        }
+        byte[] png = render(history.get());
+        synchronized (cache) {
+            cache.put(key, new CachedChart(version, png));
+        }
+        return png;
+    }
+
+    /**
+     * Memeriksa apakah grafik pengguna dengan versi tertentu sudah ada di cache.
+     *
+     * @param key     Kunci pengguna.
+     * @param version Versi riwayat pengguna.
+     * @return true jika grafik tidak perlu digambar ulang.
+     */
+    public boolean isCached(String key, long version) {
+        synchronized (cache) {
+            CachedChart cached = cache.get(key);
+            return cached != null && cached.version == version;
+        }
+    }
+
+    /**
+     * Menghapus grafik pengguna dari cache.
+     *
+     * @param key Kunci pengguna.
+     */
+    public void invalidate(String key) {
+        synchronized (cache) {
+            cache.remove(key);
+        }
+    }
+
+    /**
+     * Mengembalikan jumlah grafik yang sudah digambar (tidak termasuk yang diambil dari cache).
+     *
+     * @return Jumlah grafik yang digambar.
+     */
+    public synchronized int getRenderCount() {
+        return renderCount;
+    }
+
+    /**
+     * Menggambar grafik berat badan (atas) dan BMI (bawah, dengan pita rentang ideal) tanpa cache.
+     *
+     * @param history Riwayat data, tidak harus terurut berdasarkan waktu.
+     * @return Gambar PNG berukuran {@link #WIDTH} x {@link #HEIGHT}.
+     */
+    public byte[] render(List<BMIRecord> history) {
+        BMIMetrics.Timer timer = metrics.start("renderChart");
+        try {
+            byte[] png = encode(draw(history));
+            synchronized (this) {
+                renderCount++;
+            }
+            timer.stop();
+            return png;
+        } catch (RuntimeException e) {
+            timer.fail(e);
+            throw e;
+        }
+    }
+
+    private BufferedImage draw(List<BMIRecord> history) {
+        BMIRecord[] records = history.toArray(new BMIRecord[0]);
+        if (!isChronological(records)) {
+            Arrays.sort(records, Comparator.comparingLong(BMIRecord::getTimestamp));
+        }
+        int count = records.length;
+        long[] times = new long[count];
+        double[] weights = new double[count];
+        double[] bmis = new double[count];
+        for (int i = 0; i < count; i++) {
+            times[i] = records[i].getTimestamp();
+            weights[i] = records[i].getWeight();
+            bmis[i] = records[i].getBmi();
+        }
+
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, WIDTH, HEIGHT);
+            g.setFont(new Font(Font.SANS_SERIF, Font.BOLD, 16));
+            g.setColor(Color.DARK_GRAY);
+            drawCentered(g, "Grafik Progres BMI", WIDTH / 2, 24);
+            g.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, 11));
+
+            int panelHeight = (HEIGHT - TOP - BOTTOM - GAP) / 2;
+            Panel weightPanel = new Panel(LEFT, TOP, WIDTH - LEFT - RIGHT, panelHeight);
+            Panel bmiPanel = new Panel(LEFT, TOP + panelHeight + GAP, WIDTH - LEFT - RIGHT, panelHeight);
+            if (count == 0) {
+                drawCentered(g, "Belum ada data.", WIDTH / 2, HEIGHT / 2);
+                return image;
+            }
+            long minTime = times[0];
+            long maxTime = times[count - 1];
+            drawSeries(g, weightPanel, "Berat (kg)", times, weights, minTime, maxTime, WEIGHT_COLOR, false);
+            drawSeries(g, bmiPanel, "BMI", times, bmis, minTime, maxTime, BMI_COLOR, true);
+            drawTimeAxis(g, bmiPanel, minTime, maxTime);
+        } finally {
+            g.dispose();
+        }
+        return image;
+    }
+
+    private void drawSeries(Graphics2D g, Panel panel, String label, long[] times, double[] values,
+                            long minTime, long maxTime, Color color, boolean idealBand) {
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (double value : values) {
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+        double padding = Math.max((max - min) * 0.1, 1);
+        double[] ticks = niceTicks(min - padding, max + padding, 5);
+        double low = ticks[0];
+        double high = ticks[ticks.length - 1];
+
+        if (idealBand) {
+            int top = panel.y(Math.min(BMICategory.OVERWEIGHT_LIMIT, high), low, high);
+            int bottom = panel.y(Math.max(BMICategory.UNDERWEIGHT_LIMIT, low), low, high);
+            if (bottom > top) {
+                g.setColor(IDEAL_BAND);
+                g.fillRect(panel.left, top, panel.width, bottom - top);
+            }
+        }
+        FontMetrics fonts = g.getFontMetrics();
+        for (double tick : ticks) {
+            int y = panel.y(tick, low, high);
+            g.setColor(GRID_COLOR);
+            g.drawLine(panel.left, y, panel.left + panel.width, y);
+            g.setColor(Color.DARK_GRAY);
+            String text = formatTick(tick);
+            g.drawString(text, panel.left - 6 - fonts.stringWidth(text), y + fonts.getAscent() / 2 - 1);
+        }
+        g.setColor(Color.GRAY);
+        g.drawRect(panel.left, panel.top, panel.width, panel.height);
+        g.setColor(color);
+        g.drawString(label, panel.left + 6, panel.top + fonts.getAscent() + 4);
+
+        int[] points = downsample(times, values, values.length, maxPoints);
+        Path2D.Double path = new Path2D.Double(Path2D.WIND_NON_ZERO, points.length);
+        for (int i = 0; i < points.length; i++) {
+            double x = panel.x(times[points[i]], minTime, maxTime);
+            double y = panel.y(values[points[i]], low, high);
+            if (i == 0) {
+                path.moveTo(x, y);
+            } else {
+                path.lineTo(x, y);
+            }
+        }
+        Stroke stroke = g.getStroke();
+        g.setStroke(new BasicStroke(2f, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
+        if (points.length == 1) {
+            int x = (int) panel.x(times[points[0]], minTime, maxTime);
+            int y = panel.y(values[points[0]], low, high);
+            g.fillOval(x - 3, y - 3, 6, 6);
+        } else {
+            g.draw(path);
+        }
+        g.setStroke(stroke);
+    }
+
+    private void drawTimeAxis(Graphics2D g, Panel panel, long minTime, long maxTime) {
+        FontMetrics fonts = g.getFontMetrics();
+        int labels = minTime == maxTime ? 1 : 5;
+        int baseline = panel.top + panel.height + fonts.getAscent() + 6;
+        g.setColor(Color.DARK_GRAY);
+        for (int i = 0; i < labels; i++) {
+            long time = labels == 1 ? minTime : minTime + (maxTime - minTime) / (labels - 1) * i;
+            String text = DATE_FORMAT.format(Instant.ofEpochMilli(time).atZone(zone));
+            int x = (int) panel.x(time, minTime, maxTime);
+            int width = fonts.stringWidth(text);
+            x = Math.max(panel.left - width / 2, Math.min(x - width / 2, panel.left + panel.width - width));
+            g.drawString(text, x, baseline);
+        }
+    }
+
+    /**
+     * Memperkecil deret data dengan algoritma Largest-Triangle-Three-Buckets. Titik pertama dan terakhir
+     * selalu dipertahankan; titik lain dibagi ke dalam bucket, dan dari setiap bucket dipilih titik yang
+     * membentuk segitiga terbesar dengan titik terpilih sebelumnya dan rata-rata bucket berikutnya.
+     *
+     * @param x         Nilai sumbu x, terurut naik.
+     * @param y         Nilai sumbu y.
+     * @param count     Jumlah titik yang dipakai dari awal array.
+     * @param threshold Jumlah titik hasil.
+     * @return Indeks titik terpilih, terurut naik. Jika count tidak lebih dari threshold, semua indeks.
+     */
+    static int[] downsample(long[] x, double[] y, int count, int threshold) {
+        if (threshold >= count || threshold < 3) {
+            int[] all = new int[count];
+            for (int i = 0; i < count; i++) {
+                all[i] = i;
+            }
+            return all;
+        }
+        int[] sampled = new int[threshold];
+        double bucketSize = (double) (count - 2) / (threshold - 2);
+        int a = 0; // Titik terpilih pada bucket sebelumnya
+        for (int i = 0; i < threshold - 2; i++) {
+            int averageStart = (int) ((i + 1) * bucketSize) + 1;
+            int averageEnd = Math.min((int) ((i + 2) * bucketSize) + 1, count);
+            double averageX = 0;
+            double averageY = 0;
+            for (int j = averageStart; j < averageEnd; j++) {
+                averageX += x[j];
+                averageY += y[j];
+            }
+            int averageCount = averageEnd - averageStart;
+            averageX /= averageCount;
+            averageY /= averageCount;
+
+            int rangeStart = (int) (i * bucketSize) + 1;
+            int rangeEnd = (int) ((i + 1) * bucketSize) + 1;
+            double pointAX = x[a];
+            double pointAY = y[a];
+            double maxArea = -1;
+            int next = rangeStart;
+            for (int j = rangeStart; j < rangeEnd; j++) {
+                double area = Math.abs((pointAX - averageX) * (y[j] - pointAY) - (pointAX - x[j]) * (averageY - pointAY));
+                if (area > maxArea) {
+                    maxArea = area;
+                    next = j;
+                }
+            }
+            sampled[i + 1] = next;
+            a = next;
+        }
+        sampled[threshold - 1] = count - 1;
+        return sampled;
+    }
+
+    /**
+     * Membuat nilai tick sumbu y yang "bulat" (kelipatan 1, 2, 2.5 atau 5 dikali pangkat 10).
+     */
+    static double[] niceTicks(double min, double max, int target) {
+        double range = max - min;
+        double rough = range / (target - 1);
+        double magnitude = Math.pow(10, Math.floor(Math.log10(rough)));
+        double step = magnitude * 10;
+        for (double factor : new double[]{1, 2, 2.5, 5}) {
+            if (rough <= factor * magnitude) {
+                step = factor * magnitude;
+                break;
+            }
+        }
+        double start = Math.floor(min / step) * step;
+        int ticks = (int) Math.ceil((max - start) / step - 1e-9) + 1;
+        double[] result = new double[ticks];
+        for (int i = 0; i < ticks; i++) {
+            result[i] = start + step * i;
+        }
+        return result;
+    }
+
+    private static String formatTick(double value) {
+        return value == Math.rint(value) ? String.valueOf((long) value) : String.format("%.1f", value);
+    }
+
+    private static boolean isChronological(BMIRecord[] records) {
+        for (int i = 1; i < records.length; i++) {
+            if (records[i].getTimestamp() < records[i - 1].getTimestamp()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void drawCentered(Graphics2D g, String text, int x, int baseline) {
+        g.drawString(text, x - g.getFontMetrics().stringWidth(text) / 2, baseline);
+    }
+
+    private static byte[] encode(BufferedImage image) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(32 * 1024);
+        try {
+            ImageIO.write(image, "png", out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // Tidak terjadi pada ByteArrayOutputStream
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Area satu grafik di dalam gambar beserta konversi nilai ke piksel.
+     */
+    private static final class Panel {
+        final int left, top, width, height;
+
+        Panel(int left, int top, int width, int height) {
+            this.left = left;
+            this.top = top;
+            this.width = width;
+            this.height = height;
+        }
+
+        double x(long time, long minTime, long maxTime) {
+            return maxTime == minTime ? left + width / 2.0 : left + (double) (time - minTime) / (maxTime - minTime) * width;
+        }
+
+        int y(double value, double low, double high) {
+            return (int) Math.round(top + height - (value - low) / (high - low) * height);
+        }
+    }
+
+    /**
+     * Grafik di cache beserta versi riwayat yang digambar.
+     */
+    private static final class CachedChart {
+        final long version;
+        final byte[] png;
+
+        CachedChart(long version, byte[] png) {
+            this.version = version;
+            this.png = png;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Class BMIChartRendererTest digunakan untuk menguji grafik progres, downsampling LTTB, dan cache grafik.
+ */
+public class BMIChartRendererTest {
+    private static final long DAY = 24L * 60 * 60 * 1000;
+
+    /**
+     * Metode ini menguji bahwa LTTB mempertahankan titik pertama, titik terakhir, dan puncak data.
+     */
+    @Test
+    public void testDownsample() {
+        int count = 10_000;
+        long[] x = new long[count];
+        double[] y = new double[count];
+        for (int i = 0; i < count; i++) {
+            x[i] = i * DAY;
+            y[i] = 70;
+        }
+        y[4321] = 95; // Puncak tunggal
+
+        int[] sampled = BMIChartRenderer.downsample(x, y, count, 100);
+        assertEquals(100, sampled.length, "Jumlah titik hasil tidak sesuai.");
+        assertEquals(0, sampled[0], "Titik pertama harus dipertahankan.");
+        assertEquals(count - 1, sampled[sampled.length - 1], "Titik terakhir harus dipertahankan.");
+        boolean peak = false;
+        for (int i = 0; i < sampled.length; i++) {
+            if (i > 0) {
+                assertTrue(sampled[i] > sampled[i - 1], "Indeks harus terurut naik.");
+            }
+            peak |= sampled[i] == 4321;
+        }
+        assertTrue(peak, "Puncak data seharusnya terpilih.");
+
+        assertEquals(5, BMIChartRenderer.downsample(x, y, 5, 100).length, "Data pendek tidak perlu diperkecil.");
+    }
+
+    /**
+     * Metode ini menguji bahwa riwayat bertahun-tahun dan riwayat kosong dapat digambar sebagai PNG.
+     */
+    @Test
+    public void testRender() throws IOException {
+        BMIChartRenderer renderer = new BMIChartRenderer(400, 4, ZoneId.of("Asia/Jakarta"));
+        List<BMIRecord> history = dailyHistory(10 * 365);
+        Collections.swap(history, 10, 20); // Riwayat tidak harus terurut
+
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(renderer.render(history)));
+        assertEquals(BMIChartRenderer.WIDTH, image.getWidth(), "Lebar grafik tidak sesuai.");
+        assertEquals(BMIChartRenderer.HEIGHT, image.getHeight(), "Tinggi grafik tidak sesuai.");
+
+        assertNotNull(ImageIO.read(new ByteArrayInputStream(renderer.render(new ArrayList<>()))),
+                "Riwayat kosong tetap menghasilkan gambar.");
+        assertNotNull(ImageIO.read(new ByteArrayInputStream(renderer.render(dailyHistory(1)))),
+                "Riwayat satu data tetap menghasilkan gambar.");
+    }
+
+    /**
+     * Metode ini menguji bahwa grafik hanya digambar ulang jika versi riwayat berubah.
+     */
+    @Test
+    public void testCacheByVersion() throws IOException {
+        File directory = Files.createTempDirectory("bmi-chart").toFile();
+        BMIChartRenderer renderer = new BMIChartRenderer();
+        AtomicInteger reads = new AtomicInteger();
+        long version;
+        try (BMIRecordsManager manager = new BMIRecordsManager(directory)) {
+            manager.addRecordAsync(BMIRecord.calculate(170, 80)).join();
+            version = manager.getVersion();
+
+            byte[] first = renderer.getChart("user", version, () -> {
+                reads.incrementAndGet();
+                return manager.getAllRecords();
+            });
+            byte[] second = renderer.getChart("user", manager.getVersion(), () -> {
+                reads.incrementAndGet();
+                return manager.getAllRecords();
+            });
+            assertSame(first, second, "Grafik seharusnya diambil dari cache.");
+            assertEquals(1, reads.get(), "Riwayat tidak perlu dibaca ulang jika versi sama.");
+            assertTrue(renderer.isCached("user", version), "Grafik seharusnya ada di cache.");
+
+            manager.addRecordAsync(BMIRecord.calculate(170, 78)).join();
+            assertTrue(manager.getVersion() != version, "Versi harus berubah setelah data ditambahkan.");
+            renderer.getChart("user", manager.getVersion(), manager::getAllRecords);
+            assertEquals(2, renderer.getRenderCount(), "Grafik harus digambar ulang setelah data berubah.");
+            version = manager.getVersion();
+        }
+        try (BMIRecordsManager reloaded = new BMIRecordsManager(directory)) {
+            assertEquals(version, reloaded.getVersion(), "Riwayat yang dimuat ulang tanpa perubahan harus memiliki versi sama.");
+        }
+    }
+
+    private static List<BMIRecord> dailyHistory(int days) {
+        List<BMIRecord> history = new ArrayList<>(days);
+        long start = 1_600_000_000_000L;
+        for (int i = 0; i < days; i++) {
+            double weight = 80 - i * 0.005 + Math.sin(i / 7.0);
+            history.add(new BMIRecord(start + i * DAY, 170, weight, BMICategory.computeBmi(170, weight),
+                    BMICategory.of(BMICategory.computeBmi(170, weight)).getRecommendation()));
+        }
+        return history;
+    }
+}
@@ -0,0 +1,219 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Class Program.BMIColumnStore adalah penyimpanan alternatif untuk riwayat Program.BMIRecord
+ * dalam format kolom (columnar). Setiap atribut disimpan sebagai kolom primitif
+ * (timestamp, tinggi, berat, BMI, dan kode rekomendasi) di dalam satu file yang
+ * dipetakan ke memori (memory-mapped), sehingga membuka riwayat yang besar tidak perlu
+ * membaca dan membuat ulang seluruh objek terlebih dahulu.
+ * <p>
+ * Objek Program.BMIRecord hanya dibuat ketika data pada indeks tertentu diminta.
+ */
+public class BMIColumnStore {
+    static final int HEADER_SIZE = 16;           // Magic, versi, jumlah data, cadangan
+    private static final int MAGIC = 0x424D4331; // "BMC1"
+    private static final int VERSION = 1;
+    private static final int BYTES_PER_RECORD = Long.BYTES + 3 * Float.BYTES + 1;
+
+    private final int size;               // Jumlah data di dalam file
+    private final LongBuffer timestamps;  // Kolom timestamp
+    private final FloatBuffer heights;    // Kolom tinggi badan
+    private final FloatBuffer weights;    // Kolom berat badan
+    private final FloatBuffer bmis;       // Kolom nilai BMI
+    private final ByteBuffer recommendations; // Kolom kode rekomendasi
+
+    private BMIColumnStore(MappedByteBuffer buffer, int size) {
+        this.size = size;
+        int offset = HEADER_SIZE;
+        this.timestamps = slice(buffer, offset, size * Long.BYTES).asLongBuffer();
+        offset += size * Long.BYTES;
+        this.heights = slice(buffer, offset, size * Float.BYTES).asFloatBuffer();
+        offset += size * Float.BYTES;
+        this.weights = slice(buffer, offset, size * Float.BYTES).asFloatBuffer();
+        offset += size * Float.BYTES;
+        this.bmis = slice(buffer, offset, size * Float.BYTES).asFloatBuffer();
+        offset += size * Float.BYTES;
+        this.recommendations = slice(buffer, offset, size);
+    }
+
+    /**
+     * Menulis daftar Program.BMIRecord ke file dalam format kolom.
+     *
+     * @param file    Lokasi file tujuan.
+     * @param records Data yang akan ditulis.
+     * @throws IOException jika file gagal ditulis.
+     */
+    public static void write(Path file, List<BMIRecord> records) throws IOException {
+        int count = records.size();
+        long fileSize = HEADER_SIZE + (long) count * BYTES_PER_RECORD;
+        if (fileSize > Integer.MAX_VALUE) {
+            throw new IOException("Jumlah data terlalu besar untuk satu file kolom: " + count);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(count).putInt(0);
+
+            int timestampOffset = HEADER_SIZE;
+            int heightOffset = timestampOffset + count * Long.BYTES;
+            int weightOffset = heightOffset + count * Float.BYTES;
+            int bmiOffset = weightOffset + count * Float.BYTES;
+            int recommendationOffset = bmiOffset + count * Float.BYTES;
+            for (int i = 0; i < count; i++) {
+                BMIRecord record = records.get(i);
+                buffer.putLong(timestampOffset + i * Long.BYTES, record.getTimestamp());
+                buffer.putFloat(heightOffset + i * Float.BYTES, (float) record.getHeight());
+                buffer.putFloat(weightOffset + i * Float.BYTES, (float) record.getWeight());
+                buffer.putFloat(bmiOffset + i * Float.BYTES, (float) record.getBmi());
+                buffer.put(recommendationOffset + i, BMIRecordJournal.encodeRecommendation(record.getRecommendation()));
+            }
+            buffer.force();
+        }
+    }
+
+    /**
+     * Membuka file kolom dalam mode baca saja. Operasi ini hanya memetakan file ke memori
+     * dan membaca header, tanpa membaca seluruh data.
+     *
+     * @param file Lokasi file kolom.
+     * @return Penyimpanan kolom yang siap dibaca.
+     * @throws IOException jika file tidak dapat dibuka atau formatnya tidak dikenal.
+     */
+    public static BMIColumnStore open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_SIZE || fileSize > Integer.MAX_VALUE) {
+                throw new IOException("Ukuran file kolom tidak valid: " + file);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                throw new IOException("Format file kolom tidak dikenal: " + file);
+            }
+            int count = buffer.getInt(8);
+            if (count < 0 || HEADER_SIZE + (long) count * BYTES_PER_RECORD > fileSize) {
+                throw new IOException("File kolom tidak lengkap: " + file);
+            }
+            return new BMIColumnStore(buffer, count);
+        }
+    }
+
+    /**
+     * Mengembalikan jumlah data yang tersimpan.
+     *
+     * @return Jumlah data.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Mendapatkan waktu input data pada indeks tertentu.
+     *
+     * @param index Indeks data.
+     * @return Waktu input dalam epoch milidetik.
+     */
+    public long getTimestamp(int index) {
+        return timestamps.get(checkIndex(index));
+    }
+
+    /**
+     * Mendapatkan tinggi badan data pada indeks tertentu.
+     *
+     * @param index Indeks data.
+     * @return Tinggi badan dalam satuan cm.
+     */
+    public double getHeight(int index) {
+        return heights.get(checkIndex(index));
+    }
+
+    /**
+     * Mendapatkan berat badan data pada indeks tertentu.
+     *
+     * @param index Indeks data.
+     * @return Berat badan dalam satuan kg.
+     */
+    public double getWeight(int index) {
+        return weights.get(checkIndex(index));
+    }
+
+    /**
+     * Mendapatkan nilai BMI data pada indeks tertentu.
+     *
+     * @param index Indeks data.
+     * @return Nilai BMI.
+     */
+    public double getBmi(int index) {
+        return bmis.get(checkIndex(index));
+    }
+
+    /**
+     * Mendapatkan rekomendasi data pada indeks tertentu.
+     *
+     * @param index Indeks data.
+     * @return Rekomendasi dalam bentuk String.
+     */
+    public String getRecommendation(int index) {
+        return BMIRecordJournal.decodeRecommendation(recommendations.get(checkIndex(index)));
+    }
+
+    /**
+     * Membuat objek Program.BMIRecord untuk data pada indeks tertentu.
+     *
+     * @param index Indeks data.
+     * @return Objek Program.BMIRecord baru.
+     */
+    public BMIRecord get(int index) {
+        checkIndex(index);
+        return new BMIRecord(timestamps.get(index), heights.get(index), weights.get(index),
+                bmis.get(index), BMIRecordJournal.decodeRecommendation(recommendations.get(index)));
+    }
+
+    /**
+     * Mengembalikan tampilan baca saja dalam bentuk List. Objek Program.BMIRecord
+     * dibuat saat elemen diakses, bukan ketika daftar dibuat.
+     *
+     * @return Daftar baca saja yang membaca langsung dari file kolom.
+     */
+    public List<BMIRecord> asList() {
+        return new RecordList();
+    }
+
+    private int checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index tidak valid.");
+        }
+        return index;
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, int offset, int length) {
+        ByteBuffer copy = buffer.duplicate();
+        copy.position(offset);
+        copy.limit(offset + length);
+        return copy.slice();
+    }
+
+    /**
+     * Tampilan List yang membuat Program.BMIRecord secara lazy dari kolom.
+     */
+    private class RecordList extends AbstractList<BMIRecord> implements RandomAccess {
+        @Override
+        public BMIRecord get(int index) {
+            return BMIColumnStore.this.get(index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Class BMIColumnStoreTest digunakan untuk menguji penyimpanan riwayat BMI dalam format kolom.
+ */
+public class BMIColumnStoreTest {
+
+    /**
+     * Metode ini menguji bahwa data yang ditulis dapat dibuka kembali dan dibaca melalui asList().
+     */
+    @Test
+    public void testRoundTrip() throws IOException {
+        List<BMIRecord> records = Arrays.asList(
+                new BMIRecord(1_734_900_000_000L, 170, 65, 22.5, "Ideal"),
+                new BMIRecord(1_734_900_060_000L, 172.5, 80.25, 27.0, "Diet"),
+                new BMIRecord(1_734_900_120_000L, 160, 40, 15.625, "Bulking"));
+        Path file = Files.createTempFile("bmi", ".columns");
+        try {
+            BMIColumnStore.write(file, records);
+            BMIColumnStore store = BMIColumnStore.open(file);
+            List<BMIRecord> view = store.asList();
+
+            assertEquals(records.size(), store.size());
+            assertEquals(records.size(), view.size());
+            for (int i = 0; i < records.size(); i++) {
+                BMIRecord expected = records.get(i);
+                BMIRecord actual = view.get(i);
+                assertEquals(expected.getTimestamp(), actual.getTimestamp(), "Timestamp tidak sama.");
+                assertEquals(expected.getHeight(), actual.getHeight(), 0);
+                assertEquals(expected.getWeight(), actual.getWeight(), 0);
+                assertEquals(expected.getBmi(), actual.getBmi(), 0);
+                assertEquals(expected.getRecommendation(), actual.getRecommendation());
+            }
+            assertEquals(80.25, store.getWeight(1), 0);
+            assertThrows(IndexOutOfBoundsException.class, () -> view.get(3));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Metode ini menguji ekspor riwayat pengguna dari Program.BMIRecordsService ke file kolom.
+     */
+    @Test
+    public void testExportFromService() throws IOException {
+        File directory = Files.createTempDirectory("bmi-columns").toFile();
+        File file = new File(directory, "budi.columns");
+        try (BMIRecordsService service = new BMIRecordsService(directory)) {
+            for (int i = 0; i < 5; i++) {
+                service.addRecord("budi", new BMIRecord(1_734_900_000_000L + i, 170, 60 + i, 20.5, "Ideal"));
+            }
+            service.exportColumns("budi", file);
+        }
+
+        List<BMIRecord> view = BMIColumnStore.open(file.toPath()).asList();
+        assertEquals(5, view.size(), "Jumlah data hasil ekspor tidak sesuai.");
+        assertEquals(64, view.get(4).getWeight(), 0);
+        assertEquals(1_734_900_000_004L, view.get(4).getTimestamp());
+    }
+}
@@ -0,0 +1,242 @@
+import javax.swing.*;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Class Program.BMICommandRunner menjalankan perintah yang melakukan I/O (menyimpan data, membuat
+ * atau memperbarui DOCX) di luar Event Dispatch Thread menggunakan SwingWorker.
+ * <p>
+ * Perintah dijalankan satu per satu sesuai urutan pengiriman di satu thread background, sehingga
+ * perintah yang menulis file yang sama tidak saling bertabrakan. Perintah dengan kunci yang sama
+ * digabung: jika perintah sebelumnya masih menunggu di antrean, perintah itu dibatalkan dan
+ * digantikan perintah terbaru. Progres dan pesan status dilaporkan ke listener di EDT, dan semua
+ * perintah dapat dibatalkan dengan {@link #cancelAll()}.
+ * <p>
+ * Semua metode publik harus dipanggil dari EDT.
+ */
+public class BMICommandRunner implements AutoCloseable {
+
+    /**
+     * Perintah yang dijalankan di background thread.
+     *
+     * @param <T> Tipe hasil perintah.
+     */
+    public interface Command<T> {
+        /**
+         * Menjalankan perintah. Perintah sebaiknya memeriksa {@link Progress#isCancelled()}
+         * di antara langkah yang lama.
+         *
+         * @param progress Pelapor progres.
+         * @return Hasil perintah.
+         * @throws Exception jika perintah gagal.
+         */
+        T run(Progress progress) throws Exception;
+    }
+
+    /**
+     * Pelapor progres untuk perintah yang sedang berjalan.
+     */
+    public interface Progress {
+        /**
+         * Melaporkan progres perintah.
+         *
+         * @param percent Persentase selesai (0 sampai 100).
+         * @param message Pesan status.
+         */
+        void update(int percent, String message);
+
+        /**
+         * @return true jika perintah sudah dibatalkan.
+         */
+        boolean isCancelled();
+    }
+
+    /**
+     * Listener status yang dipanggil di EDT, misalnya untuk memperbarui progress bar.
+     */
+    public interface StatusListener {
+        /**
+         * Dipanggil ketika progres atau pesan status berubah.
+         *
+         * @param running Jumlah perintah yang sedang berjalan atau menunggu.
+         * @param percent Persentase selesai perintah yang sedang berjalan.
+         * @param message Pesan status terbaru, atau null jika hanya persentase yang berubah.
+         */
+        void statusChanged(int running, int percent, String message);
+    }
+
+    private final ExecutorService executor;   // Thread background untuk semua perintah
+    private final Map<String, Worker<?>> queued = new HashMap<>(); // Perintah yang belum mulai, per kunci
+    private final Set<Worker<?>> active = new LinkedHashSet<>(); // Perintah yang belum selesai
+    private StatusListener listener = (running, percent, message) -> { }; // Listener status
+
+    /**
+     * Constructor untuk membuat runner dengan satu thread background.
+     */
+    public BMICommandRunner() {
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "bmi-command");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Mengatur listener status.
+     *
+     * @param listener Listener yang dipanggil di EDT.
+     */
+    public void setStatusListener(StatusListener listener) {
+        this.listener = listener != null ? listener : (running, percent, message) -> { };
+    }
+
+    /**
+     * Mengirim perintah untuk dijalankan di background.
+     *
+     * @param key       Kunci penggabungan (null jika perintah tidak boleh digabung).
+     * @param name      Nama perintah untuk pesan status.
+     * @param command   Perintah yang dijalankan.
+     * @param onSuccess Dipanggil di EDT dengan hasil perintah.
+     * @param onFailure Dipanggil di EDT jika perintah gagal (tidak dipanggil jika dibatalkan).
+     * @param <T>       Tipe hasil perintah.
+     * @return Worker perintah, dapat dipakai untuk membatalkan atau menunggu hasil.
+     */
+    public <T> SwingWorker<T, String> submit(String key, String name, Command<T> command,
+                                             Consumer<? super T> onSuccess, Consumer<? super Exception> onFailure) {
+        if (key != null) {
+            Worker<?> previous = queued.remove(key);
+            if (previous != null && previous.started.compareAndSet(false, true)) {
+                previous.skipped = true; // Belum mulai, cukup dilewati
+                previous.cancel(false);
+            }
+        }
+        Worker<T> worker = new Worker<>(key, name, command, onSuccess, onFailure);
+        if (key != null) {
+            queued.put(key, worker);
+        }
+        active.add(worker);
+        notifyStatus(0, name + " menunggu...");
+        executor.execute(worker);
+        return worker;
+    }
+
+    /**
+     * Membatalkan semua perintah yang sedang berjalan atau menunggu.
+     */
+    public void cancelAll() {
+        for (Worker<?> worker : active.toArray(new Worker<?>[0])) {
+            worker.cancel(true);
+        }
+        queued.clear();
+    }
+
+    /**
+     * Mengembalikan jumlah perintah yang sedang berjalan atau menunggu.
+     *
+     * @return Jumlah perintah.
+     */
+    public int getPendingCount() {
+        return active.size();
+    }
+
+    /**
+     * Menghentikan thread background setelah perintah yang sudah dikirim selesai.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    private void notifyStatus(int percent, String message) {
+        listener.statusChanged(active.size(), percent, message);
+    }
+
+    /**
+     * SwingWorker untuk satu perintah.
+     */
+    private final class Worker<T> extends SwingWorker<T, String> implements Progress {
+        private final String key;
+        private final String name;
+        private final Command<T> command;
+        private final Consumer<? super T> onSuccess;
+        private final Consumer<? super Exception> onFailure;
+        final AtomicBoolean started = new AtomicBoolean(); // Diklaim oleh worker saat mulai atau oleh penggantinya
+        volatile boolean skipped;                          // true jika digantikan perintah dengan kunci sama
+
+        Worker(String key, String name, Command<T> command, Consumer<? super T> onSuccess,
+               Consumer<? super Exception> onFailure) {
+            this.key = key;
+            this.name = name;
+            this.command = command;
+            this.onSuccess = onSuccess;
+            this.onFailure = onFailure;
+            addPropertyChangeListener(event -> {
+                if ("progress".equals(event.getPropertyName()) && active.contains(this)) {
+                    notifyStatus((Integer) event.getNewValue(), null);
+                }
+            });
+        }
+
+        @Override
+        protected T doInBackground() throws Exception {
+            if (!started.compareAndSet(false, true)) {
+                return null; // Sudah digantikan perintah yang lebih baru
+            }
+            publish(name + "...");
+            return command.run(this);
+        }
+
+        @Override
+        public void update(int percent, String message) {
+            setProgress(Math.max(0, Math.min(100, percent)));
+            if (message != null) {
+                publish(message);
+            }
+        }
+
+        @Override
+        protected void process(List<String> messages) {
+            if (active.contains(this)) {
+                notifyStatus(getProgress(), messages.get(messages.size() - 1));
+            }
+        }
+
+        @Override
+        protected void done() {
+            active.remove(this);
+            if (key != null && queued.get(key) == this) {
+                queued.remove(key);
+            }
+            if (skipped) {
+                notifyStatus(0, name + " digantikan perintah yang lebih baru.");
+                return;
+            }
+            try {
+                T result = get();
+                notifyStatus(100, name + " selesai.");
+                if (onSuccess != null) {
+                    onSuccess.accept(result);
+                }
+            } catch (CancellationException e) {
+                notifyStatus(0, name + " dibatalkan.");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                Exception cause = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                notifyStatus(0, name + " gagal: " + cause.getMessage());
+                if (onFailure != null) {
+                    onFailure.accept(cause);
+                }
+            }
+        }
+    }
+}
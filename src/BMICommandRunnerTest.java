@@ -0,0 +1,104 @@
+import org.junit.jupiter.api.Test;
+
+import javax.swing.*;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Class BMICommandRunnerTest digunakan untuk menguji eksekusi perintah I/O di luar EDT.
+ */
+public class BMICommandRunnerTest {
+
+    /**
+     * Metode ini menguji urutan eksekusi dan penggabungan perintah dengan kunci yang sama.
+     */
+    @Test
+    public void testOrderAndCoalescing() throws Exception {
+        List<String> executed = Collections.synchronizedList(new ArrayList<>());
+        List<String> succeeded = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(1);
+        List<Boolean> onEdt = Collections.synchronizedList(new ArrayList<>());
+        try (BMICommandRunner runner = new BMICommandRunner()) {
+            SwingUtilities.invokeAndWait(() -> {
+                runner.submit(null, "A", progress -> {
+                    onEdt.add(SwingUtilities.isEventDispatchThread());
+                    release.await();
+                    executed.add("A");
+                    return "A";
+                }, succeeded::add, null);
+                runner.submit("docx", "B", progress -> {
+                    executed.add("B");
+                    return "B";
+                }, succeeded::add, null);
+                runner.submit("docx", "C", progress -> {
+                    executed.add("C");
+                    return "C";
+                }, result -> {
+                    succeeded.add(result);
+                    finished.countDown();
+                }, null);
+                assertEquals(2, runner.getPendingCount(), "B seharusnya langsung dilewati."); // A berjalan, C menunggu
+            });
+            release.countDown();
+            assertTrue(finished.await(10, TimeUnit.SECONDS), "Perintah tidak selesai.");
+            SwingUtilities.invokeAndWait(() -> assertEquals(0, runner.getPendingCount()));
+        }
+        assertEquals(Collections.singletonList(false), onEdt, "Perintah dijalankan di EDT.");
+        assertEquals(java.util.Arrays.asList("A", "C"), executed, "Perintah B seharusnya digantikan C.");
+        assertEquals(java.util.Arrays.asList("A", "C"), succeeded);
+    }
+
+    /**
+     * Metode ini menguji laporan kegagalan, progres, dan pembatalan perintah.
+     */
+    @Test
+    public void testFailureProgressAndCancel() throws Exception {
+        IOException failure = new IOException("disk penuh");
+        AtomicReference<Exception> reported = new AtomicReference<>();
+        List<String> messages = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch failed = new CountDownLatch(1);
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch cancelled = new CountDownLatch(1);
+        try (BMICommandRunner runner = new BMICommandRunner()) {
+            SwingUtilities.invokeAndWait(() -> {
+                runner.setStatusListener((count, percent, message) -> {
+                    if (message != null) {
+                        messages.add(message);
+                        if (message.endsWith("dibatalkan.")) {
+                            cancelled.countDown();
+                        }
+                    }
+                });
+                runner.submit(null, "Gagal", progress -> {
+                    progress.update(50, "Setengah jalan");
+                    throw failure;
+                }, result -> fail("Perintah gagal tidak boleh berhasil."), e -> {
+                    reported.set(e);
+                    failed.countDown();
+                });
+                runner.submit(null, "Lama", progress -> {
+                    running.countDown();
+                    while (!progress.isCancelled()) {
+                        Thread.sleep(5);
+                    }
+                    return null;
+                }, result -> fail("Perintah dibatalkan tidak boleh berhasil."),
+                        e -> fail("Perintah dibatalkan tidak boleh gagal."));
+            });
+            assertTrue(failed.await(10, TimeUnit.SECONDS), "Kegagalan tidak dilaporkan.");
+            assertSame(failure, reported.get());
+            assertTrue(running.await(10, TimeUnit.SECONDS), "Perintah kedua tidak berjalan.");
+            SwingUtilities.invokeAndWait(runner::cancelAll);
+            assertTrue(cancelled.await(10, TimeUnit.SECONDS), "Pembatalan tidak dilaporkan.");
+        }
+        assertTrue(messages.contains("Gagal gagal: disk penuh"), "Pesan status: " + messages);
+    }
+}
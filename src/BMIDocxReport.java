@@ -0,0 +1,429 @@
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.apache.poi.xwpf.usermodel.XWPFParagraph;
+import org.apache.poi.xwpf.usermodel.XWPFRun;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Class Program.BMIDocxReport digunakan untuk membuat dan memperbarui laporan BMI dalam format DOCX
+ * tanpa memuat dokumen ke dalam DOM.
+ * <p>
+ * Isi laporan disimpan sebagai log paragraf append-only di file pendamping ({@code <nama>.docx.report}).
+ * Setiap kali laporan diperbarui, paragraf baru cukup ditambahkan ke log, lalu {@code word/document.xml}
+ * ditulis ulang secara streaming langsung ke dalam paket ZIP (OPC). Penggunaan memori tetap kecil
+ * berapa pun jumlah entri progres di dalam laporan. Part lain di dalam paket (relasi, gaya, dan gambar
+ * rekomendasi) diambil dari Program.BMIDocxTemplate yang sudah disiapkan sekali dan di-cache.
+ * Grafik progres terbaru (PNG dari Program.BMIChartRenderer) disimpan di file pendamping kedua
+ * ({@code <nama>.docx.chart}) dan ditampilkan di akhir laporan.
+ * <p>
+ * File DOCX lama yang belum memiliki file pendamping tetap diperbarui dengan cara lama melalui XWPFDocument.
+ */
+public class BMIDocxReport {
+    static final String REPORT_SUFFIX = ".report";   // Akhiran file pendamping
+    static final String CHART_SUFFIX = ".chart";     // Akhiran file pendamping grafik progres
+    private static final int MAGIC = 0x424D5250;     // "BMRP"
+    private static final int VERSION = 2;            // Versi 2 menyimpan kunci template di header
+    private static final byte KIND_TITLE = 1;        // Paragraf judul (gaya Judul: tengah, tebal, 16pt)
+    private static final byte KIND_BODY = 2;         // Paragraf isi
+    private static final byte KIND_PICTURE = 3;      // Paragraf gambar dari template
+    private static final String TITLE_START = "<w:p><w:pPr><w:pStyle w:val=\"" + BMIDocxTemplate.TITLE_STYLE
+            + "\"/></w:pPr><w:r>";
+    private static final String CHART_PARAGRAPH = BMIDocxTemplate.chartParagraph(BMIChartRenderer.WIDTH,
+            BMIChartRenderer.HEIGHT);
+
+    private final File docxFile;   // File DOCX hasil
+    private final File reportFile; // File pendamping berisi log paragraf
+    private final File chartFile;  // File pendamping berisi grafik progres terbaru
+
+    private BMIDocxReport(File docxFile) {
+        this.docxFile = docxFile;
+        this.reportFile = reportFileFor(docxFile);
+        this.chartFile = new File(docxFile.getPath() + CHART_SUFFIX);
+    }
+
+    /**
+     * Membuat laporan baru dengan judul tertentu. Paragraf isi dapat ditambahkan
+     * dengan {@link #appendParagraph(List)}.
+     *
+     * @param docxFile File DOCX yang akan dibuat.
+     * @param title    Judul laporan.
+     * @return Laporan baru.
+     * @throws IOException jika file gagal ditulis.
+     */
+    public static BMIDocxReport create(File docxFile, String title) throws IOException {
+        return create(docxFile, title, BMIDocxTemplate.getDefault(), null);
+    }
+
+    /**
+     * Membuat laporan baru dari template, berisi judul, paragraf pertama, dan gambar template
+     * (jika ada) di bawah paragraf pertama. File DOCX hanya ditulis sekali.
+     *
+     * @param docxFile File DOCX yang akan dibuat.
+     * @param title    Judul laporan.
+     * @param template Template laporan, misalnya dari {@link BMIDocxTemplate#forCategory(BMICategory)}.
+     * @param lines    Baris-baris paragraf pertama, atau null jika laporan hanya berisi judul.
+     * @return Laporan baru.
+     * @throws IOException jika file gagal ditulis.
+     */
+    public static BMIDocxReport create(File docxFile, String title, BMIDocxTemplate template, List<String> lines)
+            throws IOException {
+        return create(docxFile, title, template, lines, null);
+    }
+
+    /**
+     * Membuat laporan baru dari template seperti {@link #create(File, String, BMIDocxTemplate, List)},
+     * dengan grafik progres di akhir laporan.
+     *
+     * @param docxFile File DOCX yang akan dibuat.
+     * @param title    Judul laporan.
+     * @param template Template laporan.
+     * @param lines    Baris-baris paragraf pertama, atau null jika laporan hanya berisi judul.
+     * @param chart    Gambar PNG grafik progres, atau null jika laporan tanpa grafik.
+     * @return Laporan baru.
+     * @throws IOException jika file gagal ditulis.
+     */
+    public static BMIDocxReport create(File docxFile, String title, BMIDocxTemplate template, List<String> lines,
+                                       byte[] chart) throws IOException {
+        BMIDocxReport report = new BMIDocxReport(docxFile);
+        if (chart != null) {
+            report.writeChart(chart);
+        } else {
+            Files.deleteIfExists(report.chartFile.toPath()); // Grafik laporan lama dengan nama sama
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(report.reportFile)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(template.getKey());
+            writeEntry(out, KIND_TITLE, Collections.singletonList(title));
+            if (lines != null) {
+                writeEntry(out, KIND_BODY, lines);
+            }
+            if (template.hasPicture()) {
+                writeEntry(out, KIND_PICTURE, Collections.<String>emptyList());
+            }
+        }
+        report.write();
+        return report;
+    }
+
+    /**
+     * Membuka laporan yang sudah dibuat dengan {@link #create(File, String)}.
+     *
+     * @param docxFile File DOCX laporan.
+     * @return Laporan yang sudah ada.
+     * @throws IOException jika file pendamping tidak ditemukan.
+     */
+    public static BMIDocxReport open(File docxFile) throws IOException {
+        BMIDocxReport report = new BMIDocxReport(docxFile);
+        if (!report.reportFile.exists()) {
+            throw new IOException("File pendamping laporan tidak ditemukan: " + report.reportFile);
+        }
+        return report;
+    }
+
+    /**
+     * Menambahkan satu paragraf ke file DOCX. Jika file memiliki file pendamping, paragraf ditambahkan
+     * ke log lalu dokumen ditulis ulang secara streaming. Jika tidak, dokumen lama diperbarui
+     * melalui XWPFDocument.
+     *
+     * @param docxFile File DOCX yang akan diperbarui.
+     * @param lines    Baris-baris teks paragraf (dipisahkan dengan line break).
+     * @throws IOException jika file gagal dibaca atau ditulis.
+     */
+    public static void append(File docxFile, List<String> lines) throws IOException {
+        append(docxFile, lines, null);
+    }
+
+    /**
+     * Menambahkan satu paragraf ke file DOCX seperti {@link #append(File, List)} dan mengganti grafik
+     * progres di akhir laporan. Grafik diabaikan untuk file DOCX lama tanpa file pendamping.
+     *
+     * @param docxFile File DOCX yang akan diperbarui.
+     * @param lines    Baris-baris teks paragraf (dipisahkan dengan line break).
+     * @param chart    Gambar PNG grafik progres terbaru, atau null jika grafik tidak diubah.
+     * @throws IOException jika file gagal dibaca atau ditulis.
+     */
+    public static void append(File docxFile, List<String> lines, byte[] chart) throws IOException {
+        if (reportFileFor(docxFile).exists()) {
+            open(docxFile).appendParagraph(lines, chart);
+        } else {
+            appendToLegacyDocx(docxFile, lines);
+        }
+    }
+
+    /**
+     * Menambahkan paragraf isi ke laporan lalu menulis ulang file DOCX.
+     *
+     * @param lines Baris-baris teks paragraf (dipisahkan dengan line break).
+     * @throws IOException jika file gagal ditulis.
+     */
+    public void appendParagraph(List<String> lines) throws IOException {
+        appendParagraph(lines, null);
+    }
+
+    /**
+     * Menambahkan paragraf isi ke laporan, mengganti grafik progres, lalu menulis ulang file DOCX.
+     *
+     * @param lines Baris-baris teks paragraf (dipisahkan dengan line break).
+     * @param chart Gambar PNG grafik progres terbaru, atau null jika grafik tidak diubah.
+     * @throws IOException jika file gagal ditulis.
+     */
+    public void appendParagraph(List<String> lines, byte[] chart) throws IOException {
+        if (chart != null) {
+            writeChart(chart);
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(reportFile, true)))) {
+            writeEntry(out, KIND_BODY, lines);
+        }
+        write();
+    }
+
+    /**
+     * Menulis ulang file DOCX dari log paragraf. Dokumen ditulis ke file sementara terlebih dahulu,
+     * lalu menggantikan file lama, sehingga file DOCX tidak pernah tertinggal setengah jadi.
+     *
+     * @throws IOException jika file gagal ditulis.
+     */
+    public void write() throws IOException {
+        File temp = new File(docxFile.getPath() + ".tmp");
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(temp), 64 * 1024)) {
+            writeTo(out);
+        }
+        Files.move(temp.toPath(), docxFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Menulis laporan DOCX langsung ke stream tanpa file pendamping. Paragraf dibaca satu per satu
+     * dari iterable, sehingga laporan dengan banyak paragraf dapat dibuat tanpa menampung isinya.
+     *
+     * @param out        Stream tujuan.
+     * @param title      Judul laporan.
+     * @param paragraphs Paragraf isi, masing-masing berupa baris-baris teks.
+     * @throws IOException jika penulisan gagal.
+     */
+    public static void writeReport(OutputStream out, String title, Iterable<? extends List<String>> paragraphs)
+            throws IOException {
+        writeReport(out, title, paragraphs, null);
+    }
+
+    /**
+     * Menulis laporan DOCX langsung ke stream seperti {@link #writeReport(OutputStream, String, Iterable)},
+     * dengan grafik progres di akhir laporan.
+     *
+     * @param out        Stream tujuan.
+     * @param title      Judul laporan.
+     * @param paragraphs Paragraf isi, masing-masing berupa baris-baris teks.
+     * @param chart      Gambar PNG grafik progres, atau null jika laporan tanpa grafik.
+     * @throws IOException jika penulisan gagal.
+     */
+    public static void writeReport(OutputStream out, String title, Iterable<? extends List<String>> paragraphs,
+                                   byte[] chart) throws IOException {
+        BMIDocxTemplate template = BMIDocxTemplate.getDefault();
+        ZipOutputStream zip = new ZipOutputStream(out);
+        Writer xml = beginPackage(zip, template, chart);
+        writeParagraph(xml, template, KIND_TITLE, Collections.singletonList(title));
+        for (List<String> lines : paragraphs) {
+            writeParagraph(xml, template, KIND_BODY, lines);
+        }
+        endPackage(zip, xml, chart != null);
+    }
+
+    /**
+     * Menulis paket DOCX dari file pendamping ke stream tujuan.
+     *
+     * @param out Stream tujuan.
+     * @throws IOException jika penulisan gagal.
+     */
+    void writeTo(OutputStream out) throws IOException {
+        byte[] chart = chartFile.isFile() ? Files.readAllBytes(chartFile.toPath()) : null;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(reportFile)))) {
+            BMIDocxTemplate template = BMIDocxTemplate.forKey(readHeader(in));
+            ZipOutputStream zip = new ZipOutputStream(out);
+            Writer xml = beginPackage(zip, template, chart);
+            List<String> lines = new ArrayList<>();
+            byte kind;
+            while ((kind = readEntry(in, lines)) != 0) {
+                writeParagraph(xml, template, kind, lines);
+            }
+            endPackage(zip, xml, chart != null);
+        }
+    }
+
+    /**
+     * Menulis part statis dari template, lalu membuka part {@code word/document.xml}.
+     *
+     * @param zip      Paket ZIP tujuan.
+     * @param template Template laporan.
+     * @param chart    Gambar PNG grafik progres, atau null.
+     * @return Writer untuk isi {@code word/document.xml}.
+     * @throws IOException jika penulisan gagal.
+     */
+    private static Writer beginPackage(ZipOutputStream zip, BMIDocxTemplate template, byte[] chart) throws IOException {
+        template.writeParts(zip, chart);
+        zip.putNextEntry(new ZipEntry("word/document.xml"));
+        zip.write(template.getDocumentStart());
+        return new BufferedWriter(new OutputStreamWriter(zip, StandardCharsets.UTF_8), 16 * 1024);
+    }
+
+    private static void endPackage(ZipOutputStream zip, Writer xml, boolean chart) throws IOException {
+        if (chart) {
+            xml.write(CHART_PARAGRAPH);
+        }
+        xml.write("</w:body></w:document>");
+        xml.flush();
+        zip.closeEntry();
+        zip.finish();
+    }
+
+    /**
+     * Mendapatkan file pendamping untuk file DOCX tertentu.
+     *
+     * @param docxFile File DOCX laporan.
+     * @return File pendamping berisi log paragraf.
+     */
+    static File reportFileFor(File docxFile) {
+        return new File(docxFile.getPath() + REPORT_SUFFIX);
+    }
+
+    /**
+     * Menyimpan grafik progres ke file pendamping secara atomik.
+     */
+    private void writeChart(byte[] chart) throws IOException {
+        File temp = new File(chartFile.getPath() + ".tmp");
+        Files.write(temp.toPath(), chart);
+        Files.move(temp.toPath(), chartFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void writeParagraph(Writer xml, BMIDocxTemplate template, byte kind, List<String> lines)
+            throws IOException {
+        if (kind == KIND_PICTURE) {
+            String picture = template.getPictureParagraph();
+            if (picture != null) { // Gambar template bisa hilang setelah laporan dibuat
+                xml.write(picture);
+            }
+        } else if (kind == KIND_TITLE) {
+            xml.write(TITLE_START);
+            for (int i = 0; i < lines.size(); i++) {
+                if (i > 0) {
+                    xml.write("<w:br/>");
+                }
+                writeText(xml, lines.get(i));
+            }
+            xml.write("</w:r></w:p>");
+        } else {
+            xml.write("<w:p><w:r>");
+            for (String line : lines) {
+                writeText(xml, line);
+                xml.write("<w:br/>");
+            }
+            xml.write("</w:r></w:p>");
+        }
+    }
+
+    private static void writeText(Writer xml, String text) throws IOException {
+        xml.write("<w:t xml:space=\"preserve\">");
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '<':
+                    xml.write("&lt;");
+                    break;
+                case '>':
+                    xml.write("&gt;");
+                    break;
+                case '&':
+                    xml.write("&amp;");
+                    break;
+                case '"':
+                    xml.write("&quot;");
+                    break;
+                default:
+                    xml.write(c);
+            }
+        }
+        xml.write("</w:t>");
+    }
+
+    private static void writeEntry(DataOutputStream out, byte kind, List<String> lines) throws IOException {
+        out.writeByte(kind);
+        out.writeShort(lines.size());
+        for (String line : lines) {
+            out.writeUTF(line);
+        }
+    }
+
+    /**
+     * Membaca header file pendamping.
+     *
+     * @return Kunci template laporan (string kosong untuk file versi 1).
+     */
+    private String readHeader(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Format file pendamping laporan tidak dikenal: " + reportFile);
+        }
+        int version = in.readInt();
+        if (version == 1) {
+            return "";
+        } else if (version != VERSION) {
+            throw new IOException("Format file pendamping laporan tidak dikenal: " + reportFile);
+        }
+        return in.readUTF();
+    }
+
+    /**
+     * Membaca satu entri paragraf. Entri terakhir yang tidak lengkap diabaikan.
+     *
+     * @return Jenis paragraf, atau 0 jika sudah tidak ada entri.
+     */
+    private static byte readEntry(DataInputStream in, List<String> lines) throws IOException {
+        lines.clear();
+        try {
+            byte kind = in.readByte();
+            int count = in.readUnsignedShort();
+            for (int i = 0; i < count; i++) {
+                lines.add(in.readUTF());
+            }
+            return kind;
+        } catch (EOFException e) {
+            return 0;
+        }
+    }
+
+    private static void appendToLegacyDocx(File docxFile, List<String> lines) throws IOException {
+        File temp = new File(docxFile.getPath() + ".tmp");
+        try (InputStream in = new FileInputStream(docxFile);
+             XWPFDocument document = new XWPFDocument(in)) {
+            XWPFParagraph paragraph = document.createParagraph();
+            XWPFRun run = paragraph.createRun();
+            for (String line : lines) {
+                run.setText(line);
+                run.addBreak();
+            }
+            try (OutputStream out = new FileOutputStream(temp)) {
+                document.write(out);
+            }
+        }
+        Files.move(temp.toPath(), docxFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+}
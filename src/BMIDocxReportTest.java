@@ -0,0 +1,143 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Class BMIDocxReportTest digunakan untuk menguji pembuatan laporan DOCX secara streaming.
+ */
+public class BMIDocxReportTest {
+
+    /**
+     * Metode ini menguji bahwa judul dan paragraf yang ditambahkan tersimpan di document.xml.
+     */
+    @Test
+    public void testAppendParagraphs() throws IOException {
+        File directory = Files.createTempDirectory("bmi-report").toFile();
+        File docx = new File(directory, "laporan.docx");
+
+        BMIDocxReport report = BMIDocxReport.create(docx, "Rekomendasi BMI");
+        report.appendParagraph(Arrays.asList("Tanggal: 2024-12-23", "BMI: 24.22"));
+        BMIDocxReport.append(docx, Arrays.asList("Pesan: Diet & olahraga <teratur>"));
+
+        try (ZipFile zip = new ZipFile(docx)) {
+            assertNotNull(zip.getEntry("[Content_Types].xml"), "Content types tidak ditemukan.");
+            assertNotNull(zip.getEntry("_rels/.rels"), "Relasi paket tidak ditemukan.");
+            String document = read(zip, zip.getEntry("word/document.xml"));
+            assertTrue(document.contains("Rekomendasi BMI"), "Judul tidak ditemukan.");
+            assertTrue(document.contains("BMI: 24.22"), "Paragraf pertama tidak ditemukan.");
+            assertTrue(document.contains("Diet &amp; olahraga &lt;teratur&gt;"), "Teks tidak di-escape dengan benar.");
+            assertEquals(3, document.split("<w:p>", -1).length - 1, "Jumlah paragraf tidak sesuai.");
+        }
+        assertFalse(new File(directory, "laporan.docx.tmp").exists(), "File sementara seharusnya sudah dipindahkan.");
+    }
+
+    /**
+     * Metode ini menguji laporan dari template bergambar: gambar ditulis tanpa kompresi ulang,
+     * diletakkan di bawah paragraf pertama, dan tetap ada setelah laporan diperbarui.
+     */
+    @Test
+    public void testTemplateWithPicture() throws IOException {
+        File directory = Files.createTempDirectory("bmi-report").toFile();
+        File image = new File(directory, "gambar diet.jpg");
+        byte[] picture = new byte[4096];
+        for (int i = 0; i < picture.length; i++) {
+            picture[i] = (byte) (i * 31);
+        }
+        Files.write(image.toPath(), picture);
+
+        BMIDocxTemplate template = BMIDocxTemplate.forImage(image);
+        assertTrue(template.hasPicture(), "Template seharusnya memiliki gambar.");
+        assertSame(template, BMIDocxTemplate.forImage(image), "Template seharusnya diambil dari cache.");
+
+        File docx = new File(directory, "laporan.docx");
+        BMIDocxReport.create(docx, "Rekomendasi BMI", template, Arrays.asList("BMI: 27.68", "Rekomendasi: Diet"));
+        BMIDocxReport.append(docx, Arrays.asList("Pesan: Progres diet berhasil."));
+
+        try (ZipFile zip = new ZipFile(docx)) {
+            ZipEntry media = zip.getEntry("word/media/image1.jpeg");
+            assertNotNull(media, "Gambar tidak ditemukan di paket.");
+            assertEquals(ZipEntry.STORED, media.getMethod(), "Gambar seharusnya tidak dikompresi ulang.");
+            assertEquals(picture.length, media.getSize(), "Ukuran gambar tidak sesuai.");
+            assertNotNull(zip.getEntry("word/styles.xml"), "Gaya dokumen tidak ditemukan.");
+            assertTrue(read(zip, zip.getEntry("[Content_Types].xml")).contains("image/jpeg"), "Content type gambar tidak ditemukan.");
+            assertTrue(read(zip, zip.getEntry("word/_rels/document.xml.rels")).contains("media/image1.jpeg"),
+                    "Relasi gambar tidak ditemukan.");
+
+            String document = read(zip, zip.getEntry("word/document.xml"));
+            int paragraph = document.indexOf("Rekomendasi: Diet");
+            int drawing = document.indexOf("<w:drawing>");
+            int update = document.indexOf("Progres diet berhasil");
+            assertTrue(paragraph < drawing && drawing < update, "Gambar seharusnya berada di bawah paragraf pertama.");
+            assertEquals(document.indexOf("<w:drawing>"), document.lastIndexOf("<w:drawing>"), "Gambar seharusnya hanya satu.");
+        }
+        BMIDocxTemplate.clearCache();
+    }
+
+    /**
+     * Metode ini menguji bahwa laporan tanpa gambar tidak menyertakan part gambar.
+     */
+    @Test
+    public void testTemplateWithoutPicture() throws IOException {
+        File directory = Files.createTempDirectory("bmi-report").toFile();
+        File docx = new File(directory, "laporan.docx");
+        assertSame(BMIDocxTemplate.getDefault(), BMIDocxTemplate.forImage(new File(directory, "tidak ada.jpg")),
+                "Gambar yang tidak ada seharusnya memakai template bawaan.");
+        assertSame(BMIDocxTemplate.getDefault(), BMIDocxTemplate.forCategory(BMICategory.IDEAL),
+                "Laporan Ideal seharusnya tidak memiliki gambar.");
+
+        BMIDocxReport.create(docx, "Rekomendasi BMI", BMIDocxTemplate.getDefault(), Arrays.asList("BMI: 22.00"));
+        try (ZipFile zip = new ZipFile(docx)) {
+            assertNull(zip.getEntry("word/media/image1.jpeg"), "Laporan tanpa gambar tidak boleh berisi gambar.");
+            String document = read(zip, zip.getEntry("word/document.xml"));
+            assertFalse(document.contains("<w:drawing>"), "Laporan tanpa gambar tidak boleh berisi paragraf gambar.");
+            assertEquals(2, document.split("<w:p>", -1).length - 1, "Jumlah paragraf tidak sesuai.");
+        }
+        assertThrows(IllegalArgumentException.class, () -> BMIDocxTemplate.forImage(new File(directory, "gambar.gif")));
+    }
+
+    /**
+     * Metode ini menguji bahwa grafik progres disisipkan di akhir laporan dan tetap ada setelah laporan diperbarui.
+     */
+    @Test
+    public void testChart() throws IOException {
+        File directory = Files.createTempDirectory("bmi-report").toFile();
+        File docx = new File(directory, "laporan.docx");
+        byte[] chart = new BMIChartRenderer().render(Arrays.asList(BMIRecord.calculate(170, 80), BMIRecord.calculate(170, 78)));
+
+        BMIDocxReport.create(docx, "Rekomendasi BMI", BMIDocxTemplate.getDefault(), Arrays.asList("BMI: 27.68"), chart);
+        BMIDocxReport.append(docx, Arrays.asList("BMI: 26.99"));
+
+        try (ZipFile zip = new ZipFile(docx)) {
+            ZipEntry media = zip.getEntry("word/media/chart.png");
+            assertNotNull(media, "Grafik tidak ditemukan di paket.");
+            assertEquals(chart.length, media.getSize(), "Ukuran grafik tidak sesuai.");
+            assertTrue(read(zip, zip.getEntry("word/_rels/document.xml.rels")).contains("media/chart.png"),
+                    "Relasi grafik tidak ditemukan.");
+            String document = read(zip, zip.getEntry("word/document.xml"));
+            assertTrue(document.indexOf("BMI: 26.99") < document.indexOf("r:embed=\"rId4\""),
+                    "Grafik seharusnya berada di akhir laporan.");
+        }
+    }
+
+    private static String read(ZipFile zip, ZipEntry entry) throws IOException {
+        try (InputStream in = zip.getInputStream(entry)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                out.write(buffer, 0, read);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,312 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Class Program.BMIDocxTemplate adalah template laporan DOCX yang disiapkan sekali lalu dipakai ulang
+ * untuk setiap laporan.
+ * <p>
+ * Part yang sama untuk semua laporan ({@code [Content_Types].xml}, relasi, {@code styles.xml} dengan gaya
+ * judul, {@code settings.xml}, dan gambar rekomendasi) dibuat sekali, disimpan di memori beserta CRC-nya,
+ * lalu ditulis ke paket ZIP tanpa dikompresi ulang (metode STORED). Untuk setiap laporan hanya isi
+ * {@code word/document.xml} dan gambar grafik progres (jika ada) yang ditulis. Template dengan gambar
+ * di-cache per file gambar, sehingga gambar "gambar diet.jpg" dan "gambar nambah BB.jpg" hanya dibaca sekali.
+ */
+public final class BMIDocxTemplate {
+    static final String DIET_IMAGE = "gambar diet.jpg";          // Gambar untuk laporan Diet
+    static final String BULKING_IMAGE = "gambar nambah BB.jpg";  // Gambar untuk laporan Bulking
+    static final String TITLE_STYLE = "Judul";                   // Id gaya paragraf judul
+    private static final int PICTURE_SIZE_EMU = 2540000;         // 200 x 200 piksel, sama dengan laporan lama
+    private static final int CHART_WIDTH_EMU = 5486400;          // Lebar grafik progres di halaman (6 inci)
+    private static final String CHART_PART = "word/media/chart.png"; // Part gambar grafik progres
+    private static final int DOCUMENT_RELATIONSHIPS = 2;         // Indeks part relasi dokumen
+    private static final Logger LOGGER = Logger.getLogger(BMIDocxTemplate.class.getName());
+
+    private static final String XML_HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n";
+    private static final String PACKAGE_RELATIONSHIPS = XML_HEADER
+            + "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">"
+            + "<Relationship Id=\"rId1\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/officeDocument\" Target=\"word/document.xml\"/>"
+            + "</Relationships>";
+    private static final String STYLES = XML_HEADER
+            + "<w:styles xmlns:w=\"http://schemas.openxmlformats.org/wordprocessingml/2006/main\">"
+            + "<w:style w:type=\"paragraph\" w:default=\"1\" w:styleId=\"Normal\"><w:name w:val=\"Normal\"/></w:style>"
+            + "<w:style w:type=\"paragraph\" w:styleId=\"" + TITLE_STYLE + "\"><w:name w:val=\"Title\"/>"
+            + "<w:basedOn w:val=\"Normal\"/><w:next w:val=\"Normal\"/><w:pPr><w:jc w:val=\"center\"/></w:pPr>"
+            + "<w:rPr><w:b/><w:sz w:val=\"32\"/></w:rPr></w:style>"
+            + "</w:styles>";
+    private static final String SETTINGS = XML_HEADER
+            + "<w:settings xmlns:w=\"http://schemas.openxmlformats.org/wordprocessingml/2006/main\"/>";
+    private static final byte[] DOCUMENT_START = (XML_HEADER
+            + "<w:document xmlns:w=\"http://schemas.openxmlformats.org/wordprocessingml/2006/main\""
+            + " xmlns:r=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships\""
+            + " xmlns:wp=\"http://schemas.openxmlformats.org/drawingml/2006/wordprocessingDrawing\""
+            + " xmlns:a=\"http://schemas.openxmlformats.org/drawingml/2006/main\""
+            + " xmlns:pic=\"http://schemas.openxmlformats.org/drawingml/2006/picture\"><w:body>")
+            .getBytes(StandardCharsets.UTF_8);
+
+    private static final BMIDocxTemplate DEFAULT = new BMIDocxTemplate("", null, null, null);
+    private static final Map<String, BMIDocxTemplate> CACHE = new ConcurrentHashMap<>(); // Template per file gambar
+
+    private final String key;                // Kunci template: path gambar, atau "" untuk template tanpa gambar
+    private final ZipEntry[] entries;        // Entry STORED yang sudah berisi ukuran dan CRC
+    private final byte[][] contents;         // Isi setiap part statis
+    private final String pictureParagraph;   // Paragraf gambar di document.xml, atau null jika tanpa gambar
+    private final ZipEntry chartRelationshipsEntry; // Relasi dokumen jika laporan memiliki grafik progres
+    private final byte[] chartRelationships;        // Isi relasi dokumen dengan grafik progres
+
+    private BMIDocxTemplate(String key, byte[] picture, String pictureExtension, String description) {
+        this.key = key;
+        String media = picture != null ? "media/image1." + pictureExtension : null;
+
+        StringBuilder contentTypes = new StringBuilder(XML_HEADER)
+                .append("<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">")
+                .append("<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>")
+                .append("<Default Extension=\"xml\" ContentType=\"application/xml\"/>");
+        if (picture != null && !pictureExtension.equals("png")) {
+            contentTypes.append("<Default Extension=\"").append(pictureExtension).append("\" ContentType=\"")
+                    .append(contentType(pictureExtension)).append("\"/>");
+        }
+        contentTypes.append("<Default Extension=\"png\" ContentType=\"image/png\"/>"); // Grafik progres
+        contentTypes.append("<Override PartName=\"/word/document.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.wordprocessingml.document.main+xml\"/>")
+                .append("<Override PartName=\"/word/styles.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.wordprocessingml.styles+xml\"/>")
+                .append("<Override PartName=\"/word/settings.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.wordprocessingml.settings+xml\"/>")
+                .append("</Types>");
+
+        StringBuilder documentRelationships = new StringBuilder(XML_HEADER)
+                .append("<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">")
+                .append("<Relationship Id=\"rId1\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/styles\" Target=\"styles.xml\"/>")
+                .append("<Relationship Id=\"rId2\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/settings\" Target=\"settings.xml\"/>");
+        if (picture != null) {
+            documentRelationships.append("<Relationship Id=\"rId3\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/image\" Target=\"")
+                    .append(media).append("\"/>");
+        }
+        String withoutChart = documentRelationships.toString();
+        documentRelationships.append("<Relationship Id=\"rId4\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/image\" Target=\"")
+                .append(CHART_PART.substring("word/".length())).append("\"/></Relationships>");
+
+        int count = picture != null ? 6 : 5;
+        entries = new ZipEntry[count];
+        contents = new byte[count][];
+        addPart(0, "[Content_Types].xml", utf8(contentTypes.toString()));
+        addPart(1, "_rels/.rels", utf8(PACKAGE_RELATIONSHIPS));
+        addPart(DOCUMENT_RELATIONSHIPS, "word/_rels/document.xml.rels", utf8(withoutChart + "</Relationships>"));
+        addPart(3, "word/styles.xml", utf8(STYLES));
+        addPart(4, "word/settings.xml", utf8(SETTINGS));
+        if (picture != null) {
+            addPart(5, "word/" + media, picture);
+            pictureParagraph = drawingParagraph(1, description, "rId3", PICTURE_SIZE_EMU, PICTURE_SIZE_EMU);
+        } else {
+            pictureParagraph = null;
+        }
+        chartRelationships = utf8(documentRelationships.toString());
+        chartRelationshipsEntry = storedEntry("word/_rels/document.xml.rels", chartRelationships);
+    }
+
+    /**
+     * Mendapatkan template tanpa gambar.
+     *
+     * @return Template bawaan.
+     */
+    public static BMIDocxTemplate getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Mendapatkan template untuk kategori BMI. Laporan Diet dan Bulking menyertakan gambar rekomendasinya
+     * dari folder kerja, laporan Ideal tidak memiliki gambar.
+     *
+     * @param category Kategori BMI (boleh null).
+     * @return Template yang sesuai, atau template bawaan jika gambar tidak ditemukan.
+     */
+    public static BMIDocxTemplate forCategory(BMICategory category) {
+        if (category == BMICategory.DIET) {
+            return forImage(new File(DIET_IMAGE));
+        } else if (category == BMICategory.BULKING) {
+            return forImage(new File(BULKING_IMAGE));
+        }
+        return DEFAULT;
+    }
+
+    /**
+     * Mendapatkan template dengan gambar tertentu. Gambar dibaca sekali, selanjutnya template diambil dari cache.
+     *
+     * @param image File gambar JPEG atau PNG.
+     * @return Template dengan gambar, atau template bawaan jika gambar tidak ditemukan atau gagal dibaca.
+     * @throws IllegalArgumentException jika format gambar tidak didukung.
+     */
+    public static BMIDocxTemplate forImage(File image) {
+        String key = image.getPath();
+        BMIDocxTemplate template = CACHE.get(key);
+        if (template != null) {
+            return template;
+        }
+        String extension = extensionOf(image);
+        contentType(extension); // Validasi format sebelum membaca file
+        if (!image.isFile()) {
+            LOGGER.log(Level.WARNING, "Gambar laporan tidak ditemukan: {0}", image);
+            return DEFAULT; // Tidak di-cache agar gambar yang ditambahkan kemudian tetap terbaca
+        }
+        try {
+            byte[] picture = Files.readAllBytes(image.toPath());
+            template = new BMIDocxTemplate(key, picture, extension, descriptionOf(image));
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Gambar laporan gagal dibaca: " + image, e);
+            return DEFAULT;
+        }
+        BMIDocxTemplate existing = CACHE.putIfAbsent(key, template);
+        return existing != null ? existing : template;
+    }
+
+    /**
+     * Mendapatkan template berdasarkan kunci yang tersimpan di file pendamping laporan.
+     *
+     * @param key Kunci template dari {@link #getKey()}.
+     * @return Template yang sesuai.
+     */
+    static BMIDocxTemplate forKey(String key) {
+        return key.isEmpty() ? DEFAULT : forImage(new File(key));
+    }
+
+    /**
+     * Menghapus semua template dari cache, misalnya setelah file gambar diganti.
+     */
+    public static void clearCache() {
+        CACHE.clear();
+    }
+
+    /**
+     * Mendapatkan kunci template yang disimpan di file pendamping laporan.
+     *
+     * @return Path gambar, atau string kosong untuk template tanpa gambar.
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * @return true jika template memiliki gambar.
+     */
+    public boolean hasPicture() {
+        return pictureParagraph != null;
+    }
+
+    /**
+     * Menulis semua part statis ke paket ZIP tanpa kompresi ulang.
+     *
+     * @param zip   Paket ZIP tujuan.
+     * @param chart Gambar PNG grafik progres, atau null jika laporan tidak memiliki grafik.
+     * @throws IOException jika penulisan gagal.
+     */
+    void writeParts(ZipOutputStream zip, byte[] chart) throws IOException {
+        for (int i = 0; i < entries.length; i++) {
+            if (i == DOCUMENT_RELATIONSHIPS && chart != null) {
+                writeEntry(zip, chartRelationshipsEntry, chartRelationships);
+            } else {
+                writeEntry(zip, entries[i], contents[i]);
+            }
+        }
+        if (chart != null) {
+            writeEntry(zip, storedEntry(CHART_PART, chart), chart);
+        }
+    }
+
+    /**
+     * Membuat paragraf grafik progres untuk document.xml. Grafik mengacu ke part yang ditulis oleh
+     * {@link #writeParts(ZipOutputStream, byte[])}.
+     *
+     * @param widthPixels  Lebar gambar grafik (piksel).
+     * @param heightPixels Tinggi gambar grafik (piksel).
+     * @return Paragraf berisi grafik.
+     */
+    static String chartParagraph(int widthPixels, int heightPixels) {
+        long height = (long) CHART_WIDTH_EMU * heightPixels / widthPixels;
+        return drawingParagraph(2, "Grafik progres", "rId4", CHART_WIDTH_EMU, height);
+    }
+
+    /**
+     * @return Awal {@code word/document.xml} sampai tag {@code <w:body>}.
+     */
+    byte[] getDocumentStart() {
+        return DOCUMENT_START;
+    }
+
+    /**
+     * @return Paragraf berisi gambar, atau null jika template tidak memiliki gambar.
+     */
+    String getPictureParagraph() {
+        return pictureParagraph;
+    }
+
+    private void addPart(int index, String name, byte[] content) {
+        entries[index] = storedEntry(name, content);
+        contents[index] = content;
+    }
+
+    private static ZipEntry storedEntry(String name, byte[] content) {
+        CRC32 crc = new CRC32();
+        crc.update(content);
+        ZipEntry entry = new ZipEntry(name);
+        entry.setMethod(ZipEntry.STORED);
+        entry.setSize(content.length);
+        entry.setCompressedSize(content.length);
+        entry.setCrc(crc.getValue());
+        return entry;
+    }
+
+    private static void writeEntry(ZipOutputStream zip, ZipEntry entry, byte[] content) throws IOException {
+        zip.putNextEntry(new ZipEntry(entry)); // Salinan, karena ZipOutputStream mengubah entry
+        zip.write(content);
+        zip.closeEntry();
+    }
+
+    private static String drawingParagraph(int id, String description, String relationship, long width, long height) {
+        String size = "cx=\"" + width + "\" cy=\"" + height + "\"";
+        String name = "Picture " + id;
+        return "<w:p><w:r><w:drawing><wp:inline distT=\"0\" distB=\"0\" distL=\"0\" distR=\"0\">"
+                + "<wp:extent " + size + "/><wp:docPr id=\"" + id + "\" name=\"" + name + "\" descr=\"" + description + "\"/>"
+                + "<a:graphic><a:graphicData uri=\"http://schemas.openxmlformats.org/drawingml/2006/picture\">"
+                + "<pic:pic><pic:nvPicPr><pic:cNvPr id=\"" + id + "\" name=\"" + name + "\" descr=\"" + description + "\"/>"
+                + "<pic:cNvPicPr><a:picLocks noChangeAspect=\"1\"/></pic:cNvPicPr></pic:nvPicPr>"
+                + "<pic:blipFill><a:blip r:embed=\"" + relationship + "\"/><a:stretch><a:fillRect/></a:stretch></pic:blipFill>"
+                + "<pic:spPr><a:xfrm><a:off x=\"0\" y=\"0\"/><a:ext " + size + "/></a:xfrm>"
+                + "<a:prstGeom prst=\"rect\"><a:avLst/></a:prstGeom></pic:spPr></pic:pic>"
+                + "</a:graphicData></a:graphic></wp:inline></w:drawing></w:r></w:p>";
+    }
+
+    private static String extensionOf(File image) {
+        String name = image.getName();
+        int dot = name.lastIndexOf('.');
+        String extension = dot >= 0 ? name.substring(dot + 1).toLowerCase() : "";
+        return extension.equals("jpg") ? "jpeg" : extension;
+    }
+
+    private static String contentType(String extension) {
+        if (extension.equals("jpeg")) {
+            return "image/jpeg";
+        } else if (extension.equals("png")) {
+            return "image/png";
+        }
+        throw new IllegalArgumentException("Format gambar tidak didukung: " + extension + ". Gunakan JPEG atau PNG.");
+    }
+
+    /**
+     * Membuat deskripsi gambar dari nama file tanpa ekstensi, karakter XML khusus dibuang.
+     */
+    private static String descriptionOf(File image) {
+        String name = image.getName();
+        int dot = name.lastIndexOf('.');
+        return (dot >= 0 ? name.substring(0, dot) : name).replaceAll("[<>&\"]", "");
+    }
+
+    private static byte[] utf8(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
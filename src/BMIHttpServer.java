@@ -0,0 +1,503 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Class Program.BMIHttpServer menyediakan operasi Program.BMIRecordsService melalui HTTP/JSON lokal
+ * menggunakan HttpServer bawaan JDK.
+ * <p>
+ * Endpoint (semua berada di bawah {@code /users/{userId}}):
+ * <ul>
+ *     <li>{@code POST /records} dengan body {@code {"height": 170, "weight": 65}} menambah data,</li>
+ *     <li>{@code GET /records?from=&to=&offset=&limit=} mengembalikan data (JSON di-stream per halaman),</li>
+ *     <li>{@code DELETE /records/{index}} menghapus data,</li>
+ *     <li>{@code GET /progress} mengembalikan statistik dan pesan progres,</li>
+ *     <li>{@code GET /chart} mengembalikan grafik progres PNG,</li>
+ *     <li>{@code GET /report} mengembalikan laporan progres DOCX beserta grafiknya.</li>
+ * </ul>
+ * Metrik operasi (Program.BMIMetrics) tersedia dalam format teks Prometheus di {@code GET /metrics}.
+ * Setiap request dijalankan di virtual thread tersendiri jika JVM mendukungnya (Java 21 ke atas),
+ * atau di thread pool jika tidak.
+ */
+public class BMIHttpServer implements Closeable {
+    static final int DEFAULT_PORT = 8080;   // Port bawaan
+    private static final int PAGE_SIZE = 1000; // Jumlah data yang disalin per halaman saat streaming
+    private static final String JSON = "application/json; charset=utf-8";
+    private static final String TEXT = "text/plain; version=0.0.4; charset=utf-8";
+    private static final Logger LOGGER = Logger.getLogger(BMIHttpServer.class.getName());
+    private static final String DOCX = "application/vnd.openxmlformats-officedocument.wordprocessingml.document";
+    private static final String PNG = "image/png";
+
+    static {
+        // Tanpa TCP_NODELAY, header dan body yang ditulis terpisah tertahan algoritma Nagle (~40 ms per request)
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final BMIRecordsService service; // Sumber data
+    private final HttpServer server;         // Server HTTP bawaan JDK
+    private final ExecutorService executor;  // Executor untuk menjalankan request
+    private final BMIMetrics metrics = BMIMetrics.getDefault(); // Metrik request
+    private final BMIChartRenderer charts = new BMIChartRenderer(); // Grafik progres per pengguna, di-cache per versi data
+
+    /**
+     * Constructor untuk membuat server pada alamat tertentu. Server belum menerima request
+     * sampai {@link #start()} dipanggil.
+     *
+     * @param service Layanan data BMI.
+     * @param address Alamat dan port server (port 0 untuk port acak).
+     * @throws IOException jika port tidak dapat dibuka.
+     */
+    public BMIHttpServer(BMIRecordsService service, InetSocketAddress address) throws IOException {
+        this.service = service;
+        this.server = HttpServer.create(address, 1024);
+        this.executor = newRequestExecutor();
+        server.setExecutor(executor);
+        server.createContext("/users/", this::handle);
+        server.createContext("/metrics", this::sendMetrics);
+    }
+
+    /**
+     * Main method untuk menjalankan server.
+     * <p>
+     * Penggunaan: {@code java BMIHttpServer [port] [folderData]} (bawaan 8080 dan folder "data").
+     *
+     * @param args Port dan folder data (opsional).
+     * @throws IOException jika server tidak dapat dijalankan.
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        File directory = new File(args.length > 1 ? args[1] : "data");
+        BMIRecordsService service = new BMIRecordsService(directory);
+        BMIHttpServer server = new BMIHttpServer(service, new InetSocketAddress("127.0.0.1", port));
+        BMIMetrics.getDefault().registerMBean();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                server.close();
+                service.close();
+            } catch (IOException e) {
+                LOGGER.log(Level.SEVERE, "Data BMI gagal disimpan saat server berhenti", e);
+            }
+        }, "bmi-http-shutdown"));
+        server.start();
+        System.out.println("BMI Tracker API berjalan di http://127.0.0.1:" + server.getPort() + "/users/{userId}/records");
+    }
+
+    /**
+     * Mulai menerima request.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Mengembalikan port yang digunakan server.
+     *
+     * @return Nomor port.
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Menghentikan server dan menunggu request yang sedang berjalan selesai (maksimal 5 detik).
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Membuat executor virtual-thread-per-request melalui reflection (tersedia sejak Java 21),
+     * karena proyek ini masih dikompilasi untuk versi Java yang lebih lama. Jika tidak tersedia,
+     * thread pool biasa digunakan.
+     *
+     * @return Executor untuk request HTTP.
+     */
+    static ExecutorService newRequestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(Math.max(16, Runtime.getRuntime().availableProcessors() * 4));
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String[] path = exchange.getRequestURI().getRawPath().substring(1).split("/");
+        String method = exchange.getRequestMethod();
+        String resource = path.length >= 3 ? path[2] : "";
+        boolean known = ("records".equals(resource) || "progress".equals(resource) || "report".equals(resource)
+                || "chart".equals(resource))
+                && ("GET".equals(method) || "POST".equals(method) || "DELETE".equals(method)); // Batasi nama metrik
+        BMIMetrics.Timer timer = metrics.start(known ? "http " + method + " " + resource : "http lainnya");
+        try {
+            if (path.length < 3) {
+                sendError(exchange, 404, "Endpoint tidak ditemukan.");
+                timer.stop();
+                return;
+            }
+            String userId = URLDecoder.decode(path[1], "UTF-8");
+            if ("records".equals(resource) && path.length == 3 && "POST".equals(method)) {
+                addRecord(exchange, userId);
+            } else if ("records".equals(resource) && path.length == 3 && "GET".equals(method)) {
+                listRecords(exchange, userId);
+            } else if ("records".equals(resource) && path.length == 4 && "DELETE".equals(method)) {
+                service.deleteRecord(userId, Integer.parseInt(path[3]));
+                sendJson(exchange, 200, "{\"deleted\":" + Integer.parseInt(path[3]) + "}");
+            } else if ("progress".equals(resource) && path.length == 3 && "GET".equals(method)) {
+                progress(exchange, userId);
+            } else if ("report".equals(resource) && path.length == 3 && "GET".equals(method)) {
+                report(exchange, userId);
+            } else if ("chart".equals(resource) && path.length == 3 && "GET".equals(method)) {
+                chart(exchange, userId);
+            } else {
+                sendError(exchange, 404, "Endpoint tidak ditemukan.");
+            }
+            timer.stop();
+        } catch (IndexOutOfBoundsException e) {
+            timer.stop(); // Kesalahan request, bukan kesalahan server
+            sendError(exchange, 404, e.getMessage());
+        } catch (IllegalArgumentException e) { // Termasuk NumberFormatException
+            timer.stop();
+            sendError(exchange, 400, e.getMessage());
+        } catch (IOException e) {
+            timer.fail(e);
+            throw e;
+        } catch (RuntimeException e) {
+            timer.fail(e);
+            LOGGER.log(Level.SEVERE, "Request " + method + " " + exchange.getRequestURI() + " gagal", e);
+            sendError(exchange, 500, "Terjadi kesalahan pada server.");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void sendMetrics(HttpExchange exchange) throws IOException {
+        try {
+            byte[] bytes = metrics.getText().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", TEXT);
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void addRecord(HttpExchange exchange, String userId) throws IOException {
+        Map<String, String> body = parseObject(readBody(exchange.getRequestBody()));
+        String height = body.get("height");
+        String weight = body.get("weight");
+        if (height == null || weight == null) {
+            throw new IllegalArgumentException("Field height dan weight wajib diisi.");
+        }
+        BMIRecord record = BMIRecord.calculate(Double.parseDouble(height), Double.parseDouble(weight));
+        service.addRecord(userId, record);
+        StringBuilder json = new StringBuilder(160);
+        appendRecord(json, record);
+        sendJson(exchange, 201, json.toString());
+    }
+
+    /**
+     * Mengirim data dalam rentang waktu sebagai array JSON. Data disalin dari layanan per halaman
+     * sehingga kunci partisi tidak ditahan selama response dikirim dan memori tetap kecil.
+     */
+    private void listRecords(HttpExchange exchange, String userId) throws IOException {
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        long from = query.containsKey("from") ? Long.parseLong(query.get("from")) : Long.MIN_VALUE;
+        long to = query.containsKey("to") ? Long.parseLong(query.get("to")) : Long.MAX_VALUE;
+        int offset = query.containsKey("offset") ? Integer.parseInt(query.get("offset")) : 0;
+        int limit = query.containsKey("limit") ? Integer.parseInt(query.get("limit")) : Integer.MAX_VALUE;
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("Offset dan limit tidak boleh negatif.");
+        }
+        List<BMIRecord> page = service.getRecords(userId, from, to, offset, Math.min(limit, PAGE_SIZE));
+
+        exchange.getResponseHeaders().set("Content-Type", JSON);
+        exchange.sendResponseHeaders(200, 0); // Chunked
+        try (Writer writer = new OutputStreamWriter(new BufferedOutputStream(exchange.getResponseBody(), 16 * 1024),
+                StandardCharsets.UTF_8)) {
+            StringBuilder json = new StringBuilder(PAGE_SIZE * 160);
+            json.append('[');
+            long sent = 0;
+            boolean first = true;
+            while (!page.isEmpty()) {
+                for (BMIRecord record : page) {
+                    if (!first) {
+                        json.append(',');
+                    }
+                    first = false;
+                    appendRecord(json, record);
+                }
+                writer.append(json);
+                json.setLength(0);
+                sent += page.size();
+                if (page.size() < PAGE_SIZE || sent >= limit) {
+                    break;
+                }
+                page = service.getRecords(userId, from, to, (int) Math.min(Integer.MAX_VALUE, offset + sent),
+                        (int) Math.min(PAGE_SIZE, limit - sent));
+            }
+            writer.append(json).append(']');
+        }
+    }
+
+    private void progress(HttpExchange exchange, String userId) throws IOException {
+        BMIStatistics statistics = service.getStatistics(userId);
+        int total = service.getTotalRecords(userId);
+        List<BMIRecord> latest = service.getRecords(userId, Long.MIN_VALUE, Long.MAX_VALUE, Math.max(0, total - 2), 2);
+        String message = latest.isEmpty() ? "Belum ada data."
+                : latest.get(latest.size() - 1).compareProgress(latest.size() > 1 ? latest.get(0) : null);
+
+        StringBuilder json = new StringBuilder(512);
+        json.append("{\"count\":").append(statistics.getCount());
+        appendNumber(json.append(",\"meanWeight\":"), statistics.getMeanWeight());
+        appendNumber(json.append(",\"meanBmi\":"), statistics.getMeanBmi());
+        appendNumber(json.append(",\"minWeight\":"), statistics.getMinWeight());
+        appendNumber(json.append(",\"maxWeight\":"), statistics.getMaxWeight());
+        appendNumber(json.append(",\"weightEma\":"), statistics.getWeightEma());
+        appendNumber(json.append(",\"bmiEma\":"), statistics.getBmiEma());
+        appendNumber(json.append(",\"weightChangePerWeek\":"), statistics.getWeightChangePerWeek());
+        appendString(json.append(",\"trend\":"), statistics.describeTrend());
+        appendString(json.append(",\"message\":"), message);
+        json.append('}');
+        sendJson(exchange, 200, json.toString());
+    }
+
+    private void report(HttpExchange exchange, String userId) throws IOException {
+        long version = service.getVersion(userId); // Dibaca sebelum riwayat disalin
+        List<BMIRecord> records = service.getAllRecords(userId);
+        byte[] chart = records.isEmpty() ? null : charts.getChart(userId, version, () -> records);
+        exchange.getResponseHeaders().set("Content-Type", DOCX);
+        exchange.getResponseHeaders().set("Content-Disposition", "attachment; filename=\"" + userId + ".docx\"");
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream out = new BufferedOutputStream(exchange.getResponseBody(), 64 * 1024)) {
+            BMIDocxReport.writeReport(out, BMIBatchReportGenerator.REPORT_TITLE + " - " + userId,
+                    BMIBatchReportGenerator.progressParagraphs(records), chart);
+        }
+    }
+
+    private void chart(HttpExchange exchange, String userId) throws IOException {
+        byte[] png = charts.getChart(userId, service.getVersion(userId), () -> service.getAllRecords(userId));
+        exchange.getResponseHeaders().set("Content-Type", PNG);
+        exchange.sendResponseHeaders(200, png.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(png);
+        }
+    }
+
+    private static void sendJson(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", JSON);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        StringBuilder json = new StringBuilder("{\"error\":");
+        appendString(json, message != null ? message : "Request tidak valid.");
+        sendJson(exchange, status, json.append('}').toString());
+    }
+
+    static void appendRecord(StringBuilder json, BMIRecord record) {
+        json.append("{\"timestamp\":").append(record.getTimestamp());
+        appendString(json.append(",\"date\":"), record.getDate());
+        appendString(json.append(",\"time\":"), record.getTime());
+        appendNumber(json.append(",\"height\":"), record.getHeight());
+        appendNumber(json.append(",\"weight\":"), record.getWeight());
+        appendNumber(json.append(",\"bmi\":"), record.getBmi());
+        appendString(json.append(",\"recommendation\":"), record.getRecommendation());
+        json.append('}');
+    }
+
+    private static void appendNumber(StringBuilder json, double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            json.append("null");
+        } else if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            json.append((long) value);
+        } else {
+            json.append(value);
+        }
+    }
+
+    static void appendString(StringBuilder json, String value) {
+        if (value == null) {
+            json.append("null");
+            return;
+        }
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    json.append("\\\"");
+                    break;
+                case '\\':
+                    json.append("\\\\");
+                    break;
+                case '\n':
+                    json.append("\\n");
+                    break;
+                case '\r':
+                    json.append("\\r");
+                    break;
+                case '\t':
+                    json.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+            }
+        }
+        json.append('"');
+    }
+
+    private static String readBody(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        byte[] buffer = new byte[1024];
+        int read;
+        while ((read = in.read(buffer)) > 0) {
+            out.write(buffer, 0, read);
+            if (out.size() > 64 * 1024) {
+                throw new IllegalArgumentException("Body request terlalu besar.");
+            }
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Mem-parse objek JSON datar berisi angka atau string, misalnya {@code {"height": 170, "weight": 65}}.
+     * Objek atau array bersarang tidak didukung.
+     *
+     * @param json Teks JSON.
+     * @return Pasangan nama dan nilai (angka dalam bentuk teks).
+     * @throws IllegalArgumentException jika JSON tidak valid.
+     */
+    static Map<String, String> parseObject(String json) {
+        Map<String, String> values = new HashMap<>();
+        int[] position = {skipWhitespace(json, 0)};
+        expect(json, position, '{');
+        if (peek(json, position) == '}') {
+            return values;
+        }
+        while (true) {
+            String name = parseString(json, position);
+            expect(json, position, ':');
+            String value = peek(json, position) == '"' ? parseString(json, position) : parseLiteral(json, position);
+            values.put(name, value);
+            char next = peek(json, position);
+            position[0] = skipWhitespace(json, position[0] + 1);
+            if (next == '}') {
+                return values;
+            } else if (next != ',') {
+                throw new IllegalArgumentException("JSON tidak valid.");
+            }
+        }
+    }
+
+    private static String parseString(String json, int[] position) {
+        expect(json, position, '"');
+        StringBuilder value = new StringBuilder();
+        int i = position[0];
+        while (i < json.length() && json.charAt(i) != '"') {
+            char c = json.charAt(i++);
+            if (c == '\\' && i < json.length()) {
+                char escaped = json.charAt(i++);
+                if (escaped == 'u' && i + 4 <= json.length()) {
+                    c = (char) Integer.parseInt(json.substring(i, i + 4), 16);
+                    i += 4;
+                } else {
+                    c = escaped == 'n' ? '\n' : escaped == 't' ? '\t' : escaped == 'r' ? '\r' : escaped;
+                }
+            }
+            value.append(c);
+        }
+        if (i >= json.length()) {
+            throw new IllegalArgumentException("JSON tidak valid.");
+        }
+        position[0] = skipWhitespace(json, i + 1);
+        return value.toString();
+    }
+
+    private static String parseLiteral(String json, int[] position) {
+        int start = position[0];
+        int i = start;
+        while (i < json.length() && ",}".indexOf(json.charAt(i)) < 0 && !Character.isWhitespace(json.charAt(i))) {
+            i++;
+        }
+        if (i == start) {
+            throw new IllegalArgumentException("JSON tidak valid.");
+        }
+        position[0] = skipWhitespace(json, i);
+        return json.substring(start, i);
+    }
+
+    private static void expect(String json, int[] position, char expected) {
+        if (peek(json, position) != expected) {
+            throw new IllegalArgumentException("JSON tidak valid.");
+        }
+        position[0] = skipWhitespace(json, position[0] + 1);
+    }
+
+    private static char peek(String json, int[] position) {
+        if (position[0] >= json.length()) {
+            throw new IllegalArgumentException("JSON tidak valid.");
+        }
+        return json.charAt(position[0]);
+    }
+
+    private static int skipWhitespace(String json, int index) {
+        while (index < json.length() && Character.isWhitespace(json.charAt(index))) {
+            index++;
+        }
+        return index;
+    }
+
+    private static Map<String, String> parseQuery(String query) throws IOException {
+        Map<String, String> values = new HashMap<>();
+        if (query == null || query.isEmpty()) {
+            return values;
+        }
+        for (String pair : query.split("&")) {
+            int separator = pair.indexOf('=');
+            if (separator > 0) {
+                values.put(URLDecoder.decode(pair.substring(0, separator), "UTF-8"),
+                        URLDecoder.decode(pair.substring(separator + 1), "UTF-8"));
+            }
+        }
+        return values;
+    }
+}
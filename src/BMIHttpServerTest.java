@@ -0,0 +1,97 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Class BMIHttpServerTest digunakan untuk menguji API HTTP/JSON data BMI.
+ */
+public class BMIHttpServerTest {
+
+    /**
+     * Metode ini menguji penambahan, daftar, progres, grafik, penghapusan data, dan metrik melalui HTTP.
+     */
+    @Test
+    public void testAddListProgressAndDelete() throws Exception {
+        File directory = Files.createTempDirectory("bmi-http").toFile();
+        try (BMIRecordsService service = new BMIRecordsService(directory);
+             BMIHttpServer server = new BMIHttpServer(service, new InetSocketAddress("127.0.0.1", 0))) {
+            server.start();
+            String base = "http://127.0.0.1:" + server.getPort() + "/users/budi";
+
+            assertEquals("201", request("POST", base + "/records", "{\"height\": 170, \"weight\": 65}")[0]);
+            request("POST", base + "/records", "{\"height\": 170, \"weight\": 63.5}");
+            assertEquals(2, service.getTotalRecords("budi"), "Data tidak tersimpan.");
+
+            String list = request("GET", base + "/records?offset=1&limit=5", null)[1];
+            assertTrue(list.startsWith("[{") && list.endsWith("}]"), "Response bukan array JSON: " + list);
+            assertTrue(list.contains("\"weight\":63.5"), "Data halaman kedua tidak sesuai: " + list);
+            assertFalse(list.contains("\"weight\":65,"), "Offset tidak diterapkan: " + list);
+
+            String progress = request("GET", base + "/progress", null)[1];
+            assertTrue(progress.contains("\"count\":2"), "Statistik tidak sesuai: " + progress);
+            assertTrue(progress.contains("Yeayy, kamu berhasil mencapai ideal."), "Pesan progres tidak sesuai: " + progress);
+
+            String[] chart = request("GET", base + "/chart", null);
+            assertEquals("200", chart[0]);
+            assertTrue(chart[1].startsWith("PNG", 1), "Response bukan gambar PNG.");
+
+            assertEquals("400", request("POST", base + "/records", "{\"height\": 0, \"weight\": 65}")[0]);
+            assertEquals("400", request("POST", base + "/records", "{\"height\": 170")[0]);
+            assertEquals("404", request("DELETE", base + "/records/9", null)[0]);
+            assertEquals("200", request("DELETE", base + "/records/0", null)[0]);
+            assertEquals(1, service.getTotalRecords("budi"), "Data tidak terhapus.");
+
+            String metrics = request("GET", "http://127.0.0.1:" + server.getPort() + "/metrics", null)[1];
+            assertTrue(metrics.contains("bmi_operation_total{operation=\"http POST records\"}"), "Metrik request tidak tercatat: " + metrics);
+            assertTrue(metrics.contains("operation=\"saveRecords\""), "Metrik penyimpanan tidak tercatat: " + metrics);
+        }
+    }
+
+    /**
+     * Metode ini menguji parser JSON sederhana untuk body request.
+     */
+    @Test
+    public void testParseObject() {
+        Map<String, String> values = BMIHttpServer.parseObject(" { \"height\" : 172.5 ,\"note\":\"a\\\"b\\u0041\" } ");
+        assertEquals("172.5", values.get("height"));
+        assertEquals("a\"bA", values.get("note"));
+        assertTrue(BMIHttpServer.parseObject("{}").isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> BMIHttpServer.parseObject("{\"height\" 1}"));
+    }
+
+    /**
+     * Mengirim request dan mengembalikan status serta isi response.
+     */
+    private static String[] request(String method, String url, String body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setRequestMethod(method);
+        if (body != null) {
+            connection.setDoOutput(true);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        int status = connection.getResponseCode();
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        try (InputStream in = status >= 400 ? connection.getErrorStream() : connection.getInputStream()) {
+            byte[] buffer = new byte[1024];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                content.write(buffer, 0, read);
+            }
+        }
+        return new String[]{String.valueOf(status), new String(content.toByteArray(), StandardCharsets.UTF_8)};
+    }
+}
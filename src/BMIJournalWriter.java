@@ -0,0 +1,199 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Class Program.BMIJournalWriter menulis entri journal di thread tersendiri (write-behind).
+ * Perubahan data dimasukkan ke antrian berkapasitas terbatas, lalu thread penulis
+ * menggabungkan beberapa entri menjadi satu kali tulis dan satu kali fsync (group commit)
+ * per journal. Pemanggil mendapatkan CompletableFuture yang selesai ketika entri sudah
+ * tersimpan permanen di disk.
+ */
+public class BMIJournalWriter {
+    private static final int DEFAULT_QUEUE_CAPACITY = 8192; // Kapasitas antrian bawaan
+    private static final int DEFAULT_MAX_BATCH_SIZE = 1024; // Maksimal entri per group commit
+    private static final long DEFAULT_MAX_LATENCY_MILLIS = 2; // Maksimal waktu tunggu batch
+    private static final Pending SHUTDOWN = new Pending(null, null); // Penanda berhenti
+    private static BMIJournalWriter defaultWriter; // Penulis bawaan yang dipakai bersama
+
+    private final BlockingQueue<Pending> queue; // Antrian entri yang menunggu ditulis
+    private final int maxBatchSize;             // Maksimal entri per group commit
+    private final long maxLatencyNanos;         // Maksimal waktu tunggu untuk melengkapi batch
+    private final Thread thread;                // Thread penulis
+    private final AtomicLong commits = new AtomicLong();  // Jumlah group commit (fsync)
+    private final AtomicLong entries = new AtomicLong();  // Jumlah entri yang sudah ditulis
+    private volatile boolean running = true;
+
+    /**
+     * Constructor untuk membuat penulis journal dengan konfigurasi tertentu.
+     *
+     * @param queueCapacity    Kapasitas antrian. Pemanggil akan menunggu jika antrian penuh.
+     * @param maxBatchSize     Maksimal entri yang digabung dalam satu group commit.
+     * @param maxLatencyMillis Maksimal waktu (ms) menunggu entri lain sebelum batch ditulis.
+     * @throws IllegalArgumentException jika konfigurasi tidak valid.
+     */
+    public BMIJournalWriter(int queueCapacity, int maxBatchSize, long maxLatencyMillis) {
+        if (queueCapacity <= 0 || maxBatchSize <= 0 || maxLatencyMillis < 0) {
+            throw new IllegalArgumentException("Konfigurasi penulis journal tidak valid.");
+        }
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.maxBatchSize = maxBatchSize;
+        this.maxLatencyNanos = TimeUnit.MILLISECONDS.toNanos(maxLatencyMillis);
+        this.thread = new Thread(this::run, "bmi-journal-writer");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Mendapatkan penulis journal bawaan. Antrian penulis ini dikosongkan secara otomatis
+     * ketika JVM dimatikan.
+     *
+     * @return Penulis journal bawaan.
+     */
+    public static synchronized BMIJournalWriter getDefault() {
+        if (defaultWriter == null) {
+            BMIJournalWriter writer = new BMIJournalWriter(DEFAULT_QUEUE_CAPACITY, DEFAULT_MAX_BATCH_SIZE,
+                    DEFAULT_MAX_LATENCY_MILLIS);
+            Runtime.getRuntime().addShutdownHook(new Thread(writer::shutdown, "bmi-journal-writer-shutdown"));
+            defaultWriter = writer;
+        }
+        return defaultWriter;
+    }
+
+    /**
+     * Memasukkan entri journal ke antrian penulisan.
+     *
+     * @param journal Journal tujuan.
+     * @param entry   Entri yang sudah dienkode.
+     * @return Future yang selesai ketika entri sudah tersimpan di disk.
+     */
+    CompletableFuture<Void> submit(BMIRecordJournal journal, ByteBuffer entry) {
+        Pending pending = new Pending(journal, entry);
+        if (!running) {
+            pending.future.completeExceptionally(new IOException("Penulis journal sudah dihentikan."));
+            return pending.future;
+        }
+        try {
+            queue.put(pending);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pending.future.completeExceptionally(e);
+        }
+        return pending.future;
+    }
+
+    /**
+     * Mengembalikan jumlah group commit (fsync) yang sudah dilakukan.
+     *
+     * @return Jumlah group commit.
+     */
+    public long getCommitCount() {
+        return commits.get();
+    }
+
+    /**
+     * Mengembalikan jumlah entri yang sudah ditulis ke disk.
+     *
+     * @return Jumlah entri tertulis.
+     */
+    public long getEntryCount() {
+        return entries.get();
+    }
+
+    /**
+     * Menghentikan penulis setelah semua entri di antrian selesai ditulis.
+     */
+    public void shutdown() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            queue.put(SHUTDOWN);
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>(maxBatchSize);
+        boolean stop = false;
+        while (!stop) {
+            try {
+                batch.add(queue.take());
+                queue.drainTo(batch, maxBatchSize - batch.size());
+                long deadline = System.nanoTime() + maxLatencyNanos;
+                while (batch.size() < maxBatchSize && batch.get(batch.size() - 1) != SHUTDOWN) {
+                    long remaining = deadline - System.nanoTime();
+                    Pending next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    queue.drainTo(batch, maxBatchSize - batch.size());
+                }
+            } catch (InterruptedException e) {
+                stop = true;
+            }
+            stop |= batch.remove(SHUTDOWN);
+            commit(batch);
+            batch.clear();
+        }
+        // Entri yang masuk setelah penanda berhenti tidak akan ditulis lagi.
+        Pending leftover;
+        while ((leftover = queue.poll()) != null) {
+            if (leftover != SHUTDOWN) {
+                leftover.future.completeExceptionally(new IOException("Penulis journal sudah dihentikan."));
+            }
+        }
+    }
+
+    private void commit(List<Pending> batch) {
+        Map<BMIRecordJournal, List<Pending>> byJournal = new LinkedHashMap<>();
+        for (Pending pending : batch) {
+            byJournal.computeIfAbsent(pending.journal, j -> new ArrayList<>()).add(pending);
+        }
+        for (Map.Entry<BMIRecordJournal, List<Pending>> group : byJournal.entrySet()) {
+            List<Pending> pendings = group.getValue();
+            List<ByteBuffer> buffers = new ArrayList<>(pendings.size());
+            for (Pending pending : pendings) {
+                buffers.add(pending.entry);
+            }
+            try {
+                group.getKey().writeBatch(buffers);
+                commits.incrementAndGet();
+                entries.addAndGet(pendings.size());
+                for (Pending pending : pendings) {
+                    pending.future.complete(null);
+                }
+            } catch (IOException | RuntimeException e) {
+                for (Pending pending : pendings) {
+                    pending.future.completeExceptionally(e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Entri journal yang menunggu ditulis beserta future penyelesaiannya.
+     */
+    private static final class Pending {
+        private final BMIRecordJournal journal;
+        private final ByteBuffer entry;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        private Pending(BMIRecordJournal journal, ByteBuffer entry) {
+            this.journal = journal;
+            this.entry = entry;
+        }
+    }
+}
@@ -0,0 +1,412 @@
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Class Program.BMIMetrics mencatat metrik operasi aplikasi: jumlah panggilan, jumlah error,
+ * jumlah yang sedang berjalan (in-flight), dan histogram latensi.
+ * <p>
+ * Histogram menggunakan bucket log-linear seperti HdrHistogram: nilai di bawah 128 ns dicatat persis,
+ * nilai yang lebih besar dikelompokkan dengan presisi relatif sekitar 1,6%. Pencatatan hanya berupa
+ * operasi atomik tanpa kunci sehingga aman dipanggil dari banyak thread.
+ * <p>
+ * Metrik dapat dibaca melalui JMX ({@link #registerMBean()}) atau dalam format teks Prometheus
+ * ({@link #getText()}), misalnya dari endpoint {@code /metrics} pada Program.BMIHttpServer.
+ */
+public class BMIMetrics implements BMIMetricsMXBean {
+    static final String OBJECT_NAME = "BMITracker:type=Metrics"; // Nama MBean
+    private static final BMIMetrics DEFAULT = new BMIMetrics();    // Instance yang dipakai aplikasi
+
+    private final Map<String, Operation> operations = new ConcurrentHashMap<>(); // Metrik per nama operasi
+
+    /**
+     * Mendapatkan instance metrik yang dipakai bersama oleh seluruh aplikasi.
+     *
+     * @return Instance metrik bawaan.
+     */
+    public static BMIMetrics getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Mendaftarkan metrik ini sebagai MBean pada platform MBeanServer.
+     * Pemanggilan berikutnya tidak melakukan apa-apa.
+     *
+     * @throws IllegalStateException jika MBean gagal didaftarkan.
+     */
+    public synchronized void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(this, name);
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("MBean metrik gagal didaftarkan: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Mulai mengukur satu operasi. Panggil {@link Timer#stop()} saat berhasil
+     * atau {@link Timer#fail(Throwable)} saat gagal.
+     *
+     * @param operation Nama operasi, misalnya "addRecord".
+     * @return Timer untuk operasi tersebut.
+     */
+    public Timer start(String operation) {
+        return new Timer(operation(operation));
+    }
+
+    /**
+     * Mengukur operasi asinkron dari sekarang sampai future selesai.
+     *
+     * @param operation Nama operasi.
+     * @param future    Future operasi.
+     * @param <T>       Tipe hasil future.
+     * @return Future yang sama.
+     */
+    public <T> CompletableFuture<T> track(String operation, CompletableFuture<T> future) {
+        Timer timer = start(operation);
+        future.whenComplete((ignored, e) -> {
+            if (e != null) {
+                timer.fail(e);
+            } else {
+                timer.stop();
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Mendapatkan ringkasan satu operasi.
+     *
+     * @param operation Nama operasi.
+     * @return Ringkasan operasi, atau null jika operasi belum pernah tercatat.
+     */
+    public OperationSnapshot getOperation(String operation) {
+        Operation stats = operations.get(operation);
+        return stats != null ? stats.snapshot(operation) : null;
+    }
+
+    @Override
+    public Map<String, OperationSnapshot> getOperations() {
+        Map<String, OperationSnapshot> snapshots = new TreeMap<>();
+        for (Map.Entry<String, Operation> entry : operations.entrySet()) {
+            snapshots.put(entry.getKey(), entry.getValue().snapshot(entry.getKey()));
+        }
+        return snapshots;
+    }
+
+    @Override
+    public String getText() {
+        Map<String, OperationSnapshot> snapshots = getOperations();
+        StringBuilder text = new StringBuilder(256 + snapshots.size() * 640);
+        text.append("# HELP bmi_operation_total Jumlah operasi yang selesai.\n");
+        text.append("# TYPE bmi_operation_total counter\n");
+        for (OperationSnapshot s : snapshots.values()) {
+            line(text, "bmi_operation_total", s.getName(), null, s.getCount());
+        }
+        text.append("# HELP bmi_operation_errors_total Jumlah operasi yang gagal.\n");
+        text.append("# TYPE bmi_operation_errors_total counter\n");
+        for (OperationSnapshot s : snapshots.values()) {
+            line(text, "bmi_operation_errors_total", s.getName(), null, s.getErrors());
+        }
+        text.append("# HELP bmi_operation_in_flight Jumlah operasi yang sedang berjalan.\n");
+        text.append("# TYPE bmi_operation_in_flight gauge\n");
+        for (OperationSnapshot s : snapshots.values()) {
+            line(text, "bmi_operation_in_flight", s.getName(), null, s.getInFlight());
+        }
+        text.append("# HELP bmi_operation_latency_seconds Latensi operasi (berhasil maupun gagal).\n");
+        text.append("# TYPE bmi_operation_latency_seconds summary\n");
+        for (OperationSnapshot s : snapshots.values()) {
+            line(text, "bmi_operation_latency_seconds", s.getName(), "0.5", s.getP50Micros() / 1e6);
+            line(text, "bmi_operation_latency_seconds", s.getName(), "0.9", s.getP90Micros() / 1e6);
+            line(text, "bmi_operation_latency_seconds", s.getName(), "0.99", s.getP99Micros() / 1e6);
+            line(text, "bmi_operation_latency_seconds", s.getName(), "1", s.getMaxMicros() / 1e6);
+            line(text, "bmi_operation_latency_seconds_sum", s.getName(), null, s.getTotalMicros() / 1e6);
+            line(text, "bmi_operation_latency_seconds_count", s.getName(), null, s.getCount() + s.getErrors());
+        }
+        return text.toString();
+    }
+
+    @Override
+    public void reset() {
+        operations.clear();
+    }
+
+    private Operation operation(String name) {
+        Operation operation = operations.get(name);
+        return operation != null ? operation : operations.computeIfAbsent(name, ignored -> new Operation());
+    }
+
+    private static void line(StringBuilder text, String metric, String operation, String quantile, double value) {
+        text.append(metric).append("{operation=\"").append(operation.replace("\\", "\\\\").replace("\"", "\\\""));
+        if (quantile != null) {
+            text.append("\",quantile=\"").append(quantile);
+        }
+        text.append("\"} ");
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            text.append((long) value);
+        } else {
+            text.append(String.format(Locale.ROOT, "%.9g", value));
+        }
+        text.append('\n');
+    }
+
+    /**
+     * Pengukuran satu operasi yang sedang berjalan. Hanya pemanggilan {@code stop} atau
+     * {@code fail} pertama yang dicatat.
+     */
+    public static final class Timer {
+        private final Operation operation; // Metrik operasi
+        private final long startNanos;     // Waktu mulai
+        private boolean done;              // true jika sudah dicatat
+
+        private Timer(Operation operation) {
+            this.operation = operation;
+            this.startNanos = System.nanoTime();
+            operation.inFlight.incrementAndGet();
+        }
+
+        /**
+         * Mencatat operasi sebagai berhasil.
+         *
+         * @return Latensi dalam nanodetik.
+         */
+        public synchronized long stop() {
+            return finish(null);
+        }
+
+        /**
+         * Mencatat operasi sebagai gagal.
+         *
+         * @param error Penyebab kegagalan.
+         * @return Latensi dalam nanodetik.
+         */
+        public synchronized long fail(Throwable error) {
+            return finish(error != null ? error : new IllegalStateException("Operasi gagal."));
+        }
+
+        private long finish(Throwable error) {
+            long latency = System.nanoTime() - startNanos;
+            if (!done) {
+                done = true;
+                operation.record(latency, error);
+            }
+            return latency;
+        }
+    }
+
+    /**
+     * Ringkasan metrik satu operasi pada saat tertentu. Latensi dalam mikrodetik.
+     */
+    public static final class OperationSnapshot {
+        private final String name;
+        private final long count;
+        private final long errors;
+        private final long inFlight;
+        private final double totalMicros;
+        private final double p50Micros;
+        private final double p90Micros;
+        private final double p99Micros;
+        private final double maxMicros;
+        private final String lastError;
+
+        OperationSnapshot(String name, long count, long errors, long inFlight, double totalMicros,
+                          double p50Micros, double p90Micros, double p99Micros, double maxMicros, String lastError) {
+            this.name = name;
+            this.count = count;
+            this.errors = errors;
+            this.inFlight = inFlight;
+            this.totalMicros = totalMicros;
+            this.p50Micros = p50Micros;
+            this.p90Micros = p90Micros;
+            this.p99Micros = p99Micros;
+            this.maxMicros = maxMicros;
+            this.lastError = lastError;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /** @return Jumlah operasi yang berhasil. */
+        public long getCount() {
+            return count;
+        }
+
+        /** @return Jumlah operasi yang gagal. */
+        public long getErrors() {
+            return errors;
+        }
+
+        /** @return Jumlah operasi yang sedang berjalan. */
+        public long getInFlight() {
+            return inFlight;
+        }
+
+        /** @return Total latensi semua operasi yang selesai. */
+        public double getTotalMicros() {
+            return totalMicros;
+        }
+
+        /** @return Rata-rata latensi, atau 0 jika belum ada operasi yang selesai. */
+        public double getMeanMicros() {
+            long completed = count + errors;
+            return completed == 0 ? 0 : totalMicros / completed;
+        }
+
+        public double getP50Micros() {
+            return p50Micros;
+        }
+
+        public double getP90Micros() {
+            return p90Micros;
+        }
+
+        public double getP99Micros() {
+            return p99Micros;
+        }
+
+        public double getMaxMicros() {
+            return maxMicros;
+        }
+
+        /** @return Pesan error terakhir, atau String kosong jika belum pernah gagal. */
+        public String getLastError() {
+            return lastError;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%s: %d ok, %d gagal, %d berjalan, p50 %.1f us, p99 %.1f us, maks %.1f us",
+                    name, count, errors, inFlight, p50Micros, p99Micros, maxMicros);
+        }
+    }
+
+    /**
+     * Metrik satu operasi.
+     */
+    private static final class Operation {
+        final LongAdder count = new LongAdder();           // Operasi berhasil
+        final LongAdder errors = new LongAdder();          // Operasi gagal
+        final AtomicLong inFlight = new AtomicLong();      // Operasi yang sedang berjalan
+        final LatencyHistogram latency = new LatencyHistogram(); // Latensi semua operasi yang selesai
+        volatile String lastError = "";                    // Pesan error terakhir
+
+        void record(long latencyNanos, Throwable error) {
+            latency.record(latencyNanos);
+            if (error != null) {
+                errors.increment();
+                lastError = error.getClass().getSimpleName() + ": " + error.getMessage();
+            } else {
+                count.increment();
+            }
+            inFlight.decrementAndGet();
+        }
+
+        OperationSnapshot snapshot(String name) {
+            long[] counts = latency.counts();
+            long max = latency.max.get();
+            // Batas atas bucket dapat melebihi nilai terbesar yang benar-benar tercatat
+            return new OperationSnapshot(name, count.sum(), errors.sum(), inFlight.get(),
+                    latency.sum.sum() / 1e3,
+                    Math.min(max, LatencyHistogram.percentile(counts, 0.50)) / 1e3,
+                    Math.min(max, LatencyHistogram.percentile(counts, 0.90)) / 1e3,
+                    Math.min(max, LatencyHistogram.percentile(counts, 0.99)) / 1e3,
+                    max / 1e3, lastError);
+        }
+    }
+
+    /**
+     * Histogram latensi dengan bucket log-linear (nanodetik).
+     */
+    static final class LatencyHistogram {
+        private static final int SUB_BUCKET_BITS = 7;                        // 128 sub-bucket per magnitudo
+        private static final int HALF_SUB_BUCKET = 1 << (SUB_BUCKET_BITS - 1); // 64
+        private static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * HALF_SUB_BUCKET + HALF_SUB_BUCKET;
+
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS); // Jumlah per bucket
+        final LongAdder sum = new LongAdder();  // Total nilai
+        final AtomicLong max = new AtomicLong(); // Nilai terbesar
+
+        void record(long value) {
+            if (value < 0) {
+                value = 0;
+            }
+            counts.incrementAndGet(indexOf(value));
+            sum.add(value);
+            long current = max.get();
+            while (value > current && !max.compareAndSet(current, value)) {
+                current = max.get();
+            }
+        }
+
+        long[] counts() {
+            long[] snapshot = new long[BUCKETS];
+            for (int i = 0; i < BUCKETS; i++) {
+                snapshot[i] = counts.get(i);
+            }
+            return snapshot;
+        }
+
+        /**
+         * Menentukan bucket nilai: nilai di bawah 128 memakai bucket sendiri, nilai lain memakai
+         * 64 bucket per pangkat dua berdasarkan 7 bit teratasnya.
+         */
+        static int indexOf(long value) {
+            if (value < 2 * HALF_SUB_BUCKET) {
+                return (int) value;
+            }
+            int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+            return shift * HALF_SUB_BUCKET + (int) (value >>> shift);
+        }
+
+        /**
+         * Nilai terbesar yang masuk ke bucket tertentu.
+         */
+        static long highestValueAt(int index) {
+            if (index < 2 * HALF_SUB_BUCKET) {
+                return index;
+            }
+            int shift = index / HALF_SUB_BUCKET - 1;
+            long subBucket = index - (long) shift * HALF_SUB_BUCKET;
+            return ((subBucket + 1) << shift) - 1;
+        }
+
+        /**
+         * Menghitung persentil dari salinan jumlah per bucket.
+         *
+         * @param counts     Jumlah per bucket.
+         * @param percentile Persentil antara 0 dan 1.
+         * @return Nilai persentil, atau 0 jika histogram kosong.
+         */
+        static long percentile(long[] counts, double percentile) {
+            long total = 0;
+            for (long count : counts) {
+                total += count;
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile * total));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return highestValueAt(i);
+                }
+            }
+            return highestValueAt(counts.length - 1);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+import java.util.Map;
+
+/**
+ * Interface Program.BMIMetricsMXBean adalah tampilan JMX dari Program.BMIMetrics,
+ * dapat dilihat dengan JConsole atau VisualVM pada nama "BMITracker:type=Metrics".
+ */
+public interface BMIMetricsMXBean {
+
+    /**
+     * Mendapatkan ringkasan semua operasi yang sudah tercatat.
+     *
+     * @return Ringkasan per nama operasi.
+     */
+    Map<String, BMIMetrics.OperationSnapshot> getOperations();
+
+    /**
+     * Mendapatkan semua metrik dalam format teks Prometheus.
+     *
+     * @return Metrik dalam format teks.
+     */
+    String getText();
+
+    /**
+     * Menghapus semua metrik yang sudah tercatat.
+     */
+    void reset();
+}
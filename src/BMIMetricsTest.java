@@ -0,0 +1,89 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.CompletableFuture;
+import javax.management.ObjectName;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Class BMIMetricsTest digunakan untuk menguji pencatatan metrik operasi.
+ */
+public class BMIMetricsTest {
+
+    /**
+     * Metode ini menguji bucket histogram dan ketelitian persentil.
+     */
+    @Test
+    public void testHistogramPrecision() {
+        for (long value : new long[]{0, 1, 127, 128, 129, 1_000, 123_456_789L, Long.MAX_VALUE / 3}) {
+            int index = BMIMetrics.LatencyHistogram.indexOf(value);
+            long highest = BMIMetrics.LatencyHistogram.highestValueAt(index);
+            assertTrue(highest >= value, "Batas bucket lebih kecil dari nilai " + value);
+            assertTrue(highest - value <= value / 64, "Presisi bucket terlalu kasar untuk " + value);
+            if (index > 0) {
+                assertTrue(BMIMetrics.LatencyHistogram.highestValueAt(index - 1) < value, "Bucket tumpang tindih.");
+            }
+        }
+
+        BMIMetrics.LatencyHistogram histogram = new BMIMetrics.LatencyHistogram();
+        for (int i = 1; i <= 10_000; i++) {
+            histogram.record(i * 1_000L); // 1 us sampai 10 ms
+        }
+        long[] counts = histogram.counts();
+        assertEquals(5_000_000, BMIMetrics.LatencyHistogram.percentile(counts, 0.50), 5_000_000 / 50.0);
+        assertEquals(9_900_000, BMIMetrics.LatencyHistogram.percentile(counts, 0.99), 9_900_000 / 50.0);
+        assertEquals(10_000_000, histogram.max.get());
+    }
+
+    /**
+     * Metode ini menguji jumlah operasi, error, in-flight, dan format teks.
+     */
+    @Test
+    public void testOperationsAndText() {
+        BMIMetrics metrics = new BMIMetrics();
+        BMIMetrics.Timer first = metrics.start("addRecord");
+        BMIMetrics.Timer second = metrics.start("addRecord");
+        assertEquals(2, metrics.getOperation("addRecord").getInFlight());
+        first.stop();
+        first.stop(); // Pemanggilan kedua diabaikan
+        second.fail(new IOException("disk penuh"));
+
+        CompletableFuture<Void> save = new CompletableFuture<>();
+        metrics.track("saveRecords", save);
+        assertEquals(1, metrics.getOperation("saveRecords").getInFlight());
+        save.complete(null);
+
+        BMIMetrics.OperationSnapshot add = metrics.getOperation("addRecord");
+        assertEquals(1, add.getCount());
+        assertEquals(1, add.getErrors());
+        assertEquals(0, add.getInFlight());
+        assertEquals("IOException: disk penuh", add.getLastError());
+        assertTrue(add.getMaxMicros() >= add.getP50Micros(), "Persentil melebihi nilai maksimum.");
+        assertEquals(1, metrics.getOperation("saveRecords").getCount());
+
+        String text = metrics.getText();
+        assertTrue(text.contains("bmi_operation_total{operation=\"addRecord\"} 1\n"), text);
+        assertTrue(text.contains("bmi_operation_errors_total{operation=\"addRecord\"} 1\n"), text);
+        assertTrue(text.contains("bmi_operation_latency_seconds_count{operation=\"saveRecords\"} 1\n"), text);
+        assertTrue(text.contains("bmi_operation_latency_seconds{operation=\"addRecord\",quantile=\"0.99\"}"), text);
+
+        metrics.reset();
+        assertNull(metrics.getOperation("addRecord"));
+    }
+
+    /**
+     * Metode ini menguji pendaftaran MBean dan pembacaan atribut melalui JMX.
+     */
+    @Test
+    public void testMBean() throws Exception {
+        BMIMetrics metrics = BMIMetrics.getDefault();
+        metrics.registerMBean();
+        metrics.registerMBean(); // Tidak gagal jika sudah terdaftar
+        metrics.start("mbeanTest").stop();
+        Object text = ManagementFactory.getPlatformMBeanServer().getAttribute(new ObjectName(BMIMetrics.OBJECT_NAME), "Text");
+        assertTrue(text.toString().contains("operation=\"mbeanTest\""), "Atribut Text tidak berisi operasi.");
+        assertNotNull(ManagementFactory.getPlatformMBeanServer().getAttribute(new ObjectName(BMIMetrics.OBJECT_NAME), "Operations"));
+    }
+}
@@ -1,6 +1,15 @@
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.zone.ZoneOffsetTransition;
 
 /**
  * Class Program.BMIRecord digunakan untuk menyimpan data hasil kalkulasi BMI,
@@ -9,12 +18,18 @@ import java.util.Date;
  */
 public class BMIRecord implements Serializable {
     private static final long serialVersionUID = 1L; // Untuk mendukung serialization
-    private String date;           // Tanggal input
-    private String time;           // Waktu input
+    private static final ZoneId ZONE = ZoneId.systemDefault(); // Zona waktu untuk tanggal dan jam
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss");
+    private static volatile LocalDay lastDay; // Hari terakhir yang diformat, dipakai ulang oleh data di hari yang sama
+
+    private String date;           // Tanggal input (diformat saat pertama kali dibutuhkan)
+    private String time;           // Waktu input (diformat saat pertama kali dibutuhkan)
     private double height;         // Tinggi badan (cm)
     private double weight;         // Berat badan (kg)
     private double bmi;            // Nilai BMI
     private String recommendation; // Rekomendasi berdasarkan BMI
+    private long timestamp;        // Waktu input dalam epoch milidetik (0 untuk data lama)
 
     /**
      * Constructor untuk membuat objek Program.BMIRecord dengan data tinggi badan, berat badan,
@@ -26,14 +41,51 @@ public class BMIRecord implements Serializable {
      * @param recommendation Rekomendasi berdasarkan nilai BMI.
      */
     public BMIRecord(double height, double weight, double bmi, String recommendation) {
-        this.date = getCurrentDate(); // Tanggal otomatis
-        this.time = getCurrentTime(); // Waktu otomatis
+        this(System.currentTimeMillis(), height, weight, bmi, recommendation); // Waktu otomatis
+    }
+
+    /**
+     * Constructor untuk membuat ulang objek Program.BMIRecord dengan waktu input yang sudah diketahui,
+     * misalnya ketika data dibaca kembali dari journal.
+     *
+     * @param timestamp      Waktu input dalam epoch milidetik.
+     * @param height         Tinggi badan dalam satuan cm.
+     * @param weight         Berat badan dalam satuan kg.
+     * @param bmi            Nilai Body Mass Index (BMI) yang telah dikalkulasi.
+     * @param recommendation Rekomendasi berdasarkan nilai BMI.
+     */
+    public BMIRecord(long timestamp, double height, double weight, double bmi, String recommendation) {
+        this.timestamp = timestamp;
         this.height = height;
         this.weight = weight;
         this.bmi = bmi;
         this.recommendation = recommendation;
     }
 
+    /**
+     * Menghitung BMI dan rekomendasi dari tinggi dan berat badan, lalu membuat Program.BMIRecord
+     * dengan waktu saat ini.
+     *
+     * @param height Tinggi badan dalam satuan cm.
+     * @param weight Berat badan dalam satuan kg.
+     * @return Program.BMIRecord hasil perhitungan.
+     * @throws IllegalArgumentException jika tinggi atau berat tidak lebih dari 0, atau hasil BMI tidak logis.
+     */
+    public static BMIRecord calculate(double height, double weight) {
+        if (height <= 0 || weight <= 0) {
+            throw new IllegalArgumentException("Tinggi dan berat badan harus lebih dari 0.");
+        }
+
+        double bmi = BMICategory.computeBmi(height, weight);
+
+        if (bmi < BMICategory.MIN_VALID_BMI || bmi > BMICategory.MAX_VALID_BMI) {
+            throw new IllegalArgumentException("Hasil BMI tidak logis. Pastikan input benar.");
+        }
+
+        // Menentukan rekomendasi berdasarkan BMI
+        return new BMIRecord(height, weight, bmi, BMICategory.of(bmi).getRecommendation());
+    }
+
     /**
      * Mendapatkan tanggal ketika data Program.BMIRecord dibuat.
      *
@@ -41,6 +93,9 @@ public class BMIRecord implements Serializable {
      */
     // Getter untuk atribut
     public String getDate() {
+        if (date == null) {
+            date = LocalDay.of(timestamp).date;
+        }
         return date;
     }
 
@@ -50,9 +105,32 @@ public class BMIRecord implements Serializable {
      * @return Waktu dalam format "HH:mm:ss".
      */
     public String getTime() {
+        if (time == null) {
+            time = formatTime(timestamp);
+        }
         return time;
     }
 
+    /**
+     * Mendapatkan waktu input dalam epoch milidetik.
+     * Untuk data lama yang belum menyimpan timestamp, nilai dihitung dari tanggal dan waktu.
+     *
+     * @return Waktu input dalam epoch milidetik.
+     */
+    public long getTimestamp() {
+        if (timestamp == 0 && date != null) {
+            try {
+                LocalDateTime dateTime = time != null
+                        ? LocalDateTime.of(LocalDate.parse(date, DATE_FORMAT), LocalTime.parse(time, TIME_FORMAT))
+                        : LocalDate.parse(date, DATE_FORMAT).atStartOfDay();
+                timestamp = dateTime.atZone(ZONE).toInstant().toEpochMilli();
+            } catch (DateTimeParseException e) {
+                // Format tidak dikenal, biarkan tetap 0.
+            }
+        }
+        return timestamp;
+    }
+
     /**
      * Mendapatkan tinggi badan yang tercatat dalam data Program.BMIRecord.
      *
@@ -89,6 +167,15 @@ public class BMIRecord implements Serializable {
         return recommendation;
     }
 
+    /**
+     * Mendapatkan kategori dari rekomendasi data ini.
+     *
+     * @return Kategori, atau null jika rekomendasi tidak dikenal (misalnya data lama tanpa rekomendasi).
+     */
+    public BMICategory getCategory() {
+        return BMICategory.fromRecommendation(recommendation);
+    }
+
     /**
      * Mengubah rekomendasi berdasarkan analisis terbaru.
      *
@@ -99,27 +186,76 @@ public class BMIRecord implements Serializable {
     }
 
     /**
-     * Mendapatkan tanggal saat ini dalam format "yyyy-MM-dd".
-     * Metode ini hanya digunakan secara internal oleh konstruktor.
+     * Memformat timestamp menjadi waktu dalam format "HH:mm:ss".
+     * Metode ini hanya digunakan secara internal oleh {@link #getTime()}.
      *
-     * @return Tanggal saat ini.
+     * @param timestamp Waktu dalam epoch milidetik.
+     * @return Waktu dari timestamp.
      */
-    // Mendapatkan tanggal saat ini
-    private String getCurrentDate() {
-        SimpleDateFormat formatter = new SimpleDateFormat("yyyy-MM-dd");
-        return formatter.format(new Date());
+    // Mendapatkan waktu dari timestamp
+    private static String formatTime(long timestamp) {
+        LocalDay day = LocalDay.of(timestamp);
+        if (!day.fixedOffset) {
+            return TIME_FORMAT.format(Instant.ofEpochMilli(timestamp).atZone(ZONE));
+        }
+        int seconds = (int) ((timestamp - day.start) / 1000);
+        char[] chars = new char[8];
+        putTwoDigits(chars, 0, seconds / 3600);
+        chars[2] = ':';
+        putTwoDigits(chars, 3, seconds / 60 % 60);
+        chars[5] = ':';
+        putTwoDigits(chars, 6, seconds % 60);
+        return new String(chars);
+    }
+
+    private static void putTwoDigits(char[] chars, int index, int value) {
+        chars[index] = (char) ('0' + value / 10);
+        chars[index + 1] = (char) ('0' + value % 10);
+    }
+
+    /**
+     * Satu hari kalender pada zona waktu sistem beserta tanggalnya yang sudah diformat.
+     * Data yang dibuat atau dimuat berurutan biasanya berada di hari yang sama, sehingga
+     * tanggal tidak perlu diformat ulang dan jam dapat dihitung langsung dari selisih waktu.
+     */
+    private static final class LocalDay {
+        final long start;          // Awal hari (epoch milidetik, inklusif)
+        final long end;            // Awal hari berikutnya (eksklusif)
+        final String date;         // Tanggal dalam format "yyyy-MM-dd"
+        final boolean fixedOffset; // true jika tidak ada perubahan offset (misalnya DST) di hari ini
+
+        private LocalDay(long timestamp) {
+            ZonedDateTime startOfDay = Instant.ofEpochMilli(timestamp).atZone(ZONE).toLocalDate().atStartOfDay(ZONE);
+            Instant startInstant = startOfDay.toInstant();
+            Instant endInstant = startOfDay.plusDays(1).toInstant();
+            ZoneOffsetTransition transition = ZONE.getRules().nextTransition(startInstant);
+            start = startInstant.toEpochMilli();
+            end = endInstant.toEpochMilli();
+            date = DATE_FORMAT.format(startOfDay);
+            fixedOffset = transition == null || !transition.getInstant().isBefore(endInstant);
+        }
+
+        static LocalDay of(long timestamp) {
+            LocalDay day = lastDay;
+            if (day == null || timestamp < day.start || timestamp >= day.end) {
+                day = new LocalDay(timestamp);
+                lastDay = day;
+            }
+            return day;
+        }
     }
 
     /**
-     * Mendapatkan waktu saat ini dalam format "HH:mm:ss".
-     * Metode ini hanya digunakan secara internal oleh konstruktor.
+     * Memastikan tanggal dan waktu sudah diformat sebelum objek diserialisasi,
+     * sehingga file lama tetap berisi tanggal dan waktu dalam bentuk String.
      *
-     * @return Waktu saat ini.
+     * @param out Stream tujuan serialization.
+     * @throws IOException jika penulisan gagal.
      */
-    // Mendapatkan waktu saat ini
-    private String getCurrentTime() {
-        SimpleDateFormat formatter = new SimpleDateFormat("HH:mm:ss");
-        return formatter.format(new Date());
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        getDate();
+        getTime();
+        out.defaultWriteObject();
     }
 
     /**
@@ -130,7 +266,7 @@ public class BMIRecord implements Serializable {
      */
     @Override
     public String toString() {
-        return "Program.BMIRecord {Tanggal='" + date + "', Waktu='" + time + "', Tinggi='" + height +
+        return "Program.BMIRecord {Tanggal='" + getDate() + "', Waktu='" + getTime() + "', Tinggi='" + height +
                 " cm', Berat='" + weight + " kg', BMI='" + bmi + "', Rekomendasi='" + recommendation + "'}";
     }
 
@@ -152,12 +288,13 @@ public class BMIRecord implements Serializable {
         double previousWeight = previousRecord.getWeight();
 
         // Periksa apakah BMI sudah ideal
-        if (this.bmi >= 18.5 && this.bmi <= 25) {
+        if (this.bmi >= BMICategory.UNDERWEIGHT_LIMIT && this.bmi <= BMICategory.OVERWEIGHT_LIMIT) {
             return "Yeayy, kamu berhasil mencapai ideal.";
         }
 
         // Logika berdasarkan rekomendasi sebelumnya
-        if (previousRecord.getRecommendation().equals("Diet")) {
+        BMICategory previousCategory = previousRecord.getCategory();
+        if (previousCategory == BMICategory.DIET) {
             if (this.weight < previousWeight) {
                 return "Progres diet berhasil, lebih semangat lagi untuk mencapai ideal.";
             } else if (this.weight == previousWeight) {
@@ -165,7 +302,7 @@ public class BMIRecord implements Serializable {
             } else {
                 return "Progres tidak sesuai harapan, coba evaluasi lagi.";
             }
-        } else if (previousRecord.getRecommendation().equals("Bulking")) {
+        } else if (previousCategory == BMICategory.BULKING) {
             if (this.weight > previousWeight) {
                 return "Progres bulking berhasil, lebih semangat lagi untuk mencapai ideal.";
             } else if (this.weight == previousWeight) {
@@ -0,0 +1,550 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Class Program.BMIRecordArchive menyimpan riwayat Program.BMIRecord lama (cold tier) di luar heap
+ * sebagai file segmen terkompresi yang tidak pernah diubah setelah ditulis.
+ * <p>
+ * Setiap segmen berisi blok-blok data yang terurut berdasarkan waktu. Satu blok berisi hingga
+ * {@link #BLOCK_RECORDS} data dalam format Program.BMIRecordCodec yang dikompresi dengan Deflate.
+ * Di akhir segmen terdapat indeks blok berisi waktu terkecil dan terbesar, jumlah data, posisi,
+ * panjang, dan CRC32 setiap blok. Saat dibuka hanya indeks ini yang dibaca, sehingga pemakaian
+ * memori dan waktu buka tidak bergantung pada panjang riwayat. Blok baru dibaca dan didekompresi
+ * ketika query menyentuh rentang waktunya, lalu disimpan di cache LRU kecil.
+ * <p>
+ * Segmen ditulis ke file sementara, di-fsync, lalu diganti namanya secara atomik, sehingga segmen
+ * yang terlihat selalu lengkap.
+ */
+public class BMIRecordArchive {
+    static final int BLOCK_RECORDS = 4096;            // Jumlah data maksimal dalam satu blok
+    static final int DEFAULT_CACHED_BLOCKS = 16;      // Jumlah blok hasil dekompresi yang di-cache
+    private static final int MAGIC = 0x424D4131;      // "BMA1"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 12;        // Magic, versi, jumlah blok
+    private static final int INDEX_ENTRY_SIZE = 36;   // Waktu min/max, jumlah, posisi, panjang, CRC32
+    private static final int TRAILER_SIZE = 12;       // Posisi indeks dan magic
+    private static final String PREFIX = "segment-";
+    private static final String SUFFIX = ".bmia";
+
+    private final Path directory;                     // Folder segmen
+    private final List<Segment> segments = new ArrayList<>(); // Segmen terurut berdasarkan nomor
+    private final Map<Long, List<BMIRecord>> blockCache; // Cache blok hasil dekompresi (LRU)
+    private long size;                                // Jumlah seluruh data di arsip
+    private long minTimestamp = Long.MAX_VALUE;       // Waktu terkecil di arsip
+    private long maxTimestamp = Long.MIN_VALUE;       // Waktu terbesar di arsip
+    private long blockReads;                          // Jumlah blok yang dibaca dari disk
+
+    /**
+     * Constructor untuk membuka arsip di folder tertentu dengan ukuran cache blok bawaan.
+     * Folder dibuat saat segmen pertama ditulis.
+     *
+     * @param directory Folder segmen arsip.
+     * @throws IOException jika indeks segmen tidak dapat dibaca.
+     */
+    public BMIRecordArchive(Path directory) throws IOException {
+        this(directory, DEFAULT_CACHED_BLOCKS);
+    }
+
+    /**
+     * Constructor untuk membuka arsip di folder tertentu.
+     *
+     * @param directory    Folder segmen arsip.
+     * @param cachedBlocks Jumlah blok hasil dekompresi yang disimpan di memori.
+     * @throws IOException              jika indeks segmen tidak dapat dibaca.
+     * @throws IllegalArgumentException jika cachedBlocks bernilai negatif.
+     */
+    public BMIRecordArchive(Path directory, final int cachedBlocks) throws IOException {
+        if (cachedBlocks < 0) {
+            throw new IllegalArgumentException("Jumlah cache blok tidak boleh negatif.");
+        }
+        this.directory = directory;
+        this.blockCache = new LinkedHashMap<Long, List<BMIRecord>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, List<BMIRecord>> eldest) {
+                return size() > cachedBlocks;
+            }
+        };
+        if (Files.isDirectory(directory)) {
+            List<Path> files = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+                for (Path file : stream) {
+                    files.add(file);
+                }
+            }
+            files.sort(Comparator.comparing(Path::toString));
+            for (Path file : files) {
+                addSegment(readIndex(file, parseNumber(file)));
+            }
+        }
+    }
+
+    /**
+     * Menulis data sebagai segmen baru. Data diurutkan berdasarkan waktu sebelum dibagi menjadi blok.
+     * Segmen sudah tersimpan permanen di disk ketika metode ini selesai.
+     *
+     * @param records Data yang akan diarsipkan.
+     * @throws IOException jika segmen gagal ditulis.
+     */
+    public synchronized void append(List<BMIRecord> records) throws IOException {
+        if (records.isEmpty()) {
+            return;
+        }
+        List<BMIRecord> sorted = new ArrayList<>(records);
+        sorted.sort(Comparator.comparingLong(BMIRecord::getTimestamp));
+        int number = segments.isEmpty() ? 1 : segments.get(segments.size() - 1).number + 1;
+        int blockCount = (sorted.size() + BLOCK_RECORDS - 1) / BLOCK_RECORDS;
+        Segment segment = new Segment(directory.resolve(String.format("%s%06d%s", PREFIX, number, SUFFIX)),
+                number, blockCount);
+
+        Files.createDirectories(directory);
+        Path temp = segment.file.resolveSibling(segment.file.getFileName() + ".tmp");
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).putInt(blockCount);
+            header.flip();
+            writeFully(out, header);
+            long position = HEADER_SIZE;
+            for (int block = 0; block < blockCount; block++) {
+                List<BMIRecord> blockRecords = sorted.subList(block * BLOCK_RECORDS,
+                        Math.min(sorted.size(), (block + 1) * BLOCK_RECORDS));
+                byte[] compressed = compress(deflater, BMIRecordCodec.encode(blockRecords));
+                CRC32 crc = new CRC32();
+                crc.update(compressed, 0, compressed.length);
+                segment.minTimestamps[block] = blockRecords.get(0).getTimestamp();
+                segment.maxTimestamps[block] = blockRecords.get(blockRecords.size() - 1).getTimestamp();
+                segment.counts[block] = blockRecords.size();
+                segment.offsets[block] = position;
+                segment.lengths[block] = compressed.length;
+                segment.checksums[block] = (int) crc.getValue();
+                writeFully(out, ByteBuffer.wrap(compressed));
+                position += compressed.length;
+            }
+            ByteBuffer index = ByteBuffer.allocate(blockCount * INDEX_ENTRY_SIZE + TRAILER_SIZE);
+            for (int block = 0; block < blockCount; block++) {
+                index.putLong(segment.minTimestamps[block]).putLong(segment.maxTimestamps[block])
+                        .putInt(segment.counts[block]).putLong(segment.offsets[block])
+                        .putInt(segment.lengths[block]).putInt(segment.checksums[block]);
+            }
+            index.putLong(position).putInt(MAGIC);
+            index.flip();
+            writeFully(out, index);
+            out.force(true);
+        } finally {
+            deflater.end();
+        }
+        Files.move(temp, segment.file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        addSegment(segment);
+    }
+
+    /**
+     * Mendapatkan data arsip dengan waktu input dalam rentang [from, to). Hanya blok yang rentang
+     * waktunya beririsan dengan query yang dibaca dari disk.
+     *
+     * @param from Awal rentang dalam epoch milidetik (inklusif).
+     * @param to   Akhir rentang dalam epoch milidetik (eksklusif).
+     * @return Daftar data dalam rentang, terurut berdasarkan waktu.
+     * @throws IOException jika blok tidak dapat dibaca atau rusak.
+     */
+    public synchronized List<BMIRecord> range(long from, long to) throws IOException {
+        List<BMIRecord> result = new ArrayList<>();
+        if (!overlaps(from, to)) {
+            return result;
+        }
+        int contributing = 0;
+        for (Segment segment : segments) {
+            int before = result.size();
+            for (int block = 0; block < segment.counts.length; block++) {
+                if (segment.maxTimestamps[block] < from || segment.minTimestamps[block] >= to) {
+                    continue;
+                }
+                for (BMIRecord record : loadBlock(segment, block)) {
+                    if (record.getTimestamp() >= from && record.getTimestamp() < to) {
+                        result.add(record);
+                    }
+                }
+            }
+            if (result.size() > before) {
+                contributing++;
+            }
+        }
+        if (contributing > 1) { // Segmen yang berbeda dapat beririsan waktunya
+            result.sort(Comparator.comparingLong(BMIRecord::getTimestamp));
+        }
+        return result;
+    }
+
+    /**
+     * Menghitung jumlah data arsip dengan waktu input dalam rentang [from, to). Blok yang seluruhnya
+     * berada di dalam rentang dihitung dari indeks tanpa dibaca.
+     *
+     * @param from Awal rentang dalam epoch milidetik (inklusif).
+     * @param to   Akhir rentang dalam epoch milidetik (eksklusif).
+     * @return Jumlah data dalam rentang.
+     * @throws IOException jika blok tidak dapat dibaca atau rusak.
+     */
+    public synchronized long count(long from, long to) throws IOException {
+        if (!overlaps(from, to)) {
+            return 0;
+        }
+        long count = 0;
+        for (Segment segment : segments) {
+            for (int block = 0; block < segment.counts.length; block++) {
+                long min = segment.minTimestamps[block];
+                long max = segment.maxTimestamps[block];
+                if (max < from || min >= to) {
+                    continue;
+                }
+                if (min >= from && max < to) {
+                    count += segment.counts[block];
+                    continue;
+                }
+                for (BMIRecord record : loadBlock(segment, block)) {
+                    if (record.getTimestamp() >= from && record.getTimestamp() < to) {
+                        count++;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Mengembalikan blok-blok yang beririsan dengan rentang [from, to) sesuai urutan waktu, hanya dari
+     * indeks segmen tanpa membaca isi blok. Dengan jumlah data per blok, pemanggil dapat melewati blok
+     * yang berada sebelum halaman yang diminta tanpa mendekompresinya (lihat
+     * Program.BMIRecordsManager#getRecords(long, long, int, int)).
+     *
+     * @param from Awal rentang dalam epoch milidetik (inklusif).
+     * @param to   Akhir rentang dalam epoch milidetik (eksklusif).
+     * @return Blok terurut berdasarkan waktu, atau null jika rentang waktu blok dari segmen yang berbeda
+     * saling tumpang tindih sehingga urutan data tidak dapat ditentukan dari indeks.
+     */
+    synchronized List<Block> blocks(long from, long to) {
+        List<Block> blocks = new ArrayList<>();
+        if (!overlaps(from, to)) {
+            return blocks;
+        }
+        for (Segment segment : segments) {
+            for (int block = 0; block < segment.counts.length; block++) {
+                if (segment.maxTimestamps[block] >= from && segment.minTimestamps[block] < to) {
+                    blocks.add(new Block(segment, block));
+                }
+            }
+        }
+        blocks.sort(Comparator.comparingLong((Block block) -> block.minTimestamp)
+                .thenComparingInt(block -> block.segment.number)
+                .thenComparingInt(block -> block.index));
+        for (int i = 1; i < blocks.size(); i++) {
+            Block previous = blocks.get(i - 1);
+            Block next = blocks.get(i);
+            // Data dengan waktu yang sama diurutkan sesuai nomor segmen, seperti pada range().
+            if (previous.maxTimestamp > next.minTimestamp
+                    || previous.maxTimestamp == next.minTimestamp && previous.segment.number > next.segment.number) {
+                return null;
+            }
+        }
+        return blocks;
+    }
+
+    /**
+     * Membaca isi satu blok dari cache atau dari disk.
+     *
+     * @param block Blok dari {@link #blocks(long, long)}.
+     * @return Data di dalam blok, terurut berdasarkan waktu. Daftar ini tidak boleh diubah.
+     * @throws IOException jika blok tidak dapat dibaca atau rusak.
+     */
+    synchronized List<BMIRecord> read(Block block) throws IOException {
+        return loadBlock(block.segment, block.index);
+    }
+
+    /**
+     * Memeriksa apakah rentang [from, to) beririsan dengan rentang waktu arsip, tanpa membaca blok.
+     *
+     * @param from Awal rentang dalam epoch milidetik (inklusif).
+     * @param to   Akhir rentang dalam epoch milidetik (eksklusif).
+     * @return true jika arsip mungkin berisi data dalam rentang tersebut.
+     */
+    public synchronized boolean overlaps(long from, long to) {
+        return size > 0 && from < to && maxTimestamp >= from && minTimestamp < to;
+    }
+
+    /**
+     * Memeriksa apakah data yang sama persis (waktu, tinggi, berat, BMI, dan rekomendasi) sudah ada
+     * di arsip. Dipakai untuk membuang data yang sudah diarsipkan tetapi belum terhapus dari journal
+     * akibat crash.
+     *
+     * @param record Data yang dicari.
+     * @return true jika data sudah ada di arsip.
+     * @throws IOException jika blok tidak dapat dibaca atau rusak.
+     */
+    public synchronized boolean contains(BMIRecord record) throws IOException {
+        long timestamp = record.getTimestamp();
+        if (timestamp == Long.MAX_VALUE) {
+            return false;
+        }
+        for (BMIRecord archived : range(timestamp, timestamp + 1)) {
+            if (Double.compare(archived.getHeight(), record.getHeight()) == 0
+                    && Double.compare(archived.getWeight(), record.getWeight()) == 0
+                    && Double.compare(archived.getBmi(), record.getBmi()) == 0
+                    && Objects.equals(archived.getRecommendation(), record.getRecommendation())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Mengembalikan jumlah seluruh data di arsip.
+     *
+     * @return Jumlah data.
+     */
+    public synchronized long size() {
+        return size;
+    }
+
+    /**
+     * Mengembalikan waktu input terkecil di arsip.
+     *
+     * @return Waktu dalam epoch milidetik, atau Long.MAX_VALUE jika arsip kosong.
+     */
+    public synchronized long getMinTimestamp() {
+        return minTimestamp;
+    }
+
+    /**
+     * Mengembalikan waktu input terbesar di arsip.
+     *
+     * @return Waktu dalam epoch milidetik, atau Long.MIN_VALUE jika arsip kosong.
+     */
+    public synchronized long getMaxTimestamp() {
+        return maxTimestamp;
+    }
+
+    /**
+     * Mengembalikan jumlah file segmen.
+     *
+     * @return Jumlah segmen.
+     */
+    synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * Mengembalikan jumlah blok yang sudah dibaca dan didekompresi dari disk (tanpa cache hit).
+     *
+     * @return Jumlah pembacaan blok.
+     */
+    synchronized long getBlockReads() {
+        return blockReads;
+    }
+
+    /**
+     * Menambahkan segmen ke daftar dan memperbarui ringkasan arsip.
+     */
+    private void addSegment(Segment segment) {
+        segments.add(segment);
+        for (int block = 0; block < segment.counts.length; block++) {
+            size += segment.counts[block];
+            minTimestamp = Math.min(minTimestamp, segment.minTimestamps[block]);
+            maxTimestamp = Math.max(maxTimestamp, segment.maxTimestamps[block]);
+        }
+    }
+
+    /**
+     * Membaca satu blok dari cache atau dari disk.
+     */
+    private List<BMIRecord> loadBlock(Segment segment, int block) throws IOException {
+        Long key = (long) segment.number << 32 | block;
+        List<BMIRecord> records = blockCache.get(key);
+        if (records != null) {
+            return records;
+        }
+        ByteBuffer compressed = ByteBuffer.allocate(segment.lengths[block]);
+        try (FileChannel in = FileChannel.open(segment.file, StandardOpenOption.READ)) {
+            readFully(in, compressed, segment.offsets[block]);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(compressed.array(), 0, compressed.capacity());
+        if ((int) crc.getValue() != segment.checksums[block]) {
+            throw new IOException("Checksum blok " + block + " di " + segment.file + " tidak sesuai.");
+        }
+        records = BMIRecordCodec.decode(ByteBuffer.wrap(decompress(compressed.array())));
+        if (records.size() != segment.counts[block]) {
+            throw new IOException("Jumlah data blok " + block + " di " + segment.file + " tidak sesuai.");
+        }
+        blockReads++;
+        blockCache.put(key, records);
+        return records;
+    }
+
+    /**
+     * Membaca header dan indeks blok sebuah segmen tanpa membaca isi blok.
+     */
+    private static Segment readIndex(Path file, int number) throws IOException {
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            long fileSize = in.size();
+            if (fileSize < HEADER_SIZE + TRAILER_SIZE) {
+                throw new IOException("Segmen arsip " + file + " tidak lengkap.");
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            readFully(in, header, 0);
+            header.flip();
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException("Format segmen arsip " + file + " tidak dikenal.");
+            }
+            int blockCount = header.getInt();
+            ByteBuffer trailer = ByteBuffer.allocate(TRAILER_SIZE);
+            readFully(in, trailer, fileSize - TRAILER_SIZE);
+            trailer.flip();
+            long indexOffset = trailer.getLong();
+            if (trailer.getInt() != MAGIC || blockCount < 0
+                    || indexOffset + (long) blockCount * INDEX_ENTRY_SIZE + TRAILER_SIZE != fileSize) {
+                throw new IOException("Indeks segmen arsip " + file + " rusak.");
+            }
+            ByteBuffer index = ByteBuffer.allocate(blockCount * INDEX_ENTRY_SIZE);
+            readFully(in, index, indexOffset);
+            index.flip();
+            Segment segment = new Segment(file, number, blockCount);
+            for (int block = 0; block < blockCount; block++) {
+                segment.minTimestamps[block] = index.getLong();
+                segment.maxTimestamps[block] = index.getLong();
+                segment.counts[block] = index.getInt();
+                segment.offsets[block] = index.getLong();
+                segment.lengths[block] = index.getInt();
+                segment.checksums[block] = index.getInt();
+                if (segment.offsets[block] < HEADER_SIZE || segment.lengths[block] < 0
+                        || segment.offsets[block] + segment.lengths[block] > indexOffset) {
+                    throw new IOException("Indeks segmen arsip " + file + " rusak.");
+                }
+            }
+            return segment;
+        }
+    }
+
+    private static int parseNumber(Path file) throws IOException {
+        String name = file.getFileName().toString();
+        try {
+            return Integer.parseInt(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            throw new IOException("Nama segmen arsip tidak valid: " + name, e);
+        }
+    }
+
+    private static byte[] compress(Deflater deflater, byte[] data) {
+        deflater.reset();
+        deflater.setInput(data);
+        deflater.finish();
+        byte[] buffer = new byte[Math.max(64, data.length / 2)];
+        int length = 0;
+        while (!deflater.finished()) {
+            if (length == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            length += deflater.deflate(buffer, length, buffer.length - length);
+        }
+        return Arrays.copyOf(buffer, length);
+    }
+
+    private static byte[] decompress(byte[] data) throws IOException {
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(data);
+            byte[] buffer = new byte[Math.max(64, data.length * 4)];
+            int length = 0;
+            while (!inflater.finished()) {
+                if (length == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+                int read = inflater.inflate(buffer, length, buffer.length - length);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IOException("Blok arsip tidak lengkap.");
+                }
+                length += read;
+            }
+            return Arrays.copyOf(buffer, length);
+        } catch (DataFormatException e) {
+            throw new IOException("Blok arsip rusak.", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Segmen arsip tidak lengkap.");
+            }
+            position += read;
+        }
+    }
+
+    /**
+     * Satu blok arsip beserta ringkasannya dari indeks segmen.
+     */
+    static final class Block {
+        private final Segment segment; // Segmen pemilik blok
+        private final int index;       // Nomor blok di segmen
+        final long minTimestamp;       // Waktu terkecil di blok
+        final long maxTimestamp;       // Waktu terbesar di blok
+        final int count;               // Jumlah data di blok
+
+        private Block(Segment segment, int index) {
+            this.segment = segment;
+            this.index = index;
+            this.minTimestamp = segment.minTimestamps[index];
+            this.maxTimestamp = segment.maxTimestamps[index];
+            this.count = segment.counts[index];
+        }
+    }
+
+    /**
+     * Indeks blok sebuah segmen yang disimpan di memori.
+     */
+    private static final class Segment {
+        final Path file;            // File segmen
+        final int number;           // Nomor urut segmen
+        final long[] minTimestamps; // Waktu terkecil setiap blok
+        final long[] maxTimestamps; // Waktu terbesar setiap blok
+        final int[] counts;         // Jumlah data setiap blok
+        final long[] offsets;       // Posisi blok di file
+        final int[] lengths;        // Panjang blok terkompresi
+        final int[] checksums;      // CRC32 blok terkompresi
+
+        Segment(Path file, int number, int blockCount) {
+            this.file = file;
+            this.number = number;
+            this.minTimestamps = new long[blockCount];
+            this.maxTimestamps = new long[blockCount];
+            this.counts = new int[blockCount];
+            this.offsets = new long[blockCount];
+            this.lengths = new int[blockCount];
+            this.checksums = new int[blockCount];
+        }
+    }
+}
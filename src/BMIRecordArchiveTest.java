@@ -0,0 +1,170 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Class BMIRecordArchiveTest digunakan untuk menguji arsip terkompresi data lama dan penyimpanan
+ * bertingkat di Program.BMIRecordsManager.
+ */
+public class BMIRecordArchiveTest {
+    private static final long DAY = 24L * 60 * 60 * 1000;
+    private static final long START = 1_600_000_000_000L;
+
+    /**
+     * Metode ini menguji bahwa segmen dapat dibuka ulang dan hanya blok yang beririsan dengan query
+     * yang dibaca dari disk.
+     */
+    @Test
+    public void testRangeLoadsOnlyOverlappingBlocks() throws IOException {
+        Path directory = Files.createTempDirectory("bmi-archive");
+        int count = BMIRecordArchive.BLOCK_RECORDS * 3 - 100;
+        List<BMIRecord> history = dailyHistory(count);
+        Collections.swap(history, 5, 5000); // Data tidak harus terurut
+        new BMIRecordArchive(directory).append(history);
+
+        BMIRecordArchive archive = new BMIRecordArchive(directory);
+        assertEquals(count, archive.size(), "Jumlah data arsip tidak sesuai.");
+        assertEquals(1, archive.getSegmentCount(), "Jumlah segmen tidak sesuai.");
+        assertEquals(0, archive.getBlockReads(), "Membuka arsip tidak boleh membaca blok.");
+
+        long from = START + (BMIRecordArchive.BLOCK_RECORDS + 10) * DAY;
+        List<BMIRecord> range = archive.range(from, from + 30 * DAY);
+        assertEquals(30, range.size(), "Jumlah data dalam rentang tidak sesuai.");
+        assertEquals(from, range.get(0).getTimestamp(), "Data pertama dalam rentang tidak sesuai.");
+        assertEquals(history.get(BMIRecordArchive.BLOCK_RECORDS + 10).getWeight(), range.get(0).getWeight(),
+                "Isi data arsip tidak sesuai.");
+        assertEquals(1, archive.getBlockReads(), "Hanya satu blok yang seharusnya dibaca.");
+
+        archive.range(from + DAY, from + 2 * DAY);
+        assertEquals(1, archive.getBlockReads(), "Blok yang sama seharusnya diambil dari cache.");
+        assertEquals(count, archive.count(Long.MIN_VALUE, Long.MAX_VALUE), "Jumlah seluruh data tidak sesuai.");
+        assertEquals(1, archive.getBlockReads(), "Blok yang seluruhnya di dalam rentang dihitung dari indeks.");
+
+        assertTrue(archive.contains(history.get(42)), "Data yang diarsipkan seharusnya ditemukan.");
+        assertFalse(archive.contains(new BMIRecord(history.get(42).getTimestamp(), 170, 1, 1, "Bulking")),
+                "Data yang berbeda tidak boleh dianggap sama.");
+        assertTrue(archive.range(START - 10 * DAY, START).isEmpty(), "Rentang di luar arsip harus kosong.");
+    }
+
+    /**
+     * Metode ini menguji bahwa data lama dipindahkan ke arsip saat dimuat, tetapi tetap muncul di query
+     * rentang waktu bersama data di memori.
+     */
+    @Test
+    public void testManagerMovesOldRecordsToArchive() throws IOException {
+        File directory = Files.createTempDirectory("bmi-tiered").toFile();
+        long now = System.currentTimeMillis();
+        List<BMIRecord> old = new ArrayList<>();
+        try (BMIRecordsManager manager = new BMIRecordsManager(directory)) {
+            for (int i = 0; i < 500; i++) {
+                BMIRecord record = new BMIRecord(now - (1000 - i) * DAY, 170, 80 - i * 0.01, 27.5, "Diet");
+                old.add(record);
+                manager.addRecord(record);
+            }
+            for (int i = 0; i < 20; i++) {
+                manager.addRecordAsync(new BMIRecord(now - (20 - i) * DAY, 170, 75, 25.9, "Diet")).join();
+            }
+        }
+
+        try (BMIRecordsManager manager = new BMIRecordsManager(directory, 365 * DAY)) {
+            assertEquals(20, manager.getTotalRecords(), "Hanya data terbaru yang tetap di memori.");
+            assertEquals(500, manager.getArchivedRecords(), "Data lama seharusnya diarsipkan.");
+            assertEquals(520, manager.countRecords(Long.MIN_VALUE, Long.MAX_VALUE), "Jumlah data gabungan tidak sesuai.");
+
+            List<BMIRecord> all = manager.getRecords(Long.MIN_VALUE, Long.MAX_VALUE);
+            assertEquals(520, all.size(), "Query rentang harus mencakup data arsip.");
+            for (int i = 1; i < all.size(); i++) {
+                assertTrue(all.get(i - 1).getTimestamp() <= all.get(i).getTimestamp(), "Hasil harus terurut waktu.");
+            }
+            assertEquals(old.get(0).getTimestamp(), all.get(0).getTimestamp(), "Data tertua tidak sesuai.");
+            assertEquals(10, manager.getRecords(Long.MIN_VALUE, Long.MAX_VALUE, 495, 10).size(),
+                    "Halaman yang melintasi arsip dan memori tidak sesuai.");
+            assertEquals(20, manager.getRecords(now - 30 * DAY, now).size(), "Query data terbaru tidak sesuai.");
+        }
+
+        try (BMIRecordsManager manager = new BMIRecordsManager(directory)) {
+            assertEquals(20, manager.getTotalRecords(), "Data yang diarsipkan tidak boleh kembali ke journal.");
+            assertEquals(500, manager.getArchivedRecords(), "Arsip seharusnya tetap ada setelah dimuat ulang.");
+        }
+    }
+
+    /**
+     * Metode ini menguji bahwa data yang sudah diarsipkan tetapi masih ada di journal (crash di antara
+     * penulisan segmen dan penggantian journal) tidak muncul dua kali.
+     */
+    @Test
+    public void testRecoversFromCrashAfterSegmentWrite() throws IOException {
+        File directory = Files.createTempDirectory("bmi-tiered-crash").toFile();
+        List<BMIRecord> old = dailyHistory(10);
+        try (BMIRecordsManager manager = new BMIRecordsManager(directory)) {
+            for (BMIRecord record : old) {
+                manager.addRecord(record);
+            }
+            manager.addRecordAsync(BMIRecord.calculate(170, 70)).join();
+        }
+        new BMIRecordArchive(new File(directory, "bmi_records.archive").toPath()).append(old);
+
+        try (BMIRecordsManager manager = new BMIRecordsManager(directory)) {
+            assertEquals(1, manager.getTotalRecords(), "Data yang sudah diarsipkan harus dihapus dari memori.");
+            assertEquals(11, manager.countRecords(Long.MIN_VALUE, Long.MAX_VALUE), "Data tidak boleh muncul dua kali.");
+        }
+    }
+
+    /**
+     * Metode ini menguji bahwa halaman yang jauh di dalam arsip hanya membaca blok di sekitar halaman,
+     * dan hasilnya sama dengan menggabungkan seluruh rentang.
+     */
+    @Test
+    public void testPagingSkipsArchivedBlocks() throws IOException {
+        File directory = Files.createTempDirectory("bmi-archive-paging").toFile();
+        int count = BMIRecordArchive.BLOCK_RECORDS * 4;
+        List<BMIRecord> history = dailyHistory(count);
+        new BMIRecordArchive(new File(directory, "bmi_records.archive").toPath()).append(history);
+
+        try (BMIRecordsManager manager = new BMIRecordsManager(directory)) {
+            // Data di memori yang waktunya berada di antara dan sama dengan data arsip
+            for (int i = 0; i < 50; i++) {
+                BMIRecord archived = history.get(i * 300 + 7);
+                manager.addRecord(new BMIRecord(archived.getTimestamp() + (i % 2) * DAY / 2, 170, 70, 24.2, "Diet"));
+            }
+            manager.addRecord(new BMIRecord(START + count * DAY, 170, 70, 24.2, "Diet"));
+
+            int offset = BMIRecordArchive.BLOCK_RECORDS * 3 + 5;
+            List<BMIRecord> page = manager.getRecords(Long.MIN_VALUE, Long.MAX_VALUE, offset, 20);
+            assertEquals(1, manager.getArchiveBlockReads(), "Hanya blok yang memuat halaman yang seharusnya dibaca.");
+
+            List<BMIRecord> all = manager.getRecords(Long.MIN_VALUE, Long.MAX_VALUE);
+            assertEquals(count + 51, all.size(), "Jumlah data gabungan tidak sesuai.");
+            assertEquals(all.subList(offset, offset + 20), page, "Halaman tidak sama dengan hasil penggabungan.");
+
+            long from = START + 1000 * DAY + DAY / 2;
+            long to = START + (count - 10) * DAY;
+            List<BMIRecord> range = manager.getRecords(from, to);
+            for (int start : new int[]{0, 1, 150, BMIRecordArchive.BLOCK_RECORDS * 2 + 3, range.size() - 5, range.size() + 5}) {
+                int end = Math.min(start + 40, range.size());
+                assertEquals(range.subList(Math.min(start, end), end), manager.getRecords(from, to, start, 40),
+                        "Halaman pada offset " + start + " tidak sesuai.");
+            }
+            assertEquals(range.size() - 10, manager.getRecords(from, to, 10, Integer.MAX_VALUE).size(),
+                    "Halaman tanpa batas tidak sesuai.");
+        }
+    }
+
+    private static List<BMIRecord> dailyHistory(int days) {
+        List<BMIRecord> history = new ArrayList<>(days);
+        for (int i = 0; i < days; i++) {
+            double weight = 80 - i * 0.005 + Math.sin(i / 7.0);
+            history.add(new BMIRecord(START + i * DAY, 170, weight, BMICategory.computeBmi(170, weight),
+                    BMICategory.of(BMICategory.computeBmi(170, weight)).getRecommendation()));
+        }
+        return history;
+    }
+}
@@ -0,0 +1,324 @@
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Class Program.BMIRecordCodec mengubah daftar Program.BMIRecord ke format biner yang ringkas dan
+ * berversi, sebagai pengganti Java serialization (ObjectOutputStream).
+ * <p>
+ * Format file: magic "BMB1", versi (1 byte), jumlah data (varint), lalu setiap data berisi:
+ * <ul>
+ *     <li>flag (1 byte) yang menandai cara penyimpanan nilai di bawah,</li>
+ *     <li>selisih timestamp dari data sebelumnya (zigzag varint),</li>
+ *     <li>tinggi dan berat sebagai varint dalam satuan 0,1 jika nilainya tepat, atau double 8 byte,</li>
+ *     <li>BMI sebagai double 8 byte, atau tidak disimpan jika sama persis dengan hasil hitung
+ *         dari tinggi dan berat,</li>
+ *     <li>rekomendasi sebagai indeks kamus (varint); string baru disimpan sekali lalu dipakai ulang.</li>
+ * </ul>
+ * Semua nilai dapat dibaca kembali tanpa kehilangan presisi. File lama hasil Java serialization
+ * ({@code bmi_records.dat} dan {@code bmi_records.ser}) tetap dapat dibaca oleh {@link #load(Path)}.
+ */
+public class BMIRecordCodec {
+    private static final int MAGIC = 0x424D4231;  // "BMB1"
+    private static final byte VERSION = 1;
+    private static final int SERIALIZATION_MAGIC = 0xACED; // Awal stream Java serialization
+    private static final int FLAG_HEIGHT_TENTHS = 1;       // Tinggi disimpan sebagai varint per 0,1 cm
+    private static final int FLAG_WEIGHT_TENTHS = 2;       // Berat disimpan sebagai varint per 0,1 kg
+    private static final int FLAG_BMI_DERIVED = 4;         // BMI dihitung ulang dari tinggi dan berat
+    private static final int FLAG_NO_RECOMMENDATION = 8;   // Rekomendasi bernilai null
+    private static final String[] INITIAL_DICTIONARY = {"", "Ideal", "Diet", "Bulking"};
+
+    private BMIRecordCodec() {
+    }
+
+    /**
+     * Menyimpan daftar Program.BMIRecord ke file secara atomik (melalui file sementara).
+     *
+     * @param file    Lokasi file tujuan.
+     * @param records Data yang akan disimpan.
+     * @throws IOException jika file gagal ditulis.
+     */
+    public static void save(Path file, List<BMIRecord> records) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(temp, encode(records));
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Memuat daftar Program.BMIRecord dari file. File dalam format biner ini maupun file lama
+     * hasil Java serialization dikenali secara otomatis.
+     *
+     * @param file Lokasi file sumber.
+     * @return Daftar Program.BMIRecord.
+     * @throws IOException jika file tidak dapat dibaca atau formatnya tidak dikenal.
+     */
+    public static ArrayList<BMIRecord> load(Path file) throws IOException {
+        byte[] data = Files.readAllBytes(file);
+        if (data.length >= 2 && ((data[0] & 0xFF) << 8 | (data[1] & 0xFF)) == SERIALIZATION_MAGIC) {
+            return readLegacy(data);
+        }
+        return decode(ByteBuffer.wrap(data));
+    }
+
+    /**
+     * Menulis daftar Program.BMIRecord ke stream dalam format biner.
+     *
+     * @param records Data yang akan ditulis.
+     * @param out     Stream tujuan.
+     * @throws IOException jika penulisan gagal.
+     */
+    public static void write(List<BMIRecord> records, OutputStream out) throws IOException {
+        out.write(encode(records));
+    }
+
+    /**
+     * Mengubah daftar Program.BMIRecord menjadi array byte dalam format biner.
+     *
+     * @param records Data yang akan diubah.
+     * @return Hasil encoding.
+     */
+    public static byte[] encode(List<BMIRecord> records) {
+        Encoder encoder = new Encoder(16 + records.size() * 12);
+        encoder.putInt(MAGIC);
+        encoder.putByte(VERSION);
+        encoder.putVarLong(records.size());
+
+        Map<String, Integer> dictionary = new HashMap<>();
+        for (String value : INITIAL_DICTIONARY) {
+            dictionary.put(value, dictionary.size() + 1);
+        }
+        long previousTimestamp = 0;
+        for (BMIRecord record : records) {
+            double height = record.getHeight();
+            double weight = record.getWeight();
+            double bmi = record.getBmi();
+            String recommendation = record.getRecommendation();
+            long heightTenths = tenths(height);
+            long weightTenths = tenths(weight);
+            int flags = 0;
+            if (heightTenths >= 0) {
+                flags |= FLAG_HEIGHT_TENTHS;
+            }
+            if (weightTenths >= 0) {
+                flags |= FLAG_WEIGHT_TENTHS;
+            }
+            if (Double.doubleToLongBits(bmi) == Double.doubleToLongBits(computeBmi(height, weight))) {
+                flags |= FLAG_BMI_DERIVED;
+            }
+            if (recommendation == null) {
+                flags |= FLAG_NO_RECOMMENDATION;
+            }
+            encoder.putByte(flags);
+
+            long timestamp = record.getTimestamp();
+            long delta = timestamp - previousTimestamp;
+            encoder.putVarLong((delta << 1) ^ (delta >> 63)); // Zigzag agar selisih negatif tetap pendek
+            previousTimestamp = timestamp;
+
+            if (heightTenths >= 0) {
+                encoder.putVarLong(heightTenths);
+            } else {
+                encoder.putDouble(height);
+            }
+            if (weightTenths >= 0) {
+                encoder.putVarLong(weightTenths);
+            } else {
+                encoder.putDouble(weight);
+            }
+            if ((flags & FLAG_BMI_DERIVED) == 0) {
+                encoder.putDouble(bmi);
+            }
+            if (recommendation != null) {
+                Integer code = dictionary.get(recommendation);
+                if (code != null) {
+                    encoder.putVarLong(code);
+                } else {
+                    encoder.putVarLong(0); // String baru, langsung ditambahkan ke kamus
+                    byte[] bytes = recommendation.getBytes(StandardCharsets.UTF_8);
+                    encoder.putVarLong(bytes.length);
+                    encoder.putBytes(bytes);
+                    dictionary.put(recommendation, dictionary.size() + 1);
+                }
+            }
+        }
+        return encoder.toByteArray();
+    }
+
+    /**
+     * Membaca daftar Program.BMIRecord dari buffer dalam format biner.
+     *
+     * @param buffer Buffer sumber.
+     * @return Daftar Program.BMIRecord.
+     * @throws IOException jika format tidak dikenal atau data tidak lengkap.
+     */
+    public static ArrayList<BMIRecord> decode(ByteBuffer buffer) throws IOException {
+        try {
+            if (buffer.remaining() < 5 || buffer.getInt() != MAGIC) {
+                throw new IOException("Format file data BMI tidak dikenal.");
+            }
+            byte version = buffer.get();
+            if (version != VERSION) {
+                throw new IOException("Versi format data BMI tidak didukung: " + version);
+            }
+            long count = getVarLong(buffer);
+            if (count < 0 || count > buffer.remaining()) { // Setiap data minimal 1 byte
+                throw new IOException("Jumlah data tidak valid: " + count);
+            }
+
+            List<String> dictionary = new ArrayList<>(Arrays.asList(INITIAL_DICTIONARY));
+            ArrayList<BMIRecord> records = new ArrayList<>((int) count);
+            long timestamp = 0;
+            for (long i = 0; i < count; i++) {
+                int flags = buffer.get();
+                long zigzag = getVarLong(buffer);
+                timestamp += (zigzag >>> 1) ^ -(zigzag & 1);
+                double height = (flags & FLAG_HEIGHT_TENTHS) != 0 ? getVarLong(buffer) / 10.0 : buffer.getDouble();
+                double weight = (flags & FLAG_WEIGHT_TENTHS) != 0 ? getVarLong(buffer) / 10.0 : buffer.getDouble();
+                double bmi = (flags & FLAG_BMI_DERIVED) != 0 ? computeBmi(height, weight) : buffer.getDouble();
+                String recommendation = null;
+                if ((flags & FLAG_NO_RECOMMENDATION) == 0) {
+                    long code = getVarLong(buffer);
+                    if (code == 0) {
+                        byte[] bytes = new byte[(int) getVarLong(buffer)];
+                        buffer.get(bytes);
+                        recommendation = new String(bytes, StandardCharsets.UTF_8);
+                        dictionary.add(recommendation);
+                    } else if (code <= dictionary.size()) {
+                        recommendation = dictionary.get((int) code - 1);
+                    } else {
+                        throw new IOException("Kode rekomendasi tidak valid: " + code);
+                    }
+                }
+                records.add(new BMIRecord(timestamp, height, weight, bmi, recommendation));
+            }
+            return records;
+        } catch (BufferUnderflowException | NegativeArraySizeException e) {
+            throw new IOException("File data BMI tidak lengkap.", e);
+        }
+    }
+
+    /**
+     * Membaca file lama hasil Java serialization berisi ArrayList Program.BMIRecord.
+     * Field yang belum ada pada versi lama (misalnya tinggi dan berat di bmi_records.ser)
+     * bernilai bawaan.
+     *
+     * @param data Isi file.
+     * @return Daftar Program.BMIRecord.
+     * @throws IOException jika file tidak dapat dibaca.
+     */
+    @SuppressWarnings("unchecked")
+    static ArrayList<BMIRecord> readLegacy(byte[] data) throws IOException {
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(data))) {
+            return (ArrayList<BMIRecord>) ois.readObject();
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new IOException("File data lama tidak dapat dibaca: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Menghitung BMI dengan rumus yang sama seperti Program.BMIRecord#calculate, sehingga nilai BMI
+     * dari aplikasi dapat dihitung ulang secara persis dan tidak perlu disimpan.
+     *
+     * @param height Tinggi badan dalam cm.
+     * @param weight Berat badan dalam kg.
+     * @return Nilai BMI.
+     */
+    static double computeBmi(double height, double weight) {
+        return BMICategory.computeBmi(height, weight);
+    }
+
+    /**
+     * Mengubah nilai menjadi satuan 0,1 jika dapat dikembalikan secara persis.
+     *
+     * @param value Nilai asli.
+     * @return Nilai dalam satuan 0,1, atau -1 jika tidak dapat disimpan tanpa kehilangan presisi.
+     */
+    private static long tenths(double value) {
+        if (!(value >= 0 && value < 1e9)) {
+            return -1;
+        }
+        long tenths = Math.round(value * 10);
+        return tenths / 10.0 == value ? tenths : -1;
+    }
+
+    private static long getVarLong(ByteBuffer buffer) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IOException("Varint tidak valid.");
+    }
+
+    /**
+     * Buffer byte yang dapat bertambah untuk proses encoding.
+     */
+    private static final class Encoder {
+        private byte[] buffer;
+        private int position;
+
+        private Encoder(int capacity) {
+            buffer = new byte[capacity];
+        }
+
+        private void ensure(int length) {
+            if (position + length > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + length));
+            }
+        }
+
+        private void putByte(int value) {
+            ensure(1);
+            buffer[position++] = (byte) value;
+        }
+
+        private void putInt(int value) {
+            ensure(4);
+            for (int shift = 24; shift >= 0; shift -= 8) {
+                buffer[position++] = (byte) (value >>> shift);
+            }
+        }
+
+        private void putDouble(double value) {
+            ensure(8);
+            long bits = Double.doubleToRawLongBits(value);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buffer[position++] = (byte) (bits >>> shift);
+            }
+        }
+
+        private void putVarLong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        private void putBytes(byte[] bytes) {
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        private byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+    }
+}
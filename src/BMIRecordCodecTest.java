@@ -0,0 +1,81 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Class BMIRecordCodecTest digunakan untuk menguji format biner ringkas untuk data BMI.
+ */
+public class BMIRecordCodecTest {
+
+    /**
+     * Metode ini menguji bahwa semua nilai dapat dibaca kembali persis seperti aslinya.
+     */
+    @Test
+    public void testRoundTrip() throws IOException {
+        List<BMIRecord> records = Arrays.asList(
+                new BMIRecord(1_734_900_000_000L, 170, 65, BMIRecordCodec.computeBmi(170, 65), "Ideal"),
+                new BMIRecord(1_734_800_000_000L, 172.5, 80.25, 26.969, "Diet"),
+                new BMIRecord(1_734_900_060_000L, 0.123456, 49.9, 17.1, "Catatan khusus"),
+                new BMIRecord(1_734_900_120_000L, 160, 40, 15.62, "Catatan khusus"),
+                new BMIRecord(1_734_900_180_000L, 160, 40, 15.62, null));
+
+        ArrayList<BMIRecord> decoded = BMIRecordCodec.decode(ByteBuffer.wrap(BMIRecordCodec.encode(records)));
+
+        assertEquals(records.size(), decoded.size());
+        for (int i = 0; i < records.size(); i++) {
+            BMIRecord expected = records.get(i);
+            BMIRecord actual = decoded.get(i);
+            assertEquals(expected.getTimestamp(), actual.getTimestamp(), "Timestamp tidak sama.");
+            assertEquals(expected.getHeight(), actual.getHeight(), 0);
+            assertEquals(expected.getWeight(), actual.getWeight(), 0);
+            assertEquals(expected.getBmi(), actual.getBmi(), 0);
+            assertEquals(expected.getRecommendation(), actual.getRecommendation());
+        }
+    }
+
+    /**
+     * Metode ini menguji pembacaan file lama hasil Java serialization dan ukuran format baru.
+     */
+    @Test
+    public void testLegacyMigrationAndSize() throws IOException {
+        ArrayList<BMIRecord> records = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            int height = 150 + i % 40;
+            int weight = 45 + i % 60;
+            records.add(new BMIRecord(1_734_900_000_000L + i * 3_600_000L, height, weight,
+                    BMIRecordCodec.computeBmi(height, weight), i % 2 == 0 ? "Diet" : "Bulking"));
+        }
+        Path legacy = Files.createTempFile("bmi_records", ".dat");
+        try (ObjectOutputStream oos = new ObjectOutputStream(Files.newOutputStream(legacy))) {
+            oos.writeObject(records);
+        }
+
+        ArrayList<BMIRecord> migrated = BMIRecordCodec.load(legacy);
+        assertEquals(1000, migrated.size(), "Jumlah data lama tidak sesuai.");
+        assertEquals(records.get(999).getDate(), migrated.get(999).getDate());
+
+        Path binary = Files.createTempFile("bmi_records", ".bin");
+        BMIRecordCodec.save(binary, migrated);
+        assertEquals(1000, BMIRecordCodec.load(binary).size());
+        assertTrue(Files.size(legacy) >= 5 * Files.size(binary),
+                "Format biner seharusnya minimal 5x lebih kecil: " + Files.size(legacy) + " vs " + Files.size(binary));
+    }
+
+    /**
+     * Metode ini menguji penolakan file yang tidak lengkap.
+     */
+    @Test
+    public void testTruncatedFile() {
+        byte[] data = BMIRecordCodec.encode(Arrays.asList(new BMIRecord(170, 65, 22.49, "Ideal")));
+        assertThrows(IOException.class, () -> BMIRecordCodec.decode(ByteBuffer.wrap(Arrays.copyOf(data, data.length - 2))));
+    }
+}
@@ -0,0 +1,856 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Class Program.BMIRecordJournal menyimpan perubahan data Program.BMIRecord sebagai write-ahead log
+ * (WAL) biner yang hanya ditambahkan (append-only), ditambah snapshot berkala.
+ * <p>
+ * Setiap operasi tambah, ubah, dan hapus ditulis sebagai satu entri dengan checksum CRC32, sehingga
+ * entri yang rusak atau terpotong akibat crash dikenali dan dibuang saat pemulihan. Rekomendasi yang
+ * dikenal disimpan sebagai kode Program.BMICategory; rekomendasi lain disimpan sebagai string UTF-8
+ * di belakang data entri, dan null disimpan sebagai kode tersendiri, sehingga rekomendasi terbaca
+ * kembali persis sama seperti di snapshot.
+ * Entri ditulis oleh Program.BMIJournalWriter di thread terpisah dan digabung menjadi group commit.
+ * <p>
+ * Jika WAL sudah cukup panjang, seluruh data aktif ditulis sebagai snapshot (format
+ * Program.BMIRecordCodec) ke file sementara yang kemudian diganti namanya secara atomik, lalu WAL
+ * dimulai ulang dengan generasi baru. Snapshot ditulis tanpa mengunci journal, sehingga entri baru
+ * tetap dapat ditulis selama snapshot dibuat; entri tersebut dipindahkan ke WAL generasi baru.
+ * Saat pemulihan, snapshot dimuat dan hanya entri WAL setelah snapshot yang diputar ulang. Jika crash
+ * terjadi di antara penggantian snapshot dan WAL, nomor generasi dan posisi WAL yang tercatat di
+ * snapshot menunjukkan bagian WAL lama yang sudah tercakup di snapshot.
+ */
+public class BMIRecordJournal implements Closeable {
+    static final int ENTRY_SIZE = 44;                // Ukuran entri tanpa string rekomendasi (40 data + 4 CRC32)
+    static final int HEADER_SIZE = 16;               // Magic number, versi format, dan generasi
+    private static final int PAYLOAD_SIZE = 40;      // Ukuran data entri tanpa checksum
+    private static final int LEGACY_HEADER_SIZE = 8; // Header versi 1 (tanpa generasi)
+    private static final int MAGIC = 0x424D4A31;     // "BMJ1"
+    private static final int VERSION = 3;
+    private static final int PREVIOUS_VERSION = 2;   // Versi 2: rekomendasi hanya berupa kode kategori
+    private static final int LEGACY_VERSION = 1;     // Versi 1: entri 40 byte tanpa checksum
+    private static final int SNAPSHOT_MAGIC = 0x424D5331; // "BMS1"
+    private static final int SNAPSHOT_VERSION = 2;
+    private static final int LEGACY_SNAPSHOT_VERSION = 1; // Versi 1: tanpa posisi WAL
+    private static final int SNAPSHOT_HEADER_SIZE = 32;   // Magic, versi, generasi, posisi WAL, panjang data, CRC32
+    private static final int LEGACY_SNAPSHOT_HEADER_SIZE = 24;
+    private static final byte OP_ADD = 1;
+    private static final byte OP_UPDATE = 2;
+    private static final byte OP_DELETE = 3;
+    private static final byte NULL_RECOMMENDATION = -1;   // Kode rekomendasi bernilai null
+    private static final byte CUSTOM_RECOMMENDATION = -2; // Rekomendasi disimpan sebagai string di entri
+    private static final int MAX_RECOMMENDATION_BYTES = 0xFFFF; // Panjang string maksimal (unsigned short)
+    private static final Logger LOGGER = Logger.getLogger(BMIRecordJournal.class.getName());
+    private static final int CHECKPOINT_MIN_ENTRIES = 1024; // Minimal entri WAL sebelum snapshot dibuat
+    private static final ExecutorService COMPACTOR = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "bmi-journal-compactor");
+        thread.setDaemon(true);
+        return thread;
+    }); // Thread background untuk membuat snapshot, dipakai bersama oleh semua journal
+    static final ChannelOpener DEFAULT_OPENER = path -> FileChannel.open(path, StandardOpenOption.CREATE,
+            StandardOpenOption.READ, StandardOpenOption.WRITE); // Membuka file WAL langsung di disk
+
+    private final Path file;              // File WAL
+    private final Path snapshotFile;      // File snapshot
+    private final BMIJournalWriter writer; // Penulis entri di thread terpisah
+    private final ChannelOpener opener;   // Pembuka channel file WAL
+    private final Object checkpointLock = new Object(); // Memastikan hanya satu snapshot ditulis sekaligus
+    private volatile CompletableFuture<Void> lastWrite = CompletableFuture.completedFuture(null);
+    private FileChannel channel;          // Channel untuk menambahkan entri
+    private long generation;              // Generasi WAL saat ini
+    private long entryCount;              // Jumlah entri di dalam WAL
+    private int liveRecords;              // Jumlah data yang masih aktif
+    private boolean compactionScheduled;  // Menandai snapshot sedang dijadwalkan
+    private long syncIntervalNanos;       // Jeda minimal antar fsync (0 = setiap batch)
+    private long lastSyncNanos;           // Waktu fsync terakhir
+    private boolean unsynced;             // Ada entri yang sudah ditulis tetapi belum di-fsync
+    private IOException failure;          // Kegagalan penulisan pertama; semua penulisan berikutnya ditolak
+
+    /**
+     * Constructor untuk membuka (atau membuat) file journal dengan penulis journal bawaan.
+     *
+     * @param file Lokasi file journal.
+     * @throws IOException jika file tidak dapat dibuka.
+     */
+    public BMIRecordJournal(Path file) throws IOException {
+        this(file, BMIJournalWriter.getDefault());
+    }
+
+    /**
+     * Constructor untuk membuka (atau membuat) file journal dengan penulis journal tertentu.
+     * Snapshot disimpan di samping file journal dengan akhiran ".snapshot".
+     *
+     * @param file   Lokasi file journal.
+     * @param writer Penulis yang menjalankan group commit.
+     * @throws IOException jika file tidak dapat dibuka.
+     */
+    public BMIRecordJournal(Path file, BMIJournalWriter writer) throws IOException {
+        this(file, writer, DEFAULT_OPENER);
+    }
+
+    /**
+     * Constructor untuk membuka (atau membuat) file journal dengan pembuka channel tertentu,
+     * misalnya channel yang dapat dibuat gagal saat pengujian.
+     *
+     * @param file   Lokasi file journal.
+     * @param writer Penulis yang menjalankan group commit.
+     * @param opener Pembuka channel file WAL (juga dipakai saat WAL diganti setelah snapshot).
+     * @throws IOException jika file tidak dapat dibuka.
+     */
+    BMIRecordJournal(Path file, BMIJournalWriter writer, ChannelOpener opener) throws IOException {
+        this.file = file;
+        this.snapshotFile = file.resolveSibling(file.getFileName() + ".snapshot");
+        this.writer = writer;
+        this.opener = opener;
+        this.channel = opener.open(file);
+        if (channel.size() == 0) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).putLong(0);
+            header.flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            channel.force(true);
+        } else if (channel.size() >= HEADER_SIZE) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            readFully(channel, header, 0);
+            if (header.getInt(0) == MAGIC && header.getInt(4) == VERSION) {
+                generation = header.getLong(8);
+                entryCount = (channel.size() - HEADER_SIZE) / ENTRY_SIZE; // Perkiraan, dihitung ulang oleh replay()
+            }
+        }
+        channel.position(channel.size());
+    }
+
+    /**
+     * Memulihkan daftar Program.BMIRecord dari snapshot terakhir dan entri WAL setelahnya.
+     * Entri terakhir yang tidak lengkap atau checksum-nya salah (misalnya akibat crash saat menulis)
+     * akan dibuang beserta semua entri sesudahnya. Entri dengan checksum yang benar tidak pernah
+     * dibuang: jika entri tersebut tidak dapat diterapkan (misalnya indeksnya di luar daftar), pemulihan
+     * gagal dan WAL dibiarkan utuh. Journal versi lama tanpa checksum dibaca lalu langsung diubah
+     * menjadi snapshot.
+     *
+     * @return Daftar Program.BMIRecord hasil pemulihan.
+     * @throws IOException jika file tidak dapat dibaca, snapshot tidak cocok dengan WAL, atau ada entri
+     *                     valid yang tidak dapat diterapkan.
+     */
+    public synchronized ArrayList<BMIRecord> replay() throws IOException {
+        Snapshot snapshot = readSnapshot();
+        ArrayList<BMIRecord> records = snapshot.records;
+        generation = snapshot.generation;
+        entryCount = 0;
+        if (channel.size() < LEGACY_HEADER_SIZE) {
+            resetLog(snapshot.generation); // File baru atau header tidak lengkap
+        } else {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            readFully(channel, header, 0);
+            header.flip();
+            if (header.getInt() != MAGIC) {
+                throw new IOException("Format journal tidak dikenal: " + file);
+            }
+            int version = header.getInt();
+            if (version == LEGACY_VERSION) {
+                readEntries(channel, records, LEGACY_HEADER_SIZE, channel.size(), PAYLOAD_SIZE, false);
+                liveRecords = records.size();
+                checkpoint(records);
+                return records;
+            } else if (version != VERSION && version != PREVIOUS_VERSION || header.remaining() < Long.BYTES) {
+                throw new IOException("Versi journal tidak didukung: " + file);
+            }
+            long logGeneration = header.getLong();
+            if (logGeneration == snapshot.generation - 1 && snapshot.logOffset < channel.size()) {
+                // Crash setelah snapshot diganti: entri yang ditulis selama snapshot dibuat belum tercakup.
+                readEntries(channel, records, snapshot.logOffset, channel.size(), ENTRY_SIZE, true);
+                liveRecords = records.size();
+                checkpoint(records);
+                return records;
+            } else if (logGeneration < snapshot.generation) {
+                resetLog(snapshot.generation); // WAL lama sudah tercakup di snapshot
+            } else if (logGeneration > snapshot.generation) {
+                throw new IOException("Snapshot untuk generasi " + logGeneration + " tidak ditemukan: " + snapshotFile);
+            } else {
+                LogRead read = readEntries(channel, records, HEADER_SIZE, channel.size(), ENTRY_SIZE, true);
+                if (version == PREVIOUS_VERSION) {
+                    liveRecords = records.size();
+                    checkpoint(records); // Entri versi 2 dapat dibaca, tetapi WAL baru memakai versi 3
+                    return records;
+                }
+                entryCount = read.entries;
+                if (channel.size() > read.validSize) {
+                    channel.truncate(read.validSize);
+                    channel.force(true);
+                }
+            }
+        }
+        channel.position(channel.size());
+        liveRecords = records.size();
+        return records;
+    }
+
+    /**
+     * Menambahkan entri untuk data baru ke antrian penulisan.
+     *
+     * @param record Data yang ditambahkan.
+     * @return Future yang selesai ketika entri sudah tersimpan di disk.
+     * @throws IllegalArgumentException jika rekomendasi lebih panjang dari 65535 byte UTF-8.
+     */
+    public CompletableFuture<Void> appendAdd(BMIRecord record) {
+        return append(OP_ADD, -1, record);
+    }
+
+    /**
+     * Menambahkan entri untuk perubahan data pada indeks tertentu ke antrian penulisan.
+     *
+     * @param index  Indeks data yang diubah.
+     * @param record Data pengganti.
+     * @return Future yang selesai ketika entri sudah tersimpan di disk.
+     * @throws IllegalArgumentException jika rekomendasi lebih panjang dari 65535 byte UTF-8.
+     */
+    public CompletableFuture<Void> appendUpdate(int index, BMIRecord record) {
+        return append(OP_UPDATE, index, record);
+    }
+
+    /**
+     * Menambahkan entri penanda hapus (tombstone) untuk data pada indeks tertentu ke antrian penulisan.
+     *
+     * @param index Indeks data yang dihapus.
+     * @return Future yang selesai ketika entri sudah tersimpan di disk.
+     */
+    public CompletableFuture<Void> appendDelete(int index) {
+        return append(OP_DELETE, index, null);
+    }
+
+    /**
+     * Mengatur jeda minimal antar fsync. Dengan nilai 0 (bawaan), setiap group commit di-fsync dan
+     * future baru selesai setelah data tersimpan permanen. Dengan nilai lebih dari 0, entri tetap
+     * ditulis setiap batch tetapi fsync dilakukan paling sering sekali per jeda (dan saat flush,
+     * snapshot, atau close), sehingga crash hanya dapat menghilangkan perubahan dalam jeda terakhir.
+     * Checksum memastikan entri yang terpotong tetap terdeteksi.
+     *
+     * @param millis Jeda minimal antar fsync dalam milidetik.
+     * @throws IllegalArgumentException jika millis bernilai negatif.
+     */
+    public synchronized void setSyncIntervalMillis(long millis) {
+        if (millis < 0) {
+            throw new IllegalArgumentException("Jeda fsync tidak boleh negatif.");
+        }
+        syncIntervalNanos = TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    /**
+     * Menunggu semua entri yang sudah diantrikan selesai ditulis dan tersimpan permanen di disk.
+     *
+     * @throws IOException jika ada entri yang gagal ditulis.
+     */
+    public void flush() throws IOException {
+        try {
+            lastWrite.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+        }
+        synchronized (this) {
+            sync();
+        }
+    }
+
+    /**
+     * Membuat snapshot dari seluruh data aktif lalu memulai WAL baru, sehingga pemulihan
+     * berikutnya tidak perlu memutar ulang entri lama. Entri yang masih di antrian ditulis
+     * terlebih dahulu.
+     *
+     * @throws IOException jika snapshot gagal dibuat.
+     */
+    public void compact() throws IOException {
+        flush();
+        writeSnapshot(null);
+    }
+
+    /**
+     * Mengganti seluruh data aktif dengan daftar tertentu dengan menulisnya sebagai snapshot baru,
+     * tanpa menulis entri hapus satu per satu. Dipakai Program.BMIRecordsManager setelah data lama
+     * dipindahkan ke Program.BMIRecordArchive. Entri yang masih di antrian ditulis terlebih dahulu.
+     *
+     * @param records Data aktif yang baru.
+     * @throws IOException jika snapshot gagal dibuat.
+     */
+    public void replaceAll(List<BMIRecord> records) throws IOException {
+        flush();
+        if (!writeSnapshot(records)) {
+            throw new IOException("Journal berubah saat snapshot ditulis: " + file);
+        }
+    }
+
+    /**
+     * Mengembalikan jumlah entri yang tersimpan di WAL sejak snapshot terakhir.
+     *
+     * @return Jumlah entri journal.
+     */
+    public synchronized long getEntryCount() {
+        return entryCount;
+    }
+
+    /**
+     * Mengembalikan kegagalan penulisan yang membuat journal menolak semua penulisan berikutnya.
+     * Setelah batch gagal ditulis, WAL dipotong kembali ke akhir batch terakhir yang berhasil, tetapi
+     * entri yang sudah diantrikan sesudahnya mungkin bergantung pada batch tersebut (misalnya indeks
+     * data), sehingga journal harus dibuka dan diputar ulang sebelum dapat ditulis lagi.
+     *
+     * @return Kegagalan penulisan pertama, atau null jika semua penulisan berhasil.
+     */
+    public synchronized IOException getFailure() {
+        return failure;
+    }
+
+    /**
+     * Mengembalikan generasi WAL saat ini. Generasi bertambah setiap kali snapshot dibuat.
+     *
+     * @return Generasi WAL.
+     */
+    public synchronized long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Menutup journal setelah semua entri di antrian selesai ditulis.
+     * Snapshot yang masih dijadwalkan akan dilewati.
+     *
+     * @throws IOException jika channel gagal ditutup atau ada entri yang gagal ditulis.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            synchronized (this) {
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * Mengubah rekomendasi menjadi kode byte untuk disimpan di entri journal.
+     *
+     * @param recommendation Rekomendasi ("Ideal", "Diet", atau "Bulking").
+     * @return Kode rekomendasi, atau 0 jika rekomendasi tidak dikenal.
+     */
+    static byte encodeRecommendation(String recommendation) {
+        BMICategory category = BMICategory.fromRecommendation(recommendation);
+        return category != null ? category.getCode() : BMICategory.UNKNOWN_CODE;
+    }
+
+    /**
+     * Mengubah kode byte dari entri journal kembali menjadi rekomendasi.
+     *
+     * @param code Kode rekomendasi.
+     * @return Rekomendasi, atau String kosong jika kode tidak dikenal.
+     */
+    static String decodeRecommendation(byte code) {
+        BMICategory category = BMICategory.fromCode(code);
+        return category != null ? category.getRecommendation() : "";
+    }
+
+    private CompletableFuture<Void> append(byte op, int index, BMIRecord record) {
+        ByteBuffer buffer = encodeEntry(op, index, record);
+        CompletableFuture<Void> future = writer.submit(this, buffer);
+        lastWrite = future;
+        return future;
+    }
+
+    /**
+     * Menulis beberapa entri sekaligus lalu melakukan satu kali fsync (sesuai jeda fsync).
+     * Metode ini dipanggil oleh thread Program.BMIJournalWriter. Jika penulisan atau fsync gagal,
+     * seluruh batch dianggap gagal, WAL dipotong kembali ke akhir entri valid terakhir, dan semua
+     * batch berikutnya ditolak (lihat {@link #getFailure()}).
+     *
+     * @param entries Entri yang akan ditulis sesuai urutan antrian.
+     * @throws IOException jika entri gagal ditulis.
+     */
+    synchronized void writeBatch(List<ByteBuffer> entries) throws IOException {
+        if (failure != null) {
+            throw new IOException("Journal tidak dapat ditulis setelah kegagalan sebelumnya: " + file, failure);
+        }
+        int size = 0;
+        int added = 0;
+        for (ByteBuffer entry : entries) {
+            size += entry.remaining();
+            byte op = entry.get(0);
+            if (op == OP_ADD) {
+                added++;
+            } else if (op == OP_DELETE) {
+                added--;
+            }
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        for (ByteBuffer entry : entries) {
+            buffer.put(entry.duplicate());
+        }
+        buffer.flip();
+        long validSize = channel.position();
+        try {
+            writeFully(channel, buffer);
+            unsynced = true;
+            if (syncIntervalNanos == 0 || System.nanoTime() - lastSyncNanos >= syncIntervalNanos) {
+                sync();
+            }
+        } catch (IOException e) {
+            discardFrom(validSize, e);
+            throw e;
+        }
+        liveRecords += added;
+        entryCount += entries.size();
+        scheduleCompactionIfNeeded();
+    }
+
+    /**
+     * Memotong WAL kembali ke posisi tertentu setelah penulisan batch gagal dan menandai journal
+     * gagal, sehingga semua penulisan berikutnya ditolak. Entri yang masih di antrian dapat merujuk
+     * indeks data dari batch yang gagal, sehingga entri tersebut tidak boleh ditulis.
+     *
+     * @param validSize Ukuran WAL sebelum batch ditulis.
+     * @param cause     Kegagalan penulisan batch.
+     */
+    private void discardFrom(long validSize, IOException cause) {
+        failure = cause;
+        try {
+            channel.truncate(validSize);
+            channel.position(validSize);
+        } catch (IOException e) {
+            cause.addSuppressed(e);
+        }
+    }
+
+    private void sync() throws IOException {
+        if (unsynced && channel.isOpen()) {
+            channel.force(false);
+            unsynced = false;
+            lastSyncNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * Menjadwalkan snapshot jika WAL sudah melebihi batas minimal dan seperempat jumlah data aktif,
+     * sehingga waktu pemulihan sebanding dengan panjang WAL, bukan seluruh riwayat, dan biaya
+     * penulisan snapshot tetap kecil jika dirata-rata per entri.
+     */
+    private void scheduleCompactionIfNeeded() {
+        if (compactionScheduled || entryCount < CHECKPOINT_MIN_ENTRIES || entryCount < liveRecords / 4) {
+            return;
+        }
+        compactionScheduled = true;
+        COMPACTOR.execute(() -> {
+            try {
+                writeSnapshot(null);
+            } catch (IOException e) {
+                LOGGER.log(Level.SEVERE, "Snapshot journal " + file + " gagal dibuat", e);
+            } finally {
+                synchronized (this) {
+                    compactionScheduled = false;
+                }
+            }
+        });
+    }
+
+    /**
+     * Membuat snapshot tanpa menahan kunci journal selama data dibaca dan snapshot ditulis ke disk.
+     * Di bawah kunci hanya generasi dan ukuran WAL yang dicatat; snapshot lama dan WAL sampai posisi
+     * tersebut dibaca di luar kunci (WAL hanya ditambahkan, sehingga bagian itu tidak berubah), lalu
+     * snapshot dipasang dan WAL diganti di bawah kunci yang singkat. Entri yang ditulis selama
+     * snapshot dibuat dipindahkan ke WAL baru.
+     *
+     * @param replacement Data pengganti, atau null untuk memakai kondisi data saat ini.
+     * @return false jika journal sudah ditutup atau generasinya berubah sehingga snapshot dibuang.
+     * @throws IOException jika snapshot atau WAL baru gagal ditulis.
+     */
+    private boolean writeSnapshot(List<BMIRecord> replacement) throws IOException {
+        synchronized (checkpointLock) {
+            FileChannel log;
+            long baseGeneration;
+            long logOffset;
+            long copiedEntries;
+            int copiedLiveRecords;
+            synchronized (this) {
+                if (!channel.isOpen()) {
+                    return false;
+                }
+                if (failure != null) {
+                    throw new IOException("Journal tidak dapat ditulis setelah kegagalan sebelumnya: " + file, failure);
+                }
+                log = channel;
+                baseGeneration = generation;
+                logOffset = channel.size();
+                copiedEntries = entryCount;
+                copiedLiveRecords = liveRecords;
+            }
+
+            List<BMIRecord> records = replacement;
+            if (records == null) {
+                ArrayList<BMIRecord> state = readSnapshot().records;
+                try {
+                    if (readEntries(log, state, HEADER_SIZE, logOffset, ENTRY_SIZE, true).validSize != logOffset) {
+                        throw new IOException("WAL tidak valid sebelum posisi " + logOffset + ": " + file);
+                    }
+                } catch (ClosedChannelException e) {
+                    return false; // Journal ditutup selama WAL dibaca
+                }
+                records = state;
+            }
+            Path temp = writeSnapshotFile(records, baseGeneration + 1, logOffset);
+            synchronized (this) {
+                if (!channel.isOpen() || generation != baseGeneration) {
+                    Files.deleteIfExists(temp);
+                    return false;
+                }
+                long entriesAfterCopy = entryCount - copiedEntries;
+                Files.move(temp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+                // Setelah titik ini snapshot sudah berlaku; crash sebelum WAL diganti ditangani oleh replay().
+                resetLog(baseGeneration + 1, logOffset);
+                entryCount = entriesAfterCopy;
+                liveRecords = records.size() + (liveRecords - copiedLiveRecords);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Menulis snapshot generasi berikutnya secara atomik, lalu mengganti WAL dengan WAL kosong
+     * untuk generasi tersebut. Dipakai saat pemulihan, ketika belum ada entri baru yang ditulis.
+     *
+     * @param records Data aktif saat ini.
+     * @throws IOException jika snapshot atau WAL baru gagal ditulis.
+     */
+    private void checkpoint(List<BMIRecord> records) throws IOException {
+        long nextGeneration = generation + 1;
+        long logOffset = channel.size();
+        Path temp = writeSnapshotFile(records, nextGeneration, logOffset);
+        Files.move(temp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        resetLog(nextGeneration, logOffset);
+        liveRecords = records.size();
+    }
+
+    /**
+     * Menulis snapshot ke file sementara dan memastikan isinya tersimpan permanen di disk.
+     *
+     * @param records            Data yang disimpan.
+     * @param snapshotGeneration Generasi snapshot.
+     * @param logOffset          Posisi di WAL generasi sebelumnya yang sudah tercakup di snapshot.
+     * @return Lokasi file sementara.
+     * @throws IOException jika file gagal ditulis.
+     */
+    private Path writeSnapshotFile(List<BMIRecord> records, long snapshotGeneration, long logOffset)
+            throws IOException {
+        byte[] payload = BMIRecordCodec.encode(records);
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+        ByteBuffer header = ByteBuffer.allocate(SNAPSHOT_HEADER_SIZE);
+        header.putInt(SNAPSHOT_MAGIC).putInt(SNAPSHOT_VERSION).putLong(snapshotGeneration).putLong(logOffset)
+                .putInt(payload.length).putInt((int) crc.getValue());
+        header.flip();
+        Path temp = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            writeFully(out, header);
+            writeFully(out, ByteBuffer.wrap(payload));
+            out.force(true);
+        }
+        return temp;
+    }
+
+    /**
+     * Mengganti WAL dengan file kosong untuk generasi tertentu secara atomik.
+     *
+     * @param newGeneration Generasi WAL baru.
+     * @throws IOException jika WAL gagal ditulis.
+     */
+    private void resetLog(long newGeneration) throws IOException {
+        resetLog(newGeneration, channel.size());
+    }
+
+    /**
+     * Mengganti WAL dengan file baru untuk generasi tertentu secara atomik. Entri WAL lama mulai dari
+     * posisi tertentu disalin ke WAL baru.
+     *
+     * @param newGeneration Generasi WAL baru.
+     * @param tailOffset    Posisi entri pertama di WAL lama yang belum tercakup di snapshot.
+     * @throws IOException jika WAL gagal ditulis.
+     */
+    private void resetLog(long newGeneration, long tailOffset) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).putLong(newGeneration);
+            header.flip();
+            writeFully(out, header);
+            long size = channel.size();
+            for (long position = tailOffset; position < size; ) {
+                position += channel.transferTo(position, size - position, out);
+            }
+            out.force(true);
+        }
+        channel.close();
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = opener.open(file);
+        channel.position(channel.size());
+        generation = newGeneration;
+        entryCount = 0;
+        unsynced = false;
+    }
+
+    /**
+     * Membaca snapshot terakhir.
+     *
+     * @return Snapshot, atau snapshot kosong generasi 0 jika file snapshot belum ada.
+     * @throws IOException jika snapshot rusak atau formatnya tidak dikenal.
+     */
+    private Snapshot readSnapshot() throws IOException {
+        if (!Files.exists(snapshotFile)) {
+            return new Snapshot(0, Long.MAX_VALUE, new ArrayList<>());
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(snapshotFile));
+        if (buffer.remaining() < LEGACY_SNAPSHOT_HEADER_SIZE || buffer.getInt() != SNAPSHOT_MAGIC) {
+            throw new IOException("Format snapshot tidak dikenal: " + snapshotFile);
+        }
+        int version = buffer.getInt();
+        if (version != SNAPSHOT_VERSION && version != LEGACY_SNAPSHOT_VERSION
+                || version == SNAPSHOT_VERSION && buffer.capacity() < SNAPSHOT_HEADER_SIZE) {
+            throw new IOException("Format snapshot tidak dikenal: " + snapshotFile);
+        }
+        long snapshotGeneration = buffer.getLong();
+        // Snapshot versi 1 selalu mencakup seluruh WAL generasi sebelumnya.
+        long logOffset = version == SNAPSHOT_VERSION ? buffer.getLong() : Long.MAX_VALUE;
+        int length = buffer.getInt();
+        int checksum = buffer.getInt();
+        if (length != buffer.remaining()) {
+            throw new IOException("Snapshot tidak lengkap: " + snapshotFile);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), buffer.position(), length);
+        if ((int) crc.getValue() != checksum) {
+            throw new IOException("Checksum snapshot tidak cocok: " + snapshotFile);
+        }
+        return new Snapshot(snapshotGeneration, logOffset, BMIRecordCodec.decode(buffer));
+    }
+
+    /**
+     * Memutar ulang entri WAL ke daftar data, berhenti pada entri pertama yang tidak lengkap atau
+     * checksum-nya salah. Entri tanpa checksum (versi 1) yang tidak dapat diterapkan juga dianggap
+     * sebagai akhir WAL, karena tidak dapat dibedakan dari sisa tulisan yang terpotong. Hanya membaca dengan posisi tertentu, sehingga
+     * dapat dipanggil tanpa kunci journal untuk bagian WAL yang sudah ditulis.
+     *
+     * @param source        Channel WAL yang dibaca.
+     * @param records       Daftar data yang diperbarui.
+     * @param headerSize    Posisi entri pertama yang dibaca (ukuran header WAL).
+     * @param size          Posisi akhir bagian WAL yang dibaca.
+     * @param entrySize     Ukuran entri tanpa string rekomendasi.
+     * @param checksummed   true jika entri memiliki checksum CRC32 (dan string rekomendasi).
+     * @return Ukuran WAL yang valid dalam byte dan jumlah entri yang diputar ulang.
+     * @throws IOException jika file tidak dapat dibaca, atau entri dengan checksum yang benar tidak
+     *                     dapat diterapkan ke daftar data.
+     */
+    private static LogRead readEntries(FileChannel source, ArrayList<BMIRecord> records, long headerSize, long size,
+                                       int entrySize, boolean checksummed) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(1024 * entrySize);
+        buffer.flip(); // Buffer kosong, diisi saat entri berikutnya belum terbaca seluruhnya
+        CRC32 crc = new CRC32();
+        long position = headerSize;
+        long entries = 0;
+        while (true) {
+            int start = buffer.position();
+            int length = entrySize;
+            if (checksummed && buffer.remaining() >= entrySize) {
+                length += recommendationLength(buffer, start);
+            }
+            if (buffer.remaining() < length) {
+                if (size - position < length) {
+                    return new LogRead(position, entries); // Entri terakhir tidak lengkap
+                }
+                if (buffer.capacity() < length) {
+                    buffer = ByteBuffer.allocate(length);
+                }
+                buffer.clear();
+                buffer.limit((int) Math.min(buffer.capacity(), size - position));
+                readFully(source, buffer, position);
+                buffer.flip();
+                continue;
+            }
+            if (checksummed) {
+                crc.reset();
+                crc.update(buffer.array(), start, length - Integer.BYTES);
+                if ((int) crc.getValue() != buffer.getInt(start + length - Integer.BYTES)) {
+                    return new LogRead(position, entries); // Entri rusak: entri ini dan sesudahnya dibuang
+                }
+            }
+            try {
+                applyEntry(buffer, records);
+            } catch (IOException | IndexOutOfBoundsException e) {
+                if (!checksummed) {
+                    return new LogRead(position, entries);
+                }
+                throw new IOException("Entri journal pada posisi " + position + " tidak dapat diterapkan: "
+                        + e.getMessage(), e);
+            }
+            buffer.position(start + length);
+            position += length;
+            entries++;
+        }
+    }
+
+    /**
+     * Mengembalikan panjang string rekomendasi yang disimpan di belakang data entri.
+     *
+     * @param buffer Buffer berisi entri.
+     * @param start  Posisi awal entri di buffer.
+     * @return Panjang string dalam byte, atau 0 jika rekomendasi disimpan sebagai kode.
+     */
+    private static int recommendationLength(ByteBuffer buffer, int start) {
+        return buffer.get(start + 1) == CUSTOM_RECOMMENDATION ? buffer.getShort(start + 2) & 0xFFFF : 0;
+    }
+
+    private static void readFully(FileChannel source, ByteBuffer buffer, long position) throws IOException {
+        int total = 0;
+        while (buffer.hasRemaining()) {
+            int read = source.read(buffer, position + total);
+            if (read < 0) {
+                break;
+            }
+            total += read;
+        }
+    }
+
+    private static void writeFully(FileChannel target, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            target.write(buffer);
+        }
+    }
+
+    private static void applyEntry(ByteBuffer buffer, ArrayList<BMIRecord> records) throws IOException {
+        byte op = buffer.get();
+        byte code = buffer.get();
+        int length = buffer.getShort() & 0xFFFF;
+        int index = buffer.getInt();
+        long timestamp = buffer.getLong();
+        double height = buffer.getDouble();
+        double weight = buffer.getDouble();
+        double bmi = buffer.getDouble();
+        String recommendation;
+        if (code == NULL_RECOMMENDATION) {
+            recommendation = null;
+        } else if (code == CUSTOM_RECOMMENDATION) {
+            recommendation = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        } else {
+            recommendation = decodeRecommendation(code);
+        }
+        switch (op) {
+            case OP_ADD:
+                records.add(new BMIRecord(timestamp, height, weight, bmi, recommendation));
+                break;
+            case OP_UPDATE:
+                records.set(index, new BMIRecord(timestamp, height, weight, bmi, recommendation));
+                break;
+            case OP_DELETE:
+                records.remove(index);
+                break;
+            default:
+                throw new IOException("Entri journal tidak valid: " + op);
+        }
+    }
+
+    /**
+     * Mengubah satu operasi menjadi entri journal. Rekomendasi yang bukan kategori dikenal (selain
+     * String kosong dan null) disimpan sebagai string UTF-8 di antara data entri dan checksum.
+     *
+     * @param op     Jenis operasi.
+     * @param index  Indeks data, atau -1 untuk operasi tambah.
+     * @param record Data baru, atau null untuk operasi hapus.
+     * @return Entri yang siap ditulis.
+     */
+    private static ByteBuffer encodeEntry(byte op, int index, BMIRecord record) {
+        byte code = 0;
+        byte[] custom = new byte[0];
+        if (record != null) {
+            String recommendation = record.getRecommendation();
+            if (recommendation == null) {
+                code = NULL_RECOMMENDATION;
+            } else {
+                code = encodeRecommendation(recommendation);
+                if (code == BMICategory.UNKNOWN_CODE && !recommendation.isEmpty()) {
+                    code = CUSTOM_RECOMMENDATION;
+                    custom = recommendation.getBytes(StandardCharsets.UTF_8);
+                    if (custom.length > MAX_RECOMMENDATION_BYTES) {
+                        throw new IllegalArgumentException("Rekomendasi terlalu panjang untuk journal: "
+                                + custom.length + " byte.");
+                    }
+                }
+            }
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(ENTRY_SIZE + custom.length);
+        buffer.put(op);
+        buffer.put(code);
+        buffer.putShort((short) custom.length);
+        buffer.putInt(index);
+        buffer.putLong(record != null ? record.getTimestamp() : 0L);
+        buffer.putDouble(record != null ? record.getHeight() : 0);
+        buffer.putDouble(record != null ? record.getWeight() : 0);
+        buffer.putDouble(record != null ? record.getBmi() : 0);
+        buffer.put(custom);
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putInt((int) crc.getValue());
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Hasil pembacaan WAL: ukuran bagian yang valid dan jumlah entri di dalamnya.
+     */
+    private static final class LogRead {
+        private final long validSize;
+        private final long entries;
+
+        private LogRead(long validSize, long entries) {
+            this.validSize = validSize;
+            this.entries = entries;
+        }
+    }
+
+    /**
+     * Membuka channel baca-tulis untuk file WAL (dibuat jika belum ada).
+     */
+    interface ChannelOpener {
+        FileChannel open(Path file) throws IOException;
+    }
+
+    /**
+     * Isi snapshot beserta generasinya dan posisi WAL generasi sebelumnya yang sudah tercakup.
+     */
+    private static final class Snapshot {
+        private final long generation;
+        private final long logOffset;
+        private final ArrayList<BMIRecord> records;
+
+        private Snapshot(long generation, long logOffset, ArrayList<BMIRecord> records) {
+            this.generation = generation;
+            this.logOffset = logOffset;
+            this.records = records;
+        }
+    }
+}
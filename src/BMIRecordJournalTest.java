@@ -0,0 +1,476 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Class BMIRecordJournalTest digunakan untuk menguji penyimpanan data BMI
+ * melalui journal append-only.
+ */
+public class BMIRecordJournalTest {
+
+    /**
+     * Metode ini menguji bahwa operasi tambah, ubah, dan hapus dapat dibaca kembali.
+     */
+    @Test
+    public void testReplayAfterMutations() throws IOException {
+        Path file = Files.createTempFile("bmi", ".journal");
+        try (BMIRecordJournal journal = new BMIRecordJournal(file)) {
+            journal.appendAdd(new BMIRecord(1_700_000_000_000L, 170.0, 80.0, 27.68, "Diet"));
+            journal.appendAdd(new BMIRecord(1_700_000_060_000L, 170.0, 50.0, 17.30, "Bulking"));
+            journal.appendAdd(new BMIRecord(1_700_000_120_000L, 170.0, 65.0, 22.49, "Ideal"));
+            journal.appendUpdate(0, new BMIRecord(1_700_000_000_000L, 170.0, 78.0, 26.99, "Diet"));
+            journal.appendDelete(1);
+        }
+
+        try (BMIRecordJournal journal = new BMIRecordJournal(file)) {
+            ArrayList<BMIRecord> records = journal.replay();
+            assertEquals(2, records.size(), "Jumlah data hasil replay tidak sesuai.");
+            assertEquals(78.0, records.get(0).getWeight(), 0.0001, "Data yang diubah tidak tersimpan.");
+            assertEquals("Diet", records.get(0).getRecommendation());
+            assertEquals("Ideal", records.get(1).getRecommendation());
+            assertEquals(1_700_000_120_000L, records.get(1).getTimestamp());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Metode ini menguji bahwa rekomendasi yang tidak dikenal, String kosong, dan null terbaca
+     * kembali sama persis dari WAL maupun dari snapshot.
+     */
+    @Test
+    public void testRecommendationRoundTrip() throws IOException {
+        Path file = Files.createTempFile("bmi", ".journal");
+        Path snapshot = file.resolveSibling(file.getFileName() + ".snapshot");
+        String[] recommendations = {"Diet", "Obesitas ringan", "", null, "Ideal"};
+        try (BMIRecordJournal journal = new BMIRecordJournal(file)) {
+            for (int i = 0; i < recommendations.length; i++) {
+                journal.appendAdd(new BMIRecord(1_700_000_000_000L + i, 170.0, 60.0 + i, 20.0, recommendations[i]));
+            }
+        }
+        try (BMIRecordJournal journal = new BMIRecordJournal(file)) {
+            ArrayList<BMIRecord> records = journal.replay();
+            for (int i = 0; i < recommendations.length; i++) {
+                assertEquals(recommendations[i], records.get(i).getRecommendation(), "Rekomendasi dari WAL berubah.");
+            }
+            assertEquals(64.0, records.get(4).getWeight(), 0.0001, "Entri setelah string rekomendasi salah dibaca.");
+            journal.compact();
+        }
+        try (BMIRecordJournal journal = new BMIRecordJournal(file)) {
+            ArrayList<BMIRecord> records = journal.replay();
+            for (int i = 0; i < recommendations.length; i++) {
+                assertEquals(recommendations[i], records.get(i).getRecommendation(), "Rekomendasi dari snapshot berubah.");
+            }
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(snapshot);
+        }
+    }
+
+    /**
+     * Metode ini menguji bahwa entri terakhir yang tidak lengkap diabaikan saat replay.
+     */
+    @Test
+    public void testIncompleteEntryIsDiscarded() throws IOException {
+        Path file = Files.createTempFile("bmi", ".journal");
+        try (BMIRecordJournal journal = new BMIRecordJournal(file)) {
+            journal.appendAdd(new BMIRecord(1_700_000_000_000L, 170.0, 80.0, 27.68, "Diet"));
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[]{1, 2, 3}));
+        }
+
+        try (BMIRecordJournal journal = new BMIRecordJournal(file)) {
+            assertEquals(1, journal.replay().size(), "Entri tidak lengkap seharusnya dibuang.");
+            journal.appendAdd(new BMIRecord(1_700_000_060_000L, 170.0, 65.0, 22.49, "Ideal"));
+        }
+
+        try (BMIRecordJournal journal = new BMIRecordJournal(file)) {
+            assertEquals(2, journal.replay().size(), "Entri baru setelah pemulihan tidak terbaca.");
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Metode ini menguji bahwa entri dengan checksum yang benar tetapi tidak dapat diterapkan
+     * menggagalkan pemulihan tanpa membuang entri sesudahnya.
+     */
+    @Test
+    public void testInvalidEntryIsNotDiscarded() throws IOException {
+        Path file = Files.createTempFile("bmi", ".journal");
+        try (BMIRecordJournal journal = new BMIRecordJournal(file)) {
+            journal.appendAdd(new BMIRecord(1_700_000_000_000L, 170.0, 80.0, 27.68, "Diet"));
+            journal.appendDelete(5);
+            journal.appendAdd(new BMIRecord(1_700_000_060_000L, 170.0, 65.0, 22.49, "Ideal"));
+        }
+        long size = Files.size(file);
+
+        try (BMIRecordJournal journal = new BMIRecordJournal(file)) {
+            IOException e = assertThrows(IOException.class, journal::replay);
+            assertTrue(e.getMessage().contains(String.valueOf(BMIRecordJournal.HEADER_SIZE + BMIRecordJournal.ENTRY_SIZE)),
+                    "Pesan error seharusnya menyebutkan posisi entri.");
+        }
+        assertEquals(size, Files.size(file), "Entri dengan checksum yang benar tidak boleh dibuang.");
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * Metode ini menguji bahwa compaction membuat snapshot berisi data yang masih aktif
+     * dan memulai WAL kosong dengan generasi baru.
+     */
+    @Test
+    public void testCompaction() throws IOException {
+        Path file = Files.createTempFile("bmi", ".journal");
+        try (BMIRecordJournal journal = new BMIRecordJournal(file)) {
+            for (int i = 0; i < 10; i++) {
+                journal.appendAdd(new BMIRecord(1_700_000_000_000L + i, 170.0, 60.0 + i, 20.0, "Ideal"));
+            }
+            for (int i = 0; i < 5; i++) {
+                journal.appendDelete(0);
+            }
+            journal.compact();
+
+            assertEquals(0, journal.getEntryCount(), "WAL seharusnya kosong setelah snapshot.");
+            assertEquals(1, journal.getGeneration());
+            assertEquals(BMIRecordJournal.HEADER_SIZE, Files.size(file));
+            journal.appendAdd(new BMIRecord(1_700_000_000_100L, 170.0, 70.0, 24.22, "Ideal"));
+        }
+        try (BMIRecordJournal journal = new BMIRecordJournal(file)) {
+            ArrayList<BMIRecord> records = journal.replay();
+            assertEquals(6, records.size(), "Snapshot dan WAL seharusnya digabung saat pemulihan.");
+            assertEquals(65.0, records.get(0).getWeight(), 0.0001);
+            assertEquals(70.0, records.get(5).getWeight(), 0.0001);
+            assertEquals(1, journal.getEntryCount(), "Hanya entri setelah snapshot yang diputar ulang.");
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(file.resolveSibling(file.getFileName() + ".snapshot"));
+        }
+    }
+
+    /**
+     * Metode ini menguji pemulihan setelah entri rusak dan setelah crash di antara penulisan
+     * snapshot dan penggantian WAL.
+     */
+    @Test
+    public void testRecoveryFromCorruptionAndInterruptedCheckpoint() throws IOException {
+        Path file = Files.createTempFile("bmi", ".journal");
+        Path snapshot = file.resolveSibling(file.getFileName() + ".snapshot");
+        try (BMIRecordJournal journal = new BMIRecordJournal(file)) {
+            for (int i = 0; i < 3; i++) {
+                journal.appendAdd(new BMIRecord(1_700_000_000_000L + i, 170.0, 60.0 + i, 20.0, "Ideal"));
+            }
+        }
+        byte[] beforeCheckpoint = Files.readAllBytes(file);
+
+        // Entri kedua rusak: entri tersebut dan sesudahnya dibuang.
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{42}), BMIRecordJournal.HEADER_SIZE + BMIRecordJournal.ENTRY_SIZE + 20);
+        }
+        try (BMIRecordJournal journal = new BMIRecordJournal(file)) {
+            assertEquals(1, journal.replay().size(), "Entri dengan checksum salah seharusnya dibuang.");
+            assertEquals(BMIRecordJournal.HEADER_SIZE + BMIRecordJournal.ENTRY_SIZE, Files.size(file));
+        }
+
+        // Snapshot generasi 1 sudah ditulis, tetapi WAL generasi 0 belum sempat diganti.
+        Files.write(file, beforeCheckpoint);
+        try (BMIRecordJournal journal = new BMIRecordJournal(file)) {
+            journal.replay();
+            journal.compact();
+        }
+        Files.write(file, beforeCheckpoint);
+        try (BMIRecordJournal journal = new BMIRecordJournal(file)) {
+            assertEquals(3, journal.replay().size(), "WAL lama seharusnya tidak diputar ulang dua kali.");
+            assertEquals(1, journal.getGeneration());
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(snapshot);
+        }
+    }
+
+    /**
+     * Metode ini menguji bahwa entri yang ditulis selama snapshot dibuat tidak hilang jika crash
+     * terjadi setelah snapshot dipasang tetapi sebelum WAL diganti.
+     */
+    @Test
+    public void testEntriesWrittenDuringCheckpointAreKept() throws IOException {
+        Path file = Files.createTempFile("bmi", ".journal");
+        Path snapshot = file.resolveSibling(file.getFileName() + ".snapshot");
+        try (BMIRecordJournal journal = new BMIRecordJournal(file)) {
+            for (int i = 0; i < 5; i++) {
+                journal.appendAdd(new BMIRecord(1_700_000_000_000L + i, 170.0, 60.0 + i, 20.0, "Ideal"));
+            }
+        }
+        byte[] fullLog = Files.readAllBytes(file);
+
+        // Snapshot hanya mencakup tiga entri pertama; dua entri terakhir ditulis selama snapshot dibuat.
+        Files.write(file, Arrays.copyOf(fullLog, BMIRecordJournal.HEADER_SIZE + 3 * BMIRecordJournal.ENTRY_SIZE));
+        try (BMIRecordJournal journal = new BMIRecordJournal(file)) {
+            journal.replay();
+            journal.compact();
+        }
+        Files.write(file, fullLog);
+        try (BMIRecordJournal journal = new BMIRecordJournal(file)) {
+            ArrayList<BMIRecord> records = journal.replay();
+            assertEquals(5, records.size(), "Entri setelah posisi snapshot seharusnya diputar ulang.");
+            assertEquals(64.0, records.get(4).getWeight(), 0.0001);
+        }
+        try (BMIRecordJournal journal = new BMIRecordJournal(file)) {
+            assertEquals(5, journal.replay().size(), "Pemulihan seharusnya tidak memutar ulang entri dua kali.");
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(snapshot);
+        }
+    }
+
+    /**
+     * Metode ini menguji bahwa setelah satu batch gagal ditulis, WAL dipotong ke batch terakhir yang
+     * berhasil dan semua penulisan berikutnya ditolak walaupun disk sudah dapat ditulis lagi.
+     */
+    @Test
+    public void testFailedBatchRejectsLaterWrites() throws IOException {
+        Path file = Files.createTempFile("bmi", ".journal");
+        AtomicBoolean failing = new AtomicBoolean();
+        BMIRecordJournal journal = new BMIRecordJournal(file, BMIJournalWriter.getDefault(),
+                path -> new FailingChannel(BMIRecordJournal.DEFAULT_OPENER.open(path), failing));
+        journal.replay();
+        journal.appendAdd(new BMIRecord(1_700_000_000_000L, 170.0, 80.0, 27.68, "Diet"));
+        journal.appendAdd(new BMIRecord(1_700_000_060_000L, 170.0, 50.0, 17.30, "Bulking"));
+        journal.flush();
+
+        failing.set(true);
+        CompletableFuture<Void> failed = journal.appendAdd(new BMIRecord(1_700_000_120_000L, 170.0, 65.0, 22.49, "Ideal"));
+        assertThrows(CompletionException.class, failed::join, "Batch yang gagal ditulis harus gagal.");
+        assertNotNull(journal.getFailure(), "Kegagalan penulisan seharusnya dicatat.");
+
+        failing.set(false);
+        CompletableFuture<Void> rejected = journal.appendDelete(1);
+        assertThrows(CompletionException.class, rejected::join, "Penulisan setelah kegagalan harus ditolak.");
+        assertThrows(IOException.class, journal::close);
+
+        try (BMIRecordJournal reopened = new BMIRecordJournal(file)) {
+            ArrayList<BMIRecord> records = reopened.replay();
+            assertEquals(2, records.size(), "Hanya batch yang berhasil yang tersimpan.");
+            assertEquals("Bulking", records.get(1).getRecommendation());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Metode ini menguji bahwa Program.BMIRecordsManager memuat ulang data dari disk setelah
+     * penyimpanan gagal, sehingga perubahan berbasis indeks berikutnya tidak mengenai data yang salah.
+     */
+    @Test
+    public void testManagerReloadsAfterFailedWrite() throws IOException {
+        File directory = Files.createTempDirectory("bmi-failing").toFile();
+        AtomicBoolean failing = new AtomicBoolean();
+        BMIRecord first = new BMIRecord(1_700_000_000_000L, 170.0, 80.0, 27.68, "Diet");
+        BMIRecord second = new BMIRecord(1_700_000_060_000L, 170.0, 50.0, 17.30, "Bulking");
+        BMIRecord lost = new BMIRecord(1_700_000_120_000L, 170.0, 65.0, 22.49, "Ideal");
+        try (BMIRecordsManager manager = new BMIRecordsManager(directory, 0,
+                path -> new FailingChannel(BMIRecordJournal.DEFAULT_OPENER.open(path), failing))) {
+            manager.addRecordAsync(first).join();
+            manager.addRecordAsync(second).join();
+
+            failing.set(true);
+            assertThrows(CompletionException.class, () -> manager.addRecordAsync(lost).join());
+            failing.set(false);
+            assertEquals(3, manager.getTotalRecords(), "Data di memori diubah sebelum disimpan.");
+
+            assertThrows(UncheckedIOException.class, () -> manager.deleteRecordAsync(2),
+                    "Perubahan setelah penyimpanan gagal harus ditolak.");
+            assertEquals(2, manager.getTotalRecords(), "Data seharusnya dimuat ulang dari disk.");
+            assertEquals(2, manager.getStatistics().getCount(), "Statistik seharusnya dibangun ulang.");
+            assertEquals(0, manager.countRecords(lost.getTimestamp(), Long.MAX_VALUE), "Indeks waktu seharusnya dibangun ulang.");
+
+            manager.deleteRecordAsync(0).join();
+        }
+
+        try (BMIRecordsManager manager = new BMIRecordsManager(directory)) {
+            assertEquals(1, manager.getTotalRecords(), "Perubahan setelah pemulihan seharusnya tersimpan.");
+            assertEquals(second.getTimestamp(), manager.getRecord(0).getTimestamp());
+        }
+    }
+
+    /**
+     * Metode ini menguji bahwa data dari file lama dipindahkan ke journal sebagai satu snapshot,
+     * bukan sebagai entri satu per satu yang dapat terputus di tengah jalan.
+     */
+    @Test
+    public void testLegacyMigrationWritesOneSnapshot() throws IOException {
+        File directory = Files.createTempDirectory("bmi-migration").toFile();
+        ArrayList<BMIRecord> legacy = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            legacy.add(new BMIRecord(1_700_000_000_000L + i, 170.0, 60.0 + i, 20.0, "Ideal"));
+        }
+        BMIRecordCodec.save(new File(directory, "bmi_records.dat").toPath(), legacy);
+
+        try (BMIRecordsManager manager = new BMIRecordsManager(directory)) {
+            assertEquals(50, manager.getTotalRecords(), "Seluruh data lama seharusnya dipindahkan.");
+            assertEquals(1L << 32, manager.getVersion(), "Migrasi seharusnya menghasilkan snapshot generasi 1 tanpa entri WAL.");
+        }
+        assertEquals(BMIRecordJournal.HEADER_SIZE, Files.size(new File(directory, "bmi_records.journal").toPath()),
+                "Data lama tidak boleh ditulis sebagai entri WAL.");
+        try (BMIRecordsManager manager = new BMIRecordsManager(directory)) {
+            assertEquals(50, manager.getTotalRecords(), "Data hasil migrasi seharusnya dimuat dari snapshot.");
+            assertEquals(109.0, manager.getRecord(49).getWeight(), 0.0001);
+        }
+    }
+
+    /**
+     * Metode ini menguji bahwa banyak perubahan digabung menjadi sedikit group commit.
+     */
+    @Test
+    public void testGroupCommit() throws Exception {
+        Path file = Files.createTempFile("bmi", ".journal");
+        BMIJournalWriter writer = new BMIJournalWriter(4096, 512, 20);
+        try (BMIRecordJournal journal = new BMIRecordJournal(file, writer)) {
+            CompletableFuture<Void> last = null;
+            for (int i = 0; i < 2000; i++) {
+                last = journal.appendAdd(new BMIRecord(1_700_000_000_000L + i, 170.0, 65.0, 22.49, "Ideal"));
+            }
+            last.get(10, TimeUnit.SECONDS);
+            assertEquals(2000, writer.getEntryCount(), "Semua entri seharusnya sudah ditulis.");
+            assertTrue(writer.getCommitCount() < 2000, "Entri seharusnya digabung dalam group commit.");
+        } finally {
+            writer.shutdown();
+        }
+
+        try (BMIRecordJournal journal = new BMIRecordJournal(file)) {
+            assertEquals(2000, journal.replay().size(), "Data hasil group commit tidak terbaca.");
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * FileChannel yang gagal saat menulis atau melakukan fsync selama penanda failing aktif.
+     */
+    private static final class FailingChannel extends FileChannel {
+        private final FileChannel delegate;
+        private final AtomicBoolean failing;
+
+        private FailingChannel(FileChannel delegate, AtomicBoolean failing) {
+            this.delegate = delegate;
+            this.failing = failing;
+        }
+
+        private void check() throws IOException {
+            if (failing.get()) {
+                throw new IOException("Disk penuh (simulasi).");
+            }
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            return delegate.read(dst);
+        }
+
+        @Override
+        public long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+            return delegate.read(dsts, offset, length);
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            check();
+            return delegate.write(src);
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+            check();
+            return delegate.write(srcs, offset, length);
+        }
+
+        @Override
+        public long position() throws IOException {
+            return delegate.position();
+        }
+
+        @Override
+        public FileChannel position(long newPosition) throws IOException {
+            delegate.position(newPosition);
+            return this;
+        }
+
+        @Override
+        public long size() throws IOException {
+            return delegate.size();
+        }
+
+        @Override
+        public FileChannel truncate(long size) throws IOException {
+            delegate.truncate(size);
+            return this;
+        }
+
+        @Override
+        public void force(boolean metaData) throws IOException {
+            check();
+            delegate.force(metaData);
+        }
+
+        @Override
+        public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+            return delegate.transferTo(position, count, target);
+        }
+
+        @Override
+        public long transferFrom(ReadableByteChannel src, long position, long count) throws IOException {
+            check();
+            return delegate.transferFrom(src, position, count);
+        }
+
+        @Override
+        public int read(ByteBuffer dst, long position) throws IOException {
+            return delegate.read(dst, position);
+        }
+
+        @Override
+        public int write(ByteBuffer src, long position) throws IOException {
+            check();
+            return delegate.write(src, position);
+        }
+
+        @Override
+        public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
+            return delegate.map(mode, position, size);
+        }
+
+        @Override
+        public FileLock lock(long position, long size, boolean shared) throws IOException {
+            return delegate.lock(position, size, shared);
+        }
+
+        @Override
+        public FileLock tryLock(long position, long size, boolean shared) throws IOException {
+            return delegate.tryLock(position, size, shared);
+        }
+
+        @Override
+        protected void implCloseChannel() throws IOException {
+            delegate.close();
+        }
+    }
+}
@@ -0,0 +1,196 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Class Program.BMIRecordsCsv digunakan untuk mengimpor dan mengekspor riwayat Program.BMIRecord
+ * dalam format CSV. Data diproses baris per baris sehingga penggunaan memori tetap konstan
+ * berapa pun jumlah datanya. Kolom yang diapit tanda kutip boleh berisi koma, tanda kutip ganda,
+ * dan baris baru, sehingga satu data dapat terdiri dari beberapa baris file.
+ */
+public class BMIRecordsCsv {
+    static final String[] HEADER = {"Timestamp", "Tanggal", "Jam", "Tinggi", "Berat", "BMI", "Rekomendasi"};
+    static final int COLUMN_TIMESTAMP = 0;
+    static final int COLUMN_HEIGHT = 3;
+    static final int COLUMN_WEIGHT = 4;
+    static final int COLUMN_BMI = 5;
+    static final int COLUMN_RECOMMENDATION = 6;
+
+    private BMIRecordsCsv() {
+    }
+
+    /**
+     * Mengekspor data Program.BMIRecord ke CSV, termasuk baris header.
+     *
+     * @param records Data yang akan diekspor.
+     * @param out     Tujuan penulisan CSV.
+     * @return Jumlah data yang diekspor.
+     * @throws IOException jika penulisan gagal.
+     */
+    public static long exportRecords(Iterable<BMIRecord> records, Writer out) throws IOException {
+        BufferedWriter writer = out instanceof BufferedWriter ? (BufferedWriter) out : new BufferedWriter(out, 64 * 1024);
+        StringBuilder line = new StringBuilder(96);
+        writeLine(writer, line, HEADER);
+        long count = 0;
+        for (BMIRecord record : records) {
+            line.setLength(0);
+            line.append(record.getTimestamp()).append(',')
+                    .append(record.getDate()).append(',')
+                    .append(record.getTime()).append(',')
+                    .append(record.getHeight()).append(',')
+                    .append(record.getWeight()).append(',')
+                    .append(record.getBmi()).append(',');
+            appendField(line, record.getRecommendation());
+            line.append('\n');
+            writer.append(line);
+            count++;
+        }
+        writer.flush();
+        return count;
+    }
+
+    /**
+     * Mengimpor data Program.BMIRecord dari CSV. Setiap data diteruskan ke consumer segera
+     * setelah barisnya dibaca, tanpa menampung seluruh isi file.
+     *
+     * @param in       Sumber CSV.
+     * @param consumer Penerima setiap Program.BMIRecord hasil impor.
+     * @return Jumlah data yang diimpor.
+     * @throws IOException              jika pembacaan gagal.
+     * @throws IllegalArgumentException jika ada baris yang formatnya tidak valid.
+     */
+    public static long importRecords(Reader in, Consumer<BMIRecord> consumer) throws IOException {
+        BufferedReader reader = in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in, 64 * 1024);
+        List<String> fields = new ArrayList<>(HEADER.length);
+        StringBuilder field = new StringBuilder();
+        String line = reader.readLine();
+        if (line == null) {
+            return 0;
+        }
+        if (!line.startsWith(HEADER[0])) {
+            throw new IllegalArgumentException("Header CSV tidak valid.");
+        }
+        long count = 0;
+        int lineNumber = 1;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isEmpty()) {
+                continue;
+            }
+            int recordLine = lineNumber;
+            fields.clear();
+            field.setLength(0);
+            boolean quoted = parseLine(line, fields, field, false);
+            while (quoted) {
+                // Kolom dengan tanda kutip berlanjut ke baris berikutnya
+                line = reader.readLine();
+                if (line == null) {
+                    throw new IllegalArgumentException("Baris CSV " + recordLine + " tidak valid: tanda kutip tidak ditutup.");
+                }
+                lineNumber++;
+                field.append('\n');
+                quoted = parseLine(line, fields, field, true);
+            }
+            try {
+                consumer.accept(toRecord(fields));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Baris CSV " + recordLine + " tidak valid: " + e.getMessage(), e);
+            }
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Membuat Program.BMIRecord dari kolom-kolom dengan urutan sesuai {@link #HEADER}.
+     *
+     * @param fields Nilai kolom.
+     * @return Objek Program.BMIRecord.
+     */
+    static BMIRecord toRecord(List<String> fields) {
+        if (fields.size() < HEADER.length) {
+            throw new IllegalArgumentException("Jumlah kolom kurang dari " + HEADER.length + ".");
+        }
+        return new BMIRecord(
+                (long) Double.parseDouble(fields.get(COLUMN_TIMESTAMP)),
+                Double.parseDouble(fields.get(COLUMN_HEIGHT)),
+                Double.parseDouble(fields.get(COLUMN_WEIGHT)),
+                Double.parseDouble(fields.get(COLUMN_BMI)),
+                fields.get(COLUMN_RECOMMENDATION));
+    }
+
+    private static void writeLine(Writer writer, StringBuilder line, String[] values) throws IOException {
+        line.setLength(0);
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            appendField(line, values[i]);
+        }
+        line.append('\n');
+        writer.append(line);
+    }
+
+    private static void appendField(StringBuilder line, String value) {
+        if (value == null) {
+            return;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            line.append(value);
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                line.append('"');
+            }
+            line.append(c);
+        }
+        line.append('"');
+    }
+
+    /**
+     * Memecah satu baris file menjadi kolom. Kolom terakhir hanya ditambahkan jika tidak berada
+     * di dalam tanda kutip; jika masih di dalam tanda kutip, isinya tetap di field dan baris
+     * berikutnya harus diproses dengan quoted bernilai true.
+     *
+     * @param line   Baris file tanpa karakter baris baru.
+     * @param fields Kolom yang sudah selesai dibaca.
+     * @param field  Isi kolom yang sedang dibaca.
+     * @param quoted true jika baris ini melanjutkan kolom dengan tanda kutip.
+     * @return true jika kolom dengan tanda kutip belum ditutup di akhir baris.
+     */
+    private static boolean parseLine(String line, List<String> fields, StringBuilder field, boolean quoted) {
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (!quoted) {
+            fields.add(field.toString());
+            field.setLength(0);
+        }
+        return quoted;
+    }
+}
@@ -0,0 +1,80 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Class BMIRecordsCsvTest digunakan untuk menguji impor dan ekspor data BMI dalam format CSV.
+ */
+public class BMIRecordsCsvTest {
+
+    /**
+     * Metode ini menguji bahwa data hasil ekspor dapat diimpor kembali tanpa perubahan.
+     */
+    @Test
+    public void testExportImportRoundTrip() throws IOException {
+        List<BMIRecord> records = Arrays.asList(
+                new BMIRecord(1_700_000_000_000L, 170.0, 80.0, 80.0 / Math.pow(1.7, 2), "Diet"),
+                new BMIRecord(1_700_000_060_000L, 170.0, 50.0, 50.0 / Math.pow(1.7, 2), "Bulking"));
+
+        StringWriter out = new StringWriter();
+        assertEquals(2, BMIRecordsCsv.exportRecords(records, out));
+
+        List<BMIRecord> imported = new ArrayList<>();
+        assertEquals(2, BMIRecordsCsv.importRecords(new StringReader(out.toString()), imported::add));
+        for (int i = 0; i < records.size(); i++) {
+            assertEquals(records.get(i).getTimestamp(), imported.get(i).getTimestamp());
+            assertEquals(records.get(i).getWeight(), imported.get(i).getWeight(), 0.0);
+            assertEquals(records.get(i).getBmi(), imported.get(i).getBmi(), 0.0, "Nilai BMI kehilangan presisi.");
+            assertEquals(records.get(i).getRecommendation(), imported.get(i).getRecommendation());
+        }
+    }
+
+    /**
+     * Metode ini menguji bahwa kolom dengan tanda kutip yang berisi baris baru, koma, dan tanda
+     * kutip dibaca sebagai satu data, dan nomor baris pada pesan error tetap sesuai.
+     */
+    @Test
+    public void testQuotedFieldWithNewlines() throws IOException {
+        String recommendation = "Diet\nkurangi gula, \"segera\"\n";
+        List<BMIRecord> records = Arrays.asList(
+                new BMIRecord(1_700_000_000_000L, 170.0, 80.0, 27.68, recommendation),
+                new BMIRecord(1_700_000_060_000L, 170.0, 65.0, 22.49, "Ideal"));
+        StringWriter out = new StringWriter();
+        BMIRecordsCsv.exportRecords(records, out);
+
+        List<BMIRecord> imported = new ArrayList<>();
+        assertEquals(2, BMIRecordsCsv.importRecords(new StringReader(out.toString()), imported::add));
+        assertEquals(recommendation, imported.get(0).getRecommendation(), "Kolom multi-baris terpotong.");
+        assertEquals("Ideal", imported.get(1).getRecommendation());
+        assertEquals(65.0, imported.get(1).getWeight(), 0.0);
+
+        String invalid = "Timestamp,Tanggal,Jam,Tinggi,Berat,BMI,Rekomendasi\n"
+                + "1700000000000,x,y,170,80,27.7,\"Diet\nketat\"\n"
+                + "1700000060000,x,y,abc,65,22.5,Ideal\n";
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> BMIRecordsCsv.importRecords(new StringReader(invalid), record -> { }));
+        assertTrue(e.getMessage().contains("Baris CSV 4"), "Nomor baris seharusnya menghitung baris di dalam kolom.");
+
+        String unterminated = "Timestamp,Tanggal,Jam,Tinggi,Berat,BMI,Rekomendasi\n1700000000000,x,y,170,80,27.7,\"Diet\n";
+        assertThrows(IllegalArgumentException.class,
+                () -> BMIRecordsCsv.importRecords(new StringReader(unterminated), record -> { }));
+    }
+
+    /**
+     * Metode ini menguji bahwa baris yang tidak valid ditolak dengan pesan yang jelas.
+     */
+    @Test
+    public void testInvalidLineIsRejected() {
+        String csv = "Timestamp,Tanggal,Jam,Tinggi,Berat,BMI,Rekomendasi\n1700000000000,x,y,abc,80,27.7,Diet\n";
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> BMIRecordsCsv.importRecords(new StringReader(csv), record -> { }));
+        assertTrue(e.getMessage().contains("Baris CSV 2"), "Pesan error seharusnya menyebut nomor baris.");
+    }
+}
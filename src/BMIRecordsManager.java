@@ -1,40 +1,141 @@
-import org.apache.poi.xwpf.usermodel.XWPFDocument;
-import org.apache.poi.xwpf.usermodel.XWPFParagraph;
-import org.apache.poi.xwpf.usermodel.XWPFRun;
-
 import java.io.*;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * Class Program.BMIRecordsManager digunakan untuk mengelola daftar data Program.BMIRecord.
  * Kelas ini mendukung operasi CRUD (Create, Read, Update, Delete) serta
  * memperbarui file DOCX dengan data terbaru.
  */
-public class BMIRecordsManager {
+public class BMIRecordsManager implements Closeable {
     private ArrayList<BMIRecord> records; // Daftar untuk menyimpan Program.BMIRecord
-    private final String dataFile = "bmi_records.dat"; // Nama file untuk persistensi data
+    private final File dataFile; // File lama (Java serialization atau Program.BMIRecordCodec)
+    private final File legacySerFile; // File lama versi pertama (tanpa tinggi dan berat)
+    private final File journalFile; // File journal untuk persistensi data
+    private final BMIRecordArchive archive; // Arsip terkompresi untuk data lama (cold tier)
+    private final long hotWindowMillis; // Umur maksimal data di memori (0 = tidak diarsipkan otomatis)
+    private final BMIRecordJournal.ChannelOpener channelOpener; // Pembuka file journal
+    private BMIRecordJournal journal; // Journal append-only untuk menyimpan perubahan data
+    private BMIStatistics statistics; // Statistik riwayat yang diperbarui setiap perubahan data
+    private BMITimeIndex timeIndex; // Indeks waktu untuk pencarian berdasarkan rentang tanggal
+    private volatile long version; // Versi riwayat, bertambah setiap data berubah
+    private final BMIMetrics metrics = BMIMetrics.getDefault(); // Metrik operasi (addRecord, saveRecords, ...)
+    private static final Logger LOGGER = Logger.getLogger(BMIRecordsManager.class.getName());
 
     /**
      * Constructor untuk menginisialisasi daftar Program.BMIRecord.
      * Memuat data dari file jika sudah ada, atau membuat daftar kosong.
      */
     public BMIRecordsManager() {
+        this(new File("."));
+    }
+
+    /**
+     * Constructor untuk menginisialisasi daftar Program.BMIRecord yang disimpan di folder tertentu.
+     * Memuat data dari file jika sudah ada, atau membuat daftar kosong.
+     *
+     * @param directory Folder tempat file data disimpan.
+     * @throws UncheckedIOException jika data yang sudah ada tidak dapat dipulihkan.
+     */
+    public BMIRecordsManager(File directory) {
+        this(directory, 0);
+    }
+
+    /**
+     * Constructor untuk menginisialisasi daftar Program.BMIRecord dengan penyimpanan bertingkat.
+     * Saat dimuat, data yang lebih tua dari hotWindowMillis dipindahkan ke Program.BMIRecordArchive
+     * (folder bmi_records.archive), sehingga memori dan waktu muat hanya bergantung pada data terbaru.
+     * <p>
+     * Data arsip tetap muncul di {@link #getRecords(long, long)} dan {@link #countRecords(long, long)},
+     * tetapi operasi berbasis index, {@link #getAllRecords()}, dan {@link #getStatistics()} hanya
+     * mencakup data di memori.
+     *
+     * @param directory       Folder tempat file data disimpan.
+     * @param hotWindowMillis Umur maksimal data di memori dalam milidetik (0 = tidak diarsipkan otomatis).
+     * @throws UncheckedIOException     jika data yang sudah ada tidak dapat dipulihkan.
+     * @throws IllegalArgumentException jika hotWindowMillis bernilai negatif.
+     */
+    public BMIRecordsManager(File directory, long hotWindowMillis) {
+        this(directory, hotWindowMillis, BMIRecordJournal.DEFAULT_OPENER);
+    }
+
+    /**
+     * Constructor dengan pembuka file journal tertentu, misalnya untuk mensimulasikan disk yang gagal.
+     *
+     * @param directory       Folder tempat file data disimpan.
+     * @param hotWindowMillis Umur maksimal data di memori dalam milidetik (0 = tidak diarsipkan otomatis).
+     * @param channelOpener   Pembuka channel file journal.
+     */
+    BMIRecordsManager(File directory, long hotWindowMillis, BMIRecordJournal.ChannelOpener channelOpener) {
+        if (hotWindowMillis < 0) {
+            throw new IllegalArgumentException("Rentang data aktif tidak boleh negatif.");
+        }
+        dataFile = new File(directory, "bmi_records.dat");
+        legacySerFile = new File(directory, "bmi_records.ser");
+        journalFile = new File(directory, "bmi_records.journal");
+        this.hotWindowMillis = hotWindowMillis;
+        this.channelOpener = channelOpener;
         records = new ArrayList<>();
         loadRecords(); // Memuat data dari file saat inisialisasi
+        try {
+            archive = new BMIRecordArchive(new File(directory, "bmi_records.archive").toPath());
+            removeArchivedRecords();
+            if (hotWindowMillis > 0) {
+                moveToArchive(System.currentTimeMillis() - hotWindowMillis);
+            }
+        } catch (IOException e) {
+            try {
+                journal.close();
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw new UncheckedIOException("Arsip data BMI gagal dimuat: " + e.getMessage(), e);
+        }
+        version = journal.getGeneration() << 32 | journal.getEntryCount(); // Sama dengan versi sebelum dimuat ulang
+        statistics = new BMIStatistics(records);
+        timeIndex = new BMITimeIndex(records);
     }
 
     /**
      * Menambahkan Program.BMIRecord baru ke daftar.
+     * Penyimpanan ke disk dilakukan di background tanpa menunggu selesai.
      *
      * @param record Objek Program.BMIRecord yang akan ditambahkan.
      * @throws IllegalArgumentException jika record bernilai null.
+     * @throws UncheckedIOException     jika penyimpanan sebelumnya gagal. Data dimuat ulang dari disk dan
+     *                                  perubahan ini tidak diterapkan.
      */
     public void addRecord(BMIRecord record) {
+        reportFailure(addRecordAsync(record));
+    }
+
+    /**
+     * Menambahkan Program.BMIRecord baru ke daftar dan mengembalikan future penyimpanannya.
+     *
+     * @param record Objek Program.BMIRecord yang akan ditambahkan.
+     * @return Future yang selesai ketika data sudah tersimpan di disk.
+     * @throws IllegalArgumentException jika record bernilai null.
+     * @throws UncheckedIOException     jika penyimpanan sebelumnya gagal. Data dimuat ulang dari disk dan
+     *                                  perubahan ini tidak diterapkan.
+     */
+    public CompletableFuture<Void> addRecordAsync(BMIRecord record) {
         if (record == null) {
             throw new IllegalArgumentException("Record tidak boleh null.");
         }
+        recoverFromFailedWrite();
+        BMIMetrics.Timer timer = metrics.start("addRecord");
         records.add(record);
-        saveRecords(); // Menyimpan data setelah menambahkan
+        statistics.recordAdded(record);
+        timeIndex.recordAdded(record);
+        version++;
+        CompletableFuture<Void> saved = metrics.track("saveRecords", journal.appendAdd(record)); // Menyimpan data setelah menambahkan
+        timer.stop();
+        return saved;
     }
 
     /**
@@ -46,65 +147,488 @@ public class BMIRecordsManager {
         return new ArrayList<>(records); // Mengembalikan salinan untuk melindungi data asli
     }
 
+    /**
+     * Mendapatkan Program.BMIRecord pada index tertentu tanpa menyalin daftar.
+     *
+     * @param index Indeks data.
+     * @return Program.BMIRecord pada index tersebut.
+     * @throws IndexOutOfBoundsException jika index tidak valid.
+     */
+    public BMIRecord getRecord(int index) {
+        if (index < 0 || index >= records.size()) {
+            throw new IndexOutOfBoundsException("Index tidak valid.");
+        }
+        return records.get(index);
+    }
+
+    /**
+     * Mendapatkan Program.BMIRecord dengan waktu input dalam rentang [from, to) menggunakan indeks waktu,
+     * tanpa menyalin daftar. View yang dikembalikan hanya berlaku sampai data diubah berikutnya.
+     * Jika rentang menyentuh data arsip, blok arsip yang bersangkutan dibaca dan hasilnya berupa salinan.
+     *
+     * @param from Awal rentang dalam epoch milidetik (inklusif).
+     * @param to   Akhir rentang dalam epoch milidetik (eksklusif).
+     * @return View Program.BMIRecord dalam rentang, terurut berdasarkan waktu.
+     */
+    public List<BMIRecord> getRecords(long from, long to) {
+        if (!archive.overlaps(from, to)) {
+            return timeIndex.range(from, to);
+        }
+        return mergeWithArchive(from, to);
+    }
+
+    /**
+     * Mendapatkan satu halaman Program.BMIRecord dengan waktu input dalam rentang [from, to).
+     * Jika rentang menyentuh data arsip, blok arsip sebelum halaman dilewati berdasarkan jumlah data
+     * di indeks segmen tanpa didekompresi, dan pembacaan berhenti setelah halaman terisi.
+     *
+     * @param from   Awal rentang dalam epoch milidetik (inklusif).
+     * @param to     Akhir rentang dalam epoch milidetik (eksklusif).
+     * @param offset Jumlah data yang dilewati dari awal rentang.
+     * @param limit  Jumlah data maksimal dalam satu halaman.
+     * @return View Program.BMIRecord pada halaman tersebut.
+     * @throws IllegalArgumentException jika offset atau limit bernilai negatif.
+     */
+    public List<BMIRecord> getRecords(long from, long to, int offset, int limit) {
+        if (!archive.overlaps(from, to)) {
+            return timeIndex.page(from, to, offset, limit);
+        }
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("Offset dan limit tidak boleh negatif.");
+        }
+        List<BMIRecordArchive.Block> blocks = archive.blocks(from, to);
+        if (blocks == null) {
+            // Segmen arsip saling tumpang tindih: seluruh rentang digabung terlebih dahulu.
+            List<BMIRecord> merged = mergeWithArchive(from, to);
+            int start = Math.min(offset, merged.size());
+            return merged.subList(start, start + Math.min(limit, merged.size() - start));
+        }
+        try {
+            return pageWithArchive(blocks, from, to, offset, limit);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Arsip data BMI gagal dibaca: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Membuat satu halaman dari gabungan blok arsip dan data di memori dengan urutan yang sama seperti
+     * {@link #mergeWithArchive(long, long)}. Blok yang seluruh datanya (beserta data di memori yang
+     * waktunya lebih kecil) berada sebelum offset dilewati memakai jumlah data dari indeks; hanya blok
+     * di tepi rentang yang perlu dibaca untuk dihitung.
+     *
+     * @param blocks Blok arsip yang beririsan dengan rentang, terurut dan tidak tumpang tindih.
+     * @return Salinan data pada halaman tersebut.
+     * @throws IOException jika blok arsip tidak dapat dibaca.
+     */
+    private List<BMIRecord> pageWithArchive(List<BMIRecordArchive.Block> blocks, long from, long to,
+                                            int offset, int limit) throws IOException {
+        long position = 0;   // Urutan data pertama setelah blok yang dilewati
+        long hotStart = from; // Data di memori sebelum waktu ini sudah dilewati
+        int next = 0;
+        for (; next < blocks.size(); next++) {
+            BMIRecordArchive.Block block = blocks.get(next);
+            long count = block.minTimestamp >= from && block.maxTimestamp < to
+                    ? block.count : inRange(archive.read(block), from, to).size();
+            // Data di memori dengan waktu yang sama dengan data terakhir blok berada setelah blok tersebut.
+            long blockEnd = Math.min(block.maxTimestamp, to);
+            long end = position + count + timeIndex.count(hotStart, blockEnd);
+            if (end > offset) {
+                break;
+            }
+            position = end;
+            hotStart = blockEnd;
+        }
+
+        List<BMIRecord> hot = timeIndex.range(hotStart, to);
+        List<BMIRecord> cold = Collections.emptyList();
+        List<BMIRecord> page = new ArrayList<>(Math.min(limit, 1024));
+        int h = 0;
+        int c = 0;
+        while (page.size() < limit) {
+            if (c == cold.size() && next < blocks.size()) {
+                cold = inRange(archive.read(blocks.get(next++)), from, to);
+                c = 0;
+                continue;
+            }
+            boolean hasCold = c < cold.size();
+            if (!hasCold && h == hot.size()) {
+                break;
+            }
+            if (!hasCold && position < offset) {
+                int skip = (int) Math.min(offset - position, hot.size() - h); // Sisa data hanya di memori
+                h += skip;
+                position += skip;
+                continue;
+            }
+            BMIRecord record = hasCold && (h == hot.size() || cold.get(c).getTimestamp() <= hot.get(h).getTimestamp())
+                    ? cold.get(c++) : hot.get(h++);
+            if (position++ >= offset) {
+                page.add(record);
+            }
+        }
+        return Collections.unmodifiableList(page);
+    }
+
+    /**
+     * Mengambil data blok arsip yang waktunya berada di dalam rentang [from, to).
+     */
+    private static List<BMIRecord> inRange(List<BMIRecord> block, long from, long to) {
+        if (block.isEmpty() || block.get(0).getTimestamp() >= from && block.get(block.size() - 1).getTimestamp() < to) {
+            return block;
+        }
+        List<BMIRecord> result = new ArrayList<>();
+        for (BMIRecord record : block) {
+            if (record.getTimestamp() >= from && record.getTimestamp() < to) {
+                result.add(record);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Menghitung jumlah Program.BMIRecord dengan waktu input dalam rentang [from, to).
+     *
+     * @param from Awal rentang dalam epoch milidetik (inklusif).
+     * @param to   Akhir rentang dalam epoch milidetik (eksklusif).
+     * @return Jumlah data dalam rentang.
+     */
+    public int countRecords(long from, long to) {
+        try {
+            return (int) Math.min(Integer.MAX_VALUE, timeIndex.count(from, to) + archive.count(from, to));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Arsip data BMI gagal dibaca: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Memindahkan data dengan waktu input sebelum cutoff dari memori ke arsip terkompresi.
+     * Segmen arsip ditulis terlebih dahulu, lalu data yang tersisa disimpan sebagai snapshot journal baru.
+     * Index data di memori berubah setelah metode ini dipanggil.
+     *
+     * @param cutoff Batas waktu dalam epoch milidetik (eksklusif).
+     * @return Jumlah data yang dipindahkan.
+     * @throws IOException jika arsip atau journal gagal ditulis. Data di memori tidak berubah.
+     */
+    public int archiveOlderThan(long cutoff) throws IOException {
+        recoverFromFailedWrite();
+        BMIMetrics.Timer timer = metrics.start("archiveRecords");
+        try {
+            int moved = moveToArchive(cutoff);
+            if (moved > 0) {
+                statistics = new BMIStatistics(records);
+                timeIndex = new BMITimeIndex(records);
+                version++;
+            }
+            timer.stop();
+            return moved;
+        } catch (IOException e) {
+            timer.fail(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Menulis data di memori ke file Program.BMIColumnStore, sehingga riwayat dapat dibuka kembali
+     * sebagai tampilan baca saja tanpa memuat seluruh objek (misalnya untuk analisis atau laporan).
+     * Tinggi, berat, dan BMI disimpan sebagai float dan rekomendasi sebagai kode kategori.
+     *
+     * @param file Lokasi file kolom tujuan.
+     * @throws IOException jika file gagal ditulis.
+     */
+    public void exportColumns(File file) throws IOException {
+        BMIColumnStore.write(file.toPath(), records);
+    }
+
+    /**
+     * Mengembalikan jumlah Program.BMIRecord yang tersimpan di arsip (di luar memori).
+     *
+     * @return Jumlah data arsip.
+     */
+    public long getArchivedRecords() {
+        return archive.size();
+    }
+
+    /**
+     * Mengembalikan jumlah blok arsip yang sudah dibaca dari disk (untuk pengujian).
+     */
+    long getArchiveBlockReads() {
+        return archive.getBlockReads();
+    }
+
+    /**
+     * Mengembalikan rentang data aktif yang dipakai saat data dimuat.
+     *
+     * @return Umur maksimal data di memori dalam milidetik (0 = tidak diarsipkan otomatis).
+     */
+    public long getHotWindowMillis() {
+        return hotWindowMillis;
+    }
+
+    /**
+     * Memindahkan data sebelum cutoff ke arsip lalu mengganti isi journal dengan data yang tersisa.
+     */
+    private int moveToArchive(long cutoff) throws IOException {
+        List<BMIRecord> cold = new ArrayList<>();
+        ArrayList<BMIRecord> hot = new ArrayList<>(records.size());
+        for (BMIRecord record : records) {
+            (record.getTimestamp() < cutoff ? cold : hot).add(record);
+        }
+        if (cold.isEmpty()) {
+            return 0;
+        }
+        archive.append(cold); // Tersimpan permanen sebelum data dihapus dari journal
+        journal.replaceAll(hot);
+        records = hot;
+        return cold.size();
+    }
+
+    /**
+     * Membuang data di memori yang sudah ada di arsip. Hal ini terjadi jika crash terjadi setelah
+     * segmen arsip ditulis tetapi sebelum journal diganti. Hanya data yang waktunya berada dalam
+     * rentang arsip yang diperiksa.
+     */
+    private void removeArchivedRecords() throws IOException {
+        ArrayList<BMIRecord> remaining = new ArrayList<>(records.size());
+        for (BMIRecord record : records) {
+            if (!archive.overlaps(record.getTimestamp(), record.getTimestamp() + 1) || !archive.contains(record)) {
+                remaining.add(record);
+            }
+        }
+        if (remaining.size() != records.size()) {
+            LOGGER.warning((records.size() - remaining.size()) + " data yang sudah diarsipkan dihapus dari journal.");
+            journal.replaceAll(remaining);
+            records = remaining;
+        }
+    }
+
+    /**
+     * Menggabungkan data arsip dan data di memori dalam rentang [from, to), terurut berdasarkan waktu.
+     */
+    private List<BMIRecord> mergeWithArchive(long from, long to) {
+        List<BMIRecord> cold;
+        try {
+            cold = archive.range(from, to);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Arsip data BMI gagal dibaca: " + e.getMessage(), e);
+        }
+        List<BMIRecord> hot = timeIndex.range(from, to);
+        if (hot.isEmpty()) {
+            return Collections.unmodifiableList(cold);
+        }
+        List<BMIRecord> merged = new ArrayList<>(cold.size() + hot.size());
+        int i = 0;
+        int j = 0;
+        while (i < cold.size() || j < hot.size()) {
+            if (j == hot.size() || (i < cold.size() && cold.get(i).getTimestamp() <= hot.get(j).getTimestamp())) {
+                merged.add(cold.get(i++));
+            } else {
+                merged.add(hot.get(j++));
+            }
+        }
+        return Collections.unmodifiableList(merged);
+    }
+
     /**
      * Memperbarui Program.BMIRecord pada index tertentu.
+     * Penyimpanan ke disk dilakukan di background tanpa menunggu selesai.
      *
      * @param index        Indeks data yang akan diperbarui.
      * @param updatedRecord Program.BMIRecord yang baru.
      * @throws IndexOutOfBoundsException jika index tidak valid.
      * @throws IllegalArgumentException  jika updatedRecord bernilai null.
+     * @throws UncheckedIOException      jika penyimpanan sebelumnya gagal. Data dimuat ulang dari disk dan
+     *                                   perubahan ini tidak diterapkan.
      */
     public void updateRecord(int index, BMIRecord updatedRecord) {
+        reportFailure(updateRecordAsync(index, updatedRecord));
+    }
+
+    /**
+     * Memperbarui Program.BMIRecord pada index tertentu dan mengembalikan future penyimpanannya.
+     *
+     * @param index        Indeks data yang akan diperbarui.
+     * @param updatedRecord Program.BMIRecord yang baru.
+     * @return Future yang selesai ketika perubahan sudah tersimpan di disk.
+     * @throws IndexOutOfBoundsException jika index tidak valid.
+     * @throws IllegalArgumentException  jika updatedRecord bernilai null.
+     * @throws UncheckedIOException      jika penyimpanan sebelumnya gagal. Data dimuat ulang dari disk dan
+     *                                   perubahan ini tidak diterapkan.
+     */
+    public CompletableFuture<Void> updateRecordAsync(int index, BMIRecord updatedRecord) {
         if (index < 0 || index >= records.size()) {
             throw new IndexOutOfBoundsException("Index tidak valid.");
         }
         if (updatedRecord == null) {
             throw new IllegalArgumentException("Updated record tidak boleh null.");
         }
-        records.set(index, updatedRecord);
-        saveRecords(); // Menyimpan data setelah memperbarui
+        recoverFromFailedWrite();
+        BMIRecord oldRecord = records.set(index, updatedRecord);
+        statistics.recordReplaced(index, oldRecord, updatedRecord);
+        timeIndex.recordReplaced(index, updatedRecord);
+        version++;
+        return metrics.track("saveRecords", journal.appendUpdate(index, updatedRecord)); // Menyimpan data setelah memperbarui
     }
 
     /**
      * Menghapus Program.BMIRecord berdasarkan indeks.
+     * Penyimpanan ke disk dilakukan di background tanpa menunggu selesai.
      *
      * @param index Indeks dari data yang akan dihapus.
      * @throws IndexOutOfBoundsException jika index tidak valid.
+     * @throws UncheckedIOException      jika penyimpanan sebelumnya gagal. Data dimuat ulang dari disk dan
+     *                                   perubahan ini tidak diterapkan.
      */
     public void deleteRecord(int index) {
+        reportFailure(deleteRecordAsync(index));
+    }
+
+    /**
+     * Menghapus Program.BMIRecord berdasarkan indeks dan mengembalikan future penyimpanannya.
+     *
+     * @param index Indeks dari data yang akan dihapus.
+     * @return Future yang selesai ketika penghapusan sudah tersimpan di disk.
+     * @throws IndexOutOfBoundsException jika index tidak valid.
+     * @throws UncheckedIOException      jika penyimpanan sebelumnya gagal. Data dimuat ulang dari disk dan
+     *                                   perubahan ini tidak diterapkan.
+     */
+    public CompletableFuture<Void> deleteRecordAsync(int index) {
         if (index < 0 || index >= records.size()) {
             throw new IndexOutOfBoundsException("Index tidak valid.");
         }
-        records.remove(index);
-        saveRecords(); // Menyimpan data setelah penghapusan
+        recoverFromFailedWrite();
+        BMIRecord oldRecord = records.remove(index);
+        statistics.recordRemoved(index, oldRecord);
+        timeIndex.recordRemoved(index);
+        version++;
+        return metrics.track("saveRecords", journal.appendDelete(index)); // Menyimpan data setelah penghapusan
     }
 
     /**
-     * Menyimpan daftar Program.BMIRecord ke file untuk persistensi.
-     * Jika terjadi kesalahan selama penyimpanan, maka error akan dicetak di konsol.
+     * Memuat ulang data dari disk jika penyimpanan di background sebelumnya gagal. Data di memori
+     * diubah sebelum entri journal ditulis, sehingga setelah batch gagal isi memori tidak lagi sama
+     * dengan isi journal, dan entri berikutnya yang memakai indeks akan mengenai data yang salah.
+     * Journal menolak semua penulisan setelah kegagalan; metode ini membuka journal kembali, memutar
+     * ulang isinya, dan membangun ulang statistik serta indeks waktu.
+     *
+     * @throws UncheckedIOException jika ada penyimpanan yang gagal. Data sudah dimuat ulang, sehingga
+     *                              pemanggil perlu membaca ulang data (dan indeksnya) sebelum mengubahnya.
      */
-    private void saveRecords() {
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(dataFile))) {
-            oos.writeObject(records);
-        } catch (IOException e) {
-            e.printStackTrace();
+    private void recoverFromFailedWrite() {
+        IOException failure = journal.getFailure();
+        if (failure == null) {
+            return;
+        }
+        try {
+            journal.close();
+        } catch (IOException ignored) {
+            // Kegagalan yang sama dengan failure; channel tetap ditutup.
         }
+        loadRecords();
+        statistics = new BMIStatistics(records);
+        timeIndex = new BMITimeIndex(records);
+        version++;
+        throw new UncheckedIOException("Perubahan data BMI sebelumnya gagal disimpan ke " + journalFile
+                + ", data dimuat ulang dari disk: " + failure.getMessage(), failure);
+    }
+
+    /**
+     * Mencatat error ke log jika penyimpanan di background gagal.
+     * Jumlah dan pesan error terakhir juga tersedia di metrik operasi "saveRecords".
+     *
+     * @param future Future penyimpanan data.
+     */
+    private void reportFailure(CompletableFuture<Void> future) {
+        future.whenComplete((ignored, e) -> {
+            if (e != null) {
+                LOGGER.log(Level.SEVERE, "Data BMI gagal disimpan ke " + journalFile, e);
+            }
+        });
     }
 
     /**
-     * Memuat daftar Program.BMIRecord dari file jika file tersedia.
-     * Jika file tidak ditemukan, maka daftar akan tetap kosong.
+     * Memuat daftar Program.BMIRecord dari snapshot dan journal.
+     * Jika journal belum ada tetapi file lama (Java serialization) tersedia,
+     * data lama dipindahkan ke journal satu kali.
+     *
+     * @throws UncheckedIOException jika data tidak dapat dipulihkan. Manajer tidak dibuat dengan
+     *                              daftar kosong agar data di disk tidak tertimpa.
      */
     private void loadRecords() {
-        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(dataFile))) {
-            records = (ArrayList<BMIRecord>) ois.readObject();
-        } catch (FileNotFoundException e) {
-            // Jika file belum ada, abaikan.
-        } catch (IOException | ClassNotFoundException e) {
-            e.printStackTrace();
+        BMIMetrics.Timer timer = metrics.start("loadRecords");
+        try {
+            journal = new BMIRecordJournal(journalFile.toPath(), BMIJournalWriter.getDefault(), channelOpener);
+            records = journal.replay();
+            if (journal.getGeneration() == 0 && journal.getEntryCount() == 0) {
+                migrateLegacyRecords();
+            }
+            timer.stop();
+        } catch (IOException e) {
+            timer.fail(e);
+            if (journal != null) {
+                try {
+                    journal.close();
+                } catch (IOException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+            }
+            throw new UncheckedIOException("Data BMI gagal dimuat dari " + journalFile + ": " + e.getMessage(), e);
         }
     }
 
+    /**
+     * Memindahkan data dari file lama ke journal. File bmi_records.dat dibaca terlebih dahulu,
+     * lalu bmi_records.ser jika .dat tidak ada. Kedua file dapat berupa hasil Java serialization
+     * maupun format biner Program.BMIRecordCodec. Jika tidak ada file lama, daftar akan tetap kosong.
+     * <p>
+     * Seluruh data ditulis sebagai satu snapshot journal (generasi 1), sehingga crash di tengah
+     * migrasi tidak meninggalkan sebagian data di journal: migrasi belum terjadi dan akan diulang,
+     * atau seluruh data sudah pindah.
+     */
+    private void migrateLegacyRecords() throws IOException {
+        File source = dataFile.exists() ? dataFile : legacySerFile;
+        if (!source.exists()) {
+            return; // Jika file belum ada, abaikan.
+        }
+        ArrayList<BMIRecord> legacyRecords = BMIRecordCodec.load(source.toPath());
+        journal.replaceAll(legacyRecords);
+        records = legacyRecords;
+    }
+
+    /**
+     * Menutup journal yang digunakan untuk persistensi data
+     * setelah semua perubahan yang masih diantrikan tersimpan.
+     *
+     * @throws IOException jika journal gagal ditutup.
+     */
+    @Override
+    public void close() throws IOException {
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    /**
+     * Mendapatkan statistik riwayat Program.BMIRecord (rata-rata, varians, EMA, tren, dan agregat
+     * per periode) yang selalu sesuai dengan data terbaru tanpa memindai ulang riwayat.
+     *
+     * @return Statistik riwayat data.
+     */
+    public BMIStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Mengembalikan versi riwayat data. Versi bertambah setiap kali data ditambah, diperbarui, atau dihapus,
+     * sehingga dapat dipakai sebagai kunci cache (misalnya grafik di Program.BMIChartRenderer). Versi awal
+     * dihitung dari generasi dan jumlah entri journal, sehingga riwayat yang dimuat ulang tanpa perubahan
+     * mendapat versi yang sama, sedangkan setiap perubahan yang tersimpan menghasilkan versi berbeda.
+     *
+     * @return Versi riwayat data.
+     */
+    public long getVersion() {
+        return version;
+    }
+
     /**
      * Mengembalikan jumlah total Program.BMIRecord yang tersimpan dalam daftar.
      *
@@ -144,33 +668,18 @@ public class BMIRecordsManager {
             return false; // File tidak ditemukan
         }
 
-        try (FileInputStream fis = new FileInputStream(file);
-             XWPFDocument document = new XWPFDocument(fis)) {
-
+        BMIMetrics.Timer timer = metrics.start("updateDocx");
+        try {
             // Ambil data terakhir untuk dibandingkan
             BMIRecord previousRecord = records.get(records.size() - 1);
 
-            // Tambahkan data terbaru ke dokumen
-            XWPFParagraph paragraph = document.createParagraph();
-            XWPFRun run = paragraph.createRun();
-
-            run.setText("Tanggal: " + newRecord.getDate());
-            run.addBreak();
-            run.setText("Jam: " + newRecord.getTime());
-            run.addBreak();
-            run.setText("Tinggi: " + (int) newRecord.getHeight() + " cm");
-            run.addBreak();
-            run.setText("Berat: " + (int) newRecord.getWeight() + " kg");
-            run.addBreak();
-            run.setText("BMI: " + String.format("%.2f", newRecord.getBmi()));
-            run.addBreak();
-
             // Tambahkan pesan berdasarkan progres
             String message;
 
-            if (newRecord.getBmi() >= 18.5 && newRecord.getBmi() <= 25) {
+            BMICategory previousCategory = previousRecord.getCategory();
+            if (newRecord.getBmi() >= BMICategory.UNDERWEIGHT_LIMIT && newRecord.getBmi() <= BMICategory.OVERWEIGHT_LIMIT) {
                 message = "Yeayy, kamu berhasil mencapai ideal.";
-            } else if ("Diet".equals(previousRecord.getRecommendation())) {
+            } else if (previousCategory == BMICategory.DIET) {
                 if (newRecord.getWeight() < previousRecord.getWeight()) {
                     message = "Progres diet berhasil, lebih semangat lagi untuk mencapai ideal.";
                 } else if (newRecord.getWeight() == previousRecord.getWeight() && newRecord.getHeight() == previousRecord.getHeight()) {
@@ -178,7 +687,7 @@ public class BMIRecordsManager {
                 } else {
                     message = "Progres tidak sesuai harapan, coba evaluasi lagi.";
                 }
-            } else if ("Bulking".equals(previousRecord.getRecommendation())) {
+            } else if (previousCategory == BMICategory.BULKING) {
                 if (newRecord.getWeight() > previousRecord.getWeight()) {
                     message = "Progres bulking berhasil, lebih semangat lagi untuk mencapai ideal.";
                 } else if (newRecord.getWeight() == previousRecord.getWeight() && newRecord.getHeight() == previousRecord.getHeight()) {
@@ -190,19 +699,23 @@ public class BMIRecordsManager {
                 message = "Data progres tidak sesuai untuk dianalisis lebih lanjut.";
             }
 
-            run.setText("Pesan: " + message);
-            run.addBreak();
-
-            // Simpan dokumen
-            try (FileOutputStream fos = new FileOutputStream(file)) {
-                document.write(fos);
-            }
+            // Tambahkan data terbaru ke dokumen
+            BMIDocxReport.append(file, Arrays.asList(
+                    "Tanggal: " + newRecord.getDate(),
+                    "Jam: " + newRecord.getTime(),
+                    "Tinggi: " + (int) newRecord.getHeight() + " cm",
+                    "Berat: " + (int) newRecord.getWeight() + " kg",
+                    "BMI: " + String.format("%.2f", newRecord.getBmi()),
+                    "Pesan: " + message,
+                    "Tren: " + statistics.describeTrend()));
 
         } catch (Exception e) {
-            e.printStackTrace();
+            timer.fail(e);
+            LOGGER.log(Level.WARNING, "Laporan " + fileName + " gagal diperbarui", e);
             return false;
         }
 
+        timer.stop();
         return true;
     }
 }
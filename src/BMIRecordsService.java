@@ -0,0 +1,443 @@
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Class Program.BMIRecordsService mengelola data Program.BMIRecord untuk banyak pengguna sekaligus.
+ * Data setiap pengguna disimpan di partisi (folder) sendiri dan dikelola oleh
+ * Program.BMIRecordsManager masing-masing, sehingga penyimpanan antar pengguna tidak saling menunggu.
+ * <p>
+ * Akses ke partisi dilindungi oleh kunci baca-tulis yang dibagi ke beberapa stripe berdasarkan
+ * ID pengguna. Beberapa pembaca dapat membaca data secara bersamaan, sedangkan perubahan
+ * data hanya memblokir pengguna yang berada di stripe yang sama.
+ */
+public class BMIRecordsService implements Closeable {
+    private static final int DEFAULT_STRIPES = 64; // Jumlah stripe kunci bawaan
+    private static final Pattern USER_ID = Pattern.compile("[A-Za-z0-9_-]{1,64}"); // Format ID pengguna
+
+    private final File baseDirectory; // Folder induk untuk semua partisi
+    private final ConcurrentHashMap<String, BMIRecordsManager> partitions = new ConcurrentHashMap<>();
+    private final Map<String, Integer> leases = new HashMap<>(); // Jumlah acquire() yang belum di-release() per pengguna
+    private final Set<String> transientPartitions = new HashSet<>(); // Partisi yang dilepas saat lease terakhir selesai
+    private final ReentrantReadWriteLock[] locks; // Kunci per stripe
+    private final long hotWindowMillis; // Umur maksimal data di memori per pengguna (0 = tanpa arsip otomatis)
+
+    /**
+     * Constructor untuk membuat layanan dengan jumlah stripe kunci bawaan.
+     *
+     * @param baseDirectory Folder induk tempat data setiap pengguna disimpan.
+     */
+    public BMIRecordsService(File baseDirectory) {
+        this(baseDirectory, DEFAULT_STRIPES);
+    }
+
+    /**
+     * Constructor untuk membuat layanan dengan jumlah stripe kunci tertentu.
+     *
+     * @param baseDirectory Folder induk tempat data setiap pengguna disimpan.
+     * @param stripes       Jumlah stripe kunci.
+     * @throws IllegalArgumentException jika jumlah stripe tidak lebih dari 0.
+     */
+    public BMIRecordsService(File baseDirectory, int stripes) {
+        this(baseDirectory, stripes, 0);
+    }
+
+    /**
+     * Constructor untuk membuat layanan dengan penyimpanan bertingkat. Data setiap pengguna yang lebih
+     * tua dari hotWindowMillis dipindahkan ke arsip terkompresi saat partisinya dimuat
+     * (lihat Program.BMIRecordsManager).
+     *
+     * @param baseDirectory   Folder induk tempat data setiap pengguna disimpan.
+     * @param stripes         Jumlah stripe kunci.
+     * @param hotWindowMillis Umur maksimal data di memori dalam milidetik (0 = tidak diarsipkan otomatis).
+     * @throws IllegalArgumentException jika jumlah stripe tidak lebih dari 0 atau hotWindowMillis negatif.
+     */
+    public BMIRecordsService(File baseDirectory, int stripes, long hotWindowMillis) {
+        if (stripes <= 0) {
+            throw new IllegalArgumentException("Jumlah stripe harus lebih dari 0.");
+        }
+        if (hotWindowMillis < 0) {
+            throw new IllegalArgumentException("Rentang data aktif tidak boleh negatif.");
+        }
+        this.baseDirectory = baseDirectory;
+        this.hotWindowMillis = hotWindowMillis;
+        this.locks = new ReentrantReadWriteLock[stripes];
+        for (int i = 0; i < stripes; i++) {
+            locks[i] = new ReentrantReadWriteLock();
+        }
+    }
+
+    /**
+     * Menambahkan Program.BMIRecord baru untuk pengguna tertentu.
+     *
+     * @param userId ID pengguna.
+     * @param record Objek Program.BMIRecord yang akan ditambahkan.
+     * @throws IllegalArgumentException jika ID pengguna tidak valid atau record bernilai null.
+     */
+    public void addRecord(String userId, BMIRecord record) {
+        withPartition(userId, true, manager -> {
+            manager.addRecord(record);
+            return null;
+        });
+    }
+
+    /**
+     * Memperbarui Program.BMIRecord milik pengguna tertentu pada index tertentu.
+     *
+     * @param userId        ID pengguna.
+     * @param index         Indeks data yang akan diperbarui.
+     * @param updatedRecord Program.BMIRecord yang baru.
+     * @throws IndexOutOfBoundsException jika index tidak valid.
+     * @throws IllegalArgumentException  jika ID pengguna tidak valid atau updatedRecord bernilai null.
+     */
+    public void updateRecord(String userId, int index, BMIRecord updatedRecord) {
+        withPartition(userId, true, manager -> {
+            manager.updateRecord(index, updatedRecord);
+            return null;
+        });
+    }
+
+    /**
+     * Menghapus Program.BMIRecord milik pengguna tertentu berdasarkan indeks.
+     *
+     * @param userId ID pengguna.
+     * @param index  Indeks dari data yang akan dihapus.
+     * @throws IndexOutOfBoundsException jika index tidak valid.
+     * @throws IllegalArgumentException  jika ID pengguna tidak valid.
+     */
+    public void deleteRecord(String userId, int index) {
+        withPartition(userId, true, manager -> {
+            manager.deleteRecord(index);
+            return null;
+        });
+    }
+
+    /**
+     * Mendapatkan salinan seluruh Program.BMIRecord milik pengguna tertentu.
+     *
+     * @param userId ID pengguna.
+     * @return Salinan daftar Program.BMIRecord milik pengguna.
+     * @throws IllegalArgumentException jika ID pengguna tidak valid.
+     */
+    public ArrayList<BMIRecord> getAllRecords(String userId) {
+        return withPartition(userId, false, BMIRecordsManager::getAllRecords);
+    }
+
+    /**
+     * Mengembalikan jumlah Program.BMIRecord milik pengguna tertentu.
+     *
+     * @param userId ID pengguna.
+     * @return Jumlah data milik pengguna.
+     * @throws IllegalArgumentException jika ID pengguna tidak valid.
+     */
+    public int getTotalRecords(String userId) {
+        return withPartition(userId, false, BMIRecordsManager::getTotalRecords);
+    }
+
+    /**
+     * Mengembalikan versi riwayat data pengguna tertentu, lihat {@link BMIRecordsManager#getVersion()}.
+     *
+     * @param userId ID pengguna.
+     * @return Versi riwayat data pengguna.
+     * @throws IllegalArgumentException jika ID pengguna tidak valid.
+     */
+    public long getVersion(String userId) {
+        return withPartition(userId, false, BMIRecordsManager::getVersion);
+    }
+
+    /**
+     * Mendapatkan satu halaman Program.BMIRecord milik pengguna tertentu dengan waktu input
+     * dalam rentang [from, to). Hanya data pada halaman tersebut yang disalin.
+     *
+     * @param userId ID pengguna.
+     * @param from   Awal rentang dalam epoch milidetik (inklusif).
+     * @param to     Akhir rentang dalam epoch milidetik (eksklusif).
+     * @param offset Jumlah data yang dilewati dari awal rentang.
+     * @param limit  Jumlah data maksimal dalam satu halaman.
+     * @return Salinan Program.BMIRecord pada halaman tersebut, terurut berdasarkan waktu.
+     * @throws IllegalArgumentException jika ID pengguna tidak valid, atau offset/limit bernilai negatif.
+     */
+    public ArrayList<BMIRecord> getRecords(String userId, long from, long to, int offset, int limit) {
+        return withPartition(userId, false, manager -> new ArrayList<>(manager.getRecords(from, to, offset, limit)));
+    }
+
+    /**
+     * Menghitung jumlah Program.BMIRecord milik pengguna tertentu dengan waktu input dalam rentang [from, to).
+     *
+     * @param userId ID pengguna.
+     * @param from   Awal rentang dalam epoch milidetik (inklusif).
+     * @param to     Akhir rentang dalam epoch milidetik (eksklusif).
+     * @return Jumlah data dalam rentang.
+     * @throws IllegalArgumentException jika ID pengguna tidak valid.
+     */
+    public int countRecords(String userId, long from, long to) {
+        return withPartition(userId, false, manager -> manager.countRecords(from, to));
+    }
+
+    /**
+     * Mendapatkan snapshot statistik riwayat Program.BMIRecord milik pengguna tertentu. Snapshot
+     * dibuat selama kunci baca dipegang, sehingga tidak berubah oleh perubahan data berikutnya.
+     *
+     * @param userId ID pengguna.
+     * @return Snapshot statistik riwayat data milik pengguna.
+     * @throws IllegalArgumentException jika ID pengguna tidak valid.
+     */
+    public BMIStatistics getStatistics(String userId) {
+        return withPartition(userId, false, manager -> manager.getStatistics().snapshot());
+    }
+
+    /**
+     * Menulis data pengguna tertentu ke file Program.BMIColumnStore selama kunci baca dipegang.
+     * File dapat dibuka dengan {@link BMIColumnStore#open(java.nio.file.Path)}.
+     *
+     * @param userId ID pengguna.
+     * @param file   Lokasi file kolom tujuan.
+     * @throws IOException              jika file gagal ditulis.
+     * @throws IllegalArgumentException jika ID pengguna tidak valid.
+     */
+    public void exportColumns(String userId, File file) throws IOException {
+        try {
+            withPartition(userId, false, manager -> {
+                try {
+                    manager.exportColumns(file);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return null;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Memeriksa apakah partisi pengguna tertentu sedang dimuat di memori.
+     *
+     * @param userId ID pengguna.
+     * @return true jika partisi sudah dimuat.
+     */
+    public boolean isLoaded(String userId) {
+        return userId != null && partitions.containsKey(userId);
+    }
+
+    /**
+     * Menutup dan melepaskan partisi pengguna tertentu dari memori. Data tetap tersimpan di disk
+     * dan akan dimuat ulang saat pengguna diakses kembali. Jika partisi sedang dipakai melalui
+     * {@link #acquire(String)}, partisi baru dilepas saat {@link #release(String)} terakhir.
+     *
+     * @param userId ID pengguna.
+     * @throws IOException jika partisi gagal ditutup.
+     */
+    public void unload(String userId) throws IOException {
+        if (!isLoaded(userId)) {
+            return;
+        }
+        ReentrantReadWriteLock.WriteLock lock = lockFor(userId).writeLock();
+        lock.lock();
+        try {
+            synchronized (leases) {
+                if (leases.containsKey(userId)) {
+                    transientPartitions.add(userId);
+                    return;
+                }
+            }
+            BMIRecordsManager manager = partitions.remove(userId);
+            if (manager != null) {
+                manager.close();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Memuat partisi pengguna tertentu dan menahannya di memori sampai {@link #release(String)}
+     * dipanggil dengan jumlah yang sama. Partisi yang belum dimuat sebelum acquire() pertama
+     * dilepas kembali saat release() terakhir, sedangkan partisi yang sudah dimuat tetap di memori.
+     * Pemeriksaan dan pemuatan dilakukan di bawah kunci tulis, sehingga beberapa pemakai sementara
+     * (misalnya Program.BMIBatchReportGenerator) tidak saling melepas partisi yang masih dipakai.
+     *
+     * @param userId ID pengguna.
+     * @throws IllegalArgumentException jika ID pengguna tidak valid.
+     */
+    public void acquire(String userId) {
+        validateUserId(userId);
+        ReentrantReadWriteLock.WriteLock lock = lockFor(userId).writeLock();
+        lock.lock();
+        try {
+            boolean loaded = partitions.containsKey(userId);
+            partition(userId);
+            synchronized (leases) {
+                if (!loaded) {
+                    transientPartitions.add(userId);
+                }
+                leases.merge(userId, 1, Integer::sum);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Melepas partisi yang ditahan oleh {@link #acquire(String)}. Partisi ditutup jika ini adalah
+     * release() terakhir dan partisi dimuat oleh acquire() (atau unload() diminta selama ditahan).
+     *
+     * @param userId ID pengguna.
+     * @throws IllegalStateException jika partisi tidak sedang ditahan.
+     * @throws IOException           jika partisi gagal ditutup.
+     */
+    public void release(String userId) throws IOException {
+        ReentrantReadWriteLock.WriteLock lock = lockFor(userId).writeLock();
+        lock.lock();
+        try {
+            synchronized (leases) {
+                Integer count = leases.get(userId);
+                if (count == null) {
+                    throw new IllegalStateException("Partisi " + userId + " tidak sedang ditahan.");
+                }
+                if (count > 1) {
+                    leases.put(userId, count - 1);
+                    return;
+                }
+                leases.remove(userId);
+                if (!transientPartitions.remove(userId)) {
+                    return;
+                }
+            }
+            BMIRecordsManager manager = partitions.remove(userId);
+            if (manager != null) {
+                manager.close();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Mengembalikan semua ID pengguna yang memiliki partisi, baik yang sudah dimuat
+     * maupun yang baru tersimpan di disk.
+     *
+     * @return Himpunan ID pengguna yang terurut.
+     */
+    public Set<String> getUserIds() {
+        Set<String> userIds = new TreeSet<>(partitions.keySet());
+        File[] directories = baseDirectory.listFiles(File::isDirectory);
+        if (directories != null) {
+            for (File directory : directories) {
+                if (USER_ID.matcher(directory.getName()).matches()) {
+                    userIds.add(directory.getName());
+                }
+            }
+        }
+        return userIds;
+    }
+
+    /**
+     * Menutup semua partisi yang sudah dimuat.
+     *
+     * @throws IOException jika ada partisi yang gagal ditutup.
+     */
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        for (String userId : partitions.keySet()) {
+            ReentrantReadWriteLock.WriteLock lock = lockFor(userId).writeLock();
+            lock.lock();
+            try {
+                BMIRecordsManager manager = partitions.remove(userId);
+                if (manager != null) {
+                    manager.close();
+                }
+            } catch (IOException e) {
+                failure = e;
+            } finally {
+                lock.unlock();
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Mendapatkan Program.BMIRecordsManager untuk pengguna tertentu. Partisi dimuat dari disk
+     * saat pertama kali diakses.
+     *
+     * @param userId ID pengguna.
+     * @return Manajer data milik pengguna.
+     * @throws IllegalArgumentException jika ID pengguna tidak valid.
+     */
+    BMIRecordsManager partition(String userId) {
+        validateUserId(userId);
+        return partitions.computeIfAbsent(userId, id -> {
+            File directory = new File(baseDirectory, id);
+            directory.mkdirs();
+            return new BMIRecordsManager(directory, hotWindowMillis);
+        });
+    }
+
+    private static void validateUserId(String userId) {
+        if (userId == null || !USER_ID.matcher(userId).matches()) {
+            throw new IllegalArgumentException("ID pengguna tidak valid.");
+        }
+    }
+
+    /**
+     * Menjalankan operasi pada partisi pengguna dengan kunci baca atau tulis dari stripe-nya.
+     * Jika partisi dilepas oleh {@link #unload(String)} sebelum kunci didapat, partisi dimuat ulang.
+     *
+     * @param userId ID pengguna.
+     * @param write  true untuk kunci tulis, false untuk kunci baca.
+     * @param action Operasi yang dijalankan.
+     * @return Hasil operasi.
+     */
+    private <T> T withPartition(String userId, boolean write, Function<BMIRecordsManager, T> action) {
+        validateUserId(userId);
+        ReentrantReadWriteLock stripe = lockFor(userId);
+        Lock lock = write ? stripe.writeLock() : stripe.readLock();
+        while (true) {
+            BMIRecordsManager manager = partitions.get(userId);
+            if (manager == null) {
+                // Partisi dimuat dengan kunci tulis agar tidak tumpang tindih dengan unload().
+                stripe.writeLock().lock();
+                try {
+                    manager = partition(userId);
+                } finally {
+                    stripe.writeLock().unlock();
+                }
+            }
+            lock.lock();
+            try {
+                if (partitions.get(userId) == manager) {
+                    return action.apply(manager);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Mendapatkan kunci baca-tulis untuk stripe milik pengguna tertentu.
+     *
+     * @param userId ID pengguna.
+     * @return Kunci untuk stripe pengguna.
+     */
+    ReentrantReadWriteLock lockFor(String userId) {
+        int hash = userId.hashCode();
+        hash ^= (hash >>> 16);
+        return locks[Math.floorMod(hash, locks.length)];
+    }
+}
@@ -0,0 +1,124 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Class BMIRecordsServiceTest digunakan untuk menguji pengelolaan data BMI
+ * untuk banyak pengguna secara bersamaan.
+ */
+public class BMIRecordsServiceTest {
+
+    /**
+     * Metode ini menguji penambahan data secara paralel oleh banyak pengguna.
+     */
+    @Test
+    public void testConcurrentAddsArePartitionedByUser() throws Exception {
+        File directory = Files.createTempDirectory("bmi-service").toFile();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try (BMIRecordsService service = new BMIRecordsService(directory, 4)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int user = 0; user < 8; user++) {
+                String userId = "user" + user;
+                for (int task = 0; task < 4; task++) {
+                    futures.add(executor.submit(() -> {
+                        for (int i = 0; i < 25; i++) {
+                            service.addRecord(userId, new BMIRecord(170.0, 65.0, 22.49, "Ideal"));
+                            service.getAllRecords(userId);
+                        }
+                    }));
+                }
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            for (int user = 0; user < 8; user++) {
+                assertEquals(100, service.getTotalRecords("user" + user), "Jumlah data per pengguna tidak sesuai.");
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        try (BMIRecordsService service = new BMIRecordsService(directory)) {
+            assertEquals(8, service.getUserIds().size(), "Partisi pengguna tidak ditemukan di disk.");
+            assertEquals(100, service.getTotalRecords("user3"), "Data pengguna tidak tersimpan.");
+            service.deleteRecord("user3", 0);
+            assertEquals(99, service.getTotalRecords("user3"));
+            assertEquals(100, service.getTotalRecords("user4"), "Penghapusan memengaruhi pengguna lain.");
+        }
+    }
+
+    /**
+     * Metode ini menguji bahwa statistik yang dikembalikan adalah snapshot yang tidak ikut berubah
+     * ketika data pengguna berubah.
+     */
+    @Test
+    public void testStatisticsAreSnapshots() throws IOException {
+        File directory = Files.createTempDirectory("bmi-service").toFile();
+        try (BMIRecordsService service = new BMIRecordsService(directory)) {
+            service.addRecord("budi", new BMIRecord(1_700_000_000_000L, 170.0, 70.0, 24.22, "Ideal"));
+            service.addRecord("budi", new BMIRecord(1_700_000_060_000L, 170.0, 80.0, 27.68, "Diet"));
+            BMIStatistics statistics = service.getStatistics("budi");
+
+            service.updateRecord("budi", 0, new BMIRecord(1_700_000_000_000L, 170.0, 60.0, 20.76, "Ideal"));
+            service.addRecord("budi", new BMIRecord(1_700_000_120_000L, 170.0, 90.0, 31.14, "Diet"));
+            assertEquals(2, statistics.getCount(), "Snapshot seharusnya tidak ikut berubah.");
+            assertEquals(75.0, statistics.getMeanWeight(), 0.0001);
+            assertEquals(70.0, statistics.getMinWeight(), 0.0001);
+            assertEquals(80.0, statistics.getMaxWeight(), 0.0001);
+            assertEquals(73.0, statistics.getWeightEma(), 0.0001);
+            assertThrows(UnsupportedOperationException.class,
+                    () -> statistics.recordAdded(new BMIRecord(1_700_000_180_000L, 170.0, 70.0, 24.22, "Ideal")));
+
+            BMIStatistics latest = service.getStatistics("budi");
+            assertEquals(3, latest.getCount());
+            assertEquals(60.0, latest.getMinWeight(), 0.0001);
+            assertEquals(73.2, latest.getWeightEma(), 0.0001, "EMA seharusnya dihitung ulang sebelum snapshot.");
+        }
+    }
+
+    /**
+     * Metode ini menguji bahwa partisi yang dimuat oleh acquire() baru dilepas saat release()
+     * terakhir, sedangkan partisi yang sudah dimuat sebelumnya tetap di memori.
+     */
+    @Test
+    public void testAcquireAndReleaseAreCounted() throws IOException {
+        File directory = Files.createTempDirectory("bmi-service").toFile();
+        try (BMIRecordsService service = new BMIRecordsService(directory)) {
+            service.acquire("budi");
+            service.acquire("budi");
+            service.release("budi");
+            assertTrue(service.isLoaded("budi"), "Partisi masih ditahan oleh acquire() lain.");
+            service.unload("budi");
+            assertTrue(service.isLoaded("budi"), "unload() seharusnya menunggu release() terakhir.");
+            service.release("budi");
+            assertFalse(service.isLoaded("budi"), "Partisi seharusnya dilepas setelah release() terakhir.");
+            assertThrows(IllegalStateException.class, () -> service.release("budi"));
+
+            service.getTotalRecords("ani");
+            service.acquire("ani");
+            service.release("ani");
+            assertTrue(service.isLoaded("ani"), "Partisi yang sudah dimuat seharusnya tidak dilepas.");
+        }
+    }
+
+    /**
+     * Metode ini menguji penolakan ID pengguna yang tidak valid.
+     */
+    @Test
+    public void testInvalidUserIdIsRejected() throws IOException {
+        File directory = Files.createTempDirectory("bmi-service").toFile();
+        try (BMIRecordsService service = new BMIRecordsService(directory)) {
+            assertThrows(IllegalArgumentException.class, () -> service.getAllRecords("../rahasia"));
+            assertThrows(IllegalArgumentException.class, () -> service.getAllRecords(null));
+        }
+    }
+}
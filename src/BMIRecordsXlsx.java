@@ -0,0 +1,217 @@
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.function.Consumer;
+
+/**
+ * Class Program.BMIRecordsXlsx digunakan untuk mengimpor dan mengekspor riwayat Program.BMIRecord
+ * dalam format XLSX secara streaming.
+ * <p>
+ * Ekspor menggunakan SXSSFWorkbook yang hanya menyimpan sebagian kecil baris di memori,
+ * sedangkan impor membaca XML sheet dengan SAX melalui XSSFReader, sehingga file dengan
+ * jutaan baris tidak perlu dimuat seluruhnya sebagai XSSFWorkbook.
+ */
+public class BMIRecordsXlsx {
+    static final int ROW_ACCESS_WINDOW = 100;       // Jumlah baris yang disimpan di memori saat ekspor
+    static final int MAX_ROWS_PER_SHEET = 1_000_000; // Batas data per sheet (batas Excel 1.048.576 baris)
+
+    private BMIRecordsXlsx() {
+    }
+
+    /**
+     * Mengekspor data Program.BMIRecord ke file XLSX. Jika data melebihi batas satu sheet,
+     * data dilanjutkan ke sheet berikutnya.
+     *
+     * @param records Data yang akan diekspor.
+     * @param file    File XLSX tujuan.
+     * @return Jumlah data yang diekspor.
+     * @throws IOException jika penulisan gagal.
+     */
+    public static long exportRecords(Iterable<BMIRecord> records, File file) throws IOException {
+        try (OutputStream out = new FileOutputStream(file)) {
+            return exportRecords(records, out);
+        }
+    }
+
+    /**
+     * Mengekspor data Program.BMIRecord ke stream XLSX.
+     *
+     * @param records Data yang akan diekspor.
+     * @param out     Stream tujuan.
+     * @return Jumlah data yang diekspor.
+     * @throws IOException jika penulisan gagal.
+     */
+    public static long exportRecords(Iterable<BMIRecord> records, OutputStream out) throws IOException {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(ROW_ACCESS_WINDOW);
+        try {
+            workbook.setCompressTempFiles(true);
+            CellStyle timestampStyle = workbook.createCellStyle();
+            timestampStyle.setDataFormat(workbook.createDataFormat().getFormat("0"));
+
+            long count = 0;
+            Sheet sheet = null;
+            int rowIndex = 0;
+            for (BMIRecord record : records) {
+                if (sheet == null || rowIndex > MAX_ROWS_PER_SHEET) {
+                    sheet = workbook.createSheet("Data BMI " + (workbook.getNumberOfSheets() + 1));
+                    Row header = sheet.createRow(0);
+                    for (int i = 0; i < BMIRecordsCsv.HEADER.length; i++) {
+                        header.createCell(i).setCellValue(BMIRecordsCsv.HEADER[i]);
+                    }
+                    rowIndex = 1;
+                }
+                Row row = sheet.createRow(rowIndex++);
+                row.createCell(BMIRecordsCsv.COLUMN_TIMESTAMP).setCellValue(record.getTimestamp());
+                row.getCell(BMIRecordsCsv.COLUMN_TIMESTAMP).setCellStyle(timestampStyle);
+                row.createCell(1).setCellValue(record.getDate());
+                row.createCell(2).setCellValue(record.getTime());
+                row.createCell(BMIRecordsCsv.COLUMN_HEIGHT).setCellValue(record.getHeight());
+                row.createCell(BMIRecordsCsv.COLUMN_WEIGHT).setCellValue(record.getWeight());
+                row.createCell(BMIRecordsCsv.COLUMN_BMI).setCellValue(record.getBmi());
+                row.createCell(BMIRecordsCsv.COLUMN_RECOMMENDATION).setCellValue(record.getRecommendation());
+                count++;
+            }
+            if (sheet == null) {
+                Row header = workbook.createSheet("Data BMI 1").createRow(0);
+                for (int i = 0; i < BMIRecordsCsv.HEADER.length; i++) {
+                    header.createCell(i).setCellValue(BMIRecordsCsv.HEADER[i]);
+                }
+            }
+            workbook.write(out);
+            return count;
+        } finally {
+            workbook.dispose(); // Menghapus file sementara milik SXSSF
+            workbook.close();
+        }
+    }
+
+    /**
+     * Mengimpor data Program.BMIRecord dari semua sheet di file XLSX menggunakan parser SAX.
+     * Baris pertama setiap sheet dianggap sebagai header.
+     *
+     * @param file     File XLSX sumber.
+     * @param consumer Penerima setiap Program.BMIRecord hasil impor.
+     * @return Jumlah data yang diimpor.
+     * @throws IOException              jika file tidak dapat dibaca.
+     * @throws IllegalArgumentException jika ada baris yang formatnya tidak valid.
+     */
+    public static long importRecords(File file, Consumer<BMIRecord> consumer) throws IOException {
+        try (OPCPackage pkg = OPCPackage.open(file, PackageAccess.READ)) {
+            XSSFReader reader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg, false);
+            StylesTable styles = reader.getStylesTable();
+            RowCollector collector = new RowCollector(consumer);
+            XMLReader parser = XMLHelper.newXMLReader();
+            parser.setContentHandler(new XSSFSheetXMLHandler(styles, strings, collector, new RawNumberFormatter(), false));
+
+            Iterator<InputStream> sheets = reader.getSheetsData();
+            while (sheets.hasNext()) {
+                try (InputStream sheet = sheets.next()) {
+                    parser.parse(new InputSource(sheet));
+                }
+            }
+            return collector.count;
+        } catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+            throw new IOException("File XLSX tidak dapat dibaca: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Menghitung indeks kolom (dimulai dari 0) dari referensi sel seperti "C12",
+     * tanpa membuat objek CellReference untuk setiap sel.
+     *
+     * @param cellReference Referensi sel.
+     * @return Indeks kolom, atau -1 jika referensi kosong.
+     */
+    static int columnIndex(String cellReference) {
+        if (cellReference == null) {
+            return -1;
+        }
+        int column = 0;
+        for (int i = 0; i < cellReference.length(); i++) {
+            char c = cellReference.charAt(i);
+            if (c < 'A' || c > 'Z') {
+                break;
+            }
+            column = column * 26 + (c - 'A' + 1);
+        }
+        return column - 1;
+    }
+
+    /**
+     * DataFormatter yang mengembalikan angka apa adanya, sehingga timestamp dan nilai BMI
+     * tidak kehilangan presisi karena format tampilan.
+     */
+    private static final class RawNumberFormatter extends DataFormatter {
+        @Override
+        public String formatRawCellContents(double value, int formatIndex, String formatString) {
+            return Double.toString(value);
+        }
+    }
+
+    /**
+     * Pengumpul nilai sel per baris yang mengubah setiap baris menjadi Program.BMIRecord.
+     */
+    private static final class RowCollector implements XSSFSheetXMLHandler.SheetContentsHandler {
+        private final Consumer<BMIRecord> consumer;
+        private final String[] values = new String[BMIRecordsCsv.HEADER.length];
+        private final ArrayList<String> fields = new ArrayList<>(BMIRecordsCsv.HEADER.length);
+        private long count;
+
+        private RowCollector(Consumer<BMIRecord> consumer) {
+            this.consumer = consumer;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            Arrays.fill(values, null);
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            if (rowNum == 0 || values[BMIRecordsCsv.COLUMN_TIMESTAMP] == null) {
+                return; // Header atau baris kosong
+            }
+            fields.clear();
+            fields.addAll(Arrays.asList(values));
+            try {
+                consumer.accept(BMIRecordsCsv.toRecord(fields));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Baris XLSX " + (rowNum + 1) + " tidak valid: " + e.getMessage(), e);
+            }
+            count++;
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            int column = columnIndex(cellReference);
+            if (column >= 0 && column < values.length) {
+                values[column] = formattedValue;
+            }
+        }
+    }
+}
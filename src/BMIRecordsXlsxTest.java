@@ -0,0 +1,60 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Class BMIRecordsXlsxTest digunakan untuk menguji impor dan ekspor data BMI dalam format XLSX.
+ */
+public class BMIRecordsXlsxTest {
+
+    /**
+     * Metode ini menguji bahwa data hasil ekspor XLSX dapat diimpor kembali tanpa perubahan.
+     */
+    @Test
+    public void testExportImportRoundTrip() throws IOException {
+        List<BMIRecord> records = Arrays.asList(
+                new BMIRecord(1_700_000_000_000L, 170.0, 80.0, 80.0 / Math.pow(1.7, 2), "Diet"),
+                new BMIRecord(1_700_000_060_000L, 172.5, 50.25, 50.25 / Math.pow(1.725, 2), "Bulking"),
+                new BMIRecord(1_700_000_120_000L, 160.0, 55.0, 21.484375, "Catatan, \"khusus\""));
+        File file = Files.createTempFile("bmi", ".xlsx").toFile();
+        try {
+            assertEquals(3, BMIRecordsXlsx.exportRecords(records, file));
+
+            List<BMIRecord> imported = new ArrayList<>();
+            assertEquals(3, BMIRecordsXlsx.importRecords(file, imported::add));
+            assertEquals(records.size(), imported.size());
+            for (int i = 0; i < records.size(); i++) {
+                BMIRecord expected = records.get(i);
+                BMIRecord actual = imported.get(i);
+                assertEquals(expected.getTimestamp(), actual.getTimestamp(), "Timestamp tidak sama.");
+                assertEquals(expected.getHeight(), actual.getHeight(), 0.0);
+                assertEquals(expected.getWeight(), actual.getWeight(), 0.0);
+                assertEquals(expected.getBmi(), actual.getBmi(), 0.0, "Nilai BMI kehilangan presisi.");
+                assertEquals(expected.getRecommendation(), actual.getRecommendation());
+            }
+        } finally {
+            Files.deleteIfExists(file.toPath());
+        }
+    }
+
+    /**
+     * Metode ini menguji bahwa file tanpa data hanya berisi header dan diimpor sebagai nol data.
+     */
+    @Test
+    public void testEmptyExport() throws IOException {
+        File file = Files.createTempFile("bmi", ".xlsx").toFile();
+        try {
+            assertEquals(0, BMIRecordsXlsx.exportRecords(new ArrayList<>(), file));
+            assertEquals(0, BMIRecordsXlsx.importRecords(file, record -> fail("Seharusnya tidak ada data.")));
+        } finally {
+            Files.deleteIfExists(file.toPath());
+        }
+    }
+}
@@ -0,0 +1,564 @@
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Class Program.BMIStatistics menyimpan statistik riwayat Program.BMIRecord milik satu pengguna
+ * yang diperbarui setiap kali data ditambah, diperbarui, atau dihapus, sehingga dashboard dan
+ * pesan progres tidak perlu memindai seluruh riwayat.
+ * <p>
+ * Rata-rata dan varians dihitung dengan algoritma Welford (termasuk kebalikannya saat data
+ * dihapus), tren berat per minggu dengan regresi linear dari jumlah-jumlah yang dapat dikurangi
+ * kembali, dan agregat per hari/minggu/bulan disimpan di tabel hash. Semua operasi tersebut O(1),
+ * kecuali nilai minimum/maksimum yang memakai TreeMap (O(log n)).
+ * <p>
+ * Exponential moving average (EMA) bergantung pada urutan data. Penambahan di akhir riwayat serta
+ * perubahan atau penghapusan data terakhir tetap O(1); perubahan di tengah riwayat menandai EMA
+ * untuk dihitung ulang satu kali saat diminta berikutnya.
+ * <p>
+ * Statistik ini membaca riwayat milik pemanggil, sehingga hanya boleh dipakai selama pemanggil
+ * menahan kunci riwayat tersebut. Untuk dibaca di thread lain, gunakan {@link #snapshot()}.
+ */
+public class BMIStatistics {
+    static final double DEFAULT_EMA_ALPHA = 0.3;       // Bobot data terbaru pada EMA
+    private static final double MILLIS_PER_WEEK = 7 * 24 * 60 * 60 * 1000.0;
+
+    /**
+     * Periode pengelompokan agregat berdasarkan waktu.
+     */
+    public enum Period {
+        DAY, WEEK, MONTH
+    }
+
+    private final List<BMIRecord> history;   // Riwayat milik pemanggil (hanya dibaca saat EMA dihitung ulang)
+    private final double alpha;              // Bobot data terbaru pada EMA
+    private final ZoneId zone;               // Zona waktu untuk pengelompokan periode
+    private final RunningStats weight = new RunningStats();
+    private final RunningStats bmi = new RunningStats();
+    private final Map<Period, Map<Long, Aggregate>> buckets = new EnumMap<>(Period.class);
+
+    // Jumlah untuk regresi linear berat terhadap waktu (dalam minggu sejak origin)
+    private long origin = Long.MIN_VALUE;
+    private double sumT, sumTT, sumW, sumTW;
+
+    // EMA berat dan BMI, beserta nilai sebelum data terakhir agar data terakhir dapat diganti dalam O(1)
+    private double weightEma, bmiEma, previousWeightEma, previousBmiEma;
+    private boolean previousEmaKnown; // false jika data terakhir baru saja dihapus
+    private boolean emaDirty;
+    private final boolean frozen; // true untuk snapshot yang tidak dapat diubah
+
+    /**
+     * Constructor untuk membangun statistik dari riwayat yang sudah ada dengan bobot EMA bawaan.
+     *
+     * @param history Riwayat Program.BMIRecord yang statistiknya dijaga.
+     */
+    public BMIStatistics(List<BMIRecord> history) {
+        this(history, DEFAULT_EMA_ALPHA, ZoneId.systemDefault());
+    }
+
+    /**
+     * Constructor untuk membangun statistik dari riwayat yang sudah ada.
+     *
+     * @param history Riwayat Program.BMIRecord yang statistiknya dijaga.
+     * @param alpha   Bobot data terbaru pada EMA (antara 0 dan 1).
+     * @param zone    Zona waktu untuk pengelompokan per hari, minggu, dan bulan.
+     * @throws IllegalArgumentException jika alpha tidak berada di antara 0 dan 1.
+     */
+    public BMIStatistics(List<BMIRecord> history, double alpha, ZoneId zone) {
+        if (!(alpha > 0 && alpha <= 1)) {
+            throw new IllegalArgumentException("Alpha harus di antara 0 dan 1.");
+        }
+        this.history = history;
+        this.alpha = alpha;
+        this.zone = zone;
+        this.frozen = false;
+        for (Period period : Period.values()) {
+            buckets.put(period, new HashMap<>());
+        }
+        for (BMIRecord record : history) {
+            include(record);
+            advanceEma(record);
+        }
+    }
+
+    /**
+     * Constructor untuk membuat snapshot dari statistik lain. EMA sumber harus sudah dihitung.
+     *
+     * @param source Statistik sumber.
+     */
+    private BMIStatistics(BMIStatistics source) {
+        this.history = Collections.emptyList();
+        this.alpha = source.alpha;
+        this.zone = source.zone;
+        this.frozen = true;
+        weight.copyFrom(source.weight);
+        bmi.copyFrom(source.bmi);
+        for (Period period : Period.values()) {
+            Map<Long, Aggregate> copy = new HashMap<>();
+            for (Map.Entry<Long, Aggregate> entry : source.buckets.get(period).entrySet()) {
+                copy.put(entry.getKey(), entry.getValue().copy());
+            }
+            buckets.put(period, copy);
+        }
+        origin = source.origin;
+        sumT = source.sumT;
+        sumTT = source.sumTT;
+        sumW = source.sumW;
+        sumTW = source.sumTW;
+        weightEma = source.weightEma;
+        bmiEma = source.bmiEma;
+    }
+
+    /**
+     * Membuat salinan statistik yang tidak dapat diubah dan tidak lagi membaca riwayat, sehingga
+     * aman dibaca setelah kunci riwayat dilepas meskipun riwayat terus berubah. Harus dipanggil
+     * selama pemanggil masih menahan kunci riwayat.
+     *
+     * @return Snapshot statistik saat ini.
+     */
+    public synchronized BMIStatistics snapshot() {
+        ensureEma();
+        return new BMIStatistics(this);
+    }
+
+    /**
+     * Memperbarui statistik setelah record ditambahkan di akhir riwayat.
+     * Dipanggil setelah riwayat diubah, begitu juga metode record* lainnya.
+     *
+     * @param record Record yang ditambahkan.
+     * @throws UnsupportedOperationException jika statistik ini adalah snapshot.
+     */
+    public synchronized void recordAdded(BMIRecord record) {
+        checkMutable();
+        include(record);
+        if (!emaDirty) {
+            advanceEma(record);
+        }
+    }
+
+    /**
+     * Memperbarui statistik setelah record pada indeks tertentu diganti.
+     *
+     * @param index     Indeks record yang diganti.
+     * @param oldRecord Record lama.
+     * @param newRecord Record baru.
+     * @throws UnsupportedOperationException jika statistik ini adalah snapshot.
+     */
+    public synchronized void recordReplaced(int index, BMIRecord oldRecord, BMIRecord newRecord) {
+        checkMutable();
+        exclude(oldRecord);
+        include(newRecord);
+        if (!emaDirty && previousEmaKnown && index == history.size() - 1) {
+            weightEma = previousWeightEma;
+            bmiEma = previousBmiEma;
+            advanceEma(newRecord);
+        } else {
+            emaDirty = true;
+        }
+    }
+
+    /**
+     * Memperbarui statistik setelah record pada indeks tertentu dihapus.
+     *
+     * @param index     Indeks record yang dihapus.
+     * @param oldRecord Record yang dihapus.
+     * @throws UnsupportedOperationException jika statistik ini adalah snapshot.
+     */
+    public synchronized void recordRemoved(int index, BMIRecord oldRecord) {
+        checkMutable();
+        exclude(oldRecord);
+        // Riwayat sudah tidak memuat record tersebut, sehingga indeks == history.size()
+        // berarti yang dihapus adalah data terakhir.
+        if (!emaDirty && previousEmaKnown && index == history.size()) {
+            weightEma = previousWeightEma;
+            bmiEma = previousBmiEma;
+            previousEmaKnown = false; // EMA sebelum data terakhir yang baru tidak diketahui
+        } else {
+            emaDirty = true;
+        }
+    }
+
+    /**
+     * Mengembalikan jumlah data yang tercakup dalam statistik.
+     *
+     * @return Jumlah data.
+     */
+    public synchronized long getCount() {
+        return weight.count;
+    }
+
+    /**
+     * Mengembalikan rata-rata berat badan.
+     *
+     * @return Rata-rata berat badan, atau 0 jika belum ada data.
+     */
+    public synchronized double getMeanWeight() {
+        return weight.mean;
+    }
+
+    /**
+     * Mengembalikan rata-rata BMI.
+     *
+     * @return Rata-rata BMI, atau 0 jika belum ada data.
+     */
+    public synchronized double getMeanBmi() {
+        return bmi.mean;
+    }
+
+    /**
+     * Mengembalikan varians sampel berat badan.
+     *
+     * @return Varians berat badan, atau 0 jika data kurang dari 2.
+     */
+    public synchronized double getWeightVariance() {
+        return weight.variance();
+    }
+
+    /**
+     * Mengembalikan varians sampel BMI.
+     *
+     * @return Varians BMI, atau 0 jika data kurang dari 2.
+     */
+    public synchronized double getBmiVariance() {
+        return bmi.variance();
+    }
+
+    /**
+     * Mengembalikan berat badan terkecil.
+     *
+     * @return Berat badan terkecil, atau NaN jika belum ada data.
+     */
+    public synchronized double getMinWeight() {
+        return weight.min();
+    }
+
+    /**
+     * Mengembalikan berat badan terbesar.
+     *
+     * @return Berat badan terbesar, atau NaN jika belum ada data.
+     */
+    public synchronized double getMaxWeight() {
+        return weight.max();
+    }
+
+    /**
+     * Mengembalikan BMI terkecil.
+     *
+     * @return BMI terkecil, atau NaN jika belum ada data.
+     */
+    public synchronized double getMinBmi() {
+        return bmi.min();
+    }
+
+    /**
+     * Mengembalikan BMI terbesar.
+     *
+     * @return BMI terbesar, atau NaN jika belum ada data.
+     */
+    public synchronized double getMaxBmi() {
+        return bmi.max();
+    }
+
+    /**
+     * Mengembalikan exponential moving average berat badan.
+     *
+     * @return EMA berat badan, atau NaN jika belum ada data.
+     */
+    public synchronized double getWeightEma() {
+        ensureEma();
+        return weight.count == 0 ? Double.NaN : weightEma;
+    }
+
+    /**
+     * Mengembalikan exponential moving average BMI.
+     *
+     * @return EMA BMI, atau NaN jika belum ada data.
+     */
+    public synchronized double getBmiEma() {
+        ensureEma();
+        return bmi.count == 0 ? Double.NaN : bmiEma;
+    }
+
+    /**
+     * Mengembalikan laju perubahan berat badan per minggu berdasarkan regresi linear
+     * seluruh riwayat. Nilai negatif berarti berat badan cenderung turun.
+     *
+     * @return Perubahan berat badan (kg) per minggu, atau 0 jika data belum cukup.
+     */
+    public synchronized double getWeightChangePerWeek() {
+        long n = weight.count;
+        double denominator = n * sumTT - sumT * sumT;
+        if (n < 2 || Math.abs(denominator) < 1e-9) {
+            return 0;
+        }
+        return (n * sumTW - sumT * sumW) / denominator;
+    }
+
+    /**
+     * Mengembalikan agregat untuk periode yang memuat waktu tertentu.
+     *
+     * @param period    Periode pengelompokan.
+     * @param timestamp Waktu dalam epoch milidetik.
+     * @return Salinan agregat periode tersebut, atau null jika tidak ada data.
+     */
+    public synchronized Aggregate getAggregate(Period period, long timestamp) {
+        Aggregate aggregate = buckets.get(period).get(bucketKey(period, timestamp));
+        return aggregate == null ? null : aggregate.copy();
+    }
+
+    /**
+     * Mengembalikan jumlah periode yang memiliki data.
+     *
+     * @param period Periode pengelompokan.
+     * @return Jumlah periode yang memiliki data.
+     */
+    public synchronized int getBucketCount(Period period) {
+        return buckets.get(period).size();
+    }
+
+    /**
+     * Membuat pesan singkat tentang tren berat badan untuk ditampilkan ke pengguna.
+     *
+     * @return Pesan tren berat badan.
+     */
+    public synchronized String describeTrend() {
+        if (weight.count < 2) {
+            return "Belum cukup data untuk melihat tren.";
+        }
+        double change = getWeightChangePerWeek();
+        if (Math.abs(change) < 0.05) {
+            return String.format("Berat badan stabil di sekitar %.1f kg.", getWeightEma());
+        }
+        return String.format("Berat badan %s rata-rata %.2f kg per minggu.", change < 0 ? "turun" : "naik", Math.abs(change));
+    }
+
+    private void checkMutable() {
+        if (frozen) {
+            throw new UnsupportedOperationException("Snapshot statistik tidak dapat diubah.");
+        }
+    }
+
+    private void include(BMIRecord record) {
+        weight.add(record.getWeight());
+        bmi.add(record.getBmi());
+        long timestamp = record.getTimestamp();
+        if (origin == Long.MIN_VALUE) {
+            origin = timestamp; // Origin tetap agar jumlah regresi dapat dikurangi kembali
+        }
+        double t = (timestamp - origin) / MILLIS_PER_WEEK;
+        sumT += t;
+        sumTT += t * t;
+        sumW += record.getWeight();
+        sumTW += t * record.getWeight();
+        for (Period period : Period.values()) {
+            buckets.get(period).computeIfAbsent(bucketKey(period, timestamp), key -> new Aggregate()).add(record);
+        }
+    }
+
+    private void exclude(BMIRecord record) {
+        weight.remove(record.getWeight());
+        bmi.remove(record.getBmi());
+        long timestamp = record.getTimestamp();
+        double t = (timestamp - origin) / MILLIS_PER_WEEK;
+        sumT -= t;
+        sumTT -= t * t;
+        sumW -= record.getWeight();
+        sumTW -= t * record.getWeight();
+        for (Period period : Period.values()) {
+            Map<Long, Aggregate> periodBuckets = buckets.get(period);
+            Long key = bucketKey(period, timestamp);
+            Aggregate aggregate = periodBuckets.get(key);
+            if (aggregate != null && aggregate.remove(record) == 0) {
+                periodBuckets.remove(key);
+            }
+        }
+        if (weight.count == 0) {
+            origin = Long.MIN_VALUE;
+            sumT = sumTT = sumW = sumTW = 0; // Membuang sisa pembulatan
+        }
+    }
+
+    private void advanceEma(BMIRecord record) {
+        previousWeightEma = weightEma;
+        previousBmiEma = bmiEma;
+        previousEmaKnown = true;
+        if (weight.count == 1) {
+            weightEma = record.getWeight();
+            bmiEma = record.getBmi();
+        } else {
+            weightEma += alpha * (record.getWeight() - weightEma);
+            bmiEma += alpha * (record.getBmi() - bmiEma);
+        }
+    }
+
+    private void ensureEma() {
+        if (!emaDirty) {
+            return;
+        }
+        weightEma = bmiEma = previousWeightEma = previousBmiEma = 0;
+        boolean first = true;
+        for (BMIRecord record : history) {
+            previousWeightEma = weightEma;
+            previousBmiEma = bmiEma;
+            if (first) {
+                weightEma = record.getWeight();
+                bmiEma = record.getBmi();
+                first = false;
+            } else {
+                weightEma += alpha * (record.getWeight() - weightEma);
+                bmiEma += alpha * (record.getBmi() - bmiEma);
+            }
+        }
+        previousEmaKnown = true;
+        emaDirty = false;
+    }
+
+    /**
+     * Menghitung kunci periode dari waktu tertentu.
+     *
+     * @param period    Periode pengelompokan.
+     * @param timestamp Waktu dalam epoch milidetik.
+     * @return Nomor hari, minggu (mulai Senin), atau bulan sejak epoch.
+     */
+    long bucketKey(Period period, long timestamp) {
+        LocalDate date = Instant.ofEpochMilli(timestamp).atZone(zone).toLocalDate();
+        switch (period) {
+            case DAY:
+                return date.toEpochDay();
+            case WEEK:
+                return Math.floorDiv(date.toEpochDay() - 4, 7); // 1970-01-05 adalah hari Senin
+            default:
+                return (date.getYear() - 1970) * 12L + date.getMonthValue() - 1;
+        }
+    }
+
+    /**
+     * Agregat data dalam satu periode.
+     */
+    public static final class Aggregate {
+        private int count;
+        private double sumWeight;
+        private double sumBmi;
+
+        private void add(BMIRecord record) {
+            count++;
+            sumWeight += record.getWeight();
+            sumBmi += record.getBmi();
+        }
+
+        private int remove(BMIRecord record) {
+            count--;
+            sumWeight -= record.getWeight();
+            sumBmi -= record.getBmi();
+            return count;
+        }
+
+        private Aggregate copy() {
+            Aggregate copy = new Aggregate();
+            copy.count = count;
+            copy.sumWeight = sumWeight;
+            copy.sumBmi = sumBmi;
+            return copy;
+        }
+
+        /**
+         * Mengembalikan jumlah data dalam periode.
+         *
+         * @return Jumlah data.
+         */
+        public int getCount() {
+            return count;
+        }
+
+        /**
+         * Mengembalikan rata-rata berat badan dalam periode.
+         *
+         * @return Rata-rata berat badan.
+         */
+        public double getMeanWeight() {
+            return sumWeight / count;
+        }
+
+        /**
+         * Mengembalikan rata-rata BMI dalam periode.
+         *
+         * @return Rata-rata BMI.
+         */
+        public double getMeanBmi() {
+            return sumBmi / count;
+        }
+    }
+
+    /**
+     * Rata-rata dan varians dengan algoritma Welford, serta nilai minimum/maksimum
+     * yang tetap benar saat data dihapus.
+     */
+    private static final class RunningStats {
+        private long count;
+        private double mean;
+        private double m2; // Jumlah kuadrat selisih dari rata-rata
+        private final TreeMap<Double, Integer> values = new TreeMap<>();
+
+        private void add(double x) {
+            count++;
+            double delta = x - mean;
+            mean += delta / count;
+            m2 += delta * (x - mean);
+            values.merge(x, 1, Integer::sum);
+        }
+
+        private void remove(double x) {
+            Integer occurrences = values.get(x);
+            if (occurrences == null) {
+                throw new IllegalArgumentException("Nilai tidak ada di statistik: " + x);
+            }
+            if (occurrences == 1) {
+                values.remove(x);
+            } else {
+                values.put(x, occurrences - 1);
+            }
+            if (count == 1) {
+                count = 0;
+                mean = 0;
+                m2 = 0;
+                return;
+            }
+            double previousMean = (count * mean - x) / (count - 1);
+            m2 = Math.max(0, m2 - (x - previousMean) * (x - mean));
+            mean = previousMean;
+            count--;
+        }
+
+        /**
+         * Menyalin nilai dari statistik lain untuk snapshot. Hanya nilai minimum dan maksimum yang
+         * disalin, karena snapshot tidak pernah menghapus data.
+         */
+        private void copyFrom(RunningStats source) {
+            count = source.count;
+            mean = source.mean;
+            m2 = source.m2;
+            if (!source.values.isEmpty()) {
+                values.put(source.values.firstKey(), 1);
+                values.put(source.values.lastKey(), 1);
+            }
+        }
+
+        private double variance() {
+            return count < 2 ? 0 : m2 / (count - 1);
+        }
+
+        private double min() {
+            return values.isEmpty() ? Double.NaN : values.firstKey();
+        }
+
+        private double max() {
+            return values.isEmpty() ? Double.NaN : values.lastKey();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+import org.junit.jupiter.api.Test;
+
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Class BMIStatisticsTest digunakan untuk menguji statistik riwayat BMI yang diperbarui
+ * secara bertahap.
+ */
+public class BMIStatisticsTest {
+    private static final long DAY = 24 * 60 * 60 * 1000L;
+
+    /**
+     * Metode ini menguji bahwa statistik bertahap sama dengan hasil perhitungan ulang
+     * setelah serangkaian penambahan, pembaruan, dan penghapusan acak.
+     */
+    @Test
+    public void testIncrementalMatchesRecompute() {
+        Random random = new Random(42);
+        List<BMIRecord> history = new ArrayList<>();
+        BMIStatistics statistics = new BMIStatistics(history, 0.3, ZoneOffset.UTC);
+        long time = 1_700_000_000_000L;
+        for (int i = 0; i < 500; i++) {
+            int operation = history.isEmpty() ? 0 : random.nextInt(4);
+            BMIRecord record = new BMIRecord(time += DAY / 2, 170, 60 + random.nextInt(30), 20 + random.nextInt(10), "Ideal");
+            if (operation <= 1) {
+                history.add(record);
+                statistics.recordAdded(record);
+            } else if (operation == 2) {
+                int index = random.nextBoolean() ? history.size() - 1 : random.nextInt(history.size());
+                statistics.recordReplaced(index, history.set(index, record), record);
+            } else {
+                int index = random.nextBoolean() ? history.size() - 1 : random.nextInt(history.size());
+                statistics.recordRemoved(index, history.remove(index));
+            }
+            assertMatches(history, statistics);
+        }
+    }
+
+    /**
+     * Metode ini menguji agregat per periode dan laju perubahan berat per minggu.
+     */
+    @Test
+    public void testBucketsAndTrend() {
+        List<BMIRecord> history = new ArrayList<>();
+        long start = 1_704_067_200_000L; // 2024-01-01 00:00 UTC (Senin)
+        for (int day = 0; day < 28; day++) {
+            history.add(new BMIRecord(start + day * DAY, 170, 80 - day / 7.0, 25, "Diet"));
+        }
+        BMIStatistics statistics = new BMIStatistics(history, 0.3, ZoneOffset.UTC);
+
+        assertEquals(-1.0, statistics.getWeightChangePerWeek(), 1e-9, "Tren berat per minggu tidak sesuai.");
+        assertEquals(4, statistics.getBucketCount(BMIStatistics.Period.WEEK));
+        assertEquals(28, statistics.getBucketCount(BMIStatistics.Period.DAY));
+        assertEquals(1, statistics.getBucketCount(BMIStatistics.Period.MONTH));
+        BMIStatistics.Aggregate week = statistics.getAggregate(BMIStatistics.Period.WEEK, start + 8 * DAY);
+        assertEquals(7, week.getCount());
+        assertEquals(80 - 1 - 3 / 7.0, week.getMeanWeight(), 1e-9);
+        assertTrue(statistics.describeTrend().startsWith("Berat badan turun"));
+
+        BMIRecord removed = history.remove(0);
+        statistics.recordRemoved(0, removed);
+        assertEquals(27, statistics.getBucketCount(BMIStatistics.Period.DAY));
+        assertNull(statistics.getAggregate(BMIStatistics.Period.DAY, start));
+    }
+
+    private static void assertMatches(List<BMIRecord> history, BMIStatistics statistics) {
+        BMIStatistics expected = new BMIStatistics(new ArrayList<>(history), 0.3, ZoneOffset.UTC);
+        assertEquals(expected.getCount(), statistics.getCount());
+        assertEquals(expected.getMeanWeight(), statistics.getMeanWeight(), 1e-6);
+        assertEquals(expected.getWeightVariance(), statistics.getWeightVariance(), 1e-6);
+        assertEquals(expected.getBmiVariance(), statistics.getBmiVariance(), 1e-6);
+        assertEquals(expected.getMinWeight(), statistics.getMinWeight(), 0);
+        assertEquals(expected.getMaxBmi(), statistics.getMaxBmi(), 0);
+        assertEquals(expected.getWeightEma(), statistics.getWeightEma(), 1e-6);
+        assertEquals(expected.getBmiEma(), statistics.getBmiEma(), 1e-6);
+        assertEquals(expected.getWeightChangePerWeek(), statistics.getWeightChangePerWeek(), 1e-6);
+        assertEquals(expected.getBucketCount(BMIStatistics.Period.DAY), statistics.getBucketCount(BMIStatistics.Period.DAY));
+    }
+}
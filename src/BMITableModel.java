@@ -0,0 +1,109 @@
+import javax.swing.table.AbstractTableModel;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+
+/**
+ * Class Program.BMITableModel adalah model tabel yang membaca data langsung dari
+ * Program.BMIRecordsManager tanpa menyalin seluruh riwayat ke tabel.
+ * <p>
+ * Nilai sel diformat hanya saat baris tersebut ditampilkan (JTable hanya meminta baris yang
+ * terlihat), sehingga waktu buka dan memori tidak bergantung pada panjang riwayat. Perubahan
+ * data diberitahukan ke tabel per baris melalui {@link #rowInserted()}, {@link #rowUpdated(int)},
+ * dan {@link #rowDeleted(int)}. Semua metode model harus dipanggil dari Event Dispatch Thread.
+ */
+public class BMITableModel extends AbstractTableModel {
+    private static final long serialVersionUID = 1L; // Untuk mendukung serialization
+
+    static final String[] COLUMNS = {"Tanggal", "Jam", "Tinggi", "Berat", "BMI", "Rekomendasi"};
+
+    private final DecimalFormat bmiFormat; // Formatter BMI yang dipakai ulang untuk semua sel
+    private BMIRecordsManager manager;     // Sumber data (null selama data masih dimuat)
+
+    /**
+     * Constructor untuk membuat model kosong. Data ditampilkan setelah
+     * {@link #setManager(BMIRecordsManager)} dipanggil.
+     */
+    public BMITableModel() {
+        bmiFormat = new DecimalFormat("0.00", DecimalFormatSymbols.getInstance(Locale.getDefault(Locale.Category.FORMAT)));
+    }
+
+    /**
+     * Mengganti sumber data tabel dan menampilkan ulang seluruh baris.
+     *
+     * @param manager Manajer data BMI.
+     */
+    public void setManager(BMIRecordsManager manager) {
+        this.manager = manager;
+        fireTableDataChanged();
+    }
+
+    public BMIRecordsManager getManager() {
+        return manager;
+    }
+
+    @Override
+    public int getRowCount() {
+        return manager == null ? 0 : manager.getTotalRecords();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return column == 2 || column == 3 ? Integer.class : String.class;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        BMIRecord record = manager.getRecord(row);
+        switch (column) {
+            case 0:
+                return record.getDate();
+            case 1:
+                return record.getTime();
+            case 2:
+                return (int) record.getHeight();
+            case 3:
+                return (int) record.getWeight();
+            case 4:
+                return bmiFormat.format(record.getBmi());
+            default:
+                return record.getRecommendation();
+        }
+    }
+
+    /**
+     * Memberitahu tabel bahwa satu data baru ditambahkan di akhir riwayat.
+     */
+    public void rowInserted() {
+        int row = getRowCount() - 1;
+        fireTableRowsInserted(row, row);
+    }
+
+    /**
+     * Memberitahu tabel bahwa data pada baris tertentu diperbarui.
+     *
+     * @param row Indeks baris yang diperbarui.
+     */
+    public void rowUpdated(int row) {
+        fireTableRowsUpdated(row, row);
+    }
+
+    /**
+     * Memberitahu tabel bahwa data pada baris tertentu dihapus.
+     *
+     * @param row Indeks baris yang dihapus.
+     */
+    public void rowDeleted(int row) {
+        fireTableRowsDeleted(row, row);
+    }
+}
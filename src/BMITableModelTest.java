@@ -0,0 +1,56 @@
+import org.junit.jupiter.api.Test;
+
+import javax.swing.event.TableModelEvent;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Class BMITableModelTest digunakan untuk menguji model tabel yang membaca data
+ * langsung dari Program.BMIRecordsManager.
+ */
+public class BMITableModelTest {
+
+    /**
+     * Metode ini menguji nilai sel dan event perubahan per baris.
+     */
+    @Test
+    public void testCellsAndIncrementalEvents() throws Exception {
+        File directory = Files.createTempDirectory("bmi-table").toFile();
+        try (BMIRecordsManager manager = new BMIRecordsManager(directory)) {
+            BMITableModel model = new BMITableModel();
+            assertEquals(0, model.getRowCount(), "Model tanpa manajer seharusnya kosong.");
+
+            List<TableModelEvent> events = new ArrayList<>();
+            model.addTableModelListener(events::add);
+            model.setManager(manager);
+
+            BMIRecord record = new BMIRecord(170.0, 65.0, 65.0 / Math.pow(1.7, 2), "Ideal");
+            manager.addRecord(record);
+            model.rowInserted();
+            manager.addRecord(new BMIRecord(170.0, 80.0, 80.0 / Math.pow(1.7, 2), "Diet"));
+            model.rowInserted();
+
+            assertEquals(2, model.getRowCount());
+            assertEquals(record.getDate(), model.getValueAt(0, 0));
+            assertEquals(170, model.getValueAt(0, 2));
+            assertEquals(String.format("%.2f", record.getBmi()), model.getValueAt(0, 4), "Format BMI tidak sesuai.");
+            assertEquals("Diet", model.getValueAt(1, 5));
+
+            manager.deleteRecord(0);
+            model.rowDeleted(0);
+            assertEquals(1, model.getRowCount());
+            assertEquals("Diet", model.getValueAt(0, 5));
+
+            TableModelEvent inserted = events.get(2);
+            assertEquals(TableModelEvent.INSERT, inserted.getType());
+            assertEquals(1, inserted.getFirstRow());
+            TableModelEvent deleted = events.get(3);
+            assertEquals(TableModelEvent.DELETE, deleted.getType());
+            assertEquals(0, deleted.getFirstRow());
+        }
+    }
+}
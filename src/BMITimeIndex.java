@@ -0,0 +1,220 @@
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Class Program.BMITimeIndex adalah indeks waktu untuk riwayat Program.BMIRecord yang memungkinkan
+ * pencarian data dalam rentang waktu tertentu dengan binary search.
+ * <p>
+ * Indeks menyimpan timestamp setiap data sebagai long primitif dengan urutan yang sama seperti
+ * riwayat, sehingga tidak perlu mem-parse tanggal dalam bentuk String. Selama riwayat terurut
+ * berdasarkan waktu (kasus normal, karena data baru selalu ditambahkan di akhir), hasil pencarian
+ * berupa view dari riwayat tanpa menyalin data. Jika ada data yang diperbarui dengan waktu yang
+ * tidak berurutan, indeks membuat urutan tambahan satu kali dan hasil pencarian berupa view
+ * melalui urutan tersebut.
+ */
+public class BMITimeIndex {
+    private final List<BMIRecord> history; // Riwayat milik pemanggil
+    private long[] timestamps;             // Timestamp dengan urutan yang sama seperti riwayat
+    private int size;                      // Jumlah timestamp yang terisi
+    private int inversions;                // Jumlah pasangan berurutan yang waktunya mundur
+    private int[] order;                   // Urutan indeks berdasarkan waktu (hanya jika tidak terurut)
+    private long[] orderedTimestamps;      // Timestamp sesuai urutan di atas
+
+    /**
+     * Constructor untuk membangun indeks dari riwayat yang sudah ada.
+     *
+     * @param history Riwayat Program.BMIRecord yang diindeks.
+     */
+    public BMITimeIndex(List<BMIRecord> history) {
+        this.history = history;
+        this.timestamps = new long[Math.max(16, history.size())];
+        for (BMIRecord record : history) {
+            recordAdded(record);
+        }
+    }
+
+    /**
+     * Memperbarui indeks setelah record ditambahkan di akhir riwayat.
+     *
+     * @param record Record yang ditambahkan.
+     */
+    public synchronized void recordAdded(BMIRecord record) {
+        if (size == timestamps.length) {
+            timestamps = Arrays.copyOf(timestamps, size * 2);
+        }
+        timestamps[size++] = record.getTimestamp();
+        inversions += inversionAt(size - 1);
+        order = null;
+    }
+
+    /**
+     * Memperbarui indeks setelah record pada indeks tertentu diganti.
+     *
+     * @param index     Indeks record yang diganti.
+     * @param newRecord Record baru.
+     */
+    public synchronized void recordReplaced(int index, BMIRecord newRecord) {
+        inversions -= inversionAt(index) + inversionAt(index + 1);
+        timestamps[index] = newRecord.getTimestamp();
+        inversions += inversionAt(index) + inversionAt(index + 1);
+        order = null;
+    }
+
+    /**
+     * Memperbarui indeks setelah record pada indeks tertentu dihapus.
+     *
+     * @param index Indeks record yang dihapus.
+     */
+    public synchronized void recordRemoved(int index) {
+        inversions -= inversionAt(index) + inversionAt(index + 1);
+        System.arraycopy(timestamps, index + 1, timestamps, index, size - index - 1);
+        size--;
+        inversions += inversionAt(index);
+        order = null;
+    }
+
+    /**
+     * Memeriksa apakah riwayat terurut berdasarkan waktu.
+     *
+     * @return true jika setiap data tidak lebih awal dari data sebelumnya.
+     */
+    public synchronized boolean isChronological() {
+        return inversions == 0;
+    }
+
+    /**
+     * Mengembalikan data dengan waktu dalam rentang [from, to).
+     * View yang dikembalikan hanya berlaku sampai riwayat diubah berikutnya.
+     *
+     * @param from Awal rentang dalam epoch milidetik (inklusif).
+     * @param to   Akhir rentang dalam epoch milidetik (eksklusif).
+     * @return View data dalam rentang, terurut berdasarkan waktu.
+     */
+    public synchronized List<BMIRecord> range(long from, long to) {
+        if (to <= from) {
+            return Collections.emptyList();
+        }
+        if (inversions == 0) {
+            int start = lowerBound(timestamps, size, from);
+            int end = lowerBound(timestamps, size, to);
+            return Collections.unmodifiableList(history.subList(start, end));
+        }
+        ensureOrder();
+        int start = lowerBound(orderedTimestamps, size, from);
+        int end = lowerBound(orderedTimestamps, size, to);
+        return new OrderedView(order, start, end);
+    }
+
+    /**
+     * Mengembalikan satu halaman data dengan waktu dalam rentang [from, to).
+     *
+     * @param from   Awal rentang dalam epoch milidetik (inklusif).
+     * @param to     Akhir rentang dalam epoch milidetik (eksklusif).
+     * @param offset Jumlah data yang dilewati dari awal rentang.
+     * @param limit  Jumlah data maksimal dalam satu halaman.
+     * @return View data pada halaman tersebut.
+     * @throws IllegalArgumentException jika offset atau limit bernilai negatif.
+     */
+    public synchronized List<BMIRecord> page(long from, long to, int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("Offset dan limit tidak boleh negatif.");
+        }
+        List<BMIRecord> range = range(from, to);
+        int start = Math.min(offset, range.size());
+        int end = (int) Math.min((long) start + limit, range.size());
+        return range.subList(start, end);
+    }
+
+    /**
+     * Menghitung jumlah data dengan waktu dalam rentang [from, to) tanpa membuat view.
+     *
+     * @param from Awal rentang dalam epoch milidetik (inklusif).
+     * @param to   Akhir rentang dalam epoch milidetik (eksklusif).
+     * @return Jumlah data dalam rentang.
+     */
+    public synchronized int count(long from, long to) {
+        if (to <= from) {
+            return 0;
+        }
+        long[] sorted = timestamps;
+        if (inversions != 0) {
+            ensureOrder();
+            sorted = orderedTimestamps;
+        }
+        return lowerBound(sorted, size, to) - lowerBound(sorted, size, from);
+    }
+
+    private int inversionAt(int index) {
+        return index > 0 && index < size && timestamps[index] < timestamps[index - 1] ? 1 : 0;
+    }
+
+    private void ensureOrder() {
+        if (order != null) {
+            return;
+        }
+        Integer[] boxed = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            boxed[i] = i;
+        }
+        Arrays.sort(boxed, (a, b) -> Long.compare(timestamps[a], timestamps[b])); // Stabil
+        order = new int[size];
+        orderedTimestamps = new long[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = boxed[i];
+            orderedTimestamps[i] = timestamps[order[i]];
+        }
+    }
+
+    /**
+     * Mencari posisi pertama dengan nilai tidak kurang dari key.
+     *
+     * @param values Array terurut.
+     * @param length Jumlah elemen yang dipakai.
+     * @param key    Nilai yang dicari.
+     * @return Posisi pertama dengan nilai >= key.
+     */
+    static int lowerBound(long[] values, int length, long key) {
+        int low = 0;
+        int high = length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (values[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * View data riwayat melalui urutan waktu untuk riwayat yang tidak terurut.
+     */
+    private final class OrderedView extends AbstractList<BMIRecord> implements RandomAccess {
+        private final int[] order;
+        private final int start;
+        private final int end;
+
+        private OrderedView(int[] order, int start, int end) {
+            this.order = order;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public BMIRecord get(int index) {
+            if (index < 0 || index >= end - start) {
+                throw new IndexOutOfBoundsException("Index tidak valid.");
+            }
+            return history.get(order[start + index]);
+        }
+
+        @Override
+        public int size() {
+            return end - start;
+        }
+    }
+}
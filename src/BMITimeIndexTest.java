@@ -0,0 +1,64 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Class BMITimeIndexTest digunakan untuk menguji pencarian data BMI berdasarkan rentang waktu.
+ */
+public class BMITimeIndexTest {
+    private static final long DAY = 24 * 60 * 60 * 1000L;
+    private static final long START = 1_700_000_000_000L;
+
+    /**
+     * Metode ini menguji pencarian rentang dan paging pada riwayat yang terurut.
+     */
+    @Test
+    public void testRangeAndPage() {
+        List<BMIRecord> history = new ArrayList<>();
+        for (int day = 0; day < 365; day++) {
+            history.add(new BMIRecord(START + day * DAY, 170, 70, 24.22, "Ideal"));
+        }
+        BMITimeIndex index = new BMITimeIndex(history);
+
+        List<BMIRecord> lastMonth = index.range(START + 335 * DAY, Long.MAX_VALUE);
+        assertEquals(30, lastMonth.size(), "Jumlah data 30 hari terakhir tidak sesuai.");
+        assertSame(history.get(335), lastMonth.get(0), "Hasil pencarian seharusnya berupa view tanpa salinan.");
+        assertEquals(30, index.count(START + 335 * DAY, Long.MAX_VALUE));
+        assertEquals(0, index.range(START + 400 * DAY, START + 500 * DAY).size());
+
+        List<BMIRecord> page = index.page(START, START + 100 * DAY, 90, 25);
+        assertEquals(10, page.size(), "Halaman terakhir seharusnya hanya berisi sisa data.");
+        assertSame(history.get(90), page.get(0));
+        assertThrows(UnsupportedOperationException.class, () -> lastMonth.remove(0));
+    }
+
+    /**
+     * Metode ini menguji pencarian rentang setelah data diperbarui dengan waktu yang tidak berurutan
+     * dan setelah data dihapus.
+     */
+    @Test
+    public void testOutOfOrderUpdateAndRemove() {
+        List<BMIRecord> history = new ArrayList<>();
+        for (int day = 0; day < 10; day++) {
+            history.add(new BMIRecord(START + day * DAY, 170, 60 + day, 24.22, "Ideal"));
+        }
+        BMITimeIndex index = new BMITimeIndex(history);
+
+        BMIRecord moved = new BMIRecord(START + 20 * DAY, 170, 99, 24.22, "Ideal");
+        history.set(2, moved);
+        index.recordReplaced(2, moved);
+        assertFalse(index.isChronological());
+        List<BMIRecord> tail = index.range(START + 8 * DAY, Long.MAX_VALUE);
+        assertEquals(3, tail.size());
+        assertSame(moved, tail.get(2), "Data yang dipindah seharusnya berada di akhir rentang.");
+
+        history.remove(2);
+        index.recordRemoved(2);
+        assertTrue(index.isChronological(), "Riwayat seharusnya kembali terurut setelah data dihapus.");
+        assertEquals(9, index.count(Long.MIN_VALUE, Long.MAX_VALUE));
+        assertEquals(63.0, index.range(START + 3 * DAY, START + 4 * DAY).get(0).getWeight(), 0);
+    }
+}
@@ -1,17 +1,10 @@
-import org.apache.poi.util.Units;
-import org.apache.poi.xwpf.usermodel.ParagraphAlignment;
-import org.apache.poi.xwpf.usermodel.XWPFDocument;
-import org.apache.poi.xwpf.usermodel.XWPFParagraph;
-import org.apache.poi.xwpf.usermodel.XWPFRun;
-
 import javax.swing.*;
 import javax.swing.table.DefaultTableCellRenderer;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Class Program.BMITrackerGUI adalah antarmuka pengguna grafis (GUI) untuk aplikasi BMI Tracker.
@@ -19,10 +12,14 @@ import java.io.FileOutputStream;
  * memperbarui, mengekspor data ke file DOCX, dan menghapus data.
  */
 public class BMITrackerGUI extends JFrame {
+    private static final long serialVersionUID = 1L; // Untuk mendukung serialization
     private JTextField tfHeight, tfWeight; // Input field untuk tinggi dan berat badan
     private JTable table; // Tabel untuk menampilkan data BMI
-    private DefaultTableModel tableModel; // Model untuk data pada tabel
+    private BMITableModel tableModel; // Model yang membaca data langsung dari manajer
     private BMIRecordsManager manager; // Manajer untuk mengelola data BMI
+    private final BMICommandRunner commands = new BMICommandRunner(); // Menjalankan I/O di luar EDT
+    private final BMIChartRenderer charts = new BMIChartRenderer(); // Grafik progres, di-cache per versi data
+    private static final String CHART_KEY = "local"; // Kunci grafik riwayat pengguna GUI
 
     public JTextField getTfHeight() {
         return tfHeight;
@@ -36,7 +33,7 @@ public class BMITrackerGUI extends JFrame {
         return manager;
     }
 
-    public DefaultTableModel getTableModel() {
+    public BMITableModel getTableModel() {
         return tableModel;
     }
 
@@ -50,7 +47,6 @@ public class BMITrackerGUI extends JFrame {
         setDefaultCloseOperation(EXIT_ON_CLOSE);
         setLocationRelativeTo(null);
 
-        manager = new BMIRecordsManager(); // Inisialisasi manajer data BMI
         setLayout(new BorderLayout(10, 10)); // Tata letak utama
 
         // Panel Input
@@ -106,12 +102,33 @@ public class BMITrackerGUI extends JFrame {
         add(inputPanel, BorderLayout.WEST);
 
         // Membuat tabel untuk menampilkan data BMI
-        tableModel = new DefaultTableModel(new String[]{"Tanggal", "Jam", "Tinggi", "Berat", "BMI", "Rekomendasi"}, 0);
+        tableModel = new BMITableModel();
         table = new JTable(tableModel);
         JScrollPane scrollPane = new JScrollPane(table);
         scrollPane.setBorder(BorderFactory.createTitledBorder(BorderFactory.createLineBorder(Color.BLUE), "Data BMI", 0, 0, new Font("Arial", Font.BOLD, 14), Color.BLUE));
         add(scrollPane, BorderLayout.CENTER);
 
+        // Status bar untuk proses yang berjalan di background
+        JPanel statusPanel = new JPanel(new BorderLayout(5, 5));
+        statusPanel.setBorder(BorderFactory.createEmptyBorder(0, 5, 5, 5));
+        JLabel lblStatus = new JLabel("Siap.");
+        JProgressBar progressBar = new JProgressBar(0, 100);
+        progressBar.setVisible(false);
+        JButton btnCancel = new JButton("Batal");
+        btnCancel.setEnabled(false);
+        statusPanel.add(lblStatus, BorderLayout.CENTER);
+        statusPanel.add(progressBar, BorderLayout.EAST);
+        statusPanel.add(btnCancel, BorderLayout.WEST);
+        add(statusPanel, BorderLayout.SOUTH);
+        commands.setStatusListener((running, percent, message) -> {
+            if (message != null) {
+                lblStatus.setText(message);
+            }
+            progressBar.setValue(percent);
+            progressBar.setVisible(running > 0);
+            btnCancel.setEnabled(running > 0);
+        });
+
         // Set center alignment for all columns except "Rekomendasi"
         DefaultTableCellRenderer centerRenderer = new DefaultTableCellRenderer();
         centerRenderer.setHorizontalAlignment(SwingConstants.CENTER);
@@ -121,10 +138,8 @@ public class BMITrackerGUI extends JFrame {
             }
         }
 
-        // Load data dari manager ke tabel
-        for (BMIRecord record : manager.getAllRecords()) {
-            tableModel.addRow(new Object[]{record.getDate(), record.getTime(), (int) record.getHeight(), (int) record.getWeight(), String.format("%.2f", record.getBmi()), record.getRecommendation()});
-        }
+        // Load data dari file di background agar jendela langsung tampil
+        loadManager(btnAdd, btnUpdate, btnExport, btnDelete);
 
         // Event Handler: Tambah Data
         btnAdd.addActionListener(this::actionPerformed);
@@ -137,54 +152,48 @@ public class BMITrackerGUI extends JFrame {
                 return;
             }
 
-            fileName += ".docx";
-
-            File file = new File(fileName);
-            if (file.exists()) {
-                JOptionPane.showMessageDialog(null, "Nama file \"" + fileName + "\" sudah digunakan. Masukkan nama lain.");
-                return;
+            String docxName = fileName + ".docx";
+            File file = new File(docxName);
+
+            // Ambil data terbaru (baris terakhir dari tableModel) di EDT, dokumen dibuat di background
+            int lastRow = tableModel.getRowCount() - 1; // Indeks baris terakhir
+            java.util.List<String> paragraph = null;
+            BMICategory category = null; // Menentukan gambar pada template laporan
+            if (lastRow >= 0) { // Pastikan ada data
+                category = manager.getRecord(lastRow).getCategory();
+                paragraph = Arrays.asList(
+                        "Tanggal: " + tableModel.getValueAt(lastRow, 0),
+                        "Jam: " + tableModel.getValueAt(lastRow, 1),
+                        "Tinggi: " + tableModel.getValueAt(lastRow, 2) + " cm",
+                        "Berat: " + tableModel.getValueAt(lastRow, 3) + " kg",
+                        "BMI: " + tableModel.getValueAt(lastRow, 4),
+                        "Rekomendasi: " + tableModel.getValueAt(lastRow, 5));
             }
-
-            try (XWPFDocument document = new XWPFDocument(); FileOutputStream out = new FileOutputStream(fileName)) {
-                XWPFParagraph title = document.createParagraph();
-                title.setAlignment(ParagraphAlignment.CENTER);
-                XWPFRun titleRun = title.createRun();
-                titleRun.setText("Rekomendasi BMI");
-                titleRun.setBold(true);
-                titleRun.setFontSize(16);
-
-                // Ambil data terbaru (baris terakhir dari tableModel)
-                int lastRow = tableModel.getRowCount() - 1; // Indeks baris terakhir
-                if (lastRow >= 0) { // Pastikan ada data
-                    String date = tableModel.getValueAt(lastRow, 0).toString();
-                    String time = tableModel.getValueAt(lastRow, 1).toString();
-                    String height = tableModel.getValueAt(lastRow, 2).toString();
-                    String weight = tableModel.getValueAt(lastRow, 3).toString();
-                    String bmi = tableModel.getValueAt(lastRow, 4).toString();
-                    String recommendation = tableModel.getValueAt(lastRow, 5).toString();
-
-                    XWPFParagraph paragraph = document.createParagraph();
-                    XWPFRun run = paragraph.createRun();
-
-                    run.setText("Tanggal: " + date);
-                    run.addBreak();
-                    run.setText("Jam: " + time);
-                    run.addBreak();
-                    run.setText("Tinggi: " + height + " cm");
-                    run.addBreak();
-                    run.setText("Berat: " + weight + " kg");
-                    run.addBreak();
-                    run.setText("BMI: " + bmi);
-                    run.addBreak();
-                    run.setText("Rekomendasi: " + recommendation);
-                    run.addBreak();
+            java.util.List<String> latest = paragraph;
+            BMICategory latestCategory = category;
+            long version = manager.getVersion(); // Versi dibaca sebelum riwayat disalin
+            java.util.List<BMIRecord> history = manager.getAllRecords(); // Salinan referensi, digambar di background
+
+            commands.submit("export:" + file.getAbsolutePath(), "Export " + docxName, progress -> {
+                if (file.exists()) {
+                    throw new IllegalArgumentException("Nama file \"" + docxName + "\" sudah digunakan. Masukkan nama lain.");
                 }
-
-                document.write(out);
-                JOptionPane.showMessageDialog(null, "Dokumen berhasil diekspor dengan data terbaru!");
-            } catch (Exception ex) {
-                JOptionPane.showMessageDialog(null, "Terjadi kesalahan: " + ex.getMessage());
-            }
+                BMIMetrics.Timer timer = BMIMetrics.getDefault().start("exportDocx");
+                try {
+                    progress.update(10, "Menyiapkan template laporan...");
+                    BMIDocxTemplate template = BMIDocxTemplate.forCategory(latestCategory);
+                    progress.update(25, "Menggambar grafik progres...");
+                    byte[] chart = history.isEmpty() ? null : charts.getChart(CHART_KEY, version, () -> history);
+                    progress.update(60, "Membuat dokumen " + docxName + "...");
+                    BMIDocxReport.create(file, "Rekomendasi BMI", template, latest, chart);
+                    timer.stop();
+                    return null;
+                } catch (Exception ex) {
+                    timer.fail(ex);
+                    throw ex;
+                }
+            }, ignored -> JOptionPane.showMessageDialog(null, "Dokumen berhasil diekspor dengan data terbaru!"),
+                    this::showError);
         });
 
         // Event Handler: Update Progres
@@ -194,94 +203,134 @@ public class BMITrackerGUI extends JFrame {
                 JOptionPane.showMessageDialog(null, "Nama file tidak boleh kosong.");
                 return;
             }
-
-            fileName += ".docx";
-
-            File file = new File(fileName);
-            if (!file.exists()) {
-                JOptionPane.showMessageDialog(null, "File dengan nama \"" + fileName + "\" tidak ditemukan. Pastikan Anda sudah membuat file tersebut.");
+            if (manager.getTotalRecords() == 0) {
+                JOptionPane.showMessageDialog(null, "Belum ada data untuk ditambahkan ke file.");
                 return;
             }
 
-            try (XWPFDocument document = new XWPFDocument(new FileInputStream(file)); FileOutputStream out = new FileOutputStream(fileName)) {
-                // Ambil data terbaru dan data sebelumnya
-                BMIRecord latestRecord = manager.getAllRecords().get(manager.getTotalRecords() - 1); // Data terbaru
-                BMIRecord previousRecord = manager.getAllRecords().size() > 1
-                        ? manager.getAllRecords().get(manager.getTotalRecords() - 2) // Data sebelumnya
-                        : null;
-
-                XWPFParagraph paragraph = document.createParagraph();
-                XWPFRun run = paragraph.createRun();
-
-                String progressMessage;
-
-                if (previousRecord == null) {
-                    progressMessage = "Tidak ada data sebelumnya untuk dibandingkan.";
-                } else {
-                    // Logika pesan berdasarkan rekomendasi sebelumnya
-                    if ("Diet".equals(previousRecord.getRecommendation())) {
-                        if (latestRecord.getBmi() >= 18.5 && latestRecord.getBmi() <= 25) {
-                            progressMessage = "Yeayy, kamu berhasil mencapai ideal.";
-                        } else if (latestRecord.getWeight() < previousRecord.getWeight()) {
-                            progressMessage = "Progres diet berhasil, lebih semangat lagi untuk mencapai ideal.";
-                        } else if (latestRecord.getWeight() == previousRecord.getWeight()) {
-                            progressMessage = "Tidak ada progres, pastikan untuk melaksanakan tips di atas.";
-                        } else {
-                            progressMessage = "Progres tidak sesuai harapan, coba evaluasi lagi.";
-                        }
-                    } else if ("Bulking".equals(previousRecord.getRecommendation())) {
-                        if (latestRecord.getBmi() >= 18.5 && latestRecord.getBmi() <= 25) {
-                            progressMessage = "Yeayy, kamu berhasil mencapai ideal.";
-                        } else if (latestRecord.getWeight() > previousRecord.getWeight()) {
-                            progressMessage = "Progres bulking berhasil, lebih semangat lagi untuk mencapai ideal.";
-                        } else if (latestRecord.getWeight() == previousRecord.getWeight()) {
-                            progressMessage = "Tidak ada progres, pastikan untuk melaksanakan tips di atas.";
-                        } else {
-                            progressMessage = "Progres tidak sesuai harapan, coba evaluasi lagi.";
-                        }
-                    } else {
-                        progressMessage = "Data progres tidak sesuai untuk dianalisis lebih lanjut.";
-                    }
+            String docxName = fileName + ".docx";
+            File file = new File(docxName);
+
+            // Ambil data terbaru dan data sebelumnya di EDT, file diperbarui di background
+            BMIRecord latestRecord = manager.getRecord(manager.getTotalRecords() - 1); // Data terbaru
+            BMIRecord previousRecord = manager.getTotalRecords() > 1
+                    ? manager.getRecord(manager.getTotalRecords() - 2) // Data sebelumnya
+                    : null;
+            String trend = manager.getStatistics().describeTrend();
+            long version = manager.getVersion(); // Versi dibaca sebelum riwayat disalin
+            java.util.List<BMIRecord> history = manager.getAllRecords(); // Salinan referensi, digambar di background
+
+            commands.submit("update:" + file.getAbsolutePath(), "Update " + docxName, progress -> {
+                if (!file.exists()) {
+                    throw new IllegalArgumentException("File dengan nama \"" + docxName + "\" tidak ditemukan. Pastikan Anda sudah membuat file tersebut.");
                 }
-
-                // Tambahkan data terbaru ke file
-                run.setText("Tanggal: " + latestRecord.getDate());
-                run.addBreak();
-                run.setText("Jam: " + latestRecord.getTime());
-                run.addBreak();
-                run.setText("Tinggi: " + (int) latestRecord.getHeight() + " cm");
-                run.addBreak();
-                run.setText("Berat: " + (int) latestRecord.getWeight() + " kg");
-                run.addBreak();
-                run.setText("BMI: " + String.format("%.2f", latestRecord.getBmi()));
-                run.addBreak();
-                run.setText("Pesan: " + progressMessage);
-                run.addBreak();
-
-                document.write(out);
-
-                JOptionPane.showMessageDialog(null, "File berhasil di-update dengan data terbaru!");
-            } catch (Exception ex) {
-                JOptionPane.showMessageDialog(null, "Terjadi kesalahan: " + ex.getMessage());
-            }
+                BMIMetrics.Timer timer = BMIMetrics.getDefault().start("updateProgress");
+                try {
+                    progress.update(20, "Menggambar grafik progres...");
+                    byte[] chart = charts.getChart(CHART_KEY, version, () -> history);
+                    progress.update(50, "Memperbarui " + docxName + "...");
+                    // Tambahkan data terbaru dan grafik progres ke file
+                    BMIDocxReport.append(file, Arrays.asList(
+                            "Tanggal: " + latestRecord.getDate(),
+                            "Jam: " + latestRecord.getTime(),
+                            "Tinggi: " + (int) latestRecord.getHeight() + " cm",
+                            "Berat: " + (int) latestRecord.getWeight() + " kg",
+                            "BMI: " + String.format("%.2f", latestRecord.getBmi()),
+                            "Pesan: " + progressMessage(latestRecord, previousRecord),
+                            "Tren: " + trend), chart);
+                    timer.stop();
+                    return null;
+                } catch (Exception ex) {
+                    timer.fail(ex);
+                    throw ex;
+                }
+            }, ignored -> JOptionPane.showMessageDialog(null, "File berhasil di-update dengan data terbaru!"),
+                    this::showError);
         });
 
         // Event Handler: Hapus Data
         btnDelete.addActionListener(e -> {
             int selectedRow = table.getSelectedRow();
             if (selectedRow >= 0) {
-                // Hapus data dari Program.BMIRecordsManager
-                manager.deleteRecord(selectedRow);
-
-                // Hapus data dari tabel
-                tableModel.removeRow(selectedRow);
+                // Hapus data dari Program.BMIRecordsManager dan tabel, penyimpanan dilakukan di background
+                CompletableFuture<Void> saved = manager.deleteRecordAsync(selectedRow);
+                tableModel.rowDeleted(selectedRow);
 
-                JOptionPane.showMessageDialog(null, "Data berhasil dihapus!");
+                commands.submit(null, "Menghapus data", progress -> saved.get(),
+                        ignored -> JOptionPane.showMessageDialog(null, "Data berhasil dihapus!"),
+                        this::showError);
             } else {
                 JOptionPane.showMessageDialog(null, "Pilih baris data yang ingin dihapus.");
             }
         });
 
+        // Event Handler: Batalkan proses yang sedang berjalan
+        btnCancel.addActionListener(e -> commands.cancelAll());
+
+    }
+
+    /**
+     * Menentukan pesan progres berdasarkan rekomendasi data sebelumnya.
+     *
+     * @param latestRecord   Data terbaru.
+     * @param previousRecord Data sebelumnya, atau null jika belum ada.
+     * @return Pesan progres.
+     */
+    static String progressMessage(BMIRecord latestRecord, BMIRecord previousRecord) {
+        if (previousRecord == null) {
+            return "Tidak ada data sebelumnya untuk dibandingkan.";
+        }
+        // Logika pesan berdasarkan rekomendasi sebelumnya
+        BMICategory previousCategory = previousRecord.getCategory();
+        boolean ideal = latestRecord.getBmi() >= BMICategory.UNDERWEIGHT_LIMIT
+                && latestRecord.getBmi() <= BMICategory.OVERWEIGHT_LIMIT;
+        if (previousCategory == BMICategory.DIET) {
+            if (ideal) {
+                return "Yeayy, kamu berhasil mencapai ideal.";
+            } else if (latestRecord.getWeight() < previousRecord.getWeight()) {
+                return "Progres diet berhasil, lebih semangat lagi untuk mencapai ideal.";
+            } else if (latestRecord.getWeight() == previousRecord.getWeight()) {
+                return "Tidak ada progres, pastikan untuk melaksanakan tips di atas.";
+            }
+            return "Progres tidak sesuai harapan, coba evaluasi lagi.";
+        } else if (previousCategory == BMICategory.BULKING) {
+            if (ideal) {
+                return "Yeayy, kamu berhasil mencapai ideal.";
+            } else if (latestRecord.getWeight() > previousRecord.getWeight()) {
+                return "Progres bulking berhasil, lebih semangat lagi untuk mencapai ideal.";
+            } else if (latestRecord.getWeight() == previousRecord.getWeight()) {
+                return "Tidak ada progres, pastikan untuk melaksanakan tips di atas.";
+            }
+            return "Progres tidak sesuai harapan, coba evaluasi lagi.";
+        }
+        return "Data progres tidak sesuai untuk dianalisis lebih lanjut.";
+    }
+
+    private void showError(Exception ex) {
+        if (ex instanceof IllegalArgumentException) {
+            JOptionPane.showMessageDialog(null, ex.getMessage());
+        } else {
+            JOptionPane.showMessageDialog(null, "Terjadi kesalahan: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Memuat Program.BMIRecordsManager di background thread. Tombol dinonaktifkan sampai
+     * data selesai dimuat, lalu tabel menampilkan data langsung dari manajer.
+     *
+     * @param buttons Tombol yang membutuhkan data.
+     */
+    private void loadManager(JButton... buttons) {
+        for (JButton button : buttons) {
+            button.setEnabled(false);
+        }
+        commands.submit(null, "Memuat data", progress -> new BMIRecordsManager(), loaded -> { // Inisialisasi manajer data BMI
+            manager = loaded;
+            tableModel.setManager(manager);
+            for (JButton button : buttons) {
+                button.setEnabled(true);
+            }
+        }, ex -> JOptionPane.showMessageDialog(null, "Data gagal dimuat: " + ex.getMessage()));
     }
 
     /**
@@ -290,6 +339,7 @@ public class BMITrackerGUI extends JFrame {
      * @param args Argumen baris perintah (tidak digunakan).
      */
     public static void main(String[] args) {
+        BMIMetrics.getDefault().registerMBean(); // Metrik dapat dilihat dengan JConsole
         SwingUtilities.invokeLater(() -> new BMITrackerGUI().setVisible(true));
     }
 
@@ -299,36 +349,19 @@ public class BMITrackerGUI extends JFrame {
             int height = Integer.parseInt(tfHeight.getText());
             int weight = Integer.parseInt(tfWeight.getText());
 
-            if (height <= 0 || weight <= 0) {
-                throw new IllegalArgumentException("Tinggi dan berat badan harus lebih dari 0.");
-            }
-
-            double bmi = weight / Math.pow(height / 100.0, 2);
-
-            if (bmi < 10 || bmi > 100) {
-                throw new IllegalArgumentException("Hasil BMI tidak logis. Pastikan input benar.");
-            }
-
-            // Menentukan rekomendasi berdasarkan BMI
-            String recommendation;
-            if (bmi < 18.5) {
-                recommendation = "Bulking";
-            } else if (bmi > 25) {
-                recommendation = "Diet";
-            } else {
-                recommendation = "Ideal";
-            }
-
-            // Menambahkan data ke manajer dan tabel
-            BMIRecord record = new BMIRecord(height, weight, bmi, recommendation);
-            manager.addRecord(record);
+            // Menghitung BMI dan rekomendasi, lalu menambahkan data ke manajer dan tabel
+            BMIRecord record = BMIRecord.calculate(height, weight);
+            CompletableFuture<Void> saved = manager.addRecordAsync(record);
 
-            tableModel.addRow(new Object[]{record.getDate(), record.getTime(), height, weight, String.format("%.2f", bmi), recommendation});
+            tableModel.rowInserted();
 
             tfHeight.setText("");
             tfWeight.setText("");
 
-            JOptionPane.showMessageDialog(null, "Data berhasil ditambahkan!");
+            // Pesan ditampilkan setelah data tersimpan di disk, tanpa menahan EDT
+            commands.submit(null, "Menyimpan data", progress -> saved.get(),
+                    ignored -> JOptionPane.showMessageDialog(null, "Data berhasil ditambahkan!"),
+                    this::showError);
         } catch (NumberFormatException ex) {
             JOptionPane.showMessageDialog(null, "Masukkan angka yang valid untuk tinggi dan berat badan.");
         } catch (IllegalArgumentException ex) {